@@ -24,12 +24,15 @@
 
 package dev.aoqia.leaf.loom;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import dev.aoqia.leaf.loom.configuration.mods.ArtifactMetadata;
 import dev.aoqia.leaf.loom.util.copygamefile.CopyGameFileBuilder;
+import dev.aoqia.leaf.loom.util.copygamefile.CopyGameFileExecutor;
 
 import org.gradle.api.Project;
 import org.gradle.api.file.ConfigurableFileCollection;
@@ -113,6 +116,15 @@ public interface LoomGradleExtension extends LoomGradleExtensionAPI {
 
 	CopyGameFileBuilder copyGameFile(String path);
 
+	/**
+	 * Copy a batch of game files concurrently, skipping any output that is already up-to-date.
+	 *
+	 * @param copies The output paths mapped to the game file to copy there.
+	 */
+	default void copyGameFiles(Map<Path, String> copies) throws IOException {
+		CopyGameFileExecutor.copyAll(copies, this::copyGameFile);
+	}
+
 	boolean refreshDeps();
 
 	void setRefreshDeps(boolean refreshDeps);
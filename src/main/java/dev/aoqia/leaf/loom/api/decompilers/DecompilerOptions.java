@@ -60,12 +60,25 @@ public abstract class DecompilerOptions implements Named {
 	 */
 	public abstract Property<Integer> getMaxThreads();
 
+	/**
+	 * Number of forked JVMs to split the decompilation between, inner classes are always decompiled together with
+	 * their outer class. The shards are run in parallel, limited by Gradle's max workers.
+	 */
+	public abstract Property<Integer> getShards();
+
+	/**
+	 * Memory used for each forked JVM in megabytes when decompiling in more than one shard.
+	 */
+	public abstract Property<Long> getShardMemory();
+
 	public DecompilerOptions() {
 		getDecompilerClassName().finalizeValueOnRead();
 		getClasspath().finalizeValueOnRead();
 		getOptions().finalizeValueOnRead();
 		getMemory().convention(4096L).finalizeValueOnRead();
 		getMaxThreads().convention(Runtime.getRuntime().availableProcessors()).finalizeValueOnRead();
+		getShards().convention(1).finalizeValueOnRead();
+		getShardMemory().convention(getMemory()).finalizeValueOnRead();
 	}
 
 	public String getFormattedName() {
@@ -73,7 +86,11 @@ public abstract class DecompilerOptions implements Named {
 	}
 
 	// Done to work around weird issues with the workers, possibly https://github.com/gradle/gradle/issues/13422
-	public record Dto(String className, Map<String, String> options, int maxThreads) implements Serializable { }
+	public record Dto(String className, Map<String, String> options, int maxThreads) implements Serializable {
+		public Dto withMaxThreads(int maxThreads) {
+			return new Dto(className, options, maxThreads);
+		}
+	}
 
 	public Dto toDto() {
 		Check.require(getDecompilerClassName().isPresent(), "No decompiler classname specified for decompiler: " + getName());
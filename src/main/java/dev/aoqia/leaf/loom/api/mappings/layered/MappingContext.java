@@ -24,10 +24,13 @@
 
 package dev.aoqia.leaf.loom.api.mappings.layered;
 
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Map;
 import java.util.function.Supplier;
 
 import dev.aoqia.leaf.loom.util.copygamefile.CopyGameFileBuilder;
+import dev.aoqia.leaf.loom.util.copygamefile.CopyGameFileExecutor;
 
 import org.gradle.api.artifacts.Dependency;
 import org.gradle.api.artifacts.MinimalExternalModuleDependency;
@@ -67,6 +70,15 @@ public interface MappingContext {
 
 	CopyGameFileBuilder copyGameFile(String url);
 
+	/**
+	 * Copy a batch of game files concurrently, see {@link #copyGameFile(String)}.
+	 *
+	 * @param copies The output paths mapped to the game file to copy there.
+	 */
+	default void copyGameFiles(Map<Path, String> copies) throws IOException {
+		CopyGameFileExecutor.copyAll(copies, this::copyGameFile);
+	}
+
 	DownloadBuilder download(String url);
 
 	boolean refreshDeps();
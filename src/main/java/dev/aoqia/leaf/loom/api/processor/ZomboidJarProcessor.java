@@ -26,9 +26,11 @@ package dev.aoqia.leaf.loom.api.processor;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Set;
 
 import org.gradle.api.Named;
 import org.jspecify.annotations.Nullable;
+import org.objectweb.asm.ClassVisitor;
 
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
@@ -43,6 +45,16 @@ public interface ZomboidJarProcessor<S extends ZomboidJarProcessor.Spec> extends
 		return null;
 	}
 
+	/**
+	 * Processors that only need to visit classes can return a {@link ClassProcessor} so that they are applied
+	 * together with the other class processors in a single pass over the jar.
+	 * When present {@link #processJar(Path, Spec, ProcessorContext)} is not called by the processor manager.
+	 */
+	@Nullable
+	default ClassProcessor<S> processClasses() {
+		return null;
+	}
+
 	interface Spec {
 		// Must make sure hashCode is correctly implemented.
 	}
@@ -50,4 +62,22 @@ public interface ZomboidJarProcessor<S extends ZomboidJarProcessor.Spec> extends
 	interface MappingsProcessor<S> {
 		boolean transform(MemoryMappingTree mappings, S spec, MappingProcessorContext context);
 	}
+
+	interface ClassProcessor<S> {
+		/**
+		 * @return the transformer to apply to the jar, or null when there is nothing to transform
+		 */
+		@Nullable
+		ClassTransformer createTransformer(S spec, ProcessorContext context) throws IOException;
+	}
+
+	interface ClassTransformer {
+		/**
+		 * @return the internal names of the classes to transform, or null to transform every class in the jar
+		 */
+		@Nullable
+		Set<String> getTargets();
+
+		ClassVisitor createClassVisitor(String className, ClassVisitor next);
+	}
 }
@@ -39,9 +39,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import dev.aoqia.leaf.loom.util.Check;
-import dev.aoqia.leaf.loom.util.Pair;
+import dev.aoqia.leaf.loom.util.JarEntryPipeline;
 import dev.aoqia.leaf.loom.util.ZipReprocessorUtil;
-import dev.aoqia.leaf.loom.util.ZipUtils;
 import dev.aoqia.leaf.loom.util.fmj.LeafModJsonFactory;
 
 public class JarNester {
@@ -57,37 +56,78 @@ public class JarNester {
 		Check.require(LeafModJsonFactory.isModJar(modJar), "Cannot nest jars into none mod jar " + modJar.getName());
 
 		// Ensure deterministic ordering of entries in fabric.mod.json
-		Collection<File> sortedJars = jars.stream().sorted(Comparator.comparing(File::getName)).toList();
+		Collection<File> sortedJars = sortJars(jars);
 
 		try {
-			Map<String, Path> nestedJarPaths = new LinkedHashMap<>();
-
-			for (File file : sortedJars) {
-				String nestedJarPath = "META-INF/jars/" + file.getName();
-				Check.require(LeafModJsonFactory.isModJar(file), "Cannot nest none mod jar: " + file.getName());
-				Check.require(nestedJarPaths.putIfAbsent(nestedJarPath, file.toPath()) == null, "Cannot nest multiple jars at " + nestedJarPath);
-			}
+			Map<String, Path> nestedJarPaths = getNestedJarPaths(sortedJars);
 
 			ZipReprocessorUtil.appendZipEntries(modJar.toPath(), nestedJarPaths);
 			nestedJarPaths.keySet().forEach(path -> LOGGER.debug("Nested {} into {}", path, modJar.getName()));
 
             // TODO(leaf): Support leaf.mod.json
-			ZipReprocessorUtil.transformZipEntry(modJar.toPath(), "leaf.mod.json", bytes -> {
-				JsonObject json = GSON.fromJson(new String(bytes), JsonObject.class);
-				JsonArray nestedJars = json.has("jars") ? json.getAsJsonArray("jars") : new JsonArray();
-
-				for (File file : sortedJars) {
-					String nestedJarPath = "META-INF/jars/" + file.getName();
-					JsonObject entry = new JsonObject();
-					entry.addProperty("file", nestedJarPath);
-					nestedJars.add(entry);
-				}
-
-				json.add("jars", nestedJars);
-				return GSON.toJson(json).getBytes();
-			});
+			ZipReprocessorUtil.transformZipEntry(modJar.toPath(), "leaf.mod.json", bytes -> addNestedJars(bytes, sortedJars));
 		} catch (IOException e) {
 			throw new java.io.UncheckedIOException("Failed to nest jars into " + modJar.getName(), e);
 		}
 	}
+
+	/**
+	 * Nests the jars into a mod jar staged in memory, the nested jars are only read when the mod jar is written.
+	 */
+	public static void nestJars(Collection<File> jars, JarEntryPipeline modJar, String modJarName) {
+		if (jars.isEmpty()) {
+			LOGGER.debug("Nothing to nest into {}", modJarName);
+			return;
+		}
+
+		Check.require(LeafModJsonFactory.isModJar(modJar), "Cannot nest jars into none mod jar " + modJarName);
+
+		Collection<File> sortedJars = sortJars(jars);
+
+		try {
+			Map<String, Path> nestedJarPaths = getNestedJarPaths(sortedJars);
+
+			for (Map.Entry<String, Path> entry : nestedJarPaths.entrySet()) {
+				modJar.putFile(entry.getKey(), entry.getValue());
+				LOGGER.debug("Nested {} into {}", entry.getKey(), modJarName);
+			}
+
+			if (!modJar.transform("leaf.mod.json", bytes -> addNestedJars(bytes, sortedJars))) {
+				throw new IllegalArgumentException("Zip file (%s) does not contain entry (%s)".formatted(modJarName, "leaf.mod.json"));
+			}
+		} catch (IOException e) {
+			throw new java.io.UncheckedIOException("Failed to nest jars into " + modJarName, e);
+		}
+	}
+
+	private static Collection<File> sortJars(Collection<File> jars) {
+		return jars.stream().sorted(Comparator.comparing(File::getName)).toList();
+	}
+
+	private static Map<String, Path> getNestedJarPaths(Collection<File> sortedJars) {
+		Map<String, Path> nestedJarPaths = new LinkedHashMap<>();
+
+		for (File file : sortedJars) {
+			String nestedJarPath = "META-INF/jars/" + file.getName();
+			Check.require(LeafModJsonFactory.isModJar(file), "Cannot nest none mod jar: " + file.getName());
+			Check.require(nestedJarPaths.putIfAbsent(nestedJarPath, file.toPath()) == null, "Cannot nest multiple jars at " + nestedJarPath);
+		}
+
+		return nestedJarPaths;
+	}
+
+	private static byte[] addNestedJars(byte[] bytes, Collection<File> sortedJars) {
+		JsonObject json = GSON.fromJson(new String(bytes), JsonObject.class);
+		JsonArray nestedJars = json.has("jars") ? json.getAsJsonArray("jars") : new JsonArray();
+
+		for (File file : sortedJars) {
+			String nestedJarPath = "META-INF/jars/" + file.getName();
+			JsonObject entry = new JsonObject();
+			entry.addProperty("file", nestedJarPath);
+			nestedJars.add(entry);
+		}
+
+		json.add("jars", nestedJars);
+		return GSON.toJson(json).getBytes();
+	}
 }
@@ -31,9 +31,6 @@ import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.Duration;
-import java.util.Objects;
-import java.util.Optional;
 import java.util.function.Consumer;
 
 import javax.inject.Inject;
@@ -44,7 +41,6 @@ import dev.aoqia.leaf.loom.configuration.processors.speccontext.DebofConfigurati
 import dev.aoqia.leaf.loom.util.Constants;
 
 import org.gradle.api.Action;
-import org.gradle.api.GradleException;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
 import org.gradle.api.logging.Logger;
@@ -78,9 +74,9 @@ import dev.aoqia.leaf.loom.configuration.providers.zomboid.mapped.IntermediaryZo
 import dev.aoqia.leaf.loom.configuration.providers.zomboid.mapped.NamedZomboidProvider;
 import dev.aoqia.leaf.loom.extension.MixinExtension;
 import dev.aoqia.leaf.loom.task.service.ClasspathGroupService;
+import dev.aoqia.leaf.loom.util.CacheLock;
 import dev.aoqia.leaf.loom.util.Checksum;
 import dev.aoqia.leaf.loom.util.ExceptionUtil;
-import dev.aoqia.leaf.loom.util.ProcessUtil;
 import dev.aoqia.leaf.loom.util.gradle.GradleUtils;
 import dev.aoqia.leaf.loom.util.gradle.SourceSetHelper;
 import dev.aoqia.leaf.loom.util.gradle.daemon.DaemonUtils;
@@ -90,8 +86,6 @@ import dev.aoqia.leaf.loom.util.service.ServiceFactory;
 import org.jetbrains.annotations.Nullable;
 
 public abstract class CompileConfiguration implements Runnable {
-	private static final String LOCK_PROPERTY_KEY = "leaf.loom.internal.global.lock";
-
 	@Inject
 	protected abstract Project getProject();
 
@@ -118,29 +112,16 @@ public abstract class CompileConfiguration implements Runnable {
 
 			final boolean previousRefreshDeps = extension.refreshDeps();
 
-			final LockResult lockResult = acquireProcessLockWaiting(getLockFile());
-
-			if (lockResult != LockResult.ACQUIRED_CLEAN) {
-				getProject().getLogger().lifecycle("Found existing cache lock file ({}), rebuilding loom cache. This may have been caused by a failed or canceled build.", lockResult);
-				extension.setRefreshDeps(true);
-			}
-
+			// Configuring a project is exclusive across Gradle processes, the shared caches are locked per entry as they are produced.
 			try {
-				// Setting up loom across Gradle projects is not thread safe, synchronize it here to ensure that multiple projects cannot use it.
-				// There is no easy way around this, as we want to use the same global cache for downloaded or generated files.
-				synchronized (getGlobalLockObject()) {
-					setupZomboid(configContext);
-				}
-
-                var dependencyManager = new LoomDependencyManager(getProject(), serviceFactory, extension);
-                dependencyManager.handleDependencies();
-			} catch (Exception e) {
-				ExceptionUtil.processException(e, DaemonUtils.Context.fromProject(getProject()));
-				disownLock();
-				throw ExceptionUtil.createDescriptiveWrapper(RuntimeException::new, "Failed to setup Zomboid", e);
+				CacheLock.withExclusiveLock(getLockFile().file(), () -> {
+					setupProject(configContext, serviceFactory);
+					return null;
+				});
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to lock " + getLockFile(), e);
 			}
 
-			releaseLock();
 			extension.setRefreshDeps(previousRefreshDeps);
 
 			MixinExtension mixin = LoomGradleExtension.get(getProject()).getMixin();
@@ -175,6 +156,30 @@ public abstract class CompileConfiguration implements Runnable {
 		}
 	}
 
+	// Must be called while holding the project lock
+	private void setupProject(ConfigContext configContext, ServiceFactory serviceFactory) {
+		final LoomGradleExtension extension = configContext.extension();
+		final LockResult lockResult = markSetupStarted(getLockFile());
+
+		if (lockResult != LockResult.ACQUIRED_CLEAN) {
+			getProject().getLogger().lifecycle("Found existing cache lock file ({}), rebuilding loom cache. This may have been caused by a failed or canceled build.", lockResult);
+			extension.setRefreshDeps(true);
+		}
+
+		try {
+			setupZomboid(configContext);
+
+			var dependencyManager = new LoomDependencyManager(getProject(), serviceFactory, extension);
+			dependencyManager.handleDependencies();
+		} catch (Exception e) {
+			ExceptionUtil.processException(e, DaemonUtils.Context.fromProject(getProject()));
+			disownLock();
+			throw ExceptionUtil.createDescriptiveWrapper(RuntimeException::new, "Failed to setup Zomboid", e);
+		}
+
+		releaseLock();
+	}
+
 	private void setupZomboid(ConfigContext configContext) throws Exception {
 		final Project project = configContext.project();
 		final LoomGradleExtension extension = configContext.extension();
@@ -322,13 +327,16 @@ public abstract class CompileConfiguration implements Runnable {
 		final Path cacheDirectory = extension.getFiles().getUserCache().toPath();
 		final String pathHash = Checksum.of(getProject()).sha1().hex();
 		return new LockFile(
-				cacheDirectory.resolve("." + pathHash + ".lock"),
+				cacheDirectory.resolve("." + pathHash + ".owner"),
 				"Lock for cache='%s', project='%s'".formatted(
 						cacheDirectory, getProject().absoluteProjectPath(getProject().getPath())
 				)
 		);
 	}
 
+	/**
+	 * @param file Holds the pid of the process setting up the project, the process lock is taken on its {@code .cachelock} sibling
+	 */
 	record LockFile(Path file, String description) {
 		@Override
 		public String toString() {
@@ -337,121 +345,43 @@ public abstract class CompileConfiguration implements Runnable {
 	}
 
 	enum LockResult {
-		// acquired immediately or after waiting for another process to release
+		// no previous setup was interrupted
 		ACQUIRED_CLEAN,
-		// already owned by current pid
+		// a previous setup in the current pid did not finish
 		ACQUIRED_ALREADY_OWNED,
-		// acquired due to current owner not existing
+		// the previous owner terminated without finishing
 		ACQUIRED_PREVIOUS_OWNER_MISSING,
-		// acquired due to previous owner disowning the lock
+		// the previous owner failed and disowned the lock
 		ACQUIRED_PREVIOUS_OWNER_DISOWNED
 	}
 
-	private LockResult acquireProcessLockWaiting(LockFile lockFile) {
-		// one hour
-		return this.acquireProcessLockWaiting(lockFile, getDefaultTimeout());
-	}
-
-	private LockResult acquireProcessLockWaiting(LockFile lockFile, Duration timeout) {
-		try {
-			return this.acquireProcessLockWaiting_(lockFile, timeout);
-		} catch (final IOException e) {
-			throw new RuntimeException("Exception acquiring lock " + lockFile, e);
-		}
-	}
-
-	// Returns true if our process already owns the lock
-	@SuppressWarnings("BusyWait")
-	private LockResult acquireProcessLockWaiting_(LockFile lockFile, Duration timeout) throws IOException {
-		final long timeoutMs = timeout.toMillis();
+	// The process lock is held, so any previous owner has either finished, failed or terminated.
+	private LockResult markSetupStarted(LockFile lockFile) {
 		final Logger logger = Logging.getLogger("loom_acquireProcessLockWaiting");
 		final long currentPid = ProcessHandle.current().pid();
-		boolean abrupt = false;
-		boolean disowned = false;
+		LockResult result = LockResult.ACQUIRED_CLEAN;
 
-		if (Files.exists(lockFile.file)) {
-			long lockingProcessId = -1;
-
-			try {
-				String lockValue = Files.readString(lockFile.file);
+		try {
+			if (Files.exists(lockFile.file)) {
+				String lockValue = Files.readString(lockFile.file).trim();
 
 				if ("disowned".equals(lockValue)) {
-					disowned = true;
+					logger.lifecycle("Previous process has disowned the lock due to abrupt termination.");
+					result = LockResult.ACQUIRED_PREVIOUS_OWNER_DISOWNED;
+				} else if (String.valueOf(currentPid).equals(lockValue)) {
+					result = LockResult.ACQUIRED_ALREADY_OWNED;
 				} else {
-					lockingProcessId = Long.parseLong(lockValue);
-					logger.lifecycle("\"{}\" is currently held by pid '{}'.", lockFile, lockingProcessId);
+					logger.lifecycle("Locking process '{}' did not release \"{}\", assuming abrupt termination.", lockValue, lockFile);
+					result = LockResult.ACQUIRED_PREVIOUS_OWNER_MISSING;
 				}
-			} catch (final Exception ignored) {
-				// ignored
 			}
 
-			if (lockingProcessId == currentPid) {
-				return LockResult.ACQUIRED_ALREADY_OWNED;
-			}
-
-			Optional<ProcessHandle> handle = ProcessHandle.of(lockingProcessId);
-
-			if (disowned) {
-				logger.lifecycle("Previous process has disowned the lock due to abrupt termination.");
-				Files.deleteIfExists(lockFile.file);
-			} else if (handle.isEmpty()) {
-				logger.lifecycle("Locking process does not exist, assuming abrupt termination and deleting lock file.");
-				Files.deleteIfExists(lockFile.file);
-				abrupt = true;
-			} else {
-				ProcessUtil processUtil = ProcessUtil.create(getProject());
-				logger.lifecycle(processUtil.printWithParents(handle.get()));
-				logger.lifecycle("Waiting for lock to be released...");
-				long sleptMs = 0;
-
-				while (Files.exists(lockFile.file)) {
-					try {
-						Thread.sleep(100);
-					} catch (final InterruptedException e) {
-						Thread.currentThread().interrupt();
-					}
-
-					sleptMs += 100;
-
-					if (sleptMs >= 1000 * 60 && sleptMs % (1000 * 60) == 0L) {
-						logger.lifecycle(
-								"""
-										Have been waiting on "{}" held by pid '{}' for {} minute(s).
-										If this persists for an unreasonable length of time, kill this process, run './gradlew --stop' and then try again.""",
-								lockFile, lockingProcessId, sleptMs / 1000 / 60
-						);
-					}
-
-					if (sleptMs >= timeoutMs) {
-						throw new GradleException("Have been waiting on lock file '%s' for %s ms. Giving up as timeout is %s ms."
-								.formatted(lockFile, sleptMs, timeoutMs));
-					}
-				}
-			}
-		}
-
-		if (!Files.exists(lockFile.file.getParent())) {
-			Files.createDirectories(lockFile.file.getParent());
-		}
-
-		Files.writeString(lockFile.file, String.valueOf(currentPid));
-
-		if (disowned) {
-			return LockResult.ACQUIRED_PREVIOUS_OWNER_DISOWNED;
-		} else if (abrupt) {
-			return LockResult.ACQUIRED_PREVIOUS_OWNER_MISSING;
-		}
-
-		return LockResult.ACQUIRED_CLEAN;
-	}
-
-	private static Duration getDefaultTimeout() {
-		if (System.getenv("CI") != null) {
-			// Set a small timeout on CI, as it's unlikely going to unlock.
-			return Duration.ofMinutes(1);
+			Files.writeString(lockFile.file, String.valueOf(currentPid));
+		} catch (IOException e) {
+			throw new RuntimeException("Exception acquiring lock " + lockFile, e);
 		}
 
-		return Duration.ofHours(1);
+		return result;
 	}
 
 	// When we fail to configure, write "disowned" to the lock file to release it from this process
@@ -502,18 +432,4 @@ public abstract class CompileConfiguration implements Runnable {
 			}
 		});
 	}
-
-	// This is a nasty piece of work, but seems to work quite nicely.
-	// We need a lock that works across classloaders, a regular synchronized method will not work here.
-	// We can abuse system properties as a shared object store that we know for sure will be on the same classloader regardless of what Gradle does to loom.
-	// This allows us to ensure that all instances of loom regardless of classloader get the same object to lock on.
-	private static Object getGlobalLockObject() {
-		if (!System.getProperties().contains(LOCK_PROPERTY_KEY)) {
-			// The .intern resolves a possible race where two difference value objects (remember not the same classloader) are set.
-			//noinspection StringOperationCanBeSimplified
-			System.getProperties().setProperty(LOCK_PROPERTY_KEY, LOCK_PROPERTY_KEY.intern());
-		}
-
-		return Objects.requireNonNull(System.getProperty(LOCK_PROPERTY_KEY));
-	}
 }
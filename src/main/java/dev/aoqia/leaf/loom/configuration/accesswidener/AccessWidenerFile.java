@@ -27,6 +27,7 @@ package dev.aoqia.leaf.loom.configuration.accesswidener;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Objects;
@@ -34,6 +35,8 @@ import java.util.Objects;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 
+import dev.aoqia.leaf.loom.util.IOFunction;
+import dev.aoqia.leaf.loom.util.JarEntryPipeline;
 import dev.aoqia.leaf.loom.util.ZipUtils;
 
 public record AccessWidenerFile(
@@ -45,13 +48,24 @@ public record AccessWidenerFile(
 	 * Reads the access-widener contained in a mod jar, or returns null if there is none.
 	 */
 	public static AccessWidenerFile fromModJar(Path modJarPath) {
+		return read(modJarPath.toAbsolutePath().toString(), path -> ZipUtils.unpackNullable(modJarPath, path));
+	}
+
+	/**
+	 * Reads the access-widener contained in a mod jar staged in memory, or returns null if there is none.
+	 */
+	public static AccessWidenerFile fromModJar(JarEntryPipeline modJar, String name) {
+		return read(name, modJar::get);
+	}
+
+	private static AccessWidenerFile read(String modJarName, IOFunction<String, byte[]> reader) {
 		byte[] modJsonBytes;
 
 		try {
             // TODO(leaf): Make compatible with leaf.mod.json
-			modJsonBytes = ZipUtils.unpackNullable(modJarPath, "leaf.mod.json");
+			modJsonBytes = reader.apply("leaf.mod.json");
 		} catch (IOException e) {
-			throw new UncheckedIOException("Failed to read access-widener file from: " + modJarPath.toAbsolutePath(), e);
+			throw new UncheckedIOException("Failed to read access-widener file from: " + modJarName, e);
 		}
 
 		if (modJsonBytes == null) {
@@ -70,9 +84,13 @@ public record AccessWidenerFile(
 		byte[] content;
 
 		try {
-			content = ZipUtils.unpack(modJarPath, awPath);
+			content = reader.apply(awPath);
 		} catch (IOException e) {
-			throw new UncheckedIOException("Could not find access widener file (%s) defined in the leaf.mod.json file of %s".formatted(awPath, modJarPath.toAbsolutePath()), e);
+			throw new UncheckedIOException("Could not find access widener file (%s) defined in the leaf.mod.json file of %s".formatted(awPath, modJarName), e);
+		}
+
+		if (content == null) {
+			throw new UncheckedIOException(new NoSuchFileException("Could not find access widener file (%s) defined in the leaf.mod.json file of %s".formatted(awPath, modJarName)));
 		}
 
 		return new AccessWidenerFile(
@@ -134,6 +134,11 @@ public class AccessWidenerJarProcessor implements ZomboidJarProcessor<AccessWide
 		transformer.apply(jar);
 	}
 
+	@Override
+	public ClassProcessor<AccessWidenerJarProcessor.Spec> processClasses() {
+		return (spec, context) -> new AccessWidenerTransformer(getClassTweaker(spec, context)).asClassTransformer();
+	}
+
 	private ClassTweaker getClassTweaker(AccessWidenerJarProcessor.Spec spec, ProcessorContext context) throws IOException {
 		final List<AccessWidenerEntry> accessWideners = spec.accessWidenersForContext(context);
 
@@ -38,6 +38,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.fabricmc.classtweaker.api.ClassTweaker;
+import dev.aoqia.leaf.loom.api.processor.ZomboidJarProcessor;
 import dev.aoqia.leaf.loom.util.Constants;
 import dev.aoqia.leaf.loom.util.Pair;
 import dev.aoqia.leaf.loom.util.ZipUtils;
@@ -69,6 +70,25 @@ final class AccessWidenerTransformer {
 		}
 	}
 
+	/**
+	 * Create a class transformer that applies the rules from an access-widener as part of a combined pass over the jar.
+	 */
+	ZomboidJarProcessor.ClassTransformer asClassTransformer() {
+		final Set<String> targets = accessWidener.getTargets();
+
+		return new ZomboidJarProcessor.ClassTransformer() {
+			@Override
+			public Set<String> getTargets() {
+				return targets;
+			}
+
+			@Override
+			public ClassVisitor createClassVisitor(String className, ClassVisitor next) {
+				return accessWidener.createClassVisitor(Constants.ASM_VERSION, next, null);
+			}
+		};
+	}
+
 	private List<Pair<String, ZipUtils.UnsafeUnaryOperator<byte[]>>> getTransformers(Set<String> classes) {
 		return classes.stream()
 				.map(string -> new Pair<>(string + ".class", getTransformer(string)))
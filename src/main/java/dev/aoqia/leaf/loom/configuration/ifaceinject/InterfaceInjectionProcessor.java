@@ -165,6 +165,30 @@ public abstract class InterfaceInjectionProcessor implements ZomboidJarProcessor
 		);
 	}
 
+	@Override
+	public @Nullable ClassProcessor<Spec> processClasses() {
+		return (spec, context) -> {
+			final Map<String, List<InjectedInterface>> injectedInterfaces = getInjectedInterfaces(spec, context).stream()
+					.collect(Collectors.groupingBy(injectedInterface -> injectedInterface.className().replaceAll("\\.", "/")));
+
+			if (injectedInterfaces.isEmpty()) {
+				return null;
+			}
+
+			return new ClassTransformer() {
+				@Override
+				public Set<String> getTargets() {
+					return injectedInterfaces.keySet();
+				}
+
+				@Override
+				public ClassVisitor createClassVisitor(String className, ClassVisitor next) {
+					return new InjectingClassVisitor(Constants.ASM_VERSION, next, injectedInterfaces.get(className));
+				}
+			};
+		};
+	}
+
 	private List<Pair<String, ZipUtils.UnsafeUnaryOperator<byte[]>>> getTransformers(List<InjectedInterface> injectedInterfaces) {
 		return injectedInterfaces.stream()
 				.collect(Collectors.groupingBy(InjectedInterface::className))
@@ -304,8 +328,8 @@ public abstract class InterfaceInjectionProcessor implements ZomboidJarProcessor
 		private final List<InjectedInterface> injectedInterfaces;
 		private final Set<String> knownInnerClasses = new HashSet<>();
 
-		InjectingClassVisitor(int asmVersion, ClassWriter writer, List<InjectedInterface> injectedInterfaces) {
-			super(asmVersion, writer);
+		InjectingClassVisitor(int asmVersion, ClassVisitor next, List<InjectedInterface> injectedInterfaces) {
+			super(asmVersion, next);
 			this.injectedInterfaces = injectedInterfaces;
 		}
 
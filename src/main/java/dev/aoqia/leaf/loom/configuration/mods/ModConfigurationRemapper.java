@@ -33,6 +33,7 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -67,12 +68,14 @@ import org.slf4j.LoggerFactory;
 import dev.aoqia.leaf.loom.LoomGradleExtension;
 import dev.aoqia.leaf.loom.LoomGradlePlugin;
 import dev.aoqia.leaf.loom.api.RemapConfigurationSettings;
+import dev.aoqia.leaf.loom.api.mappings.layered.MappingsNamespace;
 import dev.aoqia.leaf.loom.configuration.RemapConfigurations;
 import dev.aoqia.leaf.loom.configuration.mods.dependency.ModDependency;
 import dev.aoqia.leaf.loom.configuration.mods.dependency.ModDependencyFactory;
 import dev.aoqia.leaf.loom.configuration.mods.dependency.ModDependencyOptions;
 import dev.aoqia.leaf.loom.configuration.providers.zomboid.ZomboidSourceSets;
 import dev.aoqia.leaf.loom.util.AsyncCache;
+import dev.aoqia.leaf.loom.util.CacheLock;
 import dev.aoqia.leaf.loom.util.Checksum;
 import dev.aoqia.leaf.loom.util.Constants;
 import dev.aoqia.leaf.loom.util.ExceptionUtil;
@@ -198,33 +201,58 @@ public class ModConfigurationRemapper {
 		});
 
 		// Round 2: Remapping
-		// Remap all discovered artifacts.
-		configsToRemap.forEach((sourceConfig, remappedConfig) -> {
-			final List<ModDependency> modDependencies = dependenciesBySourceConfig.get(sourceConfig);
+		// Remap all discovered artifacts with a single remapper. The same artifact is often found in
+		// several configurations (e.g. once for each usage attribute), so each one is only remapped once.
+		// The remapped mods are shared by every project of the build, each one is checked under a shared lock
+		// and produced under an exclusive lock on its own cache entry.
+		final boolean refreshDeps = extension.refreshDeps();
+		final Map<ModDependency, Provider<? extends Configuration>> staleDependencies = new LinkedHashMap<>();
+
+		try {
+			for (Provider<? extends Configuration> sourceConfig : configsToRemap.keySet()) {
+				for (ModDependency dependency : dependenciesBySourceConfig.get(sourceConfig)) {
+					if (refreshDeps || CacheLock.withSharedLock(getCacheLockEntry(dependency), () -> dependency.isCacheInvalid(project, null))) {
+						staleDependencies.putIfAbsent(dependency, sourceConfig);
+					}
+				}
+			}
+
+			if (!staleDependencies.isEmpty()) {
+				// Locked in a fixed order, so that two processes remapping overlapping sets of mods cannot deadlock
+				final List<Path> lockEntries = staleDependencies.keySet().stream()
+						.map(ModConfigurationRemapper::getCacheLockEntry)
+						.distinct()
+						.sorted()
+						.toList();
+
+				withExclusiveLocks(lockEntries, 0, () -> {
+					final ModRemapPlan remapPlan = new ModRemapPlan(MappingsNamespace.NAMED.toString());
+					final Set<Provider<? extends Configuration>> remapSourceConfigs = new LinkedHashSet<>();
+
+					staleDependencies.forEach((dependency, sourceConfig) -> {
+						// Another project or process may have remapped it while waiting for the lock
+						if (refreshDeps || dependency.isCacheInvalid(project, null)) {
+							remapPlan.add(dependency);
+							remapSourceConfigs.add(sourceConfig);
+						}
+					});
+
+					if (!remapPlan.isEmpty()) {
+						new ModProcessor(project, serviceFactory).processMods(remapPlan, remapSourceConfigs);
+					}
 
-			if (modDependencies.isEmpty()) {
-				// Nothing else to do
-				return;
+					return null;
+				});
 			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to remap mods", e);
+		}
 
+		// Round 3: Add all of the remapped mods onto their configs
+		configsToRemap.forEach((sourceConfig, remappedConfig) -> {
 			final NamedDomainObjectProvider<? extends Configuration> clientRemappedConfig = clientConfigsToRemap.get(sourceConfig);
-			final boolean refreshDeps = LoomGradleExtension.get(project).refreshDeps();
-			// TODO: With the same artifacts being considered multiple times for their different
-			//   usage attributes, this should probably not process them multiple times even with refreshDeps.
-			final List<ModDependency> toRemap = modDependencies.stream()
-					.filter(dependency -> refreshDeps || dependency.isCacheInvalid(project, null))
-					.toList();
-
-			if (!toRemap.isEmpty()) {
-				try {
-					new ModProcessor(project, sourceConfig, serviceFactory).processMods(toRemap);
-				} catch (IOException e) {
-					throw new UncheckedIOException("Failed to remap mods", e);
-				}
-			}
 
-			// Add all of the remapped mods onto the config
-			for (ModDependency info : modDependencies) {
+			for (ModDependency info : dependenciesBySourceConfig.get(sourceConfig)) {
 				info.applyToProject(project);
 				createConstraints(info.getInputArtifact(), remappedConfig, sourceConfig, dependencies);
 
@@ -235,6 +263,23 @@ public class ModConfigurationRemapper {
 		});
 	}
 
+	// The main remapped jar identifies the artifact, the other cache files of the dependency are written with it
+	private static Path getCacheLockEntry(ModDependency dependency) {
+		return dependency.getCacheFiles(null).getFirst();
+	}
+
+	private static void withExclusiveLocks(List<Path> entries, int index, CacheLock.Action<Void, IOException> action) throws IOException {
+		if (index == entries.size()) {
+			action.run();
+			return;
+		}
+
+		CacheLock.withExclusiveLock(entries.get(index), () -> {
+			withExclusiveLocks(entries, index + 1, action);
+			return null;
+		});
+	}
+
 	private static Map<ArtifactRef, ArtifactMetadata> getMetadata(List<ArtifactRef> artifacts, AsyncCache<ArtifactMetadata> cache, ArtifactMetadata.MixinRemapType defaultMixinRemapType) {
 		var futures = new HashMap<ArtifactRef, CompletableFuture<ArtifactMetadata>>();
 
@@ -371,7 +416,10 @@ public class ModConfigurationRemapper {
 
 			sourceRemapper.scheduleRemapSources(sourcesInput.toFile(), output.toFile(), false, true, () -> {
 				try {
-					dependency.copyToCache(project, output, "sources");
+					CacheLock.withExclusiveLock(dependency.getCacheFiles("sources").getFirst(), () -> {
+						dependency.copyToCache(project, output, "sources");
+						return null;
+					});
 				} catch (IOException e) {
 					throw new UncheckedIOException("Failed to apply sources to local cache for: " + dependency, e);
 				}
@@ -24,13 +24,11 @@
 
 package dev.aoqia.leaf.loom.configuration.mods;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -38,11 +36,10 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
-import java.util.jar.Manifest;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
-import com.google.gson.JsonObject;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.attributes.Usage;
@@ -57,17 +54,14 @@ import dev.aoqia.leaf.loom.configuration.mods.dependency.ModDependency;
 import dev.aoqia.leaf.loom.configuration.mods.extension.ModProcessorExtension;
 import dev.aoqia.leaf.loom.configuration.providers.mappings.MappingConfiguration;
 import dev.aoqia.leaf.loom.extension.RemapperExtensionHolder;
-import dev.aoqia.leaf.loom.util.Constants;
 import dev.aoqia.leaf.loom.util.IdentityBiMap;
 import dev.aoqia.leaf.loom.util.Pair;
 import dev.aoqia.leaf.loom.util.TinyRemapperHelper;
 import dev.aoqia.leaf.loom.util.TinyRemapperLoggerAdapter;
-import dev.aoqia.leaf.loom.util.ZipUtils;
 import dev.aoqia.leaf.loom.util.kotlin.KotlinClasspathService;
 import dev.aoqia.leaf.loom.util.kotlin.KotlinRemapperClassloader;
 import dev.aoqia.leaf.loom.util.service.ServiceFactory;
 import net.fabricmc.tinyremapper.InputTag;
-import net.fabricmc.tinyremapper.NonClassCopyMode;
 import net.fabricmc.tinyremapper.OutputConsumerPath;
 import net.fabricmc.tinyremapper.TinyRemapper;
 
@@ -79,21 +73,34 @@ public class ModProcessor {
 	private static final Pattern COPY_CONFIGURATION_PATTERN = Pattern.compile("^(.+)Copy[0-9]*$");
 
 	private final Project project;
-	private final Provider<? extends Configuration> sourceConfiguration;
 	private final ServiceFactory serviceFactory;
 
-	public ModProcessor(Project project, Provider<? extends Configuration> sourceConfiguration, ServiceFactory serviceFactory) {
+	public ModProcessor(Project project, ServiceFactory serviceFactory) {
 		this.project = project;
-		this.sourceConfiguration = sourceConfiguration;
 		this.serviceFactory = serviceFactory;
 	}
 
-	public void processMods(List<ModDependency> remapList) throws IOException {
+	/**
+	 * Remaps every unique artifact in the plan, using a single remapper per run, and copies each output to all of the
+	 * dependencies that share it.
+	 */
+	void processMods(ModRemapPlan plan, Collection<? extends Provider<? extends Configuration>> sourceConfigurations) throws IOException {
+		final List<ModRemapPlan.Group> groups = plan.getGroups();
+
 		try {
-			LOGGER.info(":remapping {} mods from {}", remapList.size(), describeConfiguration(sourceConfiguration));
-			remapJars(remapList);
+			if (LOGGER.isInfoEnabled()) {
+				final String description = sourceConfigurations.stream()
+						.map(this::describeConfiguration)
+						.distinct()
+						.collect(Collectors.joining(", "));
+				LOGGER.info(":remapping {} mods from {}", groups.size(), description);
+			}
+
+			for (ModRemapPlan.Run run : plan.getRuns()) {
+				remapJars(run);
+			}
 		} catch (Exception e) {
-			throw new RuntimeException(String.format(Locale.ENGLISH, "Failed to remap %d mods", remapList.size()), e);
+			throw new RuntimeException(String.format(Locale.ENGLISH, "Failed to remap %d mods", groups.size()), e);
 		}
 	}
 
@@ -124,19 +131,9 @@ public class ModProcessor {
 		return description;
 	}
 
-	private void stripNestedJars(Path path) {
-		// Strip out all contained jar info as we dont want loader to try and load the jars contained in dev.
-		try {
-			ZipUtils.transformJson(JsonObject.class, path, Map.of("leaf.mod.json", json -> {
-				json.remove("jars");
-				return json;
-			}));
-		} catch (IOException e) {
-			throw new UncheckedIOException("Failed to strip nested jars from %s".formatted(path), e);
-		}
-	}
-
-	private void remapJars(List<ModDependency> remapList) throws IOException {
+	private void remapJars(ModRemapPlan.Run run) throws IOException {
+		final List<ModRemapPlan.Group> groups = run.groups();
+		final List<ModDependency> remapList = groups.stream().map(ModRemapPlan.Group::input).toList();
 		final LoomGradleExtension extension = LoomGradleExtension.get(project);
 		final MappingConfiguration mappingConfiguration = extension.getMappingConfiguration();
 
@@ -188,11 +185,17 @@ public class ModProcessor {
 		remapper.readClassPath(extension.getZomboidJars(productionNamespace).toArray(Path[]::new));
 
 		final Map<ModDependency, OutputConsumerPath> outputConsumerMap = new HashMap<>();
-		final Map<ModDependency, Pair<byte[], String>> accessWidenerMap = new HashMap<>();
+
+		// The same file is often present in several remap configurations, only read it once.
+		final Set<File> classpathFiles = new HashSet<>();
+
+		for (Path inputFile : run.inputFiles()) {
+			classpathFiles.add(inputFile.toFile());
+		}
 
 		for (RemapConfigurationSettings entry : extension.getRemapConfigurations()) {
 			for (File inputFile : entry.getSourceConfiguration().get().getFiles()) {
-				if (remapList.stream().noneMatch(info -> info.getInputFile().toFile().equals(inputFile))) {
+				if (classpathFiles.add(inputFile)) {
 					LOGGER.debug("Adding " + inputFile + " onto the remap classpath");
 					remapper.readClassPathAsync(inputFile.toPath());
 				}
@@ -214,18 +217,19 @@ public class ModProcessor {
 			for (ModDependency dependency : remapList) {
 				try {
 					OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(getRemappedOutput(dependency)).build();
-
-					outputConsumer.addNonClassFiles(dependency.getInputFile(), NonClassCopyMode.FIX_META_INF, remapper);
 					outputConsumerMap.put(dependency, outputConsumer);
 
 					final AccessWidenerUtils.AccessWidenerData accessWidenerData = AccessWidenerUtils.readAccessWidenerData(dependency.getInputFile());
+					Pair<byte[], String> accessWidener = null;
 
 					if (accessWidenerData != null) {
 						LOGGER.debug("Remapping access widener in {}", dependency.getInputFile());
 						byte[] remappedAw = AccessWidenerUtils.remapAccessWidener(accessWidenerData.content(), remapper.getEnvironment().getRemapper(), productionNamespace.toString(), toM);
-						accessWidenerMap.put(dependency, new Pair<>(remappedAw, accessWidenerData.path()));
+						accessWidener = new Pair<>(remappedAw, accessWidenerData.path());
 					}
 
+					// The access widener, mod json and manifest are edited as they are copied, so the jar is only written once.
+					outputConsumer.addNonClassFiles(dependency.getInputFile(), remapper, ModResourceProcessor.create(toM, accessWidener));
 					remapper.apply(outputConsumer, inputTags.getByValue(dependency));
 				} catch (Exception e) {
 					throw new RuntimeException("Failed to remap: " + dependency, e);
@@ -239,15 +243,11 @@ public class ModProcessor {
 			}
 		}
 
-		for (ModDependency dependency : remapList) {
+		for (ModRemapPlan.Group group : groups) {
+			final ModDependency dependency = group.input();
 			outputConsumerMap.get(dependency).close();
 
 			final Path output = getRemappedOutput(dependency);
-			final Pair<byte[], String> accessWidener = accessWidenerMap.get(dependency);
-
-			if (accessWidener != null) {
-				ZipUtils.replace(output, accessWidener.right(), accessWidener.left());
-			}
 
 			for (ModProcessorExtension modProcessorExtension : activeExtensions) {
 				if (modProcessorExtension.appliesTo(dependency)) {
@@ -255,25 +255,13 @@ public class ModProcessor {
 				}
 			}
 
-			stripNestedJars(output);
-			remapJarManifestEntries(output);
-			dependency.copyToCache(project, output, null);
+			for (ModDependency target : group.targets()) {
+				target.copyToCache(project, output, null);
+			}
 		}
 	}
 
 	private Path getRemappedOutput(ModDependency dependency) {
 		return dependency.getWorkingFile(project, null);
 	}
-
-	private void remapJarManifestEntries(Path jar) throws IOException {
-		ZipUtils.transform(jar, Map.of(Constants.Manifest.PATH, bytes -> {
-			var manifest = new Manifest(new ByteArrayInputStream(bytes));
-
-			manifest.getMainAttributes().putValue(Constants.Manifest.MAPPING_NAMESPACE, toM);
-
-			ByteArrayOutputStream out = new ByteArrayOutputStream();
-			manifest.write(out);
-			return out.toByteArray();
-		}));
-	}
 }
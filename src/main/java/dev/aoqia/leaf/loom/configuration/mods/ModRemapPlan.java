@@ -0,0 +1,156 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.configuration.mods;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import dev.aoqia.leaf.loom.configuration.mods.dependency.ModDependency;
+import dev.aoqia.leaf.loom.util.Checksum;
+
+/**
+ * Collects the mod dependencies that need remapping from every remap configuration, so that each unique artifact
+ * is remapped once per build.
+ *
+ * <p>An artifact is identified by the hash of its contents, the target namespace and the dependency options. The
+ * same jar resolved through several configurations or usage attributes is remapped once, and the output is then
+ * copied to the cache of every dependency in its group.
+ */
+final class ModRemapPlan {
+	private final String targetNamespace;
+	private final Map<Key, List<ModDependency>> groups = new LinkedHashMap<>();
+	private final Map<Path, String> contentHashes = new HashMap<>();
+
+	ModRemapPlan(String targetNamespace) {
+		this.targetNamespace = targetNamespace;
+	}
+
+	void add(ModDependency dependency) {
+		final String hash = contentHashes.computeIfAbsent(dependency.getInputFile(), path -> Checksum.of(path).sha256().hex());
+		final Key key = new Key(hash, targetNamespace, dependency.getOptions().getCacheKey());
+		groups.computeIfAbsent(key, k -> new ArrayList<>()).add(dependency);
+	}
+
+	boolean isEmpty() {
+		return groups.isEmpty();
+	}
+
+	/**
+	 * Returns one group per unique artifact, in the order they were first added.
+	 */
+	List<Group> getGroups() {
+		final List<Group> result = new ArrayList<>(groups.size());
+
+		for (List<ModDependency> dependencies : groups.values()) {
+			result.add(createGroup(dependencies));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Splits the groups into remapper runs. A remapper cannot read the same classes twice, so the groups of an
+	 * artifact used with several sets of options are placed in separate runs.
+	 */
+	List<Run> getRuns() {
+		final List<Set<String>> runHashes = new ArrayList<>();
+		final List<List<Group>> runGroups = new ArrayList<>();
+
+		for (Map.Entry<Key, List<ModDependency>> entry : groups.entrySet()) {
+			final String hash = entry.getKey().contentHash();
+			int run = 0;
+
+			while (run < runHashes.size() && runHashes.get(run).contains(hash)) {
+				run++;
+			}
+
+			if (run == runHashes.size()) {
+				runHashes.add(new HashSet<>());
+				runGroups.add(new ArrayList<>());
+			}
+
+			runHashes.get(run).add(hash);
+			runGroups.get(run).add(createGroup(entry.getValue()));
+		}
+
+		final List<Run> result = new ArrayList<>(runGroups.size());
+
+		for (int i = 0; i < runGroups.size(); i++) {
+			final Set<String> hashes = runHashes.get(i);
+			final Set<Path> inputFiles = new HashSet<>();
+
+			contentHashes.forEach((path, hash) -> {
+				if (hashes.contains(hash)) {
+					inputFiles.add(path);
+				}
+			});
+
+			result.add(new Run(List.copyOf(runGroups.get(i)), Set.copyOf(inputFiles)));
+		}
+
+		return result;
+	}
+
+	private static Group createGroup(List<ModDependency> dependencies) {
+		final List<ModDependency> targets = new ArrayList<>();
+		final Set<Path> cacheFiles = new HashSet<>();
+
+		// Dependencies that write to the same cache files only need to be copied once.
+		for (ModDependency dependency : dependencies) {
+			if (cacheFiles.addAll(dependency.getCacheFiles(null))) {
+				targets.add(dependency);
+			}
+		}
+
+		return new Group(dependencies.getFirst(), List.copyOf(targets));
+	}
+
+	/**
+	 * A unique artifact to remap.
+	 *
+	 * @param input the dependency used as the remapper input
+	 * @param targets the dependencies the remapped output is copied to, including the input
+	 */
+	record Group(ModDependency input, List<ModDependency> targets) {
+	}
+
+	/**
+	 * The groups remapped by a single remapper.
+	 *
+	 * @param groups the groups to remap, no two groups share the same contents
+	 * @param inputFiles every file with the same contents as one of the inputs, these must not be read onto the classpath
+	 */
+	record Run(List<Group> groups, Set<Path> inputFiles) {
+	}
+
+	private record Key(String contentHash, String targetNamespace, String optionsKey) {
+	}
+}
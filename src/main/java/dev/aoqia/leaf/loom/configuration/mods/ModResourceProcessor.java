@@ -0,0 +1,142 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.configuration.mods;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.Manifest;
+
+import com.google.gson.JsonObject;
+import org.jspecify.annotations.Nullable;
+
+import dev.aoqia.leaf.loom.LoomGradlePlugin;
+import dev.aoqia.leaf.loom.util.Constants;
+import dev.aoqia.leaf.loom.util.Pair;
+import net.fabricmc.tinyremapper.NonClassCopyMode;
+import net.fabricmc.tinyremapper.OutputConsumerPath;
+import net.fabricmc.tinyremapper.TinyRemapper;
+
+/**
+ * Applies the post-remap edits to a mod's resources while they are copied into the remapped jar, so that the
+ * output is written once in its final form rather than being rewritten by a zip pass per edit.
+ *
+ * <p>Resources that are not edited here are passed on to the {@link NonClassCopyMode#FIX_META_INF} remappers.
+ */
+final class ModResourceProcessor implements OutputConsumerPath.ResourceRemapper {
+	private static final String MOD_JSON = "leaf.mod.json";
+
+	private final String targetNamespace;
+	@Nullable
+	private final Pair<byte[], String> accessWidener;
+
+	private ModResourceProcessor(String targetNamespace, @Nullable Pair<byte[], String> accessWidener) {
+		this.targetNamespace = targetNamespace;
+		this.accessWidener = accessWidener;
+	}
+
+	/**
+	 * Returns the resource remappers to pass to {@link OutputConsumerPath#addNonClassFiles(Path, TinyRemapper, List)}.
+	 *
+	 * @param accessWidener the remapped access widener contents and its path in the jar, if the mod has one
+	 */
+	static List<OutputConsumerPath.ResourceRemapper> create(String targetNamespace, @Nullable Pair<byte[], String> accessWidener) {
+		final List<OutputConsumerPath.ResourceRemapper> remappers = new ArrayList<>();
+		remappers.add(new ModResourceProcessor(targetNamespace, accessWidener));
+		remappers.addAll(NonClassCopyMode.FIX_META_INF.remappers);
+		return remappers;
+	}
+
+	@Override
+	public boolean canTransform(TinyRemapper remapper, Path relativePath) {
+		final String name = getName(relativePath);
+		return name.equals(MOD_JSON)
+				|| name.equals(Constants.Manifest.PATH)
+				|| (accessWidener != null && name.equals(accessWidener.right()));
+	}
+
+	@Override
+	public void transform(Path destinationDirectory, Path relativePath, InputStream input, TinyRemapper remapper) throws IOException {
+		final String name = getName(relativePath);
+		final Path output = destinationDirectory.resolve(name);
+		Files.createDirectories(output.toAbsolutePath().getParent());
+
+		if (accessWidener != null && name.equals(accessWidener.right())) {
+			Files.write(output, accessWidener.left());
+		} else if (name.equals(MOD_JSON)) {
+			Files.write(output, stripNestedJars(input.readAllBytes()));
+		} else {
+			transformManifest(destinationDirectory, relativePath, input, remapper, output);
+		}
+	}
+
+	private static byte[] stripNestedJars(byte[] bytes) {
+		// Strip out all contained jar info as we dont want loader to try and load the jars contained in dev.
+		final JsonObject json = LoomGradlePlugin.GSON.fromJson(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8), JsonObject.class);
+		json.remove("jars");
+		return LoomGradlePlugin.GSON.toJson(json, JsonObject.class).getBytes(StandardCharsets.UTF_8);
+	}
+
+	private void transformManifest(Path destinationDirectory, Path relativePath, InputStream input, TinyRemapper remapper, Path output) throws IOException {
+		boolean fixed = false;
+
+		// Let the META-INF fixer strip the signature data first, it writes the manifest to the output so read it back from there.
+		for (OutputConsumerPath.ResourceRemapper fixer : NonClassCopyMode.FIX_META_INF.remappers) {
+			if (fixer.canTransform(remapper, relativePath)) {
+				fixer.transform(destinationDirectory, relativePath, input, remapper);
+				fixed = true;
+				break;
+			}
+		}
+
+		final Manifest manifest;
+
+		if (fixed) {
+			try (InputStream is = Files.newInputStream(output)) {
+				manifest = new Manifest(is);
+			}
+		} else {
+			manifest = new Manifest(input);
+		}
+
+		manifest.getMainAttributes().putValue(Constants.Manifest.MAPPING_NAMESPACE, targetNamespace);
+
+		try (OutputStream os = Files.newOutputStream(output)) {
+			manifest.write(os);
+		}
+	}
+
+	private static String getName(Path relativePath) {
+		final String name = relativePath.toString().replace('\\', '/');
+		return name.startsWith("/") ? name.substring(1) : name;
+	}
+}
@@ -26,6 +26,7 @@ package dev.aoqia.leaf.loom.configuration.mods.dependency;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.List;
 
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.component.ComponentIdentifier;
@@ -66,6 +67,11 @@ public abstract sealed class ModDependency permits SplitModDependency, SimpleMod
 	 */
 	public abstract void copyToCache(Project project, Path path, @Nullable String variant) throws IOException;
 
+	/**
+	 * Returns the local cache files written by {@link #copyToCache(Project, Path, String)}.
+	 */
+	public abstract List<Path> getCacheFiles(@Nullable String variant);
+
 	/**
 	 * Apply the dependency to the project.
 	 */
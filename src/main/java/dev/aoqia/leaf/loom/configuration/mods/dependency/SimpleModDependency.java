@@ -26,6 +26,7 @@ package dev.aoqia.leaf.loom.configuration.mods.dependency;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Objects;
 
 import org.gradle.api.NamedDomainObjectProvider;
@@ -57,6 +58,11 @@ public final class SimpleModDependency extends ModDependency {
 		maven.copyToMaven(path, variant);
 	}
 
+	@Override
+	public List<Path> getCacheFiles(@Nullable String variant) {
+		return List.of(maven.getOutputFile(variant));
+	}
+
 	@Override
 	public void applyToProject(Project project) {
 		project.getDependencies().add(targetConfig.getName(), maven.getNotation());
@@ -26,6 +26,7 @@ package dev.aoqia.leaf.loom.configuration.mods.dependency;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Objects;
 
 import org.gradle.api.NamedDomainObjectProvider;
@@ -103,6 +104,15 @@ public final class SplitModDependency extends ModDependency {
 		}
 	}
 
+	@Override
+	public List<Path> getCacheFiles(@Nullable String variant) {
+		return switch (target) {
+		case COMMON_ONLY -> List.of(getCommonMaven().getOutputFile(variant));
+		case CLIENT_ONLY -> List.of(getClientMaven().getOutputFile(variant));
+		case SPLIT -> List.of(getCommonMaven().getOutputFile(variant), getClientMaven().getOutputFile(variant));
+		};
+	}
+
 	@Override
 	public void applyToProject(Project project) {
 		if (target.common()) {
@@ -27,10 +27,14 @@ package dev.aoqia.leaf.loom.configuration.processors;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Map;
+import java.util.Set;
 
 import javax.inject.Inject;
 
 import org.jspecify.annotations.Nullable;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.commons.ClassRemapper;
+import org.objectweb.asm.commons.SimpleRemapper;
 
 import dev.aoqia.leaf.loom.api.processor.ZomboidJarProcessor;
 import dev.aoqia.leaf.loom.api.processor.ProcessorContext;
@@ -75,6 +79,23 @@ public class JsrAnnotationRemapperProcessor implements ZomboidJarProcessor<JsrAn
 		}
 	}
 
+	@Override
+	public ClassProcessor<Spec> processClasses() {
+		return (spec, context) -> new ClassTransformer() {
+			private final SimpleRemapper remapper = new SimpleRemapper(spec.annotationMapping());
+
+			@Override
+			public @Nullable Set<String> getTargets() {
+				return null;
+			}
+
+			@Override
+			public ClassVisitor createClassVisitor(String className, ClassVisitor next) {
+				return new ClassRemapper(next, remapper);
+			}
+		};
+	}
+
 	@Override
 	public String getName() {
 		return name;
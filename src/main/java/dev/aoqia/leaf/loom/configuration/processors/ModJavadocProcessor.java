@@ -104,6 +104,12 @@ public abstract class ModJavadocProcessor implements ZomboidJarProcessor<ModJava
 		// Nothing to do for the jar
 	}
 
+	@Override
+	public @Nullable ClassProcessor<Spec> processClasses() {
+		// Nothing to do for the jar, skips the pass over the jar entirely
+		return (spec, context) -> null;
+	}
+
 	@Override
 	public @Nullable MappingsProcessor<Spec> processMappings() {
 		return (mappings, spec, context) -> {
@@ -30,13 +30,23 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.gradle.api.Project;
 import org.jspecify.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,6 +58,7 @@ import dev.aoqia.leaf.loom.api.processor.SpecContext;
 import dev.aoqia.leaf.loom.configuration.processors.speccontext.DeobfSpecContext;
 import dev.aoqia.leaf.loom.configuration.processors.speccontext.RemappedSpecContext;
 import dev.aoqia.leaf.loom.util.Checksum;
+import dev.aoqia.leaf.loom.util.ZipUtils;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 public final class ZomboidJarProcessorManager {
@@ -141,21 +152,113 @@ public final class ZomboidJarProcessorManager {
 	}
 
 	public void processJar(Path jar, ProcessorContext context) throws IOException {
+		// Consecutive class processors are fused into a single pass over the jar,
+		// other processors run in between them to preserve the processor order.
+		final List<NamedTransformer> pending = new ArrayList<>();
+
 		for (ProcessorEntry<?> entry : jarProcessors) {
 			try {
+				if (entry.classProcessor() != null) {
+					final ZomboidJarProcessor.ClassTransformer transformer = entry.createTransformer(context);
+
+					if (transformer != null) {
+						pending.add(new NamedTransformer(entry.name(), transformer));
+					}
+
+					continue;
+				}
+
+				applyTransformers(jar, pending);
 				entry.processJar(jar, context);
 			} catch (IOException e) {
-				try {
-					Files.delete(jar);
-				} catch (IOException ioe) {
-					LOGGER.error("Failed to delete jar after failed processing: {}", jar, ioe);
-				}
+				throw processingFailed(jar, entry.name(), e);
+			}
+		}
+
+		try {
+			applyTransformers(jar, pending);
+		} catch (IOException e) {
+			throw processingFailed(jar, pending.stream().map(NamedTransformer::name).collect(Collectors.joining(", ")), e);
+		}
+	}
+
+	private static void applyTransformers(Path jar, List<NamedTransformer> transformers) throws IOException {
+		if (transformers.isEmpty()) {
+			return;
+		}
+
+		final Set<String> classNames = new HashSet<>();
+
+		for (NamedTransformer transformer : transformers) {
+			final Set<String> targets = transformer.transformer().getTargets();
+
+			if (targets == null) {
+				classNames.addAll(getClassNames(jar));
+				break;
+			}
+
+			classNames.addAll(targets);
+		}
+
+		final Map<String, ZipUtils.UnsafeUnaryOperator<byte[]>> transforms = new HashMap<>();
+
+		for (String className : classNames) {
+			final List<ZomboidJarProcessor.ClassTransformer> applicable = new ArrayList<>();
+
+			for (NamedTransformer transformer : transformers) {
+				final Set<String> targets = transformer.transformer().getTargets();
 
-				throw new IOException("Failed to process jar when running jar processor: %s - %s".formatted(entry.name(), e.getMessage()), e);
+				if (targets == null || targets.contains(className)) {
+					applicable.add(transformer.transformer());
+				}
 			}
+
+			transforms.put(className + ".class", input -> transformClass(className, input, applicable));
+		}
+
+		final int transformed = ZipUtils.transformAsync(jar, Executors::newWorkStealingPool, transforms);
+		LOGGER.debug("Applied {} class processors to {} classes in {}", transformers.size(), transformed, jar);
+		transformers.clear();
+	}
+
+	private static byte[] transformClass(String className, byte[] input, List<ZomboidJarProcessor.ClassTransformer> transformers) {
+		final ClassReader reader = new ClassReader(input);
+
+		if (!reader.getClassName().equals(className)) {
+			throw new IllegalStateException("Class name mismatch: expected %s but transforming %s".formatted(className, reader.getClassName()));
+		}
+
+		final ClassWriter writer = new ClassWriter(0);
+		ClassVisitor visitor = writer;
+
+		for (int i = transformers.size() - 1; i >= 0; i--) {
+			visitor = transformers.get(i).createClassVisitor(className, visitor);
+		}
+
+		reader.accept(visitor, 0);
+		return writer.toByteArray();
+	}
+
+	private static List<String> getClassNames(Path jar) throws IOException {
+		try (ZipFile zipFile = new ZipFile(jar.toFile())) {
+			return zipFile.stream()
+					.map(ZipEntry::getName)
+					.filter(name -> name.endsWith(".class") && !name.startsWith("META-INF/"))
+					.map(name -> name.substring(0, name.length() - ".class".length()))
+					.toList();
 		}
 	}
 
+	private static IOException processingFailed(Path jar, String name, IOException e) {
+		try {
+			Files.delete(jar);
+		} catch (IOException ioe) {
+			LOGGER.error("Failed to delete jar after failed processing: {}", jar, ioe);
+		}
+
+		return new IOException("Failed to process jar when running jar processor: %s - %s".formatted(name, e.getMessage()), e);
+	}
+
 	public boolean processMappings(MemoryMappingTree mappings, MappingProcessorContext context) {
 		boolean transformed = false;
 
@@ -168,16 +271,20 @@ public final class ZomboidJarProcessorManager {
 		return transformed;
 	}
 
-	record ProcessorEntry<S extends ZomboidJarProcessor.Spec>(S spec, ZomboidJarProcessor<S> processor, ZomboidJarProcessor.@Nullable MappingsProcessor<S> mappingsProcessor) {
+	record ProcessorEntry<S extends ZomboidJarProcessor.Spec>(S spec, ZomboidJarProcessor<S> processor, ZomboidJarProcessor.@Nullable MappingsProcessor<S> mappingsProcessor, ZomboidJarProcessor.@Nullable ClassProcessor<S> classProcessor) {
 		@SuppressWarnings("unchecked")
 		ProcessorEntry(ZomboidJarProcessor<?> processor, ZomboidJarProcessor.Spec spec) {
-			this((S) Objects.requireNonNull(spec), (ZomboidJarProcessor<S>) processor, (ZomboidJarProcessor.MappingsProcessor<S>) processor.processMappings());
+			this((S) Objects.requireNonNull(spec), (ZomboidJarProcessor<S>) processor, (ZomboidJarProcessor.MappingsProcessor<S>) processor.processMappings(), (ZomboidJarProcessor.ClassProcessor<S>) processor.processClasses());
 		}
 
 		private void processJar(Path jar, ProcessorContext context) throws IOException {
 			processor().processJar(jar, spec, context);
 		}
 
+		private ZomboidJarProcessor.@Nullable ClassTransformer createTransformer(ProcessorContext context) throws IOException {
+			return Objects.requireNonNull(classProcessor()).createTransformer(spec, context);
+		}
+
 		private boolean processMappings(MemoryMappingTree mappings, MappingProcessorContext context) {
 			if (mappingsProcessor() == null) {
 				return false;
@@ -194,4 +301,7 @@ public final class ZomboidJarProcessorManager {
 			return processor.getName() + ":" + spec.hashCode();
 		}
 	}
+
+	private record NamedTransformer(String name, ZomboidJarProcessor.ClassTransformer transformer) {
+	}
 }
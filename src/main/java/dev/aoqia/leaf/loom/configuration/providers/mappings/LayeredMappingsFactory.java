@@ -51,6 +51,7 @@ import dev.aoqia.leaf.loom.configuration.providers.mappings.extras.annotations.A
 import dev.aoqia.leaf.loom.configuration.providers.mappings.extras.unpick.UnpickLayer;
 import dev.aoqia.leaf.loom.configuration.providers.mappings.unpick.UnpickMetadata;
 import dev.aoqia.leaf.loom.configuration.providers.mappings.utils.AddConstructorMappingVisitor;
+import dev.aoqia.leaf.loom.util.CacheLock;
 import dev.aoqia.leaf.loom.util.ZipUtils;
 import net.fabricmc.mappingio.adapter.MappingDstNsReorder;
 import net.fabricmc.mappingio.adapter.MappingSourceNsSwitch;
@@ -91,10 +92,21 @@ public record LayeredMappingsFactory(LayeredMappingSpec spec) {
 		final Path mappingsDir = mappingContext.zomboidProvider().dir("layered").toPath();
 		final Path mappingsZip = mappingsDir.resolve(String.format("%s.%s-%s.jar", GROUP, MODULE, spec.getVersion()));
 
-		if (Files.exists(mappingsZip) && !mappingContext.refreshDeps()) {
+		if (!mappingContext.refreshDeps() && CacheLock.withSharedLock(mappingsZip, () -> Files.exists(mappingsZip))) {
 			return mappingsZip;
 		}
 
+		return CacheLock.withExclusiveLock(mappingsZip, () -> {
+			// Another process may have written the mappings while waiting for the lock
+			if (!mappingContext.refreshDeps() && Files.exists(mappingsZip)) {
+				return mappingsZip;
+			}
+
+			return writeMappings(mappingContext, extension, mappingsZip);
+		});
+	}
+
+	private Path writeMappings(MappingContext mappingContext, LoomGradleExtension extension, Path mappingsZip) throws IOException {
 		boolean useIntermediateMappings = extension.getUseIntermediateMappings().get();
 		var processor = new LayeredMappingsProcessor(spec, !useIntermediateMappings);
 		List<MappingLayer> layers = processor.resolveLayers(mappingContext);
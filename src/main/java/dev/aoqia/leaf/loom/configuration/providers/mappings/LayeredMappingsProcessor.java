@@ -25,6 +25,7 @@
 package dev.aoqia.leaf.loom.configuration.providers.mappings;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -75,40 +76,32 @@ public class LayeredMappingsProcessor {
 	}
 
 	public MemoryMappingTree getMappings(List<MappingLayer> layers) throws IOException {
+		// All layers are applied to a single working tree, its source namespace is only switched when a layer
+		// merges into a different namespace than the one the tree is currently keyed by.
 		MemoryMappingTree mappingTree = new MemoryMappingTree();
 
 		for (MappingLayer layer : layers) {
-			// We have to rebuild a new tree to work on when a layer doesnt merge into layered
-			boolean rebuild = layer.getSourceNamespace() != MappingsNamespace.NAMED;
-			MemoryMappingTree workingTree;
-
-			if (rebuild) {
-				var tempTree = new MemoryMappingTree();
-
-				// This can be null on the first layer
-				if (mappingTree.getSrcNamespace() != null) {
-					var sourceNsSwitch = new MappingSourceNsSwitch(tempTree, layer.getSourceNamespace().toString());
-					mappingTree.accept(sourceNsSwitch);
-				}
-
-				workingTree = tempTree;
-			} else {
-				workingTree = mappingTree;
-			}
+			mappingTree = switchSourceNamespace(mappingTree, layer.getSourceNamespace().toString());
 
 			try {
-				layer.visit(workingTree);
+				layer.visit(mappingTree);
 			} catch (IOException e) {
 				throw new IOException("Failed to visit: " + layer.getClass(), e);
 			}
+		}
 
-			if (rebuild) {
-				mappingTree = new MemoryMappingTree();
-				workingTree.accept(new MappingSourceNsSwitch(mappingTree, MappingsNamespace.NAMED.toString()));
-			}
+		return switchSourceNamespace(mappingTree, MappingsNamespace.NAMED.toString());
+	}
+
+	private static MemoryMappingTree switchSourceNamespace(MemoryMappingTree mappingTree, String namespace) throws IOException {
+		// This can be null on the first layer
+		if (mappingTree.getSrcNamespace() == null || mappingTree.getSrcNamespace().equals(namespace)) {
+			return mappingTree;
 		}
 
-		return mappingTree;
+		var switchedTree = new MemoryMappingTree();
+		mappingTree.accept(new MappingSourceNsSwitch(switchedTree, namespace));
+		return switchedTree;
 	}
 
 	public List<AnnotationsData> getAnnotationsData(List<MappingLayer> layers) throws IOException {
@@ -173,11 +166,61 @@ public class LayeredMappingsProcessor {
 			return null;
 		}
 
-		if (unpickDataList.size() != 1) {
-			// TODO merge
-			throw new UnsupportedOperationException("Only one unpick layer is currently supported.");
+		if (unpickDataList.size() == 1) {
+			return unpickDataList.get(0);
+		}
+
+		return mergeUnpickData(unpickDataList);
+	}
+
+	/**
+	 * Merges the unpick data of multiple layers in order, later definitions are appended after earlier ones.
+	 * All layers must use the same definitions format and namespace, and may only point to a single constants jar.
+	 */
+	public static UnpickLayer.UnpickData mergeUnpickData(List<UnpickLayer.UnpickData> unpickDataList) {
+		UnpickMetadata metadata = null;
+		String header = null;
+		var definitions = new StringBuilder();
+
+		for (UnpickLayer.UnpickData data : unpickDataList) {
+			metadata = metadata == null ? data.metadata() : mergeUnpickMetadata(metadata, data.metadata());
+
+			String text = new String(data.definitions(), StandardCharsets.UTF_8);
+			int headerEnd = text.indexOf('\n');
+			String layerHeader = (headerEnd < 0 ? text : text.substring(0, headerEnd)).strip();
+
+			if (header == null) {
+				header = layerHeader;
+				definitions.append(layerHeader).append('\n');
+			} else if (!header.equals(layerHeader)) {
+				throw new UnsupportedOperationException("Cannot merge unpick definitions with different formats (%s and %s)".formatted(header, layerHeader));
+			}
+
+			if (headerEnd >= 0) {
+				definitions.append(text, headerEnd + 1, text.length());
+
+				if (definitions.charAt(definitions.length() - 1) != '\n') {
+					definitions.append('\n');
+				}
+			}
+		}
+
+		return new UnpickLayer.UnpickData(metadata, definitions.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static UnpickMetadata mergeUnpickMetadata(UnpickMetadata first, UnpickMetadata second) {
+		if (!(first instanceof UnpickMetadata.V2 a) || !(second instanceof UnpickMetadata.V2 b)) {
+			throw new UnsupportedOperationException("Only unpick metadata v2 can be merged.");
+		}
+
+		if (!a.namespace().equals(b.namespace())) {
+			throw new UnsupportedOperationException("Cannot merge unpick definitions in different namespaces (%s and %s)".formatted(a.namespace(), b.namespace()));
+		}
+
+		if (a.constants() != null && b.constants() != null && !a.constants().equals(b.constants())) {
+			throw new UnsupportedOperationException("Cannot merge unpick definitions using different constants (%s and %s)".formatted(a.constants(), b.constants()));
 		}
 
-		return unpickDataList.get(0);
+		return a.constants() != null ? a : b;
 	}
 }
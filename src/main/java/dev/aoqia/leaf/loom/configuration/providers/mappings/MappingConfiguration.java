@@ -51,10 +51,13 @@ import dev.aoqia.leaf.loom.LoomGradlePlugin;
 import dev.aoqia.leaf.loom.configuration.DependencyInfo;
 import dev.aoqia.leaf.loom.configuration.providers.mappings.extras.annotations.AnnotationsData;
 import dev.aoqia.leaf.loom.configuration.providers.mappings.extras.annotations.AnnotationsLayer;
+import dev.aoqia.leaf.loom.configuration.providers.mappings.tiny.BinaryMappingTree;
+import dev.aoqia.leaf.loom.configuration.providers.mappings.tiny.BinaryMappingWriter;
 import dev.aoqia.leaf.loom.configuration.providers.mappings.tiny.MappingsMerger;
 import dev.aoqia.leaf.loom.configuration.providers.mappings.tiny.TinyJarInfo;
 import dev.aoqia.leaf.loom.configuration.providers.mappings.unpick.UnpickMetadata;
 import dev.aoqia.leaf.loom.configuration.providers.zomboid.ZomboidProvider;
+import dev.aoqia.leaf.loom.util.CacheLock;
 import dev.aoqia.leaf.loom.util.Constants;
 import dev.aoqia.leaf.loom.util.DeletingFileVisitor;
 import dev.aoqia.leaf.loom.util.FileSystemUtil;
@@ -63,6 +66,7 @@ import dev.aoqia.leaf.loom.util.service.ServiceFactory;
 
 import net.fabricmc.mappingio.MappingReader;
 import net.fabricmc.mappingio.format.MappingFormat;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
 import net.fabricmc.stitch.Command;
 import net.fabricmc.stitch.commands.CommandProposeFieldNames;
 
@@ -76,6 +80,8 @@ public class MappingConfiguration {
 	private final Path baseTinyMappings;
 	// The mappings we use in practice
 	public final Path tinyMappings;
+	// A binary copy of the tiny mappings, that can be read without parsing them
+	public final Path binaryMappings;
 	public final Path tinyMappingsJar;
 	private final Path unpickDefinitions;
 
@@ -90,6 +96,7 @@ public class MappingConfiguration {
 		this.mappingsWorkingDir = mappingsWorkingDir;
 		this.baseTinyMappings = mappingsWorkingDir.resolve("mappings-base.tiny");
 		this.tinyMappings = mappingsWorkingDir.resolve("mappings.tiny");
+		this.binaryMappings = BinaryMappingTree.getBinaryPath(tinyMappings);
 		this.tinyMappingsJar = mappingsWorkingDir.resolve("mappings.jar");
 		this.unpickDefinitions = mappingsWorkingDir.resolve("mappings.unpick");
 	}
@@ -113,7 +120,11 @@ public class MappingConfiguration {
 		var mappingProvider = new MappingConfiguration(mappingsIdentifier, workingDir);
 
 		try {
-			mappingProvider.setup(project, serviceFactory, zomboidProvider, inputJar);
+			// The working directory is shared by every project using these mappings
+			CacheLock.withExclusiveLock(workingDir, () -> {
+				mappingProvider.setup(project, serviceFactory, zomboidProvider, inputJar);
+				return null;
+			});
 		} catch (IOException e) {
 			cleanWorkingDirectory(workingDir);
 			throw new UncheckedIOException("Failed to setup mappings: " + dependency.getDepString(), e);
@@ -143,6 +154,10 @@ public class MappingConfiguration {
 			}
 		}
 
+		if (Files.notExists(binaryMappings) || minecraftProvider.refreshDeps()) {
+			writeBinaryMappings();
+		}
+
 		if (Files.notExists(tinyMappingsJar) || minecraftProvider.refreshDeps()) {
 			Files.deleteIfExists(tinyMappingsJar);
 			ZipUtils.add(tinyMappingsJar, "mappings/mappings.tiny", Files.readAllBytes(tinyMappings));
@@ -211,6 +226,17 @@ public class MappingConfiguration {
 		}
 	}
 
+	private void writeBinaryMappings() {
+		try {
+			MemoryMappingTree mappingTree = new MemoryMappingTree();
+			MappingReader.read(tinyMappings, mappingTree);
+			BinaryMappingWriter.write(mappingTree, binaryMappings);
+		} catch (IOException e) {
+			// Not fatal, the tiny mappings are read instead
+			LOGGER.warn("Failed to write binary mappings to {}", binaryMappings, e);
+		}
+	}
+
 	private static boolean areMappingsV2(Path path) throws IOException {
 		try (BufferedReader reader = Files.newBufferedReader(path)) {
 			return MappingReader.detectFormat(reader) == MappingFormat.TINY_2_FILE;
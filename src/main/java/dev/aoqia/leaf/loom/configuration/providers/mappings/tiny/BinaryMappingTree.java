@@ -0,0 +1,720 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.configuration.providers.mappings.tiny;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.mappingio.MappedElementKind;
+import net.fabricmc.mappingio.MappingFlag;
+import net.fabricmc.mappingio.MappingVisitor;
+import net.fabricmc.mappingio.tree.MappingTreeView;
+import net.fabricmc.mappingio.tree.VisitOrder;
+
+/**
+ * A read only {@link MappingTreeView} backed by a memory mapped file written by {@link BinaryMappingWriter}.
+ *
+ * <p>Every element is a fixed size record of string ids, so elements are only decoded when they are accessed.
+ * Classes are sorted by their source name, and the fields and methods of a class by their source name and descriptor,
+ * allowing lookups to binary search the records.
+ */
+public final class BinaryMappingTree implements MappingTreeView {
+	private static final Logger LOGGER = LoggerFactory.getLogger(BinaryMappingTree.class);
+
+	static final int MAGIC = 0x4C4D4254; // LMBT
+	static final int VERSION = 1;
+	static final int NULL_STRING = -1;
+
+	// The number of ints following the names of each record kind
+	static final int CLASS_DATA = 5; // comment, field start, field count, method start, method count
+	static final int FIELD_DATA = 2; // desc, comment
+	static final int METHOD_DATA = 6; // desc, comment, arg start, arg count, var start, var count
+	static final int ARG_DATA = 3; // comment, arg position, lv index
+	static final int VAR_DATA = 5; // comment, lvt row index, lv index, start op index, end op index
+
+	private final ByteBuffer buffer;
+	private final int namespaceCount;
+	private final @Nullable String srcNamespace;
+	private final List<String> dstNamespaces;
+	private final List<MetadataEntry> metadata;
+	private final int stringOffsets;
+	private final int stringData;
+	private final String[] strings;
+	private final Section classes;
+	private final Section fields;
+	private final Section methods;
+	private final Section args;
+	private final Section vars;
+
+	private BinaryMappingTree(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			throw new IOException("Unsupported binary mappings format");
+		}
+
+		int position = 8;
+		namespaceCount = buffer.getInt(position);
+		position += 4;
+		final int namespacesStart = position;
+		position += namespaceCount * 4;
+
+		final int metadataCount = buffer.getInt(position);
+		position += 4;
+		final int metadataStart = position;
+		position += metadataCount * 8;
+
+		final int stringCount = buffer.getInt(position);
+		position += 4;
+		stringOffsets = position;
+		position += (stringCount + 1) * 4;
+		stringData = position;
+		position += buffer.getInt(stringOffsets + stringCount * 4);
+		strings = new String[stringCount];
+
+		classes = new Section(buffer.getInt(position), position + 4, namespaceCount + CLASS_DATA);
+		fields = classes.next(buffer, namespaceCount + FIELD_DATA);
+		methods = fields.next(buffer, namespaceCount + METHOD_DATA);
+		args = methods.next(buffer, namespaceCount + ARG_DATA);
+		vars = args.next(buffer, namespaceCount + VAR_DATA);
+
+		if (vars.end() != buffer.limit()) {
+			throw new IOException("Binary mappings file is truncated");
+		}
+
+		srcNamespace = getString(buffer.getInt(namespacesStart));
+		final List<String> dstNamespaces = new ArrayList<>(namespaceCount - 1);
+
+		for (int i = 1; i < namespaceCount; i++) {
+			dstNamespaces.add(getString(buffer.getInt(namespacesStart + i * 4)));
+		}
+
+		this.dstNamespaces = List.copyOf(dstNamespaces);
+		final List<MetadataEntry> metadata = new ArrayList<>(metadataCount);
+
+		for (int i = 0; i < metadataCount; i++) {
+			metadata.add(new MetadataEntry(getString(buffer.getInt(metadataStart + i * 8)), getString(buffer.getInt(metadataStart + i * 8 + 4))));
+		}
+
+		this.metadata = List.copyOf(metadata);
+	}
+
+	/**
+	 * Memory maps a binary mappings file.
+	 */
+	public static BinaryMappingTree open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			// The mapping remains valid after the channel is closed
+			return new BinaryMappingTree(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} catch (IndexOutOfBoundsException e) {
+			throw new IOException("Binary mappings file is truncated: " + path, e);
+		}
+	}
+
+	/**
+	 * Opens the binary mappings stored alongside the given tiny mappings file,
+	 * or returns null when they are missing or older than the tiny mappings.
+	 */
+	public static @Nullable BinaryMappingTree openIfPresent(Path tinyMappings) {
+		final Path binaryMappings = getBinaryPath(tinyMappings);
+
+		try {
+			if (Files.notExists(binaryMappings) || Files.getLastModifiedTime(binaryMappings).compareTo(Files.getLastModifiedTime(tinyMappings)) < 0) {
+				return null;
+			}
+
+			return open(binaryMappings);
+		} catch (IOException e) {
+			LOGGER.warn("Failed to read binary mappings from {}, falling back to tiny mappings", binaryMappings, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the path of the binary mappings stored alongside a tiny mappings file.
+	 */
+	public static Path getBinaryPath(Path tinyMappings) {
+		final String fileName = tinyMappings.getFileName().toString();
+		final int extension = fileName.lastIndexOf('.');
+		return tinyMappings.resolveSibling((extension > 0 ? fileName.substring(0, extension) : fileName) + ".bin");
+	}
+
+	private @Nullable String getString(int id) {
+		if (id == NULL_STRING) {
+			return null;
+		}
+
+		String string = strings[id];
+
+		if (string == null) {
+			final int start = buffer.getInt(stringOffsets + id * 4);
+			final byte[] bytes = new byte[buffer.getInt(stringOffsets + (id + 1) * 4) - start];
+			buffer.get(stringData + start, bytes);
+			string = new String(bytes, StandardCharsets.UTF_8);
+			// Racing threads decode equal strings, so no synchronization is needed
+			strings[id] = string;
+		}
+
+		return string;
+	}
+
+	private int getInt(Section section, int index, int field) {
+		return buffer.getInt(section.start() + (index * section.recordSize() + field) * 4);
+	}
+
+	private @Nullable String readName(Section section, int index, int namespace) {
+		if (namespace < SRC_NAMESPACE_ID || namespace >= namespaceCount - 1) {
+			return null;
+		}
+
+		return getString(getInt(section, index, namespace + 1));
+	}
+
+	private int getData(Section section, int index, int field) {
+		return getInt(section, index, namespaceCount + field);
+	}
+
+	@Override
+	public @Nullable String getSrcNamespace() {
+		return srcNamespace;
+	}
+
+	@Override
+	public List<String> getDstNamespaces() {
+		return dstNamespaces;
+	}
+
+	@Override
+	public List<? extends MetadataEntryView> getMetadata() {
+		return metadata;
+	}
+
+	@Override
+	public List<? extends MetadataEntryView> getMetadata(String key) {
+		return metadata.stream().filter(entry -> entry.getKey().equals(key)).toList();
+	}
+
+	@Override
+	public List<ClassView> getClasses() {
+		return new ElementList<>(0, classes.count(), ClassView::new);
+	}
+
+	@Override
+	public @Nullable ClassView getClass(String srcName) {
+		int low = 0;
+		int high = classes.count() - 1;
+
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			final int compare = readName(classes, mid, SRC_NAMESPACE_ID).compareTo(srcName);
+
+			if (compare < 0) {
+				low = mid + 1;
+			} else if (compare > 0) {
+				high = mid - 1;
+			} else {
+				return new ClassView(mid);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Visits the tree, classes and members are visited in the order requested by the {@link VisitOrder}.
+	 */
+	@Override
+	public void accept(MappingVisitor visitor, VisitOrder order) throws IOException {
+		final Set<MappingFlag> flags = visitor.getFlags();
+		final boolean supplyFieldDstDescs = flags.contains(MappingFlag.NEEDS_DST_FIELD_DESC);
+		final boolean supplyMethodDstDescs = flags.contains(MappingFlag.NEEDS_DST_METHOD_DESC);
+
+		do {
+			if (visitor.visitHeader()) {
+				visitor.visitNamespaces(srcNamespace, dstNamespaces);
+
+				for (MetadataEntry entry : metadata) {
+					visitor.visitMetadata(entry.getKey(), entry.getValue());
+				}
+			}
+
+			if (visitor.visitContent()) {
+				for (ClassView cls : order.sortClasses(getClasses())) {
+					cls.accept(visitor, order, supplyFieldDstDescs, supplyMethodDstDescs);
+				}
+			}
+		} while (!visitor.visitEnd());
+	}
+
+	private abstract class Element implements ElementMappingView {
+		protected final int index;
+
+		Element(int index) {
+			this.index = index;
+		}
+
+		abstract Section section();
+
+		public abstract MappedElementKind getKind();
+
+		@Override
+		public MappingTreeView getTree() {
+			return BinaryMappingTree.this;
+		}
+
+		@Override
+		public String getSrcName() {
+			return readName(section(), index, SRC_NAMESPACE_ID);
+		}
+
+		@Override
+		public @Nullable String getDstName(int namespace) {
+			return readName(section(), index, namespace);
+		}
+
+		/**
+		 * Visits the destination names and comment of the element, returning false when its content should be skipped.
+		 */
+		boolean acceptElement(MappingVisitor visitor, boolean supplyDstDescs) throws IOException {
+			final MappedElementKind kind = getKind();
+
+			for (int i = 0; i < dstNamespaces.size(); i++) {
+				final String dstName = getDstName(i);
+
+				if (dstName != null) {
+					visitor.visitDstName(kind, i, dstName);
+				}
+			}
+
+			if (supplyDstDescs && this instanceof MemberView member && member.getSrcDesc() != null) {
+				for (int i = 0; i < dstNamespaces.size(); i++) {
+					visitor.visitDstDesc(kind, i, mapDesc(member.getSrcDesc(), i));
+				}
+			}
+
+			if (!visitor.visitElementContent(kind)) {
+				return false;
+			}
+
+			final String comment = getComment();
+
+			if (comment != null) {
+				visitor.visitComment(kind, comment);
+			}
+
+			return true;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Element element && element.getClass() == getClass() && element.index == index && element.getTree() == getTree();
+		}
+
+		@Override
+		public int hashCode() {
+			return index;
+		}
+
+		@Override
+		public String toString() {
+			return getKind() + " " + getSrcName();
+		}
+	}
+
+	public final class ClassView extends Element implements ClassMappingView {
+		ClassView(int index) {
+			super(index);
+		}
+
+		@Override
+		Section section() {
+			return classes;
+		}
+
+		@Override
+		public MappedElementKind getKind() {
+			return MappedElementKind.CLASS;
+		}
+
+		@Override
+		public @Nullable String getComment() {
+			return getString(getData(classes, index, 0));
+		}
+
+		@Override
+		public List<FieldView> getFields() {
+			return new ElementList<>(getData(classes, index, 1), getData(classes, index, 2), i -> new FieldView(i, this));
+		}
+
+		@Override
+		public @Nullable FieldView getField(String srcName, @Nullable String srcDesc) {
+			final int index = findMember(fields, getData(classes, this.index, 1), getData(classes, this.index, 2), srcName, srcDesc);
+			return index < 0 ? null : new FieldView(index, this);
+		}
+
+		@Override
+		public List<MethodView> getMethods() {
+			return new ElementList<>(getData(classes, index, 3), getData(classes, index, 4), i -> new MethodView(i, this));
+		}
+
+		@Override
+		public @Nullable MethodView getMethod(String srcName, @Nullable String srcDesc) {
+			final int index = findMember(methods, getData(classes, this.index, 3), getData(classes, this.index, 4), srcName, srcDesc);
+			return index < 0 ? null : new MethodView(index, this);
+		}
+
+		void accept(MappingVisitor visitor, VisitOrder order, boolean supplyFieldDstDescs, boolean supplyMethodDstDescs) throws IOException {
+			if (!visitor.visitClass(getSrcName()) || !acceptElement(visitor, false)) {
+				return;
+			}
+
+			if (order.isMethodsFirst()) {
+				acceptMethods(visitor, order, supplyMethodDstDescs);
+				acceptFields(visitor, order, supplyFieldDstDescs);
+			} else {
+				acceptFields(visitor, order, supplyFieldDstDescs);
+				acceptMethods(visitor, order, supplyMethodDstDescs);
+			}
+		}
+
+		private void acceptFields(MappingVisitor visitor, VisitOrder order, boolean supplyDstDescs) throws IOException {
+			for (FieldView field : order.sortFields(getFields())) {
+				if (visitor.visitField(field.getSrcName(), field.getSrcDesc())) {
+					field.acceptElement(visitor, supplyDstDescs);
+				}
+			}
+		}
+
+		private void acceptMethods(MappingVisitor visitor, VisitOrder order, boolean supplyDstDescs) throws IOException {
+			for (MethodView method : order.sortMethods(getMethods())) {
+				method.accept(visitor, order, supplyDstDescs);
+			}
+		}
+	}
+
+	/**
+	 * Binary searches the members of a class for the first with the given name, and descriptor when not null.
+	 */
+	private int findMember(Section section, int start, int count, String srcName, @Nullable String srcDesc) {
+		int low = start;
+		int high = start + count;
+
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+
+			if (readName(section, mid, SRC_NAMESPACE_ID).compareTo(srcName) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+
+		for (int i = low; i < start + count && readName(section, i, SRC_NAMESPACE_ID).equals(srcName); i++) {
+			if (srcDesc == null || srcDesc.equals(getString(getData(section, i, 0)))) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	private abstract class MemberView extends Element implements MemberMappingView {
+		private final ClassView owner;
+
+		MemberView(int index, ClassView owner) {
+			super(index);
+			this.owner = owner;
+		}
+
+		@Override
+		public ClassView getOwner() {
+			return owner;
+		}
+
+		@Override
+		public @Nullable String getSrcDesc() {
+			return getString(getData(section(), index, 0));
+		}
+
+		@Override
+		public @Nullable String getComment() {
+			return getString(getData(section(), index, 1));
+		}
+	}
+
+	public final class FieldView extends MemberView implements FieldMappingView {
+		FieldView(int index, ClassView owner) {
+			super(index, owner);
+		}
+
+		@Override
+		Section section() {
+			return fields;
+		}
+
+		@Override
+		public MappedElementKind getKind() {
+			return MappedElementKind.FIELD;
+		}
+	}
+
+	public final class MethodView extends MemberView implements MethodMappingView {
+		MethodView(int index, ClassView owner) {
+			super(index, owner);
+		}
+
+		@Override
+		Section section() {
+			return methods;
+		}
+
+		@Override
+		public MappedElementKind getKind() {
+			return MappedElementKind.METHOD;
+		}
+
+		@Override
+		public List<ArgView> getArgs() {
+			return new ElementList<>(getData(methods, index, 2), getData(methods, index, 3), i -> new ArgView(i, this));
+		}
+
+		@Override
+		public @Nullable ArgView getArg(int argPosition, int lvIndex, @Nullable String srcName) {
+			for (ArgView arg : getArgs()) {
+				if (argPosition >= 0 && arg.getArgPosition() == argPosition
+						|| lvIndex >= 0 && arg.getLvIndex() == lvIndex
+						|| srcName != null && srcName.equals(arg.getSrcName())) {
+					return arg;
+				}
+			}
+
+			return null;
+		}
+
+		@Override
+		public List<VarView> getVars() {
+			return new ElementList<>(getData(methods, index, 4), getData(methods, index, 5), i -> new VarView(i, this));
+		}
+
+		@Override
+		public @Nullable VarView getVar(int lvtRowIndex, int lvIndex, int startOpIdx, int endOpIdx, @Nullable String srcName) {
+			for (VarView var : getVars()) {
+				if (lvtRowIndex >= 0 && var.getLvtRowIndex() == lvtRowIndex
+						|| lvIndex >= 0 && var.getLvIndex() == lvIndex && (startOpIdx < 0 || var.getStartOpIdx() == startOpIdx)
+						|| srcName != null && srcName.equals(var.getSrcName())) {
+					return var;
+				}
+			}
+
+			return null;
+		}
+
+		void accept(MappingVisitor visitor, VisitOrder order, boolean supplyDstDescs) throws IOException {
+			if (!visitor.visitMethod(getSrcName(), getSrcDesc()) || !acceptElement(visitor, supplyDstDescs)) {
+				return;
+			}
+
+			if (order.isMethodVarsFirst()) {
+				acceptVars(visitor, order);
+				acceptArgs(visitor, order);
+			} else {
+				acceptArgs(visitor, order);
+				acceptVars(visitor, order);
+			}
+		}
+
+		private void acceptArgs(MappingVisitor visitor, VisitOrder order) throws IOException {
+			for (ArgView arg : order.sortMethodArgs(getArgs())) {
+				if (visitor.visitMethodArg(arg.getArgPosition(), arg.getLvIndex(), arg.getSrcName())) {
+					arg.acceptElement(visitor, false);
+				}
+			}
+		}
+
+		private void acceptVars(MappingVisitor visitor, VisitOrder order) throws IOException {
+			for (VarView var : order.sortMethodVars(getVars())) {
+				if (visitor.visitMethodVar(var.getLvtRowIndex(), var.getLvIndex(), var.getStartOpIdx(), var.getEndOpIdx(), var.getSrcName())) {
+					var.acceptElement(visitor, false);
+				}
+			}
+		}
+	}
+
+	public final class ArgView extends Element implements MethodArgMappingView {
+		private final MethodView method;
+
+		ArgView(int index, MethodView method) {
+			super(index);
+			this.method = method;
+		}
+
+		@Override
+		Section section() {
+			return args;
+		}
+
+		@Override
+		public MappedElementKind getKind() {
+			return MappedElementKind.METHOD_ARG;
+		}
+
+		@Override
+		public MethodView getMethod() {
+			return method;
+		}
+
+		@Override
+		public @Nullable String getComment() {
+			return getString(getData(args, index, 0));
+		}
+
+		@Override
+		public int getArgPosition() {
+			return getData(args, index, 1);
+		}
+
+		@Override
+		public int getLvIndex() {
+			return getData(args, index, 2);
+		}
+	}
+
+	public final class VarView extends Element implements MethodVarMappingView {
+		private final MethodView method;
+
+		VarView(int index, MethodView method) {
+			super(index);
+			this.method = method;
+		}
+
+		@Override
+		Section section() {
+			return vars;
+		}
+
+		@Override
+		public MappedElementKind getKind() {
+			return MappedElementKind.METHOD_VAR;
+		}
+
+		@Override
+		public MethodView getMethod() {
+			return method;
+		}
+
+		@Override
+		public @Nullable String getComment() {
+			return getString(getData(vars, index, 0));
+		}
+
+		@Override
+		public int getLvtRowIndex() {
+			return getData(vars, index, 1);
+		}
+
+		@Override
+		public int getLvIndex() {
+			return getData(vars, index, 2);
+		}
+
+		@Override
+		public int getStartOpIdx() {
+			return getData(vars, index, 3);
+		}
+
+		@Override
+		public int getEndOpIdx() {
+			return getData(vars, index, 4);
+		}
+	}
+
+	/**
+	 * A list of elements that creates each view when it is accessed.
+	 */
+	private static final class ElementList<T> extends AbstractList<T> {
+		private final int start;
+		private final int size;
+		private final IntFunction<T> factory;
+
+		ElementList(int start, int size, IntFunction<T> factory) {
+			this.start = start;
+			this.size = size;
+			this.factory = factory;
+		}
+
+		@Override
+		public T get(int index) {
+			Objects.checkIndex(index, size);
+			return factory.apply(start + index);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
+	/**
+	 * @param count the number of records
+	 * @param start the byte offset of the first record
+	 * @param recordSize the number of ints in each record
+	 */
+	private record Section(int count, int start, int recordSize) {
+		int end() {
+			return start + count * recordSize * 4;
+		}
+
+		Section next(ByteBuffer buffer, int recordSize) {
+			return new Section(buffer.getInt(end()), end() + 4, recordSize);
+		}
+	}
+
+	private record MetadataEntry(String key, @Nullable String value) implements MetadataEntryView {
+		@Override
+		public String getKey() {
+			return key;
+		}
+
+		@Override
+		public @Nullable String getValue() {
+			return value;
+		}
+	}
+}
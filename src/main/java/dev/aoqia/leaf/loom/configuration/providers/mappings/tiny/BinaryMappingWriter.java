@@ -0,0 +1,204 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.configuration.providers.mappings.tiny;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jspecify.annotations.Nullable;
+
+import net.fabricmc.mappingio.tree.MappingTreeView;
+
+/**
+ * Writes a {@link MappingTreeView} in the format read by {@link BinaryMappingTree}.
+ *
+ * <p>The file starts with the namespaces, metadata and a table of every distinct string, followed by
+ * sections of fixed size class, field, method, argument and variable records referring to the strings by id.
+ */
+public final class BinaryMappingWriter {
+	private static final Comparator<MappingTreeView.MemberMappingView> MEMBER_ORDER = Comparator
+			.comparing(MappingTreeView.MemberMappingView::getSrcName)
+			.thenComparing(MappingTreeView.MemberMappingView::getSrcDesc, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+	private final MappingTreeView tree;
+	private final int dstNamespaceCount;
+	private final Map<String, Integer> stringIds = new HashMap<>();
+	private final List<byte[]> strings = new ArrayList<>();
+
+	private final Section classes = new Section();
+	private final Section fields = new Section();
+	private final Section methods = new Section();
+	private final Section args = new Section();
+	private final Section vars = new Section();
+
+	private BinaryMappingWriter(MappingTreeView tree) {
+		this.tree = tree;
+		this.dstNamespaceCount = tree.getDstNamespaces().size();
+	}
+
+	public static void write(MappingTreeView tree, Path output) throws IOException {
+		final var writer = new BinaryMappingWriter(tree);
+		writer.writeClasses();
+
+		final Path tempOutput = output.resolveSibling(output.getFileName() + ".tmp");
+
+		try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempOutput)))) {
+			writer.writeTo(out);
+		}
+
+		Files.move(tempOutput, output, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private void writeClasses() throws IOException {
+		final List<MappingTreeView.ClassMappingView> sortedClasses = new ArrayList<>(tree.getClasses());
+		sortedClasses.sort(Comparator.comparing(MappingTreeView.ClassMappingView::getSrcName));
+
+		for (MappingTreeView.ClassMappingView cls : sortedClasses) {
+			final List<MappingTreeView.FieldMappingView> sortedFields = new ArrayList<>(cls.getFields());
+			final List<MappingTreeView.MethodMappingView> sortedMethods = new ArrayList<>(cls.getMethods());
+			sortedFields.sort(MEMBER_ORDER);
+			sortedMethods.sort(MEMBER_ORDER);
+
+			writeNames(classes, cls);
+			classes.out.writeInt(id(cls.getComment()));
+			classes.out.writeInt(fields.count);
+			classes.out.writeInt(sortedFields.size());
+			classes.out.writeInt(methods.count);
+			classes.out.writeInt(sortedMethods.size());
+
+			for (MappingTreeView.FieldMappingView field : sortedFields) {
+				writeNames(fields, field);
+				fields.out.writeInt(id(field.getSrcDesc()));
+				fields.out.writeInt(id(field.getComment()));
+			}
+
+			for (MappingTreeView.MethodMappingView method : sortedMethods) {
+				writeMethod(method);
+			}
+		}
+	}
+
+	private void writeMethod(MappingTreeView.MethodMappingView method) throws IOException {
+		writeNames(methods, method);
+		methods.out.writeInt(id(method.getSrcDesc()));
+		methods.out.writeInt(id(method.getComment()));
+		methods.out.writeInt(args.count);
+		methods.out.writeInt(method.getArgs().size());
+		methods.out.writeInt(vars.count);
+		methods.out.writeInt(method.getVars().size());
+
+		for (MappingTreeView.MethodArgMappingView arg : method.getArgs()) {
+			writeNames(args, arg);
+			args.out.writeInt(id(arg.getComment()));
+			args.out.writeInt(arg.getArgPosition());
+			args.out.writeInt(arg.getLvIndex());
+		}
+
+		for (MappingTreeView.MethodVarMappingView var : method.getVars()) {
+			writeNames(vars, var);
+			vars.out.writeInt(id(var.getComment()));
+			vars.out.writeInt(var.getLvtRowIndex());
+			vars.out.writeInt(var.getLvIndex());
+			vars.out.writeInt(var.getStartOpIdx());
+			vars.out.writeInt(var.getEndOpIdx());
+		}
+	}
+
+	private void writeNames(Section section, MappingTreeView.ElementMappingView element) throws IOException {
+		section.count++;
+		section.out.writeInt(id(element.getSrcName()));
+
+		for (int i = 0; i < dstNamespaceCount; i++) {
+			section.out.writeInt(id(element.getDstName(i)));
+		}
+	}
+
+	private int id(@Nullable String string) {
+		if (string == null) {
+			return BinaryMappingTree.NULL_STRING;
+		}
+
+		return stringIds.computeIfAbsent(string, s -> {
+			strings.add(s.getBytes(StandardCharsets.UTF_8));
+			return strings.size() - 1;
+		});
+	}
+
+	private void writeTo(DataOutputStream out) throws IOException {
+		out.writeInt(BinaryMappingTree.MAGIC);
+		out.writeInt(BinaryMappingTree.VERSION);
+
+		out.writeInt(dstNamespaceCount + 1);
+		out.writeInt(id(tree.getSrcNamespace()));
+
+		for (String dstNamespace : tree.getDstNamespaces()) {
+			out.writeInt(id(dstNamespace));
+		}
+
+		out.writeInt(tree.getMetadata().size());
+
+		for (MappingTreeView.MetadataEntryView entry : tree.getMetadata()) {
+			out.writeInt(id(entry.getKey()));
+			out.writeInt(id(entry.getValue()));
+		}
+
+		// All strings have been assigned ids at this point
+		out.writeInt(strings.size());
+		int offset = 0;
+
+		for (byte[] string : strings) {
+			out.writeInt(offset);
+			offset += string.length;
+		}
+
+		out.writeInt(offset);
+
+		for (byte[] string : strings) {
+			out.write(string);
+		}
+
+		for (Section section : List.of(classes, fields, methods, args, vars)) {
+			out.writeInt(section.count);
+			section.bytes.writeTo(out);
+		}
+	}
+
+	private static final class Section {
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private final DataOutputStream out = new DataOutputStream(bytes);
+		private int count;
+	}
+}
@@ -26,26 +26,20 @@ package dev.aoqia.leaf.loom.configuration.providers.zomboid;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.StandardOpenOption;
-import java.nio.file.attribute.BasicFileAttributeView;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.function.Supplier;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
 
 import org.jspecify.annotations.Nullable;
 import org.objectweb.asm.ClassReader;
@@ -53,17 +47,27 @@ import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
 
 import dev.aoqia.leaf.loom.util.Constants;
-import dev.aoqia.leaf.loom.util.FileSystemUtil;
-import dev.aoqia.leaf.loom.util.Lazy;
+import dev.aoqia.leaf.loom.util.RawZipFile;
+import dev.aoqia.leaf.loom.util.RawZipOutput;
 import dev.aoqia.leaf.loom.util.SnowmanClassVisitor;
 import dev.aoqia.leaf.loom.util.SyntheticParameterClassVisitor;
 
+/**
+ * Merges the client and server jars into a single jar, annotating classes that are only present on one side.
+ *
+ * <p>Both jars are read from their central directories and walked in sorted entry order. Entries are compared by
+ * CRC and size before any data is read, identical entries are copied without being recompressed. Only the classes
+ * that have to be rewritten are read into memory, on a bounded pool, so the peak heap usage depends on the
+ * parallelism rather than on the size of the jars.
+ */
 public class ZomboidJarMerger implements AutoCloseable {
+	private static final String MANIFEST_NAME = "META-INF/MANIFEST.MF";
+	private static final byte[] MANIFEST = "Manifest-Version: 1.0\nMain-Class: net.minecraft.client.Main\n".getBytes(StandardCharsets.UTF_8);
+
 	private final ZomboidClassMerger classMerger = new ZomboidClassMerger();
-	private final FileSystemUtil.Delegate inputClientFs, inputServerFs, outputFs;
-	private final Path inputClient, inputServer;
-	private final Map<String, Entry> entriesClient, entriesServer;
-	private final Set<String> entriesAll;
+	private final RawZipFile inputClient, inputServer;
+	private final RawZipOutput output;
+	private final int parallelism = Runtime.getRuntime().availableProcessors();
 	private boolean removeSnowmen = false;
 	private boolean offsetSyntheticsParams = false;
 
@@ -76,13 +80,16 @@ public class ZomboidJarMerger implements AutoCloseable {
 
 		Files.createDirectories(output.toPath().getParent());
 
-		this.inputClient = (inputClientFs = FileSystemUtil.getJarFileSystem(inputClient, false)).get().getPath("/");
-		this.inputServer = (inputServerFs = FileSystemUtil.getJarFileSystem(inputServer, false)).get().getPath("/");
-		this.outputFs = FileSystemUtil.getJarFileSystem(output, true);
+		this.inputClient = RawZipFile.open(inputClient.toPath());
+
+		try {
+			this.inputServer = RawZipFile.open(inputServer.toPath());
+		} catch (IOException e) {
+			this.inputClient.close();
+			throw e;
+		}
 
-		this.entriesClient = new HashMap<>();
-		this.entriesServer = new HashMap<>();
-		this.entriesAll = new TreeSet<>();
+		this.output = new RawZipOutput(output.toPath());
 	}
 
 	public void enableSnowmanRemoval() {
@@ -95,195 +102,178 @@ public class ZomboidJarMerger implements AutoCloseable {
 
 	@Override
 	public void close() throws IOException {
-		inputClientFs.close();
-		inputServerFs.close();
-		outputFs.close();
+		try (inputClient; inputServer) {
+			output.close();
+		}
 	}
 
-	private void readToMap(Map<String, Entry> map, Path input) {
-		try {
-			Files.walkFileTree(input, new SimpleFileVisitor<>() {
-				@Override
-				public FileVisitResult visitFile(Path path, BasicFileAttributes attr) throws IOException {
-					if (attr.isDirectory()) {
-						return FileVisitResult.CONTINUE;
+	public void merge() throws IOException {
+		final Map<String, RawZipFile.Entry> entriesClient = readEntries(inputClient);
+		final Map<String, RawZipFile.Entry> entriesServer = readEntries(inputServer);
+		final Set<String> entriesAll = new TreeSet<>(entriesClient.keySet());
+		entriesAll.addAll(entriesServer.keySet());
+
+		// Results are written in entry order, at most this many entries are pending at once.
+		final int window = parallelism * 2;
+		final Deque<Future<Output>> pending = new ArrayDeque<>(window);
+
+		try (ExecutorService executor = Executors.newFixedThreadPool(parallelism)) {
+			try {
+				for (String name : entriesAll) {
+					final Task task = createTask(name, entriesClient.get(name), entriesServer.get(name));
+
+					if (task == null) {
+						continue;
 					}
 
-					if (!path.getFileName().toString().endsWith(".class")) {
-						if (path.toString().equals("/META-INF/MANIFEST.MF")) {
-							map.put("META-INF/MANIFEST.MF", new Entry(path, attr,
-									"Manifest-Version: 1.0\nMain-Class: net.minecraft.client.Main\n".getBytes(StandardCharsets.UTF_8)));
-						} else {
-							if (path.toString().startsWith("/META-INF/")) {
-								if (path.toString().endsWith(".SF") || path.toString().endsWith(".RSA")) {
-									return FileVisitResult.CONTINUE;
-								}
-							}
-
-							map.put(path.toString().substring(1), new Entry(path, attr));
-						}
-
-						return FileVisitResult.CONTINUE;
+					if (pending.size() >= window) {
+						write(pending.removeFirst());
 					}
 
-					map.put(path.toString().substring(1), new Entry(path, attr, Lazy.of(() -> {
-						try {
-							return Files.readAllBytes(path);
-						} catch (IOException e) {
-							throw new UncheckedIOException("Failed to read " + path, e);
-						}
-					})));
+					pending.addLast(task.isCopy() ? CompletableFuture.completedFuture(task.copy()) : executor.submit(() -> process(task)));
+				}
 
-					return FileVisitResult.CONTINUE;
+				while (!pending.isEmpty()) {
+					write(pending.removeFirst());
 				}
-			});
-		} catch (IOException e) {
-			throw new UncheckedIOException("Failed to read", e);
+			} finally {
+				pending.forEach(future -> future.cancel(true));
+			}
 		}
 	}
 
-	private void add(Entry entry) {
-		try {
-			Path outPath = outputFs.get().getPath(entry.path.toString());
+	private static Map<String, RawZipFile.Entry> readEntries(RawZipFile zip) {
+		final Map<String, RawZipFile.Entry> entries = new TreeMap<>();
 
-			if (outPath.getParent() != null) {
-				Files.createDirectories(outPath.getParent());
-			}
+		for (RawZipFile.Entry entry : zip.entries()) {
+			final String name = entry.name();
 
-			final byte[] data = entry.data();
+			if (entry.isDirectory()) {
+				continue;
+			}
 
-			if (data != null) {
-				Files.write(outPath, data, StandardOpenOption.CREATE_NEW);
-			} else {
-				Files.copy(entry.path, outPath);
+			if (name.startsWith("META-INF/") && (name.endsWith(".SF") || name.endsWith(".RSA"))) {
+				continue;
 			}
 
-			Files.getFileAttributeView(outPath, BasicFileAttributeView.class)
-					.setTimes(
-							entry.metadata.creationTime(),
-							entry.metadata.lastAccessTime(),
-							entry.metadata.lastModifiedTime()
-					);
-		} catch (IOException ioe) {
-			throw new UncheckedIOException("Failed to write " + entry.path, ioe);
+			entries.putIfAbsent(name, entry);
 		}
+
+		return entries;
 	}
 
-	public void merge() throws IOException {
-		try (ExecutorService service = Executors.newFixedThreadPool(2)) {
-			service.submit(() -> readToMap(entriesClient, inputClient));
-			service.submit(() -> readToMap(entriesServer, inputServer));
+	private @Nullable Task createTask(String name, RawZipFile.@Nullable Entry clientEntry, RawZipFile.@Nullable Entry serverEntry) {
+		final boolean isClass = name.endsWith(".class");
+		final boolean isMinecraft = clientEntry != null || name.startsWith("net/minecraft") || !name.contains("/");
+		final String side = clientEntry == null ? "SERVER" : serverEntry == null ? "CLIENT" : null;
+
+		if (isClass && !isMinecraft && "SERVER".equals(side)) {
+			// Server bundles libraries, client doesn't - skip them
+			return null;
 		}
 
-		entriesAll.addAll(entriesClient.keySet());
-		entriesAll.addAll(entriesServer.keySet());
+		final RawZipFile source = clientEntry != null ? inputClient : inputServer;
+		final RawZipFile.Entry entry = clientEntry != null ? clientEntry : serverEntry;
 
-		try (ExecutorService service = Executors.newWorkStealingPool()) {
-			for (String entry : entriesAll) {
-				processEntry(entry, service);
-			}
+		if (name.equals(MANIFEST_NAME)) {
+			return new Task(TaskType.MANIFEST, source, entry, null, null);
 		}
-	}
 
-	private void processEntry(String entry, Executor executor) {
-		boolean isClass = entry.endsWith(".class");
-		boolean isMinecraft = entriesClient.containsKey(entry) || entry.startsWith("net/minecraft") || !entry.contains("/");
-		Result r = getResult(entry, isClass);
+		if (!isClass) {
+			// FIXME: More heuristics?
+			return new Task(TaskType.COPY, source, entry, null, null);
+		}
 
-		if (isClass && !isMinecraft && "SERVER".equals(r.side())) {
-			// Server bundles libraries, client doesn't - skip them
-			return;
+		if (side == null && !isSameEntry(clientEntry, serverEntry)) {
+			return new Task(TaskType.MERGE, inputClient, clientEntry, serverEntry, null);
 		}
 
-		if (isMinecraft && isClass) {
-			CompletableFuture.supplyAsync(() -> mergeClass(entry, r), executor)
-					.thenAccept(this::add);
-			return;
+		if (side != null || removeSnowmen || (offsetSyntheticsParams && !name.contains("/"))) {
+			return new Task(TaskType.TRANSFORM, source, entry, null, side);
 		}
 
-		CompletableFuture.runAsync(() -> add(r.entry), executor);
+		return new Task(TaskType.COPY, source, entry, null, null);
 	}
 
-	private Result getResult(String entry, boolean isClass) {
-		Entry result;
-		String side = null;
-
-		Entry clientEntry = entriesClient.get(entry);
-		Entry serverEntry = entriesServer.get(entry);
-
-		// Entry is common
-		if (clientEntry != null && serverEntry != null) {
-			byte[] clientData = clientEntry.data();
-			byte[] serverData = serverEntry.data();
-
-			if (Arrays.equals(clientData, serverData)) {
-				result = clientEntry;
-			} else {
-				if (isClass) {
-					Objects.requireNonNull(clientData);
-					Objects.requireNonNull(serverData);
-					result = new Entry(clientEntry.path, clientEntry.metadata, classMerger.merge(clientData, serverData));
-				} else {
-					// FIXME: More heuristics?
-					result = clientEntry;
-				}
+	private static boolean isSameEntry(RawZipFile.Entry clientEntry, RawZipFile.Entry serverEntry) {
+		return clientEntry.crc() == serverEntry.crc() && clientEntry.size() == serverEntry.size();
+	}
+
+	private void write(Future<Output> future) throws IOException {
+		final Output result;
+
+		try {
+			result = future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while merging jars", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException ioException) {
+				throw ioException;
 			}
-		} else if ((result = clientEntry) != null) {
-			side = "CLIENT";
-		} else if ((result = serverEntry) != null) {
-			side = "SERVER";
+
+			throw new RuntimeException("Failed to merge jars", e.getCause());
 		}
 
-		return new Result(result, side);
+		if (result.data() == null) {
+			output.copyRaw(result.source(), result.entry(), true);
+		} else {
+			output.write(result.entry().name(), result.data(), ZipEntry.DEFLATED, result.entry().dosTime(), result.entry().dosDate());
+		}
 	}
 
-	private Entry mergeClass(String entry, Result result) {
-		byte[] data = result.entry().data();
-		Objects.requireNonNull(data, "Class data cannot be null");
+	private Output process(Task task) throws IOException {
+		final byte[] data = switch (task.type()) {
+		case MERGE -> classMerger.merge(inputClient.readAllBytes(task.entry()), inputServer.readAllBytes(task.serverEntry()));
+		case TRANSFORM -> task.source().readAllBytes(task.entry());
+		default -> throw new IllegalStateException("Unexpected task type: " + task.type());
+		};
+
+		return new Output(task.source(), task.entry(), transformClass(task.entry().name(), data, task.side()));
+	}
+
+	private byte[] transformClass(String name, byte[] data, @Nullable String side) {
 		ClassReader reader = new ClassReader(data);
 		ClassWriter writer = new ClassWriter(0);
 		ClassVisitor visitor = writer;
 
-		if (result.side() != null) {
-			visitor = new ZomboidClassMerger.SidedClassVisitor(Constants.ASM_VERSION, visitor, result.side());
+		if (side != null) {
+			visitor = new ZomboidClassMerger.SidedClassVisitor(Constants.ASM_VERSION, visitor, side);
 		}
 
 		if (removeSnowmen) {
 			visitor = new SnowmanClassVisitor(Constants.ASM_VERSION, visitor);
 		}
 
-		if (offsetSyntheticsParams && !entry.contains("/")) {
+		if (offsetSyntheticsParams && !name.contains("/")) {
 			visitor = new SyntheticParameterClassVisitor(Constants.ASM_VERSION, visitor);
 		}
 
-		if (visitor != writer) {
-			reader.accept(visitor, 0);
-			data = writer.toByteArray();
-			return new Entry(result.entry().path, result.entry().metadata, data);
+		if (visitor == writer) {
+			return data;
 		}
 
-		return result.entry();
+		reader.accept(visitor, 0);
+		return writer.toByteArray();
 	}
 
-	// Data is null for non-class files, in this case the entry can be copied without uncompressing
-	public record Entry(Path path, BasicFileAttributes metadata, @Nullable Supplier<byte[]> dataSupplier) {
-		public Entry(Path path, BasicFileAttributes metadata, byte @Nullable [] data) {
-			this(path, metadata, () -> data);
-		}
-
-		public Entry(Path path, BasicFileAttributes metadata) {
-			this(path, metadata, (Supplier<byte[]>) null);
-		}
+	private enum TaskType {
+		COPY,
+		MANIFEST,
+		MERGE,
+		TRANSFORM
+	}
 
-		byte @Nullable [] data() {
-			if (dataSupplier == null) {
-				return null;
-			}
+	private record Output(RawZipFile source, RawZipFile.Entry entry, byte @Nullable [] data) {
+	}
 
-			return dataSupplier.get();
+	private record Task(TaskType type, RawZipFile source, RawZipFile.Entry entry, RawZipFile.@Nullable Entry serverEntry, @Nullable String side) {
+		private boolean isCopy() {
+			return type == TaskType.COPY || type == TaskType.MANIFEST;
 		}
-	}
 
-	private record Result(Entry entry, @Nullable String side) {
+		private Output copy() {
+			return new Output(source, entry, type == TaskType.MANIFEST ? MANIFEST : null);
+		}
 	}
 }
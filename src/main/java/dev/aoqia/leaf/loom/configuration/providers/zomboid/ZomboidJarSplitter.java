@@ -27,18 +27,25 @@ package dev.aoqia.leaf.loom.configuration.providers.zomboid;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
-import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
 
 import dev.aoqia.leaf.loom.util.Constants;
-import dev.aoqia.leaf.loom.util.FileSystemUtil;
+import dev.aoqia.leaf.loom.util.RawZipFile;
+import dev.aoqia.leaf.loom.util.RawZipOutput;
 
 public class ZomboidJarSplitter implements AutoCloseable {
 	private final Path clientInputJar;
@@ -57,15 +64,27 @@ public class ZomboidJarSplitter implements AutoCloseable {
 		Objects.requireNonNull(clientOnlyOutputJar);
 		Objects.requireNonNull(commonOutputJar);
 
-		if (entryData == null) {
-			entryData = new EntryData(getJarEntries(clientInputJar), getJarEntries(serverInputJar));
-		}
+		try (RawZipFile clientInput = RawZipFile.open(clientInputJar);
+				RawZipFile serverInput = RawZipFile.open(serverInputJar)) {
+			final Map<String, RawZipFile.Entry> clientEntries = getJarEntries(clientInput);
+			final Map<String, RawZipFile.Entry> serverEntries = getJarEntries(serverInput);
+
+			if (entryData == null) {
+				entryData = new EntryData(clientEntries.keySet(), serverEntries.keySet());
+			}
 
-		// Not something we expect, will require 3 jars, server, client and common.
-		assert entryData.serverOnlyEntries.isEmpty();
+			// Not something we expect, will require 3 jars, server, client and common.
+			assert entryData.serverOnlyEntries.isEmpty();
 
-		copyEntriesToJar(entryData.commonEntries, serverInputJar, commonOutputJar, "common");
-		copyEntriesToJar(entryData.clientOnlyEntries, clientInputJar, clientOnlyOutputJar, "client");
+			// The compressed entries are transferred as is, so the outputs are written concurrently rather than each entry.
+			try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+				Future<Void> common = executor.submit(() -> copyEntriesToJar(entryData.commonEntries, serverInput, serverEntries, commonOutputJar, "common"));
+				Future<Void> clientOnly = executor.submit(() -> copyEntriesToJar(entryData.clientOnlyEntries, clientInput, clientEntries, clientOnlyOutputJar, "client"));
+
+				await(common);
+				await(clientOnly);
+			}
+		}
 	}
 
 	public void sharedEntry(String path) {
@@ -76,65 +95,62 @@ public class ZomboidJarSplitter implements AutoCloseable {
 		this.forcedClientEntries.add(path);
 	}
 
-	private Set<String> getJarEntries(Path input) throws IOException {
-		Set<String> entries = new HashSet<>();
-
-		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(input);
-				Stream<Path> walk = Files.walk(fs.get().getPath("/"))) {
-			Iterator<Path> iterator = walk.iterator();
-
-			while (iterator.hasNext()) {
-				Path fsPath = iterator.next();
-
-				if (!Files.isRegularFile(fsPath)) {
-					continue;
-				}
-
-				String entryPath = fs.get().getPath("/").relativize(fsPath).toString();
+	private static Map<String, RawZipFile.Entry> getJarEntries(RawZipFile input) {
+		Map<String, RawZipFile.Entry> entries = new TreeMap<>();
 
-				if (entryPath.startsWith("META-INF/")) {
-					continue;
-				}
-
-				entries.add(entryPath);
+		for (RawZipFile.Entry entry : input.entries()) {
+			if (entry.isDirectory() || entry.name().startsWith("META-INF/")) {
+				continue;
 			}
+
+			entries.putIfAbsent(entry.name(), entry);
 		}
 
 		return entries;
 	}
 
-	private void copyEntriesToJar(Set<String> entries, Path inputJar, Path outputJar, String env) throws IOException {
+	private static Void copyEntriesToJar(Set<String> entries, RawZipFile input, Map<String, RawZipFile.Entry> inputEntries, Path outputJar, String env) throws IOException {
 		Files.deleteIfExists(outputJar);
 
-		try (FileSystemUtil.Delegate inputFs = FileSystemUtil.getJarFileSystem(inputJar);
-				FileSystemUtil.Delegate outputFs = FileSystemUtil.getJarFileSystem(outputJar, true)) {
-			for (String entry : entries) {
-				Path inputPath = inputFs.get().getPath(entry);
-				Path outputPath = outputFs.get().getPath(entry);
+		try (RawZipOutput output = new RawZipOutput(outputJar)) {
+			writeManifest(output, env);
 
-				assert Files.isRegularFile(inputPath);
+			for (String name : entries) {
+				RawZipFile.Entry entry = inputEntries.get(name);
 
-				Path outputPathParent = outputPath.getParent();
-
-				if (outputPathParent != null) {
-					Files.createDirectories(outputPathParent);
+				if (entry == null) {
+					throw new NoSuchFileException(name, null, "Missing from the input of the " + env + " jar");
 				}
 
-				Files.copy(inputPath, outputPath, StandardCopyOption.COPY_ATTRIBUTES);
+				output.copyRaw(input, entry, true);
 			}
-
-			writeManifest(outputFs, env);
 		}
+
+		return null;
 	}
 
-	private void writeManifest(FileSystemUtil.Delegate outputFs, String env) throws IOException {
+	private static void writeManifest(RawZipOutput output, String env) throws IOException {
 		final Manifest manifest = new Manifest();
 		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
 		manifest.getMainAttributes().putValue(Constants.Manifest.SPLIT_ENV_NAME, env);
 		ByteArrayOutputStream out = new ByteArrayOutputStream();
 		manifest.write(out);
-		Files.createDirectories(outputFs.get().getPath("META-INF"));
-		Files.write(outputFs.get().getPath(Constants.Manifest.PATH), out.toByteArray());
+		output.write(Constants.Manifest.PATH, out.toByteArray(), ZipEntry.DEFLATED);
+	}
+
+	private static void await(Future<Void> future) throws IOException {
+		try {
+			future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while splitting jars", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException ioException) {
+				throw ioException;
+			}
+
+			throw new RuntimeException("Failed to split jars", e.getCause());
+		}
 	}
 
 	@Override
@@ -152,17 +168,18 @@ public class ZomboidJarSplitter implements AutoCloseable {
 			this.clientEntries = clientEntries;
 			this.serverEntries = serverEntries;
 
-			this.commonEntries = new HashSet<>(clientEntries);
+			// Sorted so that the output jars are reproducible.
+			this.commonEntries = new TreeSet<>(clientEntries);
 			this.commonEntries.retainAll(serverEntries);
 			this.commonEntries.addAll(sharedEntries);
 			this.commonEntries.removeAll(forcedClientEntries);
 
-			this.clientOnlyEntries = new HashSet<>(clientEntries);
+			this.clientOnlyEntries = new TreeSet<>(clientEntries);
 			this.clientOnlyEntries.removeAll(serverEntries);
 			this.clientOnlyEntries.addAll(sharedEntries);
 			this.clientOnlyEntries.addAll(forcedClientEntries);
 
-			this.serverOnlyEntries = new HashSet<>(serverEntries);
+			this.serverOnlyEntries = new TreeSet<>(serverEntries);
 			this.serverOnlyEntries.removeAll(clientEntries);
 		}
 	}
@@ -45,6 +45,7 @@ import dev.aoqia.leaf.loom.LoomGradlePlugin;
 import dev.aoqia.leaf.loom.configuration.ConfigContext;
 import dev.aoqia.leaf.loom.configuration.DependencyInfo;
 import dev.aoqia.leaf.loom.configuration.providers.zomboid.ManifestLocations.ManifestLocation;
+import dev.aoqia.leaf.loom.util.CacheLock;
 import dev.aoqia.leaf.loom.util.Constants;
 import dev.aoqia.leaf.loom.util.download.DownloadBuilder;
 
@@ -154,8 +155,10 @@ public final class ZomboidMetadataProvider {
 			builder = builder.defaultCache();
 		}
 
+		final DownloadBuilder manifestBuilder = builder;
 		final Path cacheFile = location.cacheFile(options.userCache());
-		final String versionManifest = builder.downloadString(cacheFile);
+		// The user cache is shared between projects and Gradle processes
+		final String versionManifest = CacheLock.withExclusiveLock(cacheFile, () -> manifestBuilder.downloadString(cacheFile));
 		final VersionsManifest manifest = LoomGradlePlugin.GSON.fromJson(versionManifest, VersionsManifest.class);
 		final VersionsManifest.Version version = manifest.getVersion(options.zomboidVersion());
 
@@ -177,7 +180,7 @@ public final class ZomboidMetadataProvider {
 
 		final String fileName = getVersionMetaFileName();
 		final Path cacheFile = options.workingDir().resolve(fileName);
-		final String json = builder.downloadString(cacheFile);
+		final String json = CacheLock.withExclusiveLock(cacheFile, () -> builder.downloadString(cacheFile));
 		return LoomGradlePlugin.GSON.fromJson(json, ZomboidVersionMeta.class);
 	}
 
@@ -190,7 +193,8 @@ public final class ZomboidMetadataProvider {
         Platform.OperatingSystem os = Platform.CURRENT.getOperatingSystem();
         ZomboidVersionMeta.AssetIndexEntryValue index = versionMeta.assetIndexes().client().getFromOs(os);
 
-        String json = download.apply(index.url()).sha1(index.sha1()).downloadString(indexFile.toPath());
+        final DownloadBuilder builder = download.apply(index.url()).sha1(index.sha1());
+        String json = CacheLock.withExclusiveLock(indexFile.toPath(), () -> builder.downloadString(indexFile.toPath()));
         return LoomGradlePlugin.GSON.fromJson(json, AssetIndex.class);
     }
 
@@ -25,20 +25,21 @@
 package dev.aoqia.leaf.loom.configuration.providers.zomboid;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import dev.aoqia.leaf.loom.configuration.providers.zomboid.assets.AssetIndex;
+import dev.aoqia.leaf.loom.configuration.providers.zomboid.assets.GameFileValidator;
+import dev.aoqia.leaf.loom.util.CacheLock;
 import dev.aoqia.leaf.loom.util.Constants;
 import dev.aoqia.leaf.loom.util.MirrorUtil;
 
 import dev.aoqia.leaf.loom.util.Platform;
 import dev.aoqia.leaf.loom.util.gradle.GradleUtils;
 
-import org.apache.commons.io.FilenameUtils;
 import org.gradle.api.JavaVersion;
 import org.gradle.api.Project;
 
@@ -85,15 +86,23 @@ public class ZomboidProvider {
 
         Project project = getProject();
         setup(project);
-//        validateFiles(project);
+        validateFiles(project);
 
 		final ZomboidLibraryProvider libraryProvider = new ZomboidLibraryProvider(this, project);
 		libraryProvider.provide();
 	}
 
-    protected void setup(Project project) {
+    protected void setup(Project project) throws IOException {
         Path gamePath = MirrorUtil.getGameJavaPath(project);
-        this.gameJar = gamePath.resolve("projectzomboid.jar").toFile();
+
+        // Import the game jar into the version cache, so that the install being updated during a build does not
+        // change the jar that was remapped. Files whose size and modification time are unchanged are not copied again.
+        final Path gameJar = path("projectzomboid.jar");
+        CacheLock.withExclusiveLock(gameJar, () -> {
+            getExtension().copyGameFiles(Map.of(gameJar, gamePath.resolve("projectzomboid.jar").toString()));
+            return null;
+        });
+        this.gameJar = gameJar.toFile();
 
         // Find all other game lib jars in the root game folder and add them as compile libraries
 //        project.getDependencies().add(Constants.Configurations.ZOMBOID_COMPILE_LIBRARIES,
@@ -101,25 +110,21 @@ public class ZomboidProvider {
     }
 
     public void validateFiles(Project project) throws IOException {
-        Path gamePath = MirrorUtil.getGamePath(project);
+        // Disable game validation is an option to speed up on slow HDD
+        if (!GradleUtils.getBooleanProperty(project, Constants.Properties.ENABLE_GAME_VALIDATION)) {
+            return;
+        }
 
+        Path gamePath = MirrorUtil.getGamePath(project);
         AssetIndex assetIndex = getClientAssetIndex();
-        for (AssetIndex.Object object : assetIndex.getObjects()) {
-            Path path = Path.of(FilenameUtils.separatorsToSystem(object.path()));
-            String hash = object.hash();
-            Path filePath = gamePath.resolve(path);
 
-            // Disable game validation is an option to speed up on slow HDD
-            if (!GradleUtils.getBooleanProperty(project, Constants.Properties.ENABLE_GAME_VALIDATION)) {
-                continue;
-            }
-
-            if (!filePath.toFile().exists()) {
-                throw new FileNotFoundException("Game file '%s' does not exist".formatted(filePath));
-            }
-
-            // TODO(leaf): Implement. See CopyGameFile#isHashValid
-        }
+        // Only files that changed since the last validation are hashed again
+        final Path ledger = path("game_files.ledger");
+        CacheLock.withExclusiveLock(ledger, () -> {
+            GameFileValidator validator = GameFileValidator.create(ledger);
+            validator.validate(gamePath, assetIndex.getObjects());
+            return null;
+        });
     }
 
 	public File workingDir() {
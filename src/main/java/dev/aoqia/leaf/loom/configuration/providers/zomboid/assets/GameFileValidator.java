@@ -0,0 +1,171 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.configuration.providers.zomboid.assets;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FilenameUtils;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.aoqia.leaf.loom.util.Checksum;
+import dev.aoqia.leaf.loom.util.FileStampLedger;
+
+/**
+ * Validates the files of a game install against the hashes in the {@link AssetIndex}.
+ *
+ * <p>Hashes are recorded in a ledger keyed by the path, size and modification time of each file, so that only new or
+ * changed files have to be hashed again on the next validation.
+ */
+public final class GameFileValidator {
+	private static final Logger LOGGER = LoggerFactory.getLogger(GameFileValidator.class);
+	private static final int LEDGER_MAGIC = 0x4C47564C; // LGVL
+	// Limit the number of files being read at the same time, more only causes seeking on slow disks
+	private static final int MAX_CONCURRENT_READS = Math.min(8, Runtime.getRuntime().availableProcessors());
+	private static final int MAX_REPORTED_FAILURES = 10;
+
+	private final Path ledgerFile;
+	private final Map<String, FileStampLedger.Entry> ledger;
+	private final AtomicInteger hashed = new AtomicInteger();
+	private volatile boolean modified = false;
+
+	private GameFileValidator(Path ledgerFile, Map<String, FileStampLedger.Entry> ledger) {
+		this.ledgerFile = ledgerFile;
+		this.ledger = ledger;
+	}
+
+	public static GameFileValidator create(Path ledgerFile) {
+		return new GameFileValidator(ledgerFile, FileStampLedger.read(ledgerFile, LEDGER_MAGIC, "game file validation ledger"));
+	}
+
+	/**
+	 * Validate that every file in the asset index exists within the game directory and has the expected hash.
+	 *
+	 * @throws FileNotFoundException when a file does not exist
+	 * @throws IOException when a file does not match the asset index
+	 */
+	public void validate(Path gameDir, Collection<AssetIndex.Object> objects) throws IOException {
+		final long start = System.currentTimeMillis();
+		final List<Future<@Nullable String>> futures = new ArrayList<>(objects.size());
+
+		try (ExecutorService executor = Executors.newFixedThreadPool(MAX_CONCURRENT_READS)) {
+			for (AssetIndex.Object object : objects) {
+				final Path path = gameDir.resolve(FilenameUtils.separatorsToSystem(object.path()));
+				futures.add(executor.submit(() -> validateFile(path, object)));
+			}
+		}
+
+		final List<String> failures = new ArrayList<>();
+
+		for (Future<@Nullable String> future : futures) {
+			try {
+				final String failure = future.get();
+
+				if (failure != null) {
+					failures.add(failure);
+				}
+			} catch (InterruptedException e) {
+				throw new RuntimeException("Interrupted while validating game files", e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof NoSuchFileException noSuchFileException) {
+					throw new FileNotFoundException("Game file '%s' does not exist".formatted(noSuchFileException.getFile()));
+				}
+
+				throw new IOException("Failed to validate game files", e.getCause());
+			}
+		}
+
+		try {
+			writeLedger();
+		} catch (IOException e) {
+			LOGGER.warn("Failed to write game file validation ledger to {}", ledgerFile, e);
+		}
+
+		LOGGER.info("Validated {} game files in {}ms, {} files hashed", objects.size(), System.currentTimeMillis() - start, hashed.get());
+
+		if (!failures.isEmpty()) {
+			final String reported = String.join("\n", failures.subList(0, Math.min(failures.size(), MAX_REPORTED_FAILURES)));
+			throw new IOException("%d game files do not match the expected hash, verify the game files or reinstall the game:\n%s".formatted(failures.size(), reported));
+		}
+	}
+
+	/**
+	 * @return a description of the mismatch, or null when the file is valid
+	 */
+	private @Nullable String validateFile(Path path, AssetIndex.Object object) throws IOException {
+		final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+		if (object.size() > 0 && attributes.size() != object.size()) {
+			return "%s (expected %d bytes, got %d bytes)".formatted(path, object.size(), attributes.size());
+		}
+
+		final String hash = getHash(path, attributes);
+
+		if (!hash.equalsIgnoreCase(object.hash())) {
+			return "%s (expected %s, got %s)".formatted(path, object.hash(), hash);
+		}
+
+		return null;
+	}
+
+	private String getHash(Path path, BasicFileAttributes attributes) throws IOException {
+		final String key = path.toAbsolutePath().toString();
+		final FileStampLedger.Entry entry = ledger.get(key);
+
+		if (entry != null && entry.matches(attributes)) {
+			return entry.value();
+		}
+
+		final String hash = Checksum.of(path).sha1().hex();
+		ledger.put(key, FileStampLedger.Entry.of(attributes, hash));
+		hashed.incrementAndGet();
+		modified = true;
+		return hash;
+	}
+
+	private void writeLedger() throws IOException {
+		if (!modified) {
+			return;
+		}
+
+		FileStampLedger.write(ledgerFile, LEDGER_MAGIC, ledger);
+		modified = false;
+	}
+}
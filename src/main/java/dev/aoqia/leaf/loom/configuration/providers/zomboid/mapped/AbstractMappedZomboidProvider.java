@@ -29,6 +29,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
@@ -53,6 +54,8 @@ import dev.aoqia.leaf.loom.configuration.providers.zomboid.ZomboidProvider;
 import dev.aoqia.leaf.loom.configuration.providers.zomboid.ZomboidSourceSets;
 import dev.aoqia.leaf.loom.configuration.providers.zomboid.SignatureFixerApplyVisitor;
 import dev.aoqia.leaf.loom.extension.LoomFiles;
+import dev.aoqia.leaf.loom.util.CacheLock;
+import dev.aoqia.leaf.loom.util.RemapClasspathCache;
 import dev.aoqia.leaf.loom.util.SidedClassVisitor;
 import dev.aoqia.leaf.loom.util.TinyRemapperHelper;
 import net.fabricmc.tinyremapper.OutputConsumerPath;
@@ -100,15 +103,27 @@ public abstract class AbstractMappedZomboidProvider<M extends ZomboidProvider> i
 			throw new IllegalStateException("No remapped jars provided");
 		}
 
-		if (shouldRefreshOutputs(context)) {
-			try {
-				remapInputs(remappedJars, context.configContext());
-				createBackupJars(gameJars);
-			} catch (Throwable t) {
-				cleanOutputs(remappedJars);
+		// The outputs may be shared with other projects, they are checked under a shared lock and only produced under an exclusive one
+		final Path lockPath = gameJars.get(0).getPath();
 
-				throw new RuntimeException("Failed to remap zomboid", t);
-			}
+		if (CacheLock.withSharedLock(lockPath, () -> shouldRefreshOutputs(context))) {
+			CacheLock.withExclusiveLock(lockPath, () -> {
+				// Another process may have produced the outputs while waiting for the lock
+				if (!shouldRefreshOutputs(context)) {
+					return null;
+				}
+
+				try {
+					remapInputs(remappedJars, context.configContext());
+					createBackupJars(gameJars);
+				} catch (Throwable t) {
+					cleanOutputs(remappedJars);
+
+					throw new RuntimeException("Failed to remap zomboid", t);
+				}
+
+				return null;
+			});
 		}
 
 		if (context.applyDependencies()) {
@@ -283,22 +298,46 @@ public abstract class AbstractMappedZomboidProvider<M extends ZomboidProvider> i
 			configureRemapper(remappedJars, builder);
 		});
 
-		try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(remappedJars.outputJarPath()).build()) {
-			outputConsumer.addNonClassFiles(remappedJars.inputJar());
+		try {
+			remap(remapper, remappedJars.inputJar(), getCachedClasspath(remappedJars.remapClasspath()), remappedJars.outputJarPath());
+		} catch (Exception e) {
+			throw new RuntimeException("Failed to remap JAR " + remappedJars.inputJar() + " with mappings from " + mappingConfiguration.tinyMappings, e);
+		}
+
+		getMavenHelper(remappedJars.type()).savePom();
+	}
 
-			for (Path path : remappedJars.remapClasspath()) {
-				remapper.readClassPath(path);
+	// The intermediary and named remaps read the same libraries, both use the stripped copies from the shared classpath cache.
+	private List<Path> getCachedClasspath(Path... remapClasspath) {
+		final Path cacheDir = extension.getFiles().getRemapClasspathCache().toPath();
+		final List<Path> classpath = new ArrayList<>(remapClasspath.length);
+
+		for (Path path : remapClasspath) {
+			try {
+				classpath.add(RemapClasspathCache.get(cacheDir, path));
+			} catch (IOException | RuntimeException e) {
+				LOGGER.warn("Failed to cache remap classpath jar {}, reading it directly", path, e);
+				classpath.add(path);
+			}
+		}
+
+		return classpath;
+	}
+
+	// The library classpath and the game jar are read concurrently, apply waits for all the reads to complete.
+	static void remap(TinyRemapper remapper, Path inputJar, List<Path> remapClasspath, Path outputJar) throws IOException {
+		try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(outputJar).build()) {
+			outputConsumer.addNonClassFiles(inputJar);
+
+			for (Path path : remapClasspath) {
+				remapper.readClassPathAsync(path);
 			}
 
-			remapper.readInputs(remappedJars.inputJar());
+			remapper.readInputsAsync(inputJar);
 			remapper.apply(outputConsumer);
-		} catch (Exception e) {
-			throw new RuntimeException("Failed to remap JAR " + remappedJars.inputJar() + " with mappings from " + mappingConfiguration.tinyMappings, e);
 		} finally {
 			remapper.finish();
 		}
-
-		getMavenHelper(remappedJars.type()).savePom();
 	}
 
 	protected void configureRemapper(RemappedJars remappedJars, TinyRemapper.Builder tinyRemapperBuilder) {
@@ -25,29 +25,49 @@
 package dev.aoqia.leaf.loom.configuration.providers.zomboid.verify;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import dev.aoqia.leaf.loom.util.Checksum;
 import dev.aoqia.leaf.loom.util.ZipReprocessorUtil;
 
 public final class JarVerifier {
 	private static final Logger LOGGER = LoggerFactory.getLogger(JarVerifier.class);
+	private static final String VERIFIED_KIND = "signature";
+	private static final int BUFFER_SIZE = 64 * 1024;
+	// Small batches keep the workers busy when a few entries are much larger than the rest.
+	private static final int BATCHES_PER_THREAD = 4;
 
 	private JarVerifier() {
 	}
 
 	public static void verify(Path jarPath, CertificateChain certificateChain) throws IOException, SignatureVerificationFailure {
+		verify(jarPath, certificateChain, null);
+	}
+
+	/**
+	 * @param verificationStamp records the verification, so that the jar is not verified again until it changes
+	 */
+	public static void verify(Path jarPath, CertificateChain certificateChain, @Nullable VerificationStamp verificationStamp) throws IOException, SignatureVerificationFailure {
 		Objects.requireNonNull(jarPath, "jarPath");
 		Objects.requireNonNull(certificateChain, "certificateChain");
 
@@ -55,9 +75,20 @@ public final class JarVerifier {
 			throw new IllegalStateException("Can only verify jars from a root certificate");
 		}
 
+		final String fingerprint = verificationStamp != null ? fingerprint(certificateChain) : null;
+
+		if (verificationStamp != null && verificationStamp.matches(jarPath, VERIFIED_KIND, fingerprint)) {
+			LOGGER.debug("Jar {} was already verified against the expected certificate", jarPath);
+			return;
+		}
+
 		Set<X509Certificate> jarCertificates = new HashSet<>();
 
+		// A single JarFile is shared between the workers, so the central directory is scanned
+		// and the signature blocks are parsed once. Only the entry digests are computed in parallel.
 		try (JarFile jarFile = new JarFile(jarPath.toFile(), true)) {
+			List<JarEntry> entries = new ArrayList<>();
+
 			for (JarEntry jarEntry : Collections.list(jarFile.entries())) {
 				if (ZipReprocessorUtil.isSpecialFile(jarEntry.getName())
 						|| jarEntry.getName().equals("META-INF/MANIFEST.MF")
@@ -65,28 +96,104 @@ public final class JarVerifier {
 					continue;
 				}
 
-				try {
-					// Must read the entire entry to trigger the signature verification
-					byte[] bytes = jarFile.getInputStream(jarEntry).readAllBytes();
-				} catch (SecurityException e) {
-					throw new SignatureVerificationFailure("Jar entry " + jarEntry.getName() + " failed signature verification", e);
+				entries.add(jarEntry);
+			}
+
+			for (Set<X509Certificate> certificates : verifyEntries(jarFile, entries)) {
+				jarCertificates.addAll(certificates);
+			}
+		}
+
+		CertificateChain jarCertificateChain = CertificateChain.getRoot(jarCertificates);
+
+		jarCertificateChain.verifyChainMatches(certificateChain);
+		LOGGER.debug("Jar {} is signed by the expected certificate", jarPath);
+
+		if (verificationStamp != null) {
+			verificationStamp.write(jarPath, VERIFIED_KIND, fingerprint);
+		}
+	}
+
+	private static List<Set<X509Certificate>> verifyEntries(JarFile jarFile, List<JarEntry> entries) throws IOException, SignatureVerificationFailure {
+		if (entries.isEmpty()) {
+			return List.of();
+		}
+
+		final int threads = Math.min(Runtime.getRuntime().availableProcessors(), entries.size());
+		final int batchSize = Math.max(1, Math.ceilDiv(entries.size(), threads * BATCHES_PER_THREAD));
+		final List<Future<Set<X509Certificate>>> futures = new ArrayList<>();
+
+		try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+			for (int i = 0; i < entries.size(); i += batchSize) {
+				final List<JarEntry> batch = entries.subList(i, Math.min(i + batchSize, entries.size()));
+				futures.add(executor.submit(() -> verifyBatch(jarFile, batch)));
+			}
+
+			final List<Set<X509Certificate>> results = new ArrayList<>(futures.size());
+
+			try {
+				// Batches are checked in entry order so the reported failure does not depend on scheduling.
+				for (Future<Set<X509Certificate>> future : futures) {
+					results.add(future.get());
 				}
+			} catch (ExecutionException e) {
+				futures.forEach(future -> future.cancel(true));
 
-				Certificate[] entryCertificates = jarEntry.getCertificates();
+				if (e.getCause() instanceof SignatureVerificationFailure failure) {
+					throw failure;
+				} else if (e.getCause() instanceof IOException ioException) {
+					throw ioException;
+				}
+
+				throw new RuntimeException("Failed to verify jar entries", e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while verifying jar entries", e);
+			}
 
-				if (entryCertificates == null) {
-					throw new SignatureVerificationFailure("Jar entry " + jarEntry.getName() + " does not have a signature");
+			return results;
+		}
+	}
+
+	private static Set<X509Certificate> verifyBatch(JarFile jarFile, List<JarEntry> batch) throws IOException, SignatureVerificationFailure {
+		final Set<X509Certificate> certificates = new HashSet<>();
+		final byte[] buffer = new byte[BUFFER_SIZE];
+
+		for (JarEntry jarEntry : batch) {
+			try (InputStream is = jarFile.getInputStream(jarEntry)) {
+				// Must read the entire entry to trigger the signature verification
+				while (is.read(buffer) != -1) {
+					// Discard, only the digest is needed.
 				}
+			} catch (SecurityException e) {
+				throw new SignatureVerificationFailure("Jar entry " + jarEntry.getName() + " failed signature verification", e);
+			}
 
-				Arrays.stream(entryCertificates)
-						.map(c -> (X509Certificate) c)
-						.forEach(jarCertificates::add);
+			Certificate[] entryCertificates = jarEntry.getCertificates();
+
+			if (entryCertificates == null) {
+				throw new SignatureVerificationFailure("Jar entry " + jarEntry.getName() + " does not have a signature");
+			}
+
+			for (Certificate certificate : entryCertificates) {
+				certificates.add((X509Certificate) certificate);
 			}
 		}
 
-		CertificateChain jarCertificateChain = CertificateChain.getRoot(jarCertificates);
+		return certificates;
+	}
 
-		jarCertificateChain.verifyChainMatches(certificateChain);
-		LOGGER.debug("Jar {} is signed by the expected certificate", jarPath);
+	private static String fingerprint(CertificateChain certificateChain) throws SignatureVerificationFailure {
+		final List<Checksum> checksums = new ArrayList<>();
+
+		CertificateChain.visitAll(certificateChain, certificate -> {
+			try {
+				checksums.add(Checksum.of(certificate.getEncoded()));
+			} catch (CertificateEncodingException e) {
+				throw new SignatureVerificationFailure("Failed to encode certificate " + certificate.getSubjectX500Principal().getName(), e);
+			}
+		});
+
+		return Checksum.of(checksums).sha256().hex();
 	}
 }
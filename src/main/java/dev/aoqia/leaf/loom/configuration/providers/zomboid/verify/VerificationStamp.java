@@ -0,0 +1,98 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.configuration.providers.zomboid.verify;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.aoqia.leaf.loom.util.CacheLock;
+import dev.aoqia.leaf.loom.util.FileStampLedger;
+
+/**
+ * Records successful verifications in a ledger in the Loom cache, keyed by the path, size and modification time of the
+ * verified file, so that an unchanged file does not have to be verified again. The verified files are never written to.
+ */
+public final class VerificationStamp {
+	private static final Logger LOGGER = LoggerFactory.getLogger(VerificationStamp.class);
+	private static final int LEDGER_MAGIC = 0x4C56524C; // LVRL
+
+	private final Path ledgerFile;
+	private final Map<String, FileStampLedger.Entry> stamps;
+
+	private VerificationStamp(Path ledgerFile, Map<String, FileStampLedger.Entry> stamps) {
+		this.ledgerFile = ledgerFile;
+		this.stamps = stamps;
+	}
+
+	public static VerificationStamp create(Path ledgerFile) throws IOException {
+		return new VerificationStamp(ledgerFile, CacheLock.withSharedLock(ledgerFile, () -> readLedger(ledgerFile)));
+	}
+
+	/**
+	 * @return whether the file was verified against the given value and has not changed since
+	 */
+	boolean matches(Path path, String kind, String value) throws IOException {
+		final FileStampLedger.Entry stamp = stamps.get(getKey(path, kind));
+		return stamp != null && stamp.equals(createStamp(path, value));
+	}
+
+	void write(Path path, String kind, String value) {
+		try {
+			final String key = getKey(path, kind);
+			final FileStampLedger.Entry stamp = createStamp(path, value);
+			stamps.put(key, stamp);
+
+			CacheLock.withExclusiveLock(ledgerFile, () -> {
+				// Merge with the ledger on disk, another process may have recorded other files since it was read
+				final Map<String, FileStampLedger.Entry> ledger = readLedger(ledgerFile);
+				ledger.put(key, stamp);
+				FileStampLedger.write(ledgerFile, LEDGER_MAGIC, ledger);
+				return null;
+			});
+		} catch (IOException e) {
+			// The file will be verified again next time.
+			LOGGER.debug("Failed to record verification of {}", path, e);
+		}
+	}
+
+	private static String getKey(Path path, String kind) {
+		return kind + ":" + path.toAbsolutePath().normalize();
+	}
+
+	private static FileStampLedger.Entry createStamp(Path path, String value) throws IOException {
+		return FileStampLedger.Entry.of(Files.readAttributes(path, BasicFileAttributes.class), value);
+	}
+
+	private static Map<String, FileStampLedger.Entry> readLedger(Path ledgerFile) {
+		return FileStampLedger.read(ledgerFile, LEDGER_MAGIC, "verification ledger");
+	}
+
+}
@@ -24,6 +24,7 @@
 
 package dev.aoqia.leaf.loom.configuration.providers.zomboid.verify;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Map;
 import java.util.function.Function;
@@ -34,10 +35,12 @@ import org.gradle.api.Project;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import dev.aoqia.leaf.loom.LoomGradleExtension;
 import dev.aoqia.leaf.loom.util.Checksum;
 
 public abstract class ZomboidJarVerification {
 	private static final Logger LOGGER = LoggerFactory.getLogger(ZomboidJarVerification.class);
+	private static final String VERIFIED_KIND = "known_version";
 
 	private final String gameVersion;
 
@@ -49,7 +52,7 @@ public abstract class ZomboidJarVerification {
 		this.gameVersion = gameVersion;
 	}
 
-	private boolean isValidKnownVersion(Path path, String version, KnownJarType type) throws SignatureVerificationFailure {
+	private boolean isValidKnownVersion(Path path, String version, KnownJarType type) throws IOException, SignatureVerificationFailure {
 		Map<String, String> knownVersions = type.getKnownVersions();
 		String expectedHash = knownVersions.get(version);
 
@@ -58,16 +61,30 @@ public abstract class ZomboidJarVerification {
 		}
 
 		LOGGER.info("Found executed hash ({}) for known version: {}", expectedHash, version);
+
+		final VerificationStamp verificationStamp = getVerificationStamp();
+
+		if (verificationStamp.matches(path, VERIFIED_KIND, expectedHash)) {
+			LOGGER.info("Game {} is unchanged since it last matched the known version", path.getFileName());
+			return true;
+		}
+
 		Checksum.Result hash = Checksum.of(path).sha256();
 
 		if (hash.matchesStr(expectedHash)) {
 			LOGGER.info("Game {} hash matches known version", path.getFileName());
+			verificationStamp.write(path, VERIFIED_KIND, expectedHash);
 			return true;
 		}
 
 		throw new SignatureVerificationFailure("Hash mismatch for known game version " + version + ": expected " + expectedHash + ", got " + hash);
 	}
 
+	private VerificationStamp getVerificationStamp() throws IOException {
+		final Path userCache = LoomGradleExtension.get(getProject()).getFiles().getUserCache().toPath();
+		return VerificationStamp.create(userCache.resolve("verified_jars.ledger"));
+	}
+
 	private enum KnownJarType {
 		CLIENT(KnownVersions::client),
 		SERVER(KnownVersions::server),;
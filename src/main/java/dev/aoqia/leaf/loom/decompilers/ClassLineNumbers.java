@@ -27,8 +27,11 @@ package dev.aoqia.leaf.loom.decompilers;
 import static java.text.MessageFormat.format;
 
 import java.io.BufferedReader;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -57,8 +60,8 @@ public record ClassLineNumbers(Map<String, ClassLineNumbers.Entry> lineMap) {
 		int lineNumber = 0;
 
 		record CurrentClass(String className, int maxLine, int maxLineDest) {
-			void putEntry(Map<String, ClassLineNumbers.Entry> entries, Map<Integer, Integer> mappings) {
-				var entry = new ClassLineNumbers.Entry(className(), maxLine(), maxLineDest(), Collections.unmodifiableMap(mappings));
+			void putEntry(Map<String, ClassLineNumbers.Entry> entries, LineMap.Builder mappings) {
+				var entry = new ClassLineNumbers.Entry(className(), maxLine(), maxLineDest(), mappings.build());
 
 				final ClassLineNumbers.Entry previous = entries.put(className(), entry);
 
@@ -69,7 +72,7 @@ public record ClassLineNumbers(Map<String, ClassLineNumbers.Entry> lineMap) {
 		}
 
 		CurrentClass currentClass = null;
-		Map<Integer, Integer> currentMappings = new HashMap<>();
+		LineMap.Builder currentMappings = new LineMap.Builder();
 		boolean didRead = false;
 
 		try {
@@ -80,18 +83,21 @@ public record ClassLineNumbers(Map<String, ClassLineNumbers.Entry> lineMap) {
 
 				didRead = true;
 
-				final String[] segments = line.trim().split("\t");
-
+				// Fields are tab separated, the fields are parsed in place rather than splitting the line
 				if (line.charAt(0) != '\t') {
 					if (currentClass != null) {
 						currentClass.putEntry(lineMap, currentMappings);
-						currentMappings = new HashMap<>();
+						currentMappings = new LineMap.Builder();
 					}
 
-					currentClass = new CurrentClass(segments[0], Integer.parseInt(segments[1]), Integer.parseInt(segments[2]));
+					final int nameEnd = line.indexOf('\t');
+					final int maxLineEnd = line.indexOf('\t', nameEnd + 1);
+					currentClass = new CurrentClass(line.substring(0, nameEnd).trim(), parseInt(line, nameEnd + 1, maxLineEnd), parseInt(line, maxLineEnd + 1, fieldEnd(line, maxLineEnd + 1)));
 				} else {
 					Objects.requireNonNull(currentClass, "No class line mappings found for line " + lineNumber);
-					currentMappings.put(Integer.parseInt(segments[0]), Integer.parseInt(segments[1]));
+
+					final int srcEnd = line.indexOf('\t', 1);
+					currentMappings.put(parseInt(line, 1, srcEnd), parseInt(line, srcEnd + 1, fieldEnd(line, srcEnd + 1)));
 				}
 
 				lineNumber++;
@@ -109,6 +115,27 @@ public record ClassLineNumbers(Map<String, ClassLineNumbers.Entry> lineMap) {
 		return new ClassLineNumbers(Collections.unmodifiableMap(lineMap));
 	}
 
+	private static int fieldEnd(String line, int start) {
+		final int end = line.indexOf('\t', start);
+		return end >= 0 ? end : line.length();
+	}
+
+	private static int parseInt(String line, int start, int end) {
+		if (end < 0) {
+			throw new IllegalArgumentException("Missing field");
+		}
+
+		while (start < end && Character.isWhitespace(line.charAt(start))) {
+			start++;
+		}
+
+		while (end > start && Character.isWhitespace(line.charAt(end - 1))) {
+			end--;
+		}
+
+		return Integer.parseInt(line, start, end, 10);
+	}
+
 	public void write(Writer writer) throws IOException {
 		for (Map.Entry<String, ClassLineNumbers.Entry> entry : lineMap.entrySet()) {
 			entry.getValue().write(writer);
@@ -137,7 +164,16 @@ public record ClassLineNumbers(Map<String, ClassLineNumbers.Entry> lineMap) {
 		return new ClassLineNumbers(Collections.unmodifiableMap(lineMap));
 	}
 
-	public record Entry(String className, int maxLine, int maxLineDest, Map<Integer, Integer> lineMap) {
+	public record Entry(String className, int maxLine, int maxLineDest, LineMap lineMap) {
+		public Entry {
+			Objects.requireNonNull(className, "className");
+			Objects.requireNonNull(lineMap, "lineMap");
+		}
+
+		public Entry(String className, int maxLine, int maxLineDest, Map<Integer, Integer> lineMap) {
+			this(className, maxLine, maxLineDest, LineMap.of(lineMap));
+		}
+
 		public void write(Writer writer) throws IOException {
 			writer.write(className);
 			writer.write('\t');
@@ -146,13 +182,253 @@ public record ClassLineNumbers(Map<String, ClassLineNumbers.Entry> lineMap) {
 			writer.write(Integer.toString(maxLineDest));
 			writer.write('\n');
 
-			for (Map.Entry<Integer, Integer> lineEntry : lineMap.entrySet()) {
+			for (int i = 0; i < lineMap.size(); i++) {
 				writer.write('\t');
-				writer.write(Integer.toString(lineEntry.getKey()));
+				writer.write(Integer.toString(lineMap.sourceLine(i)));
 				writer.write('\t');
-				writer.write(Integer.toString(lineEntry.getValue()));
+				writer.write(Integer.toString(lineMap.destinationLine(i)));
 				writer.write('\n');
 			}
 		}
+
+		/**
+		 * Writes the entry in the binary format, the line mappings are stored as two delta encoded runs of varints.
+		 */
+		public void writeBinary(DataOutput out) throws IOException {
+			out.writeUTF(className);
+			writeVarInt(out, maxLine);
+			writeVarInt(out, maxLineDest);
+			writeVarInt(out, lineMap.size());
+
+			int previous = 0;
+
+			for (int i = 0; i < lineMap.size(); i++) {
+				// Source lines are sorted, so the deltas are never negative
+				writeVarInt(out, lineMap.sourceLine(i) - previous);
+				previous = lineMap.sourceLine(i);
+			}
+
+			previous = 0;
+
+			for (int i = 0; i < lineMap.size(); i++) {
+				writeVarInt(out, zigZag(lineMap.destinationLine(i) - previous));
+				previous = lineMap.destinationLine(i);
+			}
+		}
+
+		public static Entry readBinary(DataInput in) throws IOException {
+			final String className = in.readUTF();
+			final int maxLine = readVarInt(in);
+			final int maxLineDest = readVarInt(in);
+			final int size = readVarInt(in);
+
+			if (size < 0) {
+				throw new IOException("Invalid line map size " + size + " for " + className);
+			}
+
+			final int[] sourceLines = new int[size];
+			final int[] destinationLines = new int[size];
+			int previous = 0;
+
+			for (int i = 0; i < size; i++) {
+				previous += readVarInt(in);
+				sourceLines[i] = previous;
+
+				if (i > 0 && sourceLines[i] <= sourceLines[i - 1]) {
+					throw new IOException("Line map for " + className + " is not sorted");
+				}
+			}
+
+			previous = 0;
+
+			for (int i = 0; i < size; i++) {
+				previous += unZigZag(readVarInt(in));
+				destinationLines[i] = previous;
+			}
+
+			return new Entry(className, maxLine, maxLineDest, new LineMap(sourceLines, destinationLines));
+		}
+
+		private static void writeVarInt(DataOutput out, int value) throws IOException {
+			while ((value & ~0x7F) != 0) {
+				out.writeByte((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+
+			out.writeByte(value);
+		}
+
+		private static int readVarInt(DataInput in) throws IOException {
+			int value = 0;
+
+			for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+				final int b = in.readUnsignedByte();
+				value |= (b & 0x7F) << shift;
+
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+
+			throw new IOException("Malformed varint");
+		}
+
+		private static int zigZag(int value) {
+			return (value << 1) ^ (value >> 31);
+		}
+
+		private static int unZigZag(int value) {
+			return (value >>> 1) ^ -(value & 1);
+		}
+	}
+
+	/**
+	 * An immutable map of source line numbers to destination line numbers, backed by two parallel arrays sorted by
+	 * the source line. Lookups are a binary search, no boxed integers are created.
+	 */
+	public static final class LineMap {
+		public static final LineMap EMPTY = new LineMap(new int[0], new int[0]);
+		/**
+		 * Returned by {@link #get(int)} when a line is not mapped, line numbers are always positive.
+		 */
+		public static final int NO_LINE = -1;
+
+		private final int[] sourceLines;
+		private final int[] destinationLines;
+
+		private LineMap(int[] sourceLines, int[] destinationLines) {
+			this.sourceLines = sourceLines;
+			this.destinationLines = destinationLines;
+		}
+
+		public static LineMap of(Map<Integer, Integer> lineMap) {
+			final var builder = new Builder();
+
+			for (Map.Entry<Integer, Integer> entry : lineMap.entrySet()) {
+				builder.put(entry.getKey(), entry.getValue());
+			}
+
+			return builder.build();
+		}
+
+		public int size() {
+			return sourceLines.length;
+		}
+
+		public boolean isEmpty() {
+			return sourceLines.length == 0;
+		}
+
+		/**
+		 * @return the destination line of the given source line, or {@link #NO_LINE} if it is not mapped
+		 */
+		public int get(int sourceLine) {
+			final int index = Arrays.binarySearch(sourceLines, sourceLine);
+			return index >= 0 ? destinationLines[index] : NO_LINE;
+		}
+
+		public int sourceLine(int index) {
+			return sourceLines[index];
+		}
+
+		public int destinationLine(int index) {
+			return destinationLines[index];
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof LineMap other
+					&& Arrays.equals(sourceLines, other.sourceLines)
+					&& Arrays.equals(destinationLines, other.destinationLines);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * Arrays.hashCode(sourceLines) + Arrays.hashCode(destinationLines);
+		}
+
+		@Override
+		public String toString() {
+			final var sb = new StringBuilder("{");
+
+			for (int i = 0; i < size(); i++) {
+				if (i > 0) {
+					sb.append(", ");
+				}
+
+				sb.append(sourceLines[i]).append('=').append(destinationLines[i]);
+			}
+
+			return sb.append('}').toString();
+		}
+
+		/**
+		 * Collects line mappings in any order, a later mapping of the same source line replaces an earlier one.
+		 */
+		public static final class Builder {
+			// Source line in the high half, destination line in the low half, so that sorting orders by source line
+			private long[] mappings = new long[16];
+			private int size;
+			private boolean sorted = true;
+
+			public Builder put(int sourceLine, int destinationLine) {
+				if (size == mappings.length) {
+					mappings = Arrays.copyOf(mappings, size * 2);
+				}
+
+				final long mapping = ((long) sourceLine << 32) | (destinationLine & 0xFFFFFFFFL);
+
+				if (size > 0 && (int) (mappings[size - 1] >> 32) >= sourceLine) {
+					sorted = false;
+				}
+
+				mappings[size++] = mapping;
+				return this;
+			}
+
+			public LineMap build() {
+				if (size == 0) {
+					return EMPTY;
+				}
+
+				if (!sorted) {
+					// A stable sort keeps mappings of the same source line in insertion order, the last one is kept
+					final long[] order = new long[size];
+
+					for (int i = 0; i < size; i++) {
+						order[i] = ((mappings[i] >> 32) << 32) | i;
+					}
+
+					Arrays.sort(order);
+
+					final long[] sortedMappings = new long[size];
+
+					for (int i = 0; i < size; i++) {
+						sortedMappings[i] = mappings[(int) order[i]];
+					}
+
+					mappings = sortedMappings;
+					sorted = true;
+				}
+
+				final int[] sourceLines = new int[size];
+				final int[] destinationLines = new int[size];
+				int count = 0;
+
+				for (int i = 0; i < size; i++) {
+					final int sourceLine = (int) (mappings[i] >> 32);
+
+					if (count > 0 && sourceLines[count - 1] == sourceLine) {
+						count--;
+					}
+
+					sourceLines[count] = sourceLine;
+					destinationLines[count] = (int) mappings[i];
+					count++;
+				}
+
+				return new LineMap(Arrays.copyOf(sourceLines, count), Arrays.copyOf(destinationLines, count));
+			}
+		}
 	}
 }
@@ -0,0 +1,186 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.decompilers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.aoqia.leaf.loom.decompilers.cache.ClassEntry;
+import dev.aoqia.leaf.loom.decompilers.cache.JarWalker;
+import dev.aoqia.leaf.loom.util.FileSystemUtil;
+
+/**
+ * Splits a jar into shards that can be decompiled in separate JVMs, and merges the decompiled shards back together.
+ *
+ * <p>Each class is kept in the same shard as its inner classes, shards contain a contiguous range of the sorted
+ * class names so that packages are kept together where possible.
+ */
+public final class JarShards {
+	private static final Logger LOGGER = LoggerFactory.getLogger(JarShards.class);
+
+	private JarShards() {
+	}
+
+	/**
+	 * Split the input jar into at most the given number of shards of roughly equal size.
+	 * Files that are not part of a {@link ClassEntry} (resources or skipped classes) are placed in the first shard.
+	 *
+	 * @return the shard jars, written to the output directory
+	 */
+	public static List<Path> split(Path inputJar, int shardCount, Path outputDir, boolean decompileEverything) throws IOException {
+		try (FileSystemUtil.Delegate inputFs = FileSystemUtil.getJarFileSystem(inputJar)) {
+			final List<ClassEntry> classEntries = JarWalker.findClasses(inputJar, decompileEverything);
+			final Set<String> classFiles = new HashSet<>();
+			final long[] sizes = new long[classEntries.size()];
+			long totalSize = 0;
+
+			for (int i = 0; i < classEntries.size(); i++) {
+				final ClassEntry classEntry = classEntries.get(i);
+				sizes[i] = Files.size(inputFs.getPath(classEntry.name()));
+				classFiles.add(classEntry.name());
+
+				for (String innerClass : classEntry.innerClasses()) {
+					sizes[i] += Files.size(inputFs.getPath(innerClass));
+					classFiles.add(innerClass);
+				}
+
+				totalSize += sizes[i];
+			}
+
+			final List<String> otherFiles = new ArrayList<>();
+			long otherSize = 0;
+
+			for (String file : listFiles(inputFs)) {
+				if (!classFiles.contains(file)) {
+					otherFiles.add(file);
+					otherSize += Files.size(inputFs.getPath(file));
+				}
+			}
+
+			totalSize += otherSize;
+			shardCount = Math.max(1, Math.min(shardCount, classEntries.size()));
+
+			final List<List<ClassEntry>> shards = new ArrayList<>();
+			shards.add(new ArrayList<>());
+			long shardEnd = totalSize / shardCount;
+			long accumulated = otherSize;
+
+			for (int i = 0; i < classEntries.size(); i++) {
+				if (accumulated >= shardEnd && shards.size() < shardCount && !shards.getLast().isEmpty()) {
+					shards.add(new ArrayList<>());
+					shardEnd = totalSize * shards.size() / shardCount;
+				}
+
+				shards.getLast().add(classEntries.get(i));
+				accumulated += sizes[i];
+			}
+
+			final List<Path> shardJars = new ArrayList<>();
+
+			for (int i = 0; i < shards.size(); i++) {
+				final Path shardJar = outputDir.resolve("shard-" + i + ".jar");
+				Files.deleteIfExists(shardJar);
+
+				try (FileSystemUtil.Delegate outputFs = FileSystemUtil.getJarFileSystem(shardJar, true)) {
+					for (ClassEntry classEntry : shards.get(i)) {
+						classEntry.copyTo(inputFs.getRoot(), outputFs.getRoot());
+					}
+
+					if (i == 0) {
+						for (String file : otherFiles) {
+							copy(inputFs.getPath(file), outputFs.getPath(file));
+						}
+					}
+				}
+
+				LOGGER.debug("Created decompile shard {} with {} classes", shardJar, shards.get(i).size());
+				shardJars.add(shardJar);
+			}
+
+			return shardJars;
+		}
+	}
+
+	/**
+	 * Merge the given jars into the output jar, the first jar to contain a file wins.
+	 */
+	public static void merge(List<Path> jars, Path outputJar) throws IOException {
+		Files.deleteIfExists(outputJar);
+
+		try (FileSystemUtil.Delegate outputFs = FileSystemUtil.getJarFileSystem(outputJar, true)) {
+			for (Path jar : jars) {
+				try (FileSystemUtil.Delegate inputFs = FileSystemUtil.getJarFileSystem(jar)) {
+					for (String file : listFiles(inputFs)) {
+						final Path target = outputFs.getPath(file);
+
+						if (Files.exists(target)) {
+							LOGGER.debug("Skipping duplicate file {} from {}", file, jar);
+							continue;
+						}
+
+						copy(inputFs.getPath(file), target);
+					}
+				}
+			}
+		}
+	}
+
+	private static List<String> listFiles(FileSystemUtil.Delegate fs) throws IOException {
+		final List<String> files = new ArrayList<>();
+		final int rootLength = fs.getRoot().toString().length();
+
+		try (Stream<Path> walk = Files.walk(fs.getRoot())) {
+			Iterator<Path> iterator = walk.iterator();
+
+			while (iterator.hasNext()) {
+				final Path entry = iterator.next();
+
+				if (Files.isRegularFile(entry)) {
+					files.add(entry.toString().substring(rootLength));
+				}
+			}
+		}
+
+		return files;
+	}
+
+	private static void copy(Path source, Path target) throws IOException {
+		if (target.getParent() != null) {
+			Files.createDirectories(target.getParent());
+		}
+
+		Files.copy(source, target);
+	}
+}
@@ -25,13 +25,18 @@
 package dev.aoqia.leaf.loom.decompilers;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
-import java.util.HashSet;
-import java.util.Set;
-
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+
+import org.jspecify.annotations.Nullable;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
@@ -40,57 +45,118 @@ import org.objectweb.asm.MethodVisitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import dev.aoqia.leaf.loom.util.AsyncZipProcessor;
 import dev.aoqia.leaf.loom.util.Constants;
+import dev.aoqia.leaf.loom.util.RawZipFile;
+import dev.aoqia.leaf.loom.util.RawZipOutput;
 
+/**
+ * Rewrites the line numbers of the classes in a jar to match the decompiled sources.
+ *
+ * <p>The input is read from its central directory, only the classes with line mappings are read and rewritten on a
+ * bounded pool. Every other entry is copied without being recompressed. The results are written in entry order by
+ * a single thread, so no state is shared between the workers.
+ */
 public record LineNumberRemapper(ClassLineNumbers lineNumbers) {
 	private static final Logger LOGGER = LoggerFactory.getLogger(LineNumberRemapper.class);
 
 	public void process(Path input, Path output) throws IOException {
-		AsyncZipProcessor.processEntries(input, output, new AsyncZipProcessor() {
-			private final Set<Path> createdParents = new HashSet<>();
+		final Path parent = output.toAbsolutePath().getParent();
+
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
 
-			@Override
-			public void processEntryAsync(Path file, Path dst) throws IOException {
-				Path parent = dst.getParent();
+		final int parallelism = Runtime.getRuntime().availableProcessors();
+		// Results are written in entry order, at most this many entries are pending at once.
+		final int window = parallelism * 2;
+		final Deque<Future<Output>> pending = new ArrayDeque<>(window);
 
-				synchronized (createdParents) {
-					if (parent != null && createdParents.add(parent)) {
-						Files.createDirectories(parent);
+		try (RawZipFile inputZip = RawZipFile.open(input);
+				RawZipOutput outputZip = new RawZipOutput(output);
+				ExecutorService executor = Executors.newFixedThreadPool(parallelism)) {
+			try {
+				for (RawZipFile.Entry entry : inputZip.entries()) {
+					final ClassLineNumbers.Entry lineMap = getLineMap(entry);
+
+					if (pending.size() >= window) {
+						write(outputZip, pending.removeFirst());
+					}
+
+					if (lineMap == null) {
+						pending.addLast(CompletableFuture.completedFuture(new Output(inputZip, entry, null)));
+					} else {
+						pending.addLast(executor.submit(() -> new Output(inputZip, entry, remap(inputZip.readAllBytes(entry), lineMap))));
 					}
 				}
 
-				String fileName = file.toAbsolutePath().toString();
+				while (!pending.isEmpty()) {
+					write(outputZip, pending.removeFirst());
+				}
+			} finally {
+				pending.forEach(future -> future.cancel(true));
+			}
+		}
+	}
 
-				if (fileName.endsWith(".class")) {
-					// Strip the leading slash and the .class extension
-					String idx = fileName.substring(1, fileName.length() - 6);
+	private ClassLineNumbers.@Nullable Entry getLineMap(RawZipFile.Entry entry) {
+		final String fileName = entry.name();
 
-					int dollarPos = idx.indexOf('$'); //This makes the assumption that only Java classes are to be remapped.
+		if (entry.isDirectory() || !fileName.endsWith(".class")) {
+			return null;
+		}
 
-					if (dollarPos >= 0) {
-						idx = idx.substring(0, dollarPos);
-					}
+		// Strip the .class extension
+		String idx = fileName.substring(0, fileName.length() - 6);
 
-					if (lineNumbers.lineMap().containsKey(idx)) {
-						LOGGER.debug("Remapping line numbers for class: {}", idx);
+		int dollarPos = idx.indexOf('$'); //This makes the assumption that only Java classes are to be remapped.
 
-						try (InputStream is = Files.newInputStream(file)) {
-							ClassReader reader = new ClassReader(is);
-							ClassWriter writer = new ClassWriter(0);
+		if (dollarPos >= 0) {
+			idx = idx.substring(0, dollarPos);
+		}
 
-							reader.accept(new LineNumberVisitor(Constants.ASM_VERSION, writer, lineNumbers.lineMap().get(idx)), 0);
-							Files.write(dst, writer.toByteArray());
-							return;
-						}
-					} else {
-						LOGGER.debug("No linemap found for: {}", idx);
-					}
-				}
+		final ClassLineNumbers.Entry lineMap = lineNumbers.lineMap().get(idx);
+
+		if (lineMap != null) {
+			LOGGER.debug("Remapping line numbers for class: {}", idx);
+		} else {
+			LOGGER.debug("No linemap found for: {}", idx);
+		}
+
+		return lineMap;
+	}
+
+	private static byte[] remap(byte[] data, ClassLineNumbers.Entry lineMap) {
+		ClassReader reader = new ClassReader(data);
+		ClassWriter writer = new ClassWriter(0);
 
-				Files.copy(file, dst, StandardCopyOption.REPLACE_EXISTING);
+		reader.accept(new LineNumberVisitor(Constants.ASM_VERSION, writer, lineMap), 0);
+		return writer.toByteArray();
+	}
+
+	private static void write(RawZipOutput outputZip, Future<Output> future) throws IOException {
+		final Output result;
+
+		try {
+			result = future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while remapping line numbers", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException ioException) {
+				throw ioException;
 			}
-		});
+
+			throw new RuntimeException("Failed to remap line numbers", e.getCause());
+		}
+
+		if (result.data() == null) {
+			outputZip.copyRaw(result.source(), result.entry(), true);
+		} else {
+			outputZip.write(result.entry().name(), result.data(), ZipEntry.DEFLATED, result.entry().dosTime(), result.entry().dosDate());
+		}
+	}
+
+	private record Output(RawZipFile source, RawZipFile.Entry entry, byte @Nullable [] data) {
 	}
 
 	private static class LineNumberVisitor extends ClassVisitor {
@@ -111,9 +177,9 @@ public record LineNumberRemapper(ClassLineNumbers lineNumbers) {
 					} else if (line >= lineNumbers.maxLine()) {
 						super.visitLineNumber(lineNumbers.maxLineDest(), start);
 					} else {
-						Integer matchedLine = lineNumbers.lineMap().get(line);
+						int matchedLine = lineNumbers.lineMap().get(line);
 
-						if (matchedLine != null) {
+						if (matchedLine != ClassLineNumbers.LineMap.NO_LINE) {
 							super.visitLineNumber(matchedLine, start);
 						}
 					}
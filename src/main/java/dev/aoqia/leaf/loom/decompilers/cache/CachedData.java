@@ -27,10 +27,12 @@ package dev.aoqia.leaf.loom.decompilers.cache;
 import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.StringWriter;
+import java.io.StringReader;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
@@ -38,6 +40,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
@@ -48,13 +54,129 @@ import dev.aoqia.leaf.loom.decompilers.ClassLineNumbers;
 // Serialised data for a class entry in the cache
 // Uses the RIFF format, allows for appending the line numbers to the end of the file
 // Stores the source code and line numbers for the class
+//
+// Version 1 entries (LOOM) store every chunk as is.
+// Version 2 entries (LOM2) prefix every chunk with flags, the uncompressed length and a CRC32 of the uncompressed data,
+// larger chunks are deflated with a preset dictionary of common decompiled Java.
 public record CachedData(String className, String sources, ClassLineNumbers.@Nullable Entry lineNumbers) {
 	public static final CachedFileStore.EntrySerializer<CachedData> SERIALIZER = new EntrySerializer();
+	public static final CachedFileStore.ChannelSerializer<CachedData> CHANNEL_SERIALIZER = new EntrySerializer();
 
 	private static final String HEADER_ID = "LOOM";
+	private static final String HEADER_V2_ID = "LOM2";
 	private static final String NAME_ID = "NAME";
 	private static final String SOURCES_ID = "SRC ";
+	// Line numbers in the text linemap format, only read from older entries
 	private static final String LINE_NUMBERS_ID = "LNUM";
+	private static final String LINE_NUMBERS_BINARY_ID = "LBIN";
+
+	// Chunk flags, a chunk with unknown flags cannot be read
+	private static final int FLAG_DEFLATED = 1;
+	private static final int FLAG_DICTIONARY = 1 << 1;
+	private static final int KNOWN_FLAGS = FLAG_DEFLATED | FLAG_DICTIONARY;
+	// Smaller chunks do not compress well enough to be worth it
+	private static final int MIN_COMPRESS_SIZE = 64;
+
+	// Never change the contents of the dictionary, entries compressed with it could no longer be read.
+	// Add a new dictionary with a new flag instead.
+	// Built from decompiled game code: the common imports of the zombie packages, the fields guarding client, server
+	// and debug code, and the var<n> names given to locals, as the game jar has no local variable names.
+	// The most common strings are at the end, as they are the cheapest to reference.
+	private static final byte[] DICTIONARY = """
+			import java.util.Iterator;
+			import java.util.Objects;
+			import java.util.HashMap;
+			import java.util.ArrayList;
+			import java.util.Map;
+			import java.util.List;
+			import java.io.IOException;
+			import java.nio.ByteBuffer;
+			import se.krka.kahlua.vm.KahluaTable;
+			import zombie.core.math.PZMath;
+			import zombie.util.StringUtils;
+			import zombie.Lua.LuaManager;
+			import zombie.inventory.InventoryItem;
+			import zombie.iso.IsoCell;
+			import zombie.iso.IsoObject;
+			import zombie.iso.IsoWorld;
+			import zombie.iso.IsoGridSquare;
+			import zombie.characters.IsoGameCharacter;
+			import zombie.characters.IsoPlayer;
+			import zombie.network.GameServer;
+			import zombie.network.GameClient;
+			import zombie.debug.DebugLog;
+			import zombie.core.Core;
+			package zombie.
+			@Override
+			public String toString() {
+			throw new IllegalArgumentException(
+			throw new IllegalStateException(
+			} catch (Exception var
+			} catch (IOException var
+			} else if (
+			} else {
+			StringUtils.isNullOrEmpty(
+			PZMath.clamp(
+			IsoWorld.instance
+			IsoPlayer.getInstance()
+			DebugLog.log(
+			Core.bDebug
+			GameClient.bClient
+			GameServer.bServer
+			ByteBuffer var
+			KahluaTable var
+			IsoGridSquare var
+			IsoGameCharacter var
+			IsoPlayer var
+			instanceof
+			public abstract
+			protected final
+			private static final
+			public static final
+			public static
+			private final
+			protected
+			public void
+			private void
+			public boolean
+			private boolean
+			public float
+			private float
+			public int
+			private int
+			double
+			long
+			String
+			Object
+			extends
+			implements
+			interface
+			super(
+			this.
+			new
+			null
+			true
+			false
+			final
+			static
+			while (
+			for (int var
+			switch (
+			case
+			default:
+			break;
+			continue;
+			if (
+			) {
+			}
+
+			return
+			;
+			float var
+			int var
+			      }
+			   }
+			""".getBytes(StandardCharsets.UTF_8);
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(CachedData.class);
 
@@ -70,59 +192,74 @@ public record CachedData(String className, String sources, ClassLineNumbers.@Nul
 	}
 
 	public void write(FileChannel fileChannel) {
-		try (var c = new RiffChunk(HEADER_ID, fileChannel)) {
-			writeClassname(fileChannel);
-			writeSource(fileChannel);
+		try (var c = new RiffChunk(HEADER_V2_ID, fileChannel)) {
+			writeChunk(fileChannel, NAME_ID, className.getBytes(StandardCharsets.UTF_8));
+			writeChunk(fileChannel, SOURCES_ID, sources.getBytes(StandardCharsets.UTF_8));
 
 			if (lineNumbers != null) {
-				writeLineNumbers(fileChannel);
+				writeChunk(fileChannel, LINE_NUMBERS_BINARY_ID, writeLineNumbers(lineNumbers));
 			}
 		} catch (IOException e) {
 			throw new RuntimeException("Failed to write cached data", e);
 		}
 	}
 
-	private void writeClassname(FileChannel fileChannel) throws IOException {
-		try (var c = new RiffChunk(NAME_ID, fileChannel)) {
-			fileChannel.write(ByteBuffer.wrap(className.getBytes(StandardCharsets.UTF_8)));
-		}
-	}
-
-	private void writeSource(FileChannel fileChannel) throws IOException {
-		try (var c = new RiffChunk(SOURCES_ID, fileChannel)) {
-			fileChannel.write(ByteBuffer.wrap(sources.getBytes(StandardCharsets.UTF_8)));
+	private static void writeChunk(FileChannel fileChannel, String id, byte[] data) throws IOException {
+		final var crc = new CRC32();
+		crc.update(data);
+
+		final byte @Nullable [] compressed = data.length >= MIN_COMPRESS_SIZE ? deflate(data) : null;
+		final boolean isCompressed = compressed != null && compressed.length < data.length;
+		final byte[] payload = isCompressed ? compressed : data;
+
+		try (var c = new RiffChunk(id, fileChannel)) {
+			final ByteBuffer header = ByteBuffer.allocate(1 + Integer.BYTES * 2)
+					.put((byte) (isCompressed ? FLAG_DEFLATED | FLAG_DICTIONARY : 0))
+					.putInt(data.length)
+					.putInt((int) crc.getValue())
+					.flip();
+			writeFully(fileChannel, header);
+			writeFully(fileChannel, ByteBuffer.wrap(payload));
 		}
 	}
 
-	private void writeLineNumbers(FileChannel fileChannel) throws IOException {
-		Objects.requireNonNull(lineNumbers);
+	private static byte[] writeLineNumbers(ClassLineNumbers.Entry lineNumbers) throws IOException {
+		final var bytes = new ByteArrayOutputStream();
 
-		try (var c = new RiffChunk(LINE_NUMBERS_ID, fileChannel);
-				StringWriter stringWriter = new StringWriter()) {
-			lineNumbers.write(stringWriter);
-			fileChannel.write(ByteBuffer.wrap(stringWriter.toString().getBytes(StandardCharsets.UTF_8)));
+		try (var out = new DataOutputStream(bytes)) {
+			lineNumbers.writeBinary(out);
 		}
+
+		return bytes.toByteArray();
 	}
 
 	public static CachedData read(InputStream inputStream) throws IOException {
+		final var in = new DataInputStream(inputStream);
+
 		// Read and validate the RIFF header
-		final String header = readHeader(inputStream);
+		final String header = readHeader(in);
+		final boolean isV2 = header.equals(HEADER_V2_ID);
 
-		if (!header.equals(HEADER_ID)) {
-			throw new IOException("Invalid RIFF header: " + header + ", expected " + HEADER_ID);
+		if (!isV2 && !header.equals(HEADER_ID)) {
+			throw new IOException("Invalid RIFF header: " + header + ", expected " + HEADER_V2_ID + " or " + HEADER_ID);
 		}
 
-		// Read the data length
-		int length = readInt(inputStream);
+		// Read the data length, only the chunks within it are read so the stream may contain more data
+		final int length = in.readInt();
 
 		String className = null;
 		String sources = null;
 		ClassLineNumbers.Entry lineNumbers = null;
+		long remaining = length;
 
-		while (inputStream.available() > 0) {
-			String chunkHeader = readHeader(inputStream);
-			int chunkLength = readInt(inputStream);
-			byte[] chunkData = readBytes(inputStream, chunkLength);
+		while (remaining > 0) {
+			String chunkHeader = readHeader(in);
+			int chunkLength = in.readInt();
+			remaining -= 8L + chunkLength;
+
+			if (chunkLength < 0 || remaining < 0) {
+				throw new IOException("Chunk " + chunkHeader + " of size " + chunkLength + " exceeds the entry size");
+			}
 
 			switch (chunkHeader) {
 			case NAME_ID -> {
@@ -130,21 +267,23 @@ public record CachedData(String className, String sources, ClassLineNumbers.@Nul
 					throw new IOException("Duplicate name chunk");
 				}
 
-				className = new String(chunkData, StandardCharsets.UTF_8);
+				className = new String(readChunk(in, chunkHeader, chunkLength, isV2), StandardCharsets.UTF_8);
 			}
 			case SOURCES_ID -> {
 				if (sources != null) {
 					throw new IOException("Duplicate sources chunk");
 				}
 
-				sources = new String(chunkData, StandardCharsets.UTF_8);
+				sources = new String(readChunk(in, chunkHeader, chunkLength, isV2), StandardCharsets.UTF_8);
 			}
 			case LINE_NUMBERS_ID -> {
 				if (lineNumbers != null) {
 					throw new IOException("Duplicate line numbers chunk");
 				}
 
-				try (var br = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(chunkData), StandardCharsets.UTF_8))) {
+				final String chunkData = new String(readChunk(in, chunkHeader, chunkLength, isV2), StandardCharsets.UTF_8);
+
+				try (var br = new BufferedReader(new StringReader(chunkData))) {
 					ClassLineNumbers classLineNumbers = ClassLineNumbers.readMappings(br);
 
 					if (classLineNumbers.lineMap().size() != 1) {
@@ -154,10 +293,18 @@ public record CachedData(String className, String sources, ClassLineNumbers.@Nul
 					lineNumbers = classLineNumbers.lineMap().values().iterator().next();
 				}
 			}
+			case LINE_NUMBERS_BINARY_ID -> {
+				if (lineNumbers != null) {
+					throw new IOException("Duplicate line numbers chunk");
+				}
+
+				final byte[] chunkData = readChunk(in, chunkHeader, chunkLength, isV2);
+				lineNumbers = ClassLineNumbers.Entry.readBinary(new DataInputStream(new ByteArrayInputStream(chunkData)));
+			}
 			default -> {
 				// Skip unknown chunk
 				LOGGER.warn("Skipping unknown chunk: {} of size {}", chunkHeader, chunkLength);
-				inputStream.skip(chunkLength);
+				in.skipNBytes(chunkLength);
 			}
 			}
 		}
@@ -169,29 +316,110 @@ public record CachedData(String className, String sources, ClassLineNumbers.@Nul
 		return new CachedData(className, sources, lineNumbers);
 	}
 
-	private static String readHeader(InputStream inputStream) throws IOException {
-		byte[] header = readBytes(inputStream, 4);
-		return new String(header, StandardCharsets.US_ASCII);
+	private static byte[] readChunk(DataInputStream in, String id, int chunkLength, boolean isV2) throws IOException {
+		if (!isV2) {
+			return readBytes(in, chunkLength);
+		}
+
+		final int flags = in.readUnsignedByte();
+		final int length = in.readInt();
+		final int expectedCrc = in.readInt();
+		final int payloadLength = chunkLength - 1 - Integer.BYTES * 2;
+
+		if ((flags & ~KNOWN_FLAGS) != 0) {
+			throw new IOException("Unsupported flags " + flags + " in chunk " + id);
+		}
+
+		if (length < 0 || payloadLength < 0) {
+			throw new IOException("Invalid length of chunk " + id);
+		}
+
+		final byte[] payload = readBytes(in, payloadLength);
+		final byte[] data = (flags & FLAG_DEFLATED) != 0 ? inflate(payload, length, (flags & FLAG_DICTIONARY) != 0) : payload;
+
+		final var crc = new CRC32();
+		crc.update(data);
+
+		if (data.length != length || (int) crc.getValue() != expectedCrc) {
+			throw new IOException("Checksum mismatch in chunk " + id);
+		}
+
+		return data;
 	}
 
-	private static int readInt(InputStream inputStream) throws IOException {
-		byte[] bytes = readBytes(inputStream, 4);
-		return ByteBuffer.wrap(bytes).getInt();
+	private static byte[] deflate(byte[] data) {
+		final var deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+
+		try {
+			deflater.setDictionary(DICTIONARY);
+			deflater.setInput(data);
+			deflater.finish();
+
+			final var out = new ByteArrayOutputStream(Math.max(32, data.length / 4));
+			final byte[] buffer = new byte[8192];
+
+			while (!deflater.finished()) {
+				out.write(buffer, 0, deflater.deflate(buffer));
+			}
+
+			return out.toByteArray();
+		} finally {
+			deflater.end();
+		}
 	}
 
-	private static byte[] readBytes(InputStream inputStream, int length) throws IOException {
-		byte[] bytes = new byte[length];
+	private static byte[] inflate(byte[] compressed, int length, boolean dictionary) throws IOException {
+		final var inflater = new Inflater(true);
+
+		try {
+			if (dictionary) {
+				inflater.setDictionary(DICTIONARY);
+			}
+
+			inflater.setInput(compressed);
+			final byte[] data = new byte[length];
+			int read = 0;
 
-		int read = inputStream.read(bytes);
+			while (read < length && !inflater.finished()) {
+				final int count = inflater.inflate(data, read, length - read);
 
-		if (read != length) {
-			throw new IOException("Failed to read bytes expected " + length + " bytes but got " + read + " bytes");
+				if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+
+				read += count;
+			}
+
+			if (read != length) {
+				throw new IOException("Compressed chunk is truncated, expected " + length + " bytes but got " + read + " bytes");
+			}
+
+			return data;
+		} catch (DataFormatException e) {
+			throw new IOException("Invalid compressed chunk", e);
+		} finally {
+			inflater.end();
 		}
+	}
 
+	private static String readHeader(DataInputStream inputStream) throws IOException {
+		byte[] header = readBytes(inputStream, 4);
+		return new String(header, StandardCharsets.US_ASCII);
+	}
+
+	private static byte[] readBytes(DataInputStream inputStream, int length) throws IOException {
+		byte[] bytes = new byte[length];
+		inputStream.readFully(bytes);
 		return bytes;
 	}
 
-	static class EntrySerializer implements CachedFileStore.EntrySerializer<CachedData> {
+	private static void writeFully(FileChannel fileChannel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			fileChannel.write(buffer);
+		}
+	}
+
+	static class EntrySerializer implements CachedFileStore.EntrySerializer<CachedData>, CachedFileStore.ChannelSerializer<CachedData> {
 		@Override
 		public CachedData read(Path path) throws IOException {
 			try (var inputStream = new BufferedInputStream(Files.newInputStream(path))) {
@@ -205,5 +433,15 @@ public record CachedData(String className, String sources, ClassLineNumbers.@Nul
 				entry.write(fileChannel);
 			}
 		}
+
+		@Override
+		public CachedData read(InputStream inputStream) throws IOException {
+			return CachedData.read(inputStream);
+		}
+
+		@Override
+		public void write(CachedData entry, FileChannel fileChannel) {
+			entry.write(fileChannel);
+		}
 	}
 }
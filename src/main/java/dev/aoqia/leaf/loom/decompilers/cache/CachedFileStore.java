@@ -25,13 +25,37 @@
 package dev.aoqia.leaf.loom.decompilers.cache;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.jspecify.annotations.Nullable;
 
 public interface CachedFileStore<T> {
 	@Nullable T getEntry(String key) throws IOException;
 
+	/**
+	 * Looks up many entries at once.
+	 *
+	 * @return the entries that were found, keyed by their key
+	 */
+	default Map<String, T> getEntries(Collection<String> keys) throws IOException {
+		final Map<String, T> entries = new HashMap<>();
+
+		for (String key : keys) {
+			final T entry = getEntry(key);
+
+			if (entry != null) {
+				entries.put(key, entry);
+			}
+		}
+
+		return entries;
+	}
+
 	void putEntry(String key, T entry) throws IOException;
 
 	interface EntrySerializer<T> {
@@ -39,4 +63,16 @@ public interface CachedFileStore<T> {
 
 		void write(T entry, Path path) throws IOException;
 	}
+
+	/**
+	 * Serializes entries into a file shared with other entries, such as the pack files of {@link PackedFileStore}.
+	 */
+	interface ChannelSerializer<T> {
+		T read(InputStream inputStream) throws IOException;
+
+		/**
+		 * Writes the entry at the current position of the file channel.
+		 */
+		void write(T entry, FileChannel fileChannel) throws IOException;
+	}
 }
@@ -27,6 +27,7 @@ package dev.aoqia.leaf.loom.decompilers.cache;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -39,11 +40,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import dev.aoqia.leaf.loom.decompilers.ClassLineNumbers;
+import dev.aoqia.leaf.loom.util.CacheLock;
 import dev.aoqia.leaf.loom.util.FileSystemUtil;
 
-public record CachedJarProcessor(CachedFileStore<CachedData> fileStore, String baseHash) {
+/**
+ * @param fileStore The store of previously processed classes
+ * @param baseHash A hash of the options used to process the classes, prefixed to every cache key
+ * @param classHashManifests An optional directory used to persist the class hashes of each input jar
+ */
+public record CachedJarProcessor(CachedFileStore<CachedData> fileStore, String baseHash, @Nullable Path classHashManifests) {
 	private static final Logger LOGGER = LoggerFactory.getLogger(CachedJarProcessor.class);
 
+	public CachedJarProcessor(CachedFileStore<CachedData> fileStore, String baseHash) {
+		this(fileStore, baseHash, null);
+	}
+
 	public WorkRequest prepareJob(Path inputJar, boolean decompileEverything) throws IOException {
 		boolean isIncomplete = false;
 		boolean hasSomeExisting = false;
@@ -68,14 +79,17 @@ public record CachedJarProcessor(CachedFileStore<CachedData> fileStore, String b
 				FileSystemUtil.Delegate incompleteFs = FileSystemUtil.getJarFileSystem(incompleteJar, true);
 				FileSystemUtil.Delegate existingSourcesFs = FileSystemUtil.getJarFileSystem(existingSourcesJar, true);
 				FileSystemUtil.Delegate existingClassesFs = FileSystemUtil.getJarFileSystem(existingClassesJar, true)) {
-			final List<ClassEntry> inputClasses = JarWalker.findClasses(inputFs, decompileEverything);
-			final Map<String, String> rawEntryHashes = getEntryHashes(inputClasses, inputFs.getRoot());
+			final List<ClassHashManifest.Entry> inputClasses = getClassHashes(inputJar, inputFs, decompileEverything);
+			final Map<String, CachedData> cachedEntries = fileStore.getEntries(inputClasses.stream()
+					.map(entry -> baseHash + "/" + entry.hash())
+					.toList());
 
-			for (ClassEntry entry : inputClasses) {
+			for (ClassHashManifest.Entry classHash : inputClasses) {
+				final ClassEntry entry = classHash.classEntry();
 				String outputFileName = entry.sourcesFileName();
-				String fullHash = baseHash + "/" + entry.hashSuperHierarchy(rawEntryHashes);
+				String fullHash = baseHash + "/" + classHash.hash();
 
-				final CachedData entryData = fileStore.getEntry(fullHash);
+				final CachedData entryData = cachedEntries.get(fullHash);
 
 				if (entryData == null) {
 					// Cached entry was not found, so copy the input to the incomplete jar to be processed
@@ -137,6 +151,42 @@ public record CachedJarProcessor(CachedFileStore<CachedData> fileStore, String b
 		}
 	}
 
+	/**
+	 * Finds the classes in the input jar along with the hash of each class and its super hierarchy.
+	 * The result is read from the class hash manifest when the input jar has not changed since it was written.
+	 */
+	private List<ClassHashManifest.Entry> getClassHashes(Path inputJar, FileSystemUtil.Delegate inputFs, boolean decompileEverything) throws IOException {
+		final String jarKey = ClassHashManifest.createJarKey(inputJar, decompileEverything);
+		final Path classHashManifest = classHashManifests != null ? ClassHashManifest.getPath(classHashManifests, inputJar, decompileEverything) : null;
+
+		if (classHashManifest != null) {
+			final ClassHashManifest manifest = CacheLock.withSharedLock(classHashManifest, () -> ClassHashManifest.read(classHashManifest, jarKey));
+
+			if (manifest != null) {
+				LOGGER.info("Input jar is unchanged, using {} class hashes from the manifest", manifest.entries().size());
+				return manifest.entries();
+			}
+		}
+
+		final List<ClassEntry> classes = JarWalker.findClasses(inputJar, decompileEverything);
+		final Map<String, String> rawEntryHashes = getEntryHashes(classes, inputFs.getRoot());
+		final List<ClassHashManifest.Entry> entries = new ArrayList<>(classes.size());
+
+		for (ClassEntry entry : classes) {
+			entries.add(new ClassHashManifest.Entry(entry, entry.hashSuperHierarchy(rawEntryHashes)));
+		}
+
+		if (classHashManifest != null) {
+			final var manifest = new ClassHashManifest(jarKey, entries);
+			CacheLock.withExclusiveLock(classHashManifest, () -> {
+				manifest.write(classHashManifest);
+				return null;
+			});
+		}
+
+		return entries;
+	}
+
 	private static Map<String, String> getEntryHashes(List<ClassEntry> entries, Path root) throws IOException {
 		final Map<String, String> rawEntryHashes = new HashMap<>();
 
@@ -0,0 +1,151 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.decompilers.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.aoqia.leaf.loom.util.Checksum;
+
+/**
+ * The classes of a jar along with the hash of each class and its super hierarchy, persisted so that an unchanged jar
+ * does not have to be walked and hashed again.
+ *
+ * @param jarKey The identity of the jar and the options the classes were found with, see {@link #createJarKey(Path, boolean)}
+ * @param entries The classes in the jar
+ */
+record ClassHashManifest(String jarKey, List<Entry> entries) {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ClassHashManifest.class);
+	private static final int MAGIC = 0x4C434853; // LCHS
+	private static final int VERSION = 1;
+
+	static String createJarKey(Path jar, boolean decompileEverything) throws IOException {
+		final BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+		return "%s:%d:%d:%b".formatted(jar.toAbsolutePath(), attributes.size(), attributes.lastModifiedTime().toMillis(), decompileEverything);
+	}
+
+	/**
+	 * @return the manifest file of the given jar within the directory, each jar has its own so that jars used
+	 * alternately by different projects do not replace each other's manifest. The name only depends on the location
+	 * of the jar, so a changed jar replaces its previous manifest, see {@link #read(Path, String)}
+	 */
+	static Path getPath(Path directory, Path jar, boolean decompileEverything) {
+		return directory.resolve(Checksum.of("%s:%b".formatted(jar.toAbsolutePath(), decompileEverything)).sha256().hex() + ".bin");
+	}
+
+	/**
+	 * @return the manifest, or null when it does not exist, is invalid or was created for a different jar
+	 */
+	static @Nullable ClassHashManifest read(Path path, String jarKey) {
+		try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(jarKey)) {
+				return null;
+			}
+
+			final int count = in.readInt();
+			final List<Entry> entries = new ArrayList<>(count);
+
+			for (int i = 0; i < count; i++) {
+				final String name = in.readUTF();
+				final List<String> innerClasses = readList(in);
+				final List<String> superClasses = readList(in);
+				entries.add(new Entry(new ClassEntry(name, innerClasses, superClasses), in.readUTF()));
+			}
+
+			return new ClassHashManifest(jarKey, List.copyOf(entries));
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warn("Discarding invalid class hash manifest: {}", path, e);
+			return null;
+		}
+	}
+
+	void write(Path path) throws IOException {
+		Files.createDirectories(path.getParent());
+		final Path tempFile = path.resolveSibling(path.getFileName() + ".tmp");
+
+		try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(jarKey);
+			out.writeInt(entries.size());
+
+			for (Entry entry : entries) {
+				out.writeUTF(entry.classEntry().name());
+				writeList(out, entry.classEntry().innerClasses());
+				writeList(out, entry.classEntry().superClasses());
+				out.writeUTF(entry.hash());
+			}
+		}
+
+		Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static List<String> readList(DataInputStream in) throws IOException {
+		final int size = in.readInt();
+
+		if (size < 0) {
+			throw new IOException("Invalid list size: " + size);
+		}
+
+		final List<String> list = new ArrayList<>(size);
+
+		for (int i = 0; i < size; i++) {
+			list.add(in.readUTF());
+		}
+
+		return List.copyOf(list);
+	}
+
+	private static void writeList(DataOutputStream out, List<String> list) throws IOException {
+		out.writeInt(list.size());
+
+		for (String s : list) {
+			out.writeUTF(s);
+		}
+	}
+
+	/**
+	 * @param classEntry The class
+	 * @param hash The hash of the class, its inner classes and its super classes
+	 */
+	record Entry(ClassEntry classEntry, String hash) {
+	}
+}
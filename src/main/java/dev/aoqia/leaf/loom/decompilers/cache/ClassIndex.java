@@ -0,0 +1,308 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.decompilers.cache;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+import org.jspecify.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.aoqia.leaf.loom.util.Constants;
+import dev.aoqia.leaf.loom.util.RawZipFile;
+
+/**
+ * An index of the classes in a jar, their super classes and which classes are inner classes of which outer class.
+ *
+ * <p>The index is built in a single pass over the central directory of the jar. Each class is read once, only the
+ * class header and the InnerClasses, EnclosingMethod and NestHost attributes are visited.
+ */
+public final class ClassIndex {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ClassIndex.class);
+	// Classes are read in batches, so that a worker is not scheduled per class.
+	private static final int BATCH_SIZE = 256;
+
+	// Class name -> info, sorted by name
+	private final Map<String, ClassInfo> classes;
+	// Outer class name -> inner class names, sorted by name
+	private final Map<String, List<String>> innerClasses;
+	// Inner class name -> outer class name
+	private final Map<String, String> outerClasses;
+
+	private ClassIndex(Map<String, ClassInfo> classes) {
+		this.classes = Collections.unmodifiableMap(classes);
+
+		final Map<String, String> outerClasses = new HashMap<>();
+		final Map<String, List<String>> innerClasses = new HashMap<>();
+
+		for (ClassInfo info : classes.values()) {
+			final String outerClass = findOuterClass(info);
+
+			if (outerClass != null) {
+				outerClasses.put(info.name(), outerClass);
+				innerClasses.computeIfAbsent(outerClass, k -> new ArrayList<>()).add(info.name());
+			}
+		}
+
+		// The classes are iterated in name order, so the inner class lists are already sorted
+		innerClasses.replaceAll((outerClass, names) -> List.copyOf(names));
+
+		this.outerClasses = Collections.unmodifiableMap(outerClasses);
+		this.innerClasses = Collections.unmodifiableMap(innerClasses);
+	}
+
+	/**
+	 * Builds the index of a jar.
+	 *
+	 * @param jar The jar to index
+	 * @param classFilter Tests the internal name of a class, only the classes that match are indexed
+	 */
+	public static ClassIndex build(Path jar, Predicate<String> classFilter) throws IOException {
+		try (RawZipFile zip = RawZipFile.open(jar)) {
+			final List<RawZipFile.Entry> entries = new ArrayList<>();
+
+			for (RawZipFile.Entry entry : zip.entries()) {
+				final String fileName = entry.name();
+
+				if (!fileName.endsWith(".class") || fileName.startsWith("META-INF/versions/")) {
+					continue;
+				}
+
+				if (classFilter.test(fileName.substring(0, fileName.length() - ".class".length()))) {
+					entries.add(entry);
+				}
+			}
+
+			final Map<String, ClassInfo> classes = new TreeMap<>();
+
+			for (ClassInfo info : readClasses(zip, entries)) {
+				classes.put(info.name(), info);
+			}
+
+			final ClassIndex index = new ClassIndex(classes);
+			LOGGER.info("Found {} outer classes and {} inner classes", classes.size() - index.outerClasses.size(), index.outerClasses.size());
+			return index;
+		}
+	}
+
+	private static List<ClassInfo> readClasses(RawZipFile zip, List<RawZipFile.Entry> entries) throws IOException {
+		final List<Future<List<ClassInfo>>> futures = new ArrayList<>();
+		final int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), entries.size() / BATCH_SIZE));
+
+		try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+			for (int i = 0; i < entries.size(); i += BATCH_SIZE) {
+				final List<RawZipFile.Entry> batch = entries.subList(i, Math.min(i + BATCH_SIZE, entries.size()));
+
+				futures.add(executor.submit(() -> {
+					final List<ClassInfo> infos = new ArrayList<>(batch.size());
+
+					for (RawZipFile.Entry entry : batch) {
+						infos.add(ClassInfo.read(zip.readAllBytes(entry)));
+					}
+
+					return infos;
+				}));
+			}
+
+			final List<ClassInfo> classes = new ArrayList<>(entries.size());
+
+			for (Future<List<ClassInfo>> future : futures) {
+				classes.addAll(future.get());
+			}
+
+			return classes;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while indexing classes", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException ioException) {
+				throw ioException;
+			}
+
+			throw new RuntimeException("Failed to index classes", e.getCause());
+		}
+	}
+
+	/**
+	 * Check if the given class denotes an inner class and find the corresponding outer class name.
+	 */
+	private @Nullable String findOuterClass(ClassInfo info) {
+		// this check can speed things up quite a bit, even if it does not follow the JVM spec
+		if (info.name().indexOf('$') < 0 || !info.isInnerClass()) {
+			return null;
+		}
+
+		// only regular inner classes have the outer class in the inner class attribute
+		if (isDeclaredInnerClass(info.declaredOuterClass(), info.name())) {
+			return info.declaredOuterClass();
+		}
+
+		// local and anonymous classes have the outer class in the enclosing method attribute
+		// we check for both attributes because both should be present for decompilers to
+		// recognize a class as an inner class
+		if (isDeclaredInnerClass(info.enclosingClass(), info.name())) {
+			return info.enclosingClass();
+		}
+
+		// there are some game versions with one attribute stripped but not the other
+		LOGGER.debug("inner class attribute is present for {} but no outer class could be found, weird!", info.name());
+		return null;
+	}
+
+	private boolean isDeclaredInnerClass(@Nullable String outerClass, String innerClass) {
+		if (outerClass == null) {
+			return false;
+		}
+
+		final ClassInfo outerInfo = classes.get(outerClass);
+		return outerInfo != null && outerInfo.innerClasses().contains(innerClass);
+	}
+
+	/**
+	 * @return the internal names of all the indexed classes, in name order
+	 */
+	public Set<String> getClasses() {
+		return classes.keySet();
+	}
+
+	/**
+	 * @return the internal name of the class that directly encloses the given class, or null if it is not an inner class
+	 */
+	public @Nullable String getOuterClass(String className) {
+		return outerClasses.get(className);
+	}
+
+	/**
+	 * @return the internal names of the classes directly enclosed by the given class, in name order
+	 */
+	public List<String> getInnerClasses(String className) {
+		return innerClasses.getOrDefault(className, List.of());
+	}
+
+	/**
+	 * @return the internal name of the nest host of the given class, the outermost enclosing class on Java 11 or later
+	 */
+	public @Nullable String getNestHost(String className) {
+		final ClassInfo info = classes.get(className);
+		return info != null ? info.nestHost() : null;
+	}
+
+	/**
+	 * @return the internal names of the super class and the interfaces of the given class
+	 */
+	public List<String> getSuperClasses(String className) {
+		final ClassInfo info = classes.get(className);
+		return info != null ? info.superClasses() : List.of();
+	}
+
+	/**
+	 * @param name The internal name of the class
+	 * @param superClasses The internal names of the super class, excluding {@link Object}, and the interfaces
+	 * @param innerClasses The internal names of every class listed in the InnerClasses attribute
+	 * @param isInnerClass Whether the InnerClasses attribute contains an entry for the class itself
+	 * @param declaredOuterClass The outer class of the class from its own InnerClasses entry
+	 * @param enclosingClass The class from the EnclosingMethod attribute
+	 * @param nestHost The class from the NestHost attribute
+	 */
+	private record ClassInfo(String name, List<String> superClasses, Set<String> innerClasses, boolean isInnerClass,
+				@Nullable String declaredOuterClass, @Nullable String enclosingClass, @Nullable String nestHost) {
+		static ClassInfo read(byte[] bytes) {
+			final var visitor = new ClassInfoVisitor();
+			new ClassReader(bytes).accept(visitor, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+			return visitor.toClassInfo();
+		}
+	}
+
+	/**
+	 * Only visits the class header and attributes, fields and methods are skipped as no visitor is returned for them.
+	 */
+	private static final class ClassInfoVisitor extends ClassVisitor {
+		private final List<String> superClasses = new ArrayList<>();
+		private final Set<String> innerClasses = new HashSet<>();
+		private String name;
+		private boolean isInnerClass;
+		private @Nullable String declaredOuterClass;
+		private @Nullable String enclosingClass;
+		private @Nullable String nestHost;
+
+		private ClassInfoVisitor() {
+			super(Constants.ASM_VERSION);
+		}
+
+		@Override
+		public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+			this.name = name;
+
+			if (superName != null && !superName.equals("java/lang/Object")) {
+				superClasses.add(superName);
+			}
+
+			if (interfaces != null) {
+				superClasses.addAll(List.of(interfaces));
+			}
+		}
+
+		@Override
+		public void visitNestHost(String nestHost) {
+			this.nestHost = nestHost;
+		}
+
+		@Override
+		public void visitOuterClass(String owner, String name, String descriptor) {
+			this.enclosingClass = owner;
+		}
+
+		@Override
+		public void visitInnerClass(String name, String outerName, String innerName, int access) {
+			innerClasses.add(name);
+
+			// a class file also contains references to enclosed inner classes
+			if (name.equals(this.name)) {
+				isInnerClass = true;
+				declaredOuterClass = outerName;
+			}
+		}
+
+		private ClassInfo toClassInfo() {
+			return new ClassInfo(name, List.copyOf(superClasses), Set.copyOf(innerClasses), isInnerClass, declaredOuterClass, enclosingClass, nestHost);
+		}
+	}
+}
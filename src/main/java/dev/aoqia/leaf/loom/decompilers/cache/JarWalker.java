@@ -25,243 +25,109 @@
 package dev.aoqia.leaf.loom.decompilers.cache;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.UncheckedIOException;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.nio.file.Files;
-import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executor;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.function.Predicate;
 
-import dev.aoqia.leaf.loom.LoomGradleExtension;
-import dev.aoqia.leaf.loom.util.Constants;
-import dev.aoqia.leaf.loom.util.gradle.GradleUtils;
-
-import org.gradle.api.JavaVersion;
-import org.objectweb.asm.ClassReader;
-import org.objectweb.asm.tree.ClassNode;
-import org.objectweb.asm.tree.InnerClassNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import dev.aoqia.leaf.loom.util.CompletableFutureCollector;
-import dev.aoqia.leaf.loom.util.FileSystemUtil;
-
 public final class JarWalker {
 	private static final Logger LOGGER = LoggerFactory.getLogger(JarWalker.class);
 
+	/**
+	 * The packages that are decompiled by default, the libraries bundled with the game are skipped.
+	 * When a jar has no classes in these packages, such as a jar with a different layout, every class is decompiled.
+	 */
+	public static final List<String> DEFAULT_PACKAGES = List.of("zombie/");
+
+	private static final Comparator<String> FILE_NAME_ORDER = Comparator.comparing(JarWalker::toFileName);
+
 	private JarWalker() {
 	}
 
-	public static List<ClassEntry> findClasses(Path jar, boolean decompileEverything) throws IOException {
-		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(jar)) {
-			return findClasses(fs, decompileEverything);
-		}
+	public static List<ClassEntry> findClasses(Path jar) throws IOException {
+		return findClasses(jar, className -> true);
 	}
 
-	public static List<ClassEntry> findClasses(FileSystemUtil.Delegate fs, boolean decompileEverything) throws IOException {
-		List<String> outerClasses = new ArrayList<>();
-		Map<String, List<String>> innerClasses = new HashMap<>();
-
-		Map<String, Set<String>> innerClassesFromOuterCache = new HashMap<>();
-
-		// Iterate over all the classes in the jar, and store them into the sorted list.
-		try (Stream<Path> walk = Files.walk(fs.getRoot())) {
-			Iterator<Path> iterator = walk.iterator();
-
-			while (iterator.hasNext()) {
-				final Path entry = iterator.next();
-
-				if (!Files.isRegularFile(entry)) {
-					continue;
-				}
-
-				final String fileName = entry.toString().substring(fs.getRoot().toString().length());
-
-                // FIXME(leaf): Hacky hacky hack!
-				if (!fileName.endsWith(".class") || fileName.startsWith("META-INF/versions/")) {
-					continue;
-				}
-
-                if (!decompileEverything && !fileName.startsWith("zombie/")) {
-                    continue;
-                }
-
-				String outerClass = findOuterClass(fs, fileName, innerClassesFromOuterCache);
-
-				if (outerClass == null) {
-					outerClasses.add(fileName);
-				} else {
-					innerClasses.computeIfAbsent(outerClass + ".class", k -> new ArrayList<>()).add(fileName);
-				}
-			}
+	public static List<ClassEntry> findClasses(Path jar, boolean decompileEverything) throws IOException {
+		if (decompileEverything) {
+			return findClasses(jar);
 		}
 
-		LOGGER.info("Found {} outer classes and {} inner classes", outerClasses.size(), innerClasses.size());
+		final List<ClassEntry> classes = findClasses(jar, packageFilter(DEFAULT_PACKAGES));
 
-		Collections.sort(outerClasses);
-
-		final Executor executor = getExecutor();
-		List<CompletableFuture<ClassEntry>> classEntries = new ArrayList<>();
-
-		for (String outerClass : outerClasses) {
-			List<String> innerClasList = innerClasses.get(outerClass);
-
-			if (innerClasList == null) {
-				innerClasList = Collections.emptyList();
-			} else {
-				Collections.sort(innerClasList);
-			}
-
-			classEntries.add(getClassEntry(outerClass, innerClasList, fs, executor));
+		if (classes.isEmpty()) {
+			LOGGER.info("No classes found in the {} packages of {}, using every class", DEFAULT_PACKAGES, jar.getFileName());
+			return findClasses(jar);
 		}
 
-		try {
-			return classEntries.stream()
-					.collect(CompletableFutureCollector.allOf())
-					.get(10, TimeUnit.MINUTES);
-		} catch (InterruptedException | ExecutionException | TimeoutException e) {
-			throw new RuntimeException("Failed to get class entries", e);
-		}
+		return classes;
 	}
 
 	/**
-	 * Check if the given class file denotes and inner class and find the corresponding outer class name.
+	 * @param classFilter Tests the internal name of a class, only the classes that match are returned
 	 */
-	private static String findOuterClass(FileSystemUtil.Delegate fs, String classFile, Map<String, Set<String>> innerClassesFromOuterCache) throws IOException {
-		// this check can speed things up quite a bit, even if it does not follow the JVM spec
-		if (classFile.indexOf('$') < 0) {
-			return null;
-		}
-
-		try (InputStream is = Files.newInputStream(fs.getPath(classFile))) {
-			final ClassReader reader = new ClassReader(is);
-			final ClassNode classNode = new ClassNode();
-
-			reader.accept(classNode, ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
-
-			for (InnerClassNode innerClass : classNode.innerClasses) {
-				// a class file also contains references to enclosed inner classes
-				if (innerClass.name.equals(classNode.name)) {
-					// only regular inner classes have the outer class in the inner class attribute
-					if (innerClass.outerName != null) {
-						String candidate = innerClass.outerName;
-						Set<String> fromOuterClass = innerClassesFromOuterCache.computeIfAbsent(candidate, className -> enumerateInnerClasses(fs, className));
-
-						if (fromOuterClass.contains(classNode.name)) {
-							return candidate;
-						}
-					}
-
-					// local and anonymous classes have the outer class in the enclosing method attribute
-					// we check for both attributes because both should be present for decompilers to
-					// recognize a class as an inner class
-					if (classNode.outerClass != null) {
-						String candidate = classNode.outerClass;
-						Set<String> fromOuterClass = innerClassesFromOuterCache.computeIfAbsent(candidate, className -> enumerateInnerClasses(fs, className));
-
-						if (fromOuterClass.contains(classNode.name)) {
-							return candidate;
-						}
-					}
-
-					// there are some Minecraft versions with one attribute stripped but not the other
-					LOGGER.debug("inner class attribute is present for " + classNode.name + " but no outer class could be found, weird!");
-				}
-			}
-		}
-
-		return null;
+	public static List<ClassEntry> findClasses(Path jar, Predicate<String> classFilter) throws IOException {
+		return findClasses(ClassIndex.build(jar, classFilter));
 	}
 
-	private static Set<String> enumerateInnerClasses(FileSystemUtil.Delegate fs, String className) {
-		try (InputStream is = Files.newInputStream(fs.getPath(className + ".class"))) {
-			final ClassReader reader = new ClassReader(is);
-			final ClassNode classNode = new ClassNode();
-
-			reader.accept(classNode, ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
-
-			return classNode.innerClasses.stream()
-					.map(innerClassNode -> innerClassNode.name)
-					.collect(Collectors.toSet());
-		} catch (IOException e) {
-			throw new UncheckedIOException(e);
-		}
-	}
-
-	private static CompletableFuture<ClassEntry> getClassEntry(String outerClass, List<String> innerClasses, FileSystemUtil.Delegate fs, Executor executor) {
-		List<CompletableFuture<List<String>>> parentClassesFutures = new ArrayList<>();
-
-		// Get the super classes of the outer class and any inner classes
-		parentClassesFutures.add(CompletableFuture.supplyAsync(() -> getSuperClasses(outerClass, fs), executor));
+	/**
+	 * @return an entry for every outer class in the index, along with its inner classes, in file name order
+	 */
+	public static List<ClassEntry> findClasses(ClassIndex index) {
+		final List<String> outerClasses = new ArrayList<>();
 
-		for (String innerClass : innerClasses) {
-			parentClassesFutures.add(CompletableFuture.supplyAsync(() -> getSuperClasses(innerClass, fs), executor));
+		for (String className : index.getClasses()) {
+			if (index.getOuterClass(className) == null) {
+				outerClasses.add(className);
+			}
 		}
 
-		return parentClassesFutures.stream()
-				.collect(CompletableFutureCollector.allOf())
-				.thenApply(lists -> lists.stream()
-						.flatMap(List::stream)
-						.filter(JarWalker::isNotReservedClass)
-						.distinct()
-						.toList())
-				.thenApply(parentClasses -> new ClassEntry(outerClass, innerClasses, parentClasses));
-	}
+		outerClasses.sort(FILE_NAME_ORDER);
 
-	private static List<String> getSuperClasses(String classFile, FileSystemUtil.Delegate fs) {
-		try (InputStream is = Files.newInputStream(fs.getPath(classFile))) {
-			final ClassReader reader = new ClassReader(is);
+		final List<ClassEntry> classEntries = new ArrayList<>(outerClasses.size());
 
-			List<String> parentClasses = new ArrayList<>();
-			String superName = reader.getSuperName();
+		for (String outerClass : outerClasses) {
+			final List<String> innerClasses = new ArrayList<>(index.getInnerClasses(outerClass));
+			innerClasses.sort(FILE_NAME_ORDER);
 
-			if (superName != null && !superName.equals("java/lang/Object")) {
-				parentClasses.add(superName + ".class");
-			}
+			// Get the super classes of the outer class and any inner classes
+			final List<String> superClasses = new ArrayList<>(index.getSuperClasses(outerClass));
 
-			for (String iface : reader.getInterfaces()) {
-				parentClasses.add(iface + ".class");
+			for (String innerClass : innerClasses) {
+				superClasses.addAll(index.getSuperClasses(innerClass));
 			}
 
-			return Collections.unmodifiableList(parentClasses);
-		} catch (IOException e) {
-			throw new UncheckedIOException("Failed to read class file: " + classFile, e);
+			classEntries.add(new ClassEntry(
+					toFileName(outerClass),
+					innerClasses.stream().map(JarWalker::toFileName).toList(),
+					superClasses.stream().distinct().map(JarWalker::toFileName).toList()
+			));
 		}
+
+		return classEntries;
 	}
 
-	private static Executor getExecutor() {
-		if (JavaVersion.current().isCompatibleWith(JavaVersion.VERSION_21)) {
-			try {
-				Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
-				return (ExecutorService) m.invoke(null);
-			} catch (NoSuchMethodException | InvocationTargetException | IllegalAccessException e) {
-				throw new RuntimeException("Failed to create virtual thread executor", e);
+	/**
+	 * @return a class filter that matches the classes within any of the given packages, such as {@code zombie/}
+	 */
+	public static Predicate<String> packageFilter(List<String> packages) {
+		final List<String> prefixes = List.copyOf(packages);
+		return className -> {
+			for (String prefix : prefixes) {
+				if (className.startsWith(prefix)) {
+					return true;
+				}
 			}
-		}
 
-		return ForkJoinPool.commonPool();
+			return false;
+		};
 	}
 
-	// Slight optimization, if we skip over Object
-	private static boolean isNotReservedClass(String name) {
-		return !"java/lang/Object".equals(name);
+	private static String toFileName(String className) {
+		return className + ".class";
 	}
 }
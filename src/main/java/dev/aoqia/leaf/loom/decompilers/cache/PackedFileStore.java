@@ -0,0 +1,531 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.decompilers.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.jetbrains.annotations.VisibleForTesting;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link CachedFileStore} that appends entries to a small number of pack files, and keeps a compact index
+ * of every entry's location and last access time in memory.
+ *
+ * <p>The index is kept in least recently used order, so pruning only has to look at the entries it evicts.
+ * Looking up an entry only updates the in memory index, the index file is written when the store is pruned or closed.
+ * Space used by evicted or replaced entries is reclaimed by compacting mostly dead pack files on a background thread.
+ *
+ * <p>Only one store may have a directory open at a time, callers sharing a directory between processes must hold an
+ * exclusive {@link dev.aoqia.leaf.loom.util.CacheLock} on it from opening the store until it is closed.
+ */
+public final class PackedFileStore<T> implements CachedFileStore<T>, Closeable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PackedFileStore.class);
+
+	private static final int INDEX_MAGIC = 0x4C50434B; // LPCK
+	private static final int INDEX_VERSION = 1;
+	private static final String INDEX_FILE = "index.bin";
+	private static final String PACK_PREFIX = "pack-";
+	private static final String PACK_SUFFIX = ".bin";
+	private static final long DEFAULT_MAX_PACK_SIZE = 64L * 1024 * 1024;
+	// Compact a pack file once less than half of it is in use
+	private static final double MIN_LIVE_RATIO = 0.5;
+
+	private final Path root;
+	private final ChannelSerializer<T> serializer;
+	private final CachedFileStoreImpl.CacheRules cacheRules;
+	private final Clock clock;
+	private final long maxPackSize;
+
+	// Ordered from least to most recently used
+	private final LinkedHashMap<String, IndexEntry> index = new LinkedHashMap<>(16, 0.75f, true);
+	private final TreeMap<Integer, FileChannel> packs = new TreeMap<>();
+	private final ExecutorService compactionExecutor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "loom-decompile-cache-compaction");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private @Nullable Future<?> compaction;
+	private int currentPack;
+
+	private PackedFileStore(Path root, ChannelSerializer<T> serializer, CachedFileStoreImpl.CacheRules cacheRules, Clock clock, long maxPackSize) {
+		this.root = root;
+		this.serializer = serializer;
+		this.cacheRules = cacheRules;
+		this.clock = clock;
+		this.maxPackSize = maxPackSize;
+	}
+
+	public static <T> PackedFileStore<T> open(Path root, ChannelSerializer<T> serializer, CachedFileStoreImpl.CacheRules cacheRules) throws IOException {
+		return open(root, serializer, cacheRules, Clock.systemUTC(), DEFAULT_MAX_PACK_SIZE);
+	}
+
+	@VisibleForTesting
+	public static <T> PackedFileStore<T> open(Path root, ChannelSerializer<T> serializer, CachedFileStoreImpl.CacheRules cacheRules, Clock clock, long maxPackSize) throws IOException {
+		Files.createDirectories(root);
+
+		var store = new PackedFileStore<>(root, serializer, cacheRules, clock, maxPackSize);
+
+		try {
+			store.load();
+		} catch (IOException | RuntimeException e) {
+			store.closePacks();
+			store.compactionExecutor.shutdownNow();
+			throw e;
+		}
+
+		return store;
+	}
+
+	private void load() throws IOException {
+		int nextPack = 0;
+
+		try (Stream<Path> list = Files.list(root)) {
+			for (Path path : list.toList()) {
+				final String fileName = path.getFileName().toString();
+
+				if (!fileName.startsWith(PACK_PREFIX) || !fileName.endsWith(PACK_SUFFIX)) {
+					continue;
+				}
+
+				final int id;
+
+				try {
+					id = Integer.parseInt(fileName.substring(PACK_PREFIX.length(), fileName.length() - PACK_SUFFIX.length()));
+				} catch (NumberFormatException e) {
+					continue;
+				}
+
+				packs.put(id, FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE));
+				nextPack = Math.max(nextPack, id + 1);
+			}
+		}
+
+		nextPack = Math.max(nextPack, readIndex());
+
+		if (!packs.isEmpty() && packs.lastEntry().getValue().size() < maxPackSize) {
+			currentPack = packs.lastKey();
+		} else {
+			currentPack = nextPack;
+		}
+
+		scheduleCompactionIfNeeded();
+	}
+
+	/**
+	 * @return the next free pack id recorded in the index
+	 */
+	private int readIndex() throws IOException {
+		final Path indexPath = root.resolve(INDEX_FILE);
+
+		try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+			if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+				LOGGER.warn("Discarding decompile cache index with an unknown format: {}", indexPath);
+				return 0;
+			}
+
+			final int nextPack = in.readInt();
+			final int count = in.readInt();
+
+			for (int i = 0; i < count; i++) {
+				final String key = in.readUTF();
+				final var entry = new IndexEntry(in.readInt(), in.readLong(), in.readInt(), in.readLong());
+				final FileChannel pack = packs.get(entry.pack());
+
+				// Skip entries pointing into packs that have since been deleted or truncated
+				if (pack != null && entry.offset() + entry.length() <= pack.size()) {
+					index.put(key, entry);
+				}
+			}
+
+			return nextPack;
+		} catch (NoSuchFileException e) {
+			return 0;
+		} catch (EOFException e) {
+			LOGGER.warn("Discarding truncated decompile cache index: {}", indexPath);
+			index.clear();
+			return 0;
+		}
+	}
+
+	@Override
+	public @Nullable T getEntry(String key) throws IOException {
+		final byte[] bytes;
+
+		synchronized (this) {
+			final IndexEntry entry = index.get(key);
+
+			if (entry == null) {
+				return null;
+			}
+
+			final ByteBuffer buffer = ByteBuffer.allocate(entry.length());
+			readFully(packs.get(entry.pack()), buffer, entry.offset());
+			bytes = buffer.array();
+
+			// Update the last access time, so recently used entries stay in the cache
+			index.put(key, entry.withLastAccess(clock.millis()));
+		}
+
+		try {
+			return serializer.read(new ByteArrayInputStream(bytes));
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warn("Discarding invalid decompile cache entry: {}", key, e);
+
+			synchronized (this) {
+				index.remove(key);
+			}
+
+			return null;
+		}
+	}
+
+	/**
+	 * Looks up all the keys under a single lock, reading the entries in pack and offset order.
+	 */
+	@Override
+	public Map<String, T> getEntries(Collection<String> keys) throws IOException {
+		final Map<String, byte[]> found = new HashMap<>();
+
+		synchronized (this) {
+			final List<Map.Entry<String, IndexEntry>> entries = new ArrayList<>();
+			final long now = clock.millis();
+
+			for (String key : new LinkedHashSet<>(keys)) {
+				final IndexEntry entry = index.get(key);
+
+				if (entry != null) {
+					entries.add(Map.entry(key, entry));
+				}
+			}
+
+			entries.sort(Comparator.comparingInt((Map.Entry<String, IndexEntry> e) -> e.getValue().pack())
+					.thenComparingLong(e -> e.getValue().offset()));
+
+			for (Map.Entry<String, IndexEntry> entry : entries) {
+				final IndexEntry indexEntry = entry.getValue();
+				final ByteBuffer buffer = ByteBuffer.allocate(indexEntry.length());
+				readFully(packs.get(indexEntry.pack()), buffer, indexEntry.offset());
+				found.put(entry.getKey(), buffer.array());
+
+				// Update the last access time, so recently used entries stay in the cache
+				index.put(entry.getKey(), indexEntry.withLastAccess(now));
+			}
+		}
+
+		final Map<String, T> result = new HashMap<>(found.size());
+
+		for (Map.Entry<String, byte[]> entry : found.entrySet()) {
+			try {
+				result.put(entry.getKey(), serializer.read(new ByteArrayInputStream(entry.getValue())));
+			} catch (IOException | RuntimeException e) {
+				LOGGER.warn("Discarding invalid decompile cache entry: {}", entry.getKey(), e);
+
+				synchronized (this) {
+					index.remove(entry.getKey());
+				}
+			}
+		}
+
+		return result;
+	}
+
+	@Override
+	public synchronized void putEntry(String key, T data) throws IOException {
+		final FileChannel pack = getCurrentPack();
+		final long offset = pack.size();
+		pack.position(offset);
+		serializer.write(data, pack);
+
+		final long length = pack.position() - offset;
+
+		if (length > Integer.MAX_VALUE) {
+			throw new IOException("Cache entry is too large: " + key);
+		}
+
+		index.remove(key);
+		index.put(key, new IndexEntry(currentPack, offset, (int) length, clock.millis()));
+
+		if (pack.size() >= maxPackSize) {
+			currentPack = packs.lastKey() + 1;
+		}
+	}
+
+	private FileChannel getCurrentPack() throws IOException {
+		FileChannel pack = packs.get(currentPack);
+
+		if (pack == null) {
+			pack = FileChannel.open(packPath(currentPack), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			packs.put(currentPack, pack);
+		}
+
+		return pack;
+	}
+
+	/**
+	 * Evicts the least recently used entries until the store is within the max files limit,
+	 * and every entry that has not been used within the max age.
+	 */
+	public synchronized void prune() throws IOException {
+		final long maxAge = clock.millis() - cacheRules.maxAge().toMillis();
+		final Iterator<IndexEntry> iterator = index.values().iterator();
+		int removed = 0;
+
+		while (iterator.hasNext()) {
+			final IndexEntry entry = iterator.next();
+
+			// As the index is in access order there is nothing more to remove once an entry is within the rules
+			if (index.size() <= cacheRules.maxFiles() && entry.lastAccess() >= maxAge) {
+				break;
+			}
+
+			iterator.remove();
+			removed++;
+		}
+
+		LOGGER.debug("Pruned {} entries from the decompile cache, {} remaining", removed, index.size());
+
+		writeIndex();
+		scheduleCompactionIfNeeded();
+	}
+
+	private synchronized void writeIndex() throws IOException {
+		final Path indexPath = root.resolve(INDEX_FILE);
+		final Path tempPath = root.resolve(INDEX_FILE + ".tmp");
+
+		try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+			out.writeInt(INDEX_MAGIC);
+			out.writeInt(INDEX_VERSION);
+			out.writeInt(packs.isEmpty() ? currentPack + 1 : Math.max(currentPack, packs.lastKey()) + 1);
+			out.writeInt(index.size());
+
+			for (Map.Entry<String, IndexEntry> entry : index.entrySet()) {
+				out.writeUTF(entry.getKey());
+				out.writeInt(entry.getValue().pack());
+				out.writeLong(entry.getValue().offset());
+				out.writeInt(entry.getValue().length());
+				out.writeLong(entry.getValue().lastAccess());
+			}
+		}
+
+		Files.move(tempPath, indexPath, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private synchronized void scheduleCompactionIfNeeded() throws IOException {
+		if (compaction != null && !compaction.isDone()) {
+			return;
+		}
+
+		if (!getCompactionCandidates().isEmpty()) {
+			compaction = compactionExecutor.submit(() -> {
+				compact();
+				return null;
+			});
+		}
+	}
+
+	private synchronized List<Integer> getCompactionCandidates() throws IOException {
+		final Map<Integer, Long> liveBytes = new HashMap<>();
+
+		for (IndexEntry entry : index.values()) {
+			liveBytes.merge(entry.pack(), (long) entry.length(), Long::sum);
+		}
+
+		final List<Integer> candidates = new ArrayList<>();
+
+		for (Map.Entry<Integer, FileChannel> pack : packs.entrySet()) {
+			if (pack.getKey() == currentPack) {
+				continue;
+			}
+
+			final long size = pack.getValue().size();
+
+			if (liveBytes.getOrDefault(pack.getKey(), 0L) < size * MIN_LIVE_RATIO) {
+				candidates.add(pack.getKey());
+			}
+		}
+
+		return candidates;
+	}
+
+	/**
+	 * Moves the live entries of mostly dead packs to the end of the current pack, and then deletes the old packs.
+	 */
+	private void compact() throws IOException {
+		final List<Integer> candidates = getCompactionCandidates();
+
+		if (candidates.isEmpty()) {
+			return;
+		}
+
+		for (int packId : candidates) {
+			// Hold the lock per pack, so lookups are not blocked for the whole compaction
+			synchronized (this) {
+				final FileChannel source = packs.get(packId);
+
+				// Iterate the entry set, replacing the values does not change the access order
+				for (Map.Entry<String, IndexEntry> entry : index.entrySet()) {
+					final IndexEntry value = entry.getValue();
+
+					if (value.pack() != packId) {
+						continue;
+					}
+
+					final FileChannel target = getCurrentPack();
+					final long offset = target.size();
+					transferFully(source, value.offset(), value.length(), target, offset);
+					entry.setValue(new IndexEntry(currentPack, offset, value.length(), value.lastAccess()));
+
+					if (target.size() >= maxPackSize) {
+						currentPack = packs.lastKey() + 1;
+					}
+				}
+			}
+		}
+
+		synchronized (this) {
+			// Persist the new locations before deleting the old packs
+			writeIndex();
+
+			for (int packId : candidates) {
+				packs.remove(packId).close();
+				Files.deleteIfExists(packPath(packId));
+			}
+		}
+
+		LOGGER.debug("Compacted {} decompile cache packs", candidates.size());
+	}
+
+	/**
+	 * Waits for any running compaction to finish.
+	 */
+	public void awaitCompaction() throws IOException {
+		final Future<?> future;
+
+		synchronized (this) {
+			future = compaction;
+		}
+
+		if (future == null) {
+			return;
+		}
+
+		try {
+			future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while compacting the decompile cache", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Failed to compact the decompile cache", e.getCause());
+		}
+	}
+
+	public synchronized int size() {
+		return index.size();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			awaitCompaction();
+			writeIndex();
+		} finally {
+			compactionExecutor.shutdown();
+			closePacks();
+		}
+	}
+
+	private synchronized void closePacks() throws IOException {
+		for (FileChannel pack : packs.values()) {
+			pack.close();
+		}
+
+		packs.clear();
+	}
+
+	private Path packPath(int id) {
+		return root.resolve(PACK_PREFIX + id + PACK_SUFFIX);
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException();
+			}
+		}
+	}
+
+	private static void transferFully(FileChannel source, long position, long count, FileChannel target, long targetPosition) throws IOException {
+		long transferred = 0;
+		target.position(targetPosition);
+
+		while (transferred < count) {
+			long read = source.transferTo(position + transferred, count - transferred, target);
+
+			if (read <= 0) {
+				throw new EOFException();
+			}
+
+			transferred += read;
+		}
+	}
+
+	private record IndexEntry(int pack, long offset, int length, long lastAccess) {
+		IndexEntry withLastAccess(long lastAccess) {
+			return new IndexEntry(pack, offset, length, lastAccess);
+		}
+	}
+}
@@ -50,4 +50,5 @@ public interface LoomFiles {
 	File getGlobalZomboidRepo();
 	File getLocalZomboidRepo();
 	File getDecompileCache(String version);
+	File getRemapClasspathCache();
 }
@@ -108,6 +108,11 @@ public abstract class LoomFilesBaseImpl implements LoomFiles {
 
 	@Override
 	public File getDecompileCache(String version) {
-		return new File(getUserCache(), "decompile/" + version + ".zip");
+		return new File(getUserCache(), "decompile/" + version);
+	}
+
+	@Override
+	public File getRemapClasspathCache() {
+		return new File(getUserCache(), "remap_classpath");
 	}
 }
@@ -73,6 +73,7 @@ import dev.aoqia.leaf.loom.task.service.JarManifestService;
 import dev.aoqia.leaf.loom.util.Check;
 import dev.aoqia.leaf.loom.util.Constants;
 import dev.aoqia.leaf.loom.util.ExceptionUtil;
+import dev.aoqia.leaf.loom.util.JarEntryPipeline;
 import dev.aoqia.leaf.loom.util.ZipReprocessorUtil;
 import dev.aoqia.leaf.loom.util.ZipUtils;
 import dev.aoqia.leaf.loom.util.gradle.SourceSetHelper;
@@ -243,10 +244,14 @@ public abstract class AbstractRemapJarTask extends Jar {
 		@Override
 		public final void execute() {
 			try {
-				Path tempInput = Files.createTempFile("loom-remapJar-", "-input.jar");
-				Files.copy(outputFile, tempInput, StandardCopyOption.REPLACE_EXISTING);
-				execute(tempInput);
-				Files.delete(tempInput);
+				if (readsInputBeforeWriting()) {
+					execute(outputFile);
+				} else {
+					Path tempInput = Files.createTempFile("loom-remapJar-", "-input.jar");
+					Files.copy(outputFile, tempInput, StandardCopyOption.REPLACE_EXISTING);
+					execute(tempInput);
+					Files.delete(tempInput);
+				}
 			} catch (Exception e) {
 				try {
 					Files.deleteIfExists(outputFile);
@@ -263,25 +268,42 @@ public abstract class AbstractRemapJarTask extends Jar {
 		// for remapping as it might be missing some files added manually to this task.
 		protected abstract void execute(Path inputFile) throws IOException;
 
+		/**
+		 * Whether {@link #execute(Path)} has finished reading the input before it first writes to the output file.
+		 * When this is {@code true} the output file is passed as the input directly, skipping a copy to a temporary file.
+		 */
+		protected boolean readsInputBeforeWriting() {
+			return false;
+		}
+
 		protected void modifyJarManifest() throws IOException {
-			int count = ZipUtils.transform(outputFile, Map.of(Constants.Manifest.PATH, bytes -> {
-				var manifest = new Manifest(new ByteArrayInputStream(bytes));
-				byte[] sourceManifestBytes = ZipUtils.unpackNullable(getParameters().getInputFile().get().getAsFile().toPath(), Constants.Manifest.PATH);
+			int count = ZipUtils.transform(outputFile, Map.of(Constants.Manifest.PATH, this::modifyManifest));
+			Check.require(count > 0, "Did not transform any jar manifest");
+		}
 
-				if (sourceManifestBytes != null) {
-					var sourceManifest = new Manifest(new ByteArrayInputStream(sourceManifestBytes));
-					mergeManifests(manifest, sourceManifest);
-				}
+		/**
+		 * Applies the same changes as {@link #modifyJarManifest()} to a jar staged in memory.
+		 */
+		protected void modifyJarManifest(JarEntryPipeline jar) throws IOException {
+			boolean transformed = jar.transform(Constants.Manifest.PATH, this::modifyManifest);
+			Check.require(transformed, "Did not transform any jar manifest");
+		}
 
-				getParameters().getJarManifestService().get().apply(manifest, getParameters().getManifestAttributes().get());
-				manifest.getMainAttributes().putValue(Constants.Manifest.MAPPING_NAMESPACE, getParameters().getTargetNamespace().get());
+		private byte[] modifyManifest(byte[] bytes) throws IOException {
+			var manifest = new Manifest(new ByteArrayInputStream(bytes));
+			byte[] sourceManifestBytes = ZipUtils.unpackNullable(getParameters().getInputFile().get().getAsFile().toPath(), Constants.Manifest.PATH);
 
-				ByteArrayOutputStream out = new ByteArrayOutputStream();
-				manifest.write(out);
-				return out.toByteArray();
-			}));
+			if (sourceManifestBytes != null) {
+				var sourceManifest = new Manifest(new ByteArrayInputStream(sourceManifestBytes));
+				mergeManifests(manifest, sourceManifest);
+			}
 
-			Check.require(count > 0, "Did not transform any jar manifest");
+			getParameters().getJarManifestService().get().apply(manifest, getParameters().getManifestAttributes().get());
+			manifest.getMainAttributes().putValue(Constants.Manifest.MAPPING_NAMESPACE, getParameters().getTargetNamespace().get());
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			manifest.write(out);
+			return out.toByteArray();
 		}
 
 		protected void rewriteJar() throws IOException {
@@ -294,6 +316,19 @@ public abstract class AbstractRemapJarTask extends Jar {
 			}
 		}
 
+		/**
+		 * Writes a jar staged in memory to the output file in a single pass, applying the same
+		 * ordering, time stamp and compression rules as {@link #rewriteJar()}.
+		 */
+		protected void writeJar(JarEntryPipeline jar) throws IOException {
+			jar.write(
+					outputFile,
+					getParameters().getArchiveReproducibleFileOrder().get(),
+					getParameters().getArchivePreserveFileTimestamps().get(),
+					getParameters().getEntryCompression().get()
+			);
+		}
+
 		private static void mergeManifests(Manifest target, Manifest source) {
 			mergeAttributes(target.getMainAttributes(), source.getMainAttributes());
 
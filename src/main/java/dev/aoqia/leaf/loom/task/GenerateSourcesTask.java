@@ -36,6 +36,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
@@ -48,6 +49,7 @@ import java.util.stream.Collectors;
 import javax.inject.Inject;
 
 import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.services.ServiceReference;
@@ -80,16 +82,19 @@ import dev.aoqia.leaf.loom.api.mappings.layered.MappingsNamespace;
 import dev.aoqia.leaf.loom.configuration.providers.zomboid.ZomboidJar;
 import dev.aoqia.leaf.loom.configuration.providers.zomboid.mapped.AbstractMappedZomboidProvider;
 import dev.aoqia.leaf.loom.decompilers.ClassLineNumbers;
+import dev.aoqia.leaf.loom.decompilers.JarShards;
 import dev.aoqia.leaf.loom.decompilers.LineNumberRemapper;
 import dev.aoqia.leaf.loom.decompilers.cache.CachedData;
 import dev.aoqia.leaf.loom.decompilers.cache.CachedFileStoreImpl;
 import dev.aoqia.leaf.loom.decompilers.cache.CachedJarProcessor;
+import dev.aoqia.leaf.loom.decompilers.cache.PackedFileStore;
 import dev.aoqia.leaf.loom.task.service.SourceMappingsService;
 import dev.aoqia.leaf.loom.task.service.UnpickService;
+import dev.aoqia.leaf.loom.util.CacheLock;
 import dev.aoqia.leaf.loom.util.Checksum;
 import dev.aoqia.leaf.loom.util.Constants;
+import dev.aoqia.leaf.loom.util.DeletingFileVisitor;
 import dev.aoqia.leaf.loom.util.ExceptionUtil;
-import dev.aoqia.leaf.loom.util.FileSystemUtil;
 import dev.aoqia.leaf.loom.util.IOStringConsumer;
 import dev.aoqia.leaf.loom.util.Platform;
 import dev.aoqia.leaf.loom.util.gradle.GradleUtils;
@@ -105,7 +110,8 @@ import dev.aoqia.leaf.loom.util.service.ServiceFactory;
 
 @DisableCachingByDefault
 public abstract class GenerateSourcesTask extends AbstractLoomTask {
-	private static final String CACHE_VERSION = "v1";
+	private static final String CACHE_VERSION = "v2";
+	private static final String CLASS_HASH_MANIFESTS = "class-hashes";
 	private final DecompilerOptions decompilerOptions;
 
 	/**
@@ -148,7 +154,7 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 	// Internal outputs
 	@ApiStatus.Internal
 	@Internal
-	protected abstract RegularFileProperty getDecompileCacheFile();
+	protected abstract DirectoryProperty getDecompileCacheDirectory();
 
 	@ApiStatus.Internal
 	@Input
@@ -223,7 +229,7 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		dependsOn(decompilerOptions.getClasspath().getBuiltBy());
 
 		getZomboidCompileLibraries().from(getProject().getConfigurations().named(Constants.Configurations.ZOMBOID_COMPILE_LIBRARIES));
-		getDecompileCacheFile().set(getExtension().getFiles().getDecompileCache(CACHE_VERSION));
+		getDecompileCacheDirectory().set(getExtension().getFiles().getDecompileCache(CACHE_VERSION));
 
 		getUseCache().convention(true);
 		getResetCache().convention(getExtension().refreshDeps());
@@ -270,28 +276,12 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 			getLogger().info("Using decompile cache.");
 
 			try (var timer = new Timer("Decompiled sources with cache")) {
-				final Path cacheFile = getDecompileCacheFile().getAsFile().get().toPath();
+				final Path cacheDir = getDecompileCacheDirectory().getAsFile().get().toPath();
+				final var cacheRules = new CachedFileStoreImpl.CacheRules(getMaxCachedFiles().get(), Duration.ofDays(getMaxCacheFileAge().get()));
 
-				if (getResetCache().get()) {
-					getLogger().warn("Resetting decompile cache");
-					Files.deleteIfExists(cacheFile);
-				}
-
-				// TODO ensure we have a lock on this file to prevent multiple tasks from running at the same time
-				Files.createDirectories(cacheFile.getParent());
+				getLogger().debug("Decompile cache rules: {}", cacheRules);
 
-				if (Files.exists(cacheFile)) {
-					try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(cacheFile, true)) {
-						// Success, cache exists and can be read
-					} catch (IOException e) {
-						getLogger().warn("Discarding invalid decompile cache file: {}", cacheFile, e);
-						Files.delete(cacheFile);
-					}
-				}
-
-				try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(cacheFile, true)) {
-					runWithCache(serviceFactory, fs.getRoot());
-				}
+				runWithCache(serviceFactory, cacheDir, cacheRules);
 			} catch (Exception e) {
 				ExceptionUtil.processException(e, getDaemonUtilsContext().get());
 				throw ExceptionUtil.createDescriptiveWrapper(RuntimeException::new, "Failed to decompile", e);
@@ -299,22 +289,34 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		}
 	}
 
-	private void runWithCache(ServiceFactory serviceFactory, Path cacheRoot) throws IOException {
+	private void runWithCache(ServiceFactory serviceFactory, Path cacheDir, CachedFileStoreImpl.CacheRules cacheRules) throws IOException {
 		final Path classesInputJar = getClassesInputJar().get().getAsFile().toPath();
 		final Path sourcesOutputJar = getSourcesOutputJar().get().getAsFile().toPath();
 		final Path classesOutputJar = getClassesOutputJar().get().getAsFile().toPath();
-		final var cacheRules = new CachedFileStoreImpl.CacheRules(getMaxCachedFiles().get(), Duration.ofDays(getMaxCacheFileAge().get()));
-		final var decompileCache = new CachedFileStoreImpl<>(cacheRoot, CachedData.SERIALIZER, cacheRules);
 		final String cacheKey = getCacheKey(serviceFactory);
-		final CachedJarProcessor cachedJarProcessor = new CachedJarProcessor(decompileCache, cacheKey);
+		final Path classHashManifests = cacheDir.resolve(CLASS_HASH_MANIFESTS);
+		final boolean decompileEverything = GradleUtils.getBooleanProperty(getProject(), Constants.Properties.DECOMPILE_EVERYTHING);
 		final CachedJarProcessor.WorkRequest workRequest;
 
 		getLogger().info("Decompile cache key: {}", cacheKey);
-		getLogger().debug("Decompile cache rules: {}", cacheRules);
 
+		// The cache is shared by every project and daemon, and the index is only written when the store is closed.
+		// The store is only held open (and locked) while reading the cached entries and while writing the new ones,
+		// the decompile itself runs without holding the lock.
 		try (var timer = new Timer("Prepare job")) {
-			workRequest = cachedJarProcessor.prepareJob(classesInputJar,
-                GradleUtils.getBooleanProperty(getProject(), Constants.Properties.DECOMPILE_EVERYTHING));
+			workRequest = CacheLock.withExclusiveLock(cacheDir, () -> {
+				if (getResetCache().get() && Files.exists(cacheDir)) {
+					getLogger().warn("Resetting decompile cache");
+					DeletingFileVisitor.deleteDirectory(cacheDir);
+				}
+
+				// The previous cache format stored every entry as a file in a zip
+				Files.deleteIfExists(cacheDir.resolveSibling("v1.zip"));
+
+				try (var decompileCache = PackedFileStore.open(cacheDir, CachedData.CHANNEL_SERIALIZER, cacheRules)) {
+					return new CachedJarProcessor(decompileCache, cacheKey, classHashManifests).prepareJob(classesInputJar, decompileEverything);
+				}
+			});
 		}
 
 		final CachedJarProcessor.WorkJob job = workRequest.job();
@@ -349,8 +351,20 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		// The final output sources jar
 		Files.deleteIfExists(sourcesOutputJar);
 
+		final ClassLineNumbers newLineNumbers = outputLineNumbers;
+
 		try (var timer = new Timer("Complete job")) {
-			cachedJarProcessor.completeJob(sourcesOutputJar, job, outputLineNumbers);
+			CacheLock.withExclusiveLock(cacheDir, () -> {
+				try (var decompileCache = PackedFileStore.open(cacheDir, CachedData.CHANNEL_SERIALIZER, cacheRules)) {
+					new CachedJarProcessor(decompileCache, cacheKey, classHashManifests).completeJob(sourcesOutputJar, job, newLineNumbers);
+
+					try (var pruneTimer = new Timer("Prune cache")) {
+						decompileCache.prune();
+					}
+				}
+
+				return null;
+			});
 		}
 
 		getLogger().info("Decompiled sources written to {}", sourcesOutputJar);
@@ -360,10 +374,6 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		final ClassLineNumbers lineNumbers = ClassLineNumbers.merge(existingLinenumbers, outputLineNumbers);
 
 		applyLineNumbers(lineNumbers, classesInputJar, classesOutputJar);
-
-		try (var timer = new Timer("Prune cache")) {
-			decompileCache.prune();
-		}
 	}
 
 	private void runWithoutCache(ServiceFactory serviceFactory) throws IOException {
@@ -446,31 +456,80 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 
 	@Nullable
 	private ClassLineNumbers runDecompileJob(Path inputJar, Path outputJar, @Nullable Path existingJar) throws IOException {
-		final Platform platform = Platform.CURRENT;
-		final Path lineMapFile = File.createTempFile("loom", "linemap").toPath();
-		Files.delete(lineMapFile);
+		final int shardCount = useProcessIsolation() ? decompilerOptions.getShards().get() : 1;
 
-		if (!platform.supportsUnixDomainSockets()) {
-			getLogger().warn("Decompile worker logging disabled as Unix Domain Sockets is not supported on your operating system.");
+		if (shardCount <= 1) {
+			final Path lineMapFile = File.createTempFile("loom", "linemap").toPath();
+			Files.delete(lineMapFile);
 
-			doWork(null, inputJar, outputJar, lineMapFile, existingJar);
+			final var shard = new DecompileShard(inputJar, outputJar, lineMapFile);
+			decompile(List.of(shard), existingJar, decompilerOptions.getMemory().get(), decompilerOptions.getMaxThreads().get());
 			return readLineNumbers(lineMapFile);
 		}
 
-		// Set up the IPC path to get the log output back from the forked JVM
+		final Path shardsDir = Files.createTempDirectory("loom-decompile-shards");
+
+		try {
+			final List<Path> shardJars;
+
+			try (var timer = new Timer("Split decompile shards")) {
+				final boolean decompileEverything = GradleUtils.getBooleanProperty(getProject(), Constants.Properties.DECOMPILE_EVERYTHING);
+				shardJars = JarShards.split(inputJar, shardCount, shardsDir, decompileEverything);
+			}
+
+			final List<DecompileShard> shards = new ArrayList<>();
+
+			for (Path shardJar : shardJars) {
+				final String name = shardJar.getFileName().toString().replace(".jar", "");
+				shards.add(new DecompileShard(shardJar, shardsDir.resolve(name + "-sources.jar"), shardsDir.resolve(name + ".linemap")));
+			}
+
+			// Split the threads between the shards, as they run at the same time
+			final int maxThreads = Math.max(1, decompilerOptions.getMaxThreads().get() / shards.size());
+			getLogger().info("Decompiling in {} shards with {}m memory and {} threads each", shards.size(), decompilerOptions.getShardMemory().get(), maxThreads);
+
+			decompile(shards, existingJar, decompilerOptions.getShardMemory().get(), maxThreads);
+
+			ClassLineNumbers lineNumbers = null;
+
+			for (DecompileShard shard : shards) {
+				if (Files.notExists(shard.outputJar())) {
+					throw new RuntimeException("Failed to decompile shard: " + shard.inputJar().getFileName());
+				}
+
+				lineNumbers = ClassLineNumbers.merge(lineNumbers, readLineNumbers(shard.lineMapFile()));
+			}
+
+			try (var timer = new Timer("Merge decompile shards")) {
+				JarShards.merge(shards.stream().map(DecompileShard::outputJar).toList(), outputJar);
+			}
+
+			return lineNumbers;
+		} finally {
+			DeletingFileVisitor.deleteDirectory(shardsDir);
+		}
+	}
+
+	private void decompile(List<DecompileShard> shards, @Nullable Path existingJar, long memory, int maxThreads) throws IOException {
+		if (!Platform.CURRENT.supportsUnixDomainSockets()) {
+			getLogger().warn("Decompile worker logging disabled as Unix Domain Sockets is not supported on your operating system.");
+
+			doWork(shards, null, existingJar, memory, maxThreads);
+			return;
+		}
+
+		// Set up the IPC path to get the log output back from the forked JVMs, every shard connects to the same server
 		final Path ipcPath = Files.createTempFile("loom", "ipc");
 		Files.deleteIfExists(ipcPath);
 
 		try (ThreadedProgressLoggerConsumer loggerConsumer = new ThreadedProgressLoggerConsumer(getLogger(), getProgressLoggerFactory(), decompilerOptions.getName(), "Decompiling PZ sources");
-				IPCServer logReceiver = new IPCServer(ipcPath, loggerConsumer)) {
-			doWork(logReceiver, inputJar, outputJar, lineMapFile, existingJar);
+				var logReceiver = new IPCServer(ipcPath, loggerConsumer)) {
+			doWork(shards, logReceiver, existingJar, memory, maxThreads);
 		} catch (InterruptedException e) {
 			throw new RuntimeException("Failed to shutdown log receiver", e);
 		} finally {
 			Files.deleteIfExists(ipcPath);
 		}
-
-		return readLineNumbers(lineMapFile);
 	}
 
 	private void remapLineNumbers(ClassLineNumbers lineNumbers, Path inputJar, Path outputJar) throws IOException {
@@ -487,44 +546,59 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		getLogger().info("Wrote linemap to {}", lineMap);
 	}
 
-	private void doWork(@Nullable IPCServer ipcServer, Path inputJar, Path outputJar, Path linemapFile, @Nullable Path existingClasses) {
-		final String jvmMarkerValue = UUID.randomUUID().toString();
-		final WorkQueue workQueue = createWorkQueue(jvmMarkerValue);
+	private void doWork(List<DecompileShard> shards, @Nullable IPCServer ipcServer, @Nullable Path existingClasses, long memory, int maxThreads) {
+		final List<String> jvmMarkerValues = new ArrayList<>();
 
-		workQueue.submit(DecompileAction.class, params -> {
-			params.getDecompilerOptions().set(decompilerOptions.toDto());
+		for (DecompileShard shard : shards) {
+			// Each shard gets its own marker, so that every shard is run in its own JVM
+			final String jvmMarkerValue = UUID.randomUUID().toString();
+			final WorkQueue workQueue = createWorkQueue(jvmMarkerValue, memory);
+			jvmMarkerValues.add(jvmMarkerValue);
 
-			params.getInputJar().set(inputJar.toFile());
-			params.getOutputJar().set(outputJar.toFile());
-			params.getLinemapFile().set(linemapFile.toFile());
-			params.getMappings().set(getMappings());
-			params.getRuntimeNamespace().set(getRuntimeNamespace());
+			workQueue.submit(DecompileAction.class, params -> {
+				params.getDecompilerOptions().set(decompilerOptions.toDto().withMaxThreads(maxThreads));
 
-			if (ipcServer != null) {
-				params.getIPCPath().set(ipcServer.getPath().toFile());
-			}
+				params.getInputJar().set(shard.inputJar().toFile());
+				params.getOutputJar().set(shard.outputJar().toFile());
+				params.getLinemapFile().set(shard.lineMapFile().toFile());
+				params.getMappings().set(getMappings());
+				params.getRuntimeNamespace().set(getRuntimeNamespace());
+
+				if (ipcServer != null) {
+					params.getIPCPath().set(ipcServer.getPath().toFile());
+				}
 
-			params.getClassPath().setFrom(getZomboidCompileLibraries());
+				params.getClassPath().setFrom(getZomboidCompileLibraries());
 
-			if (existingClasses != null) {
-				params.getClassPath().from(existingClasses);
-			}
-		});
+				// The classes from the other shards are needed to resolve references between them
+				for (DecompileShard otherShard : shards) {
+					if (otherShard != shard) {
+						params.getClassPath().from(otherShard.inputJar());
+					}
+				}
+
+				if (existingClasses != null) {
+					params.getClassPath().from(existingClasses);
+				}
+			});
+		}
 
 		try {
-			workQueue.await();
+			getWorkerExecutor().await();
 		} finally {
 			if (ipcServer != null) {
-				boolean stopped = WorkerDaemonClientsManagerHelper.stopIdleJVM(getWorkerDaemonClientsManager(), jvmMarkerValue);
+				for (String jvmMarkerValue : jvmMarkerValues) {
+					boolean stopped = WorkerDaemonClientsManagerHelper.stopIdleJVM(getWorkerDaemonClientsManager(), jvmMarkerValue);
 
-				if (!stopped && ipcServer.hasReceivedMessage()) {
-					getLogger().info("Failed to stop decompile worker JVM, it may have already been stopped?");
+					if (!stopped && ipcServer.hasReceivedMessage()) {
+						getLogger().info("Failed to stop decompile worker JVM, it may have already been stopped?");
+					}
 				}
 			}
 		}
 	}
 
-	private WorkQueue createWorkQueue(String jvmMarkerValue) {
+	private WorkQueue createWorkQueue(String jvmMarkerValue, long memory) {
 		if (!useProcessIsolation()) {
 			return getWorkerExecutor().classLoaderIsolation(spec -> {
 				spec.getClasspath().from(getClasspath());
@@ -533,8 +607,8 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 
 		return getWorkerExecutor().processIsolation(spec -> {
 			spec.forkOptions(forkOptions -> {
-				forkOptions.setMinHeapSize(String.format(Locale.ENGLISH, "%dm", Math.min(512, decompilerOptions.getMemory().get())));
-				forkOptions.setMaxHeapSize(String.format(Locale.ENGLISH, "%dm", decompilerOptions.getMemory().get()));
+				forkOptions.setMinHeapSize(String.format(Locale.ENGLISH, "%dm", Math.min(512, memory)));
+				forkOptions.setMaxHeapSize(String.format(Locale.ENGLISH, "%dm", memory));
 				forkOptions.systemProperty(WorkerDaemonClientsManagerHelper.MARKER_PROP, jvmMarkerValue);
 			});
 			spec.getClasspath().from(getClasspath());
@@ -671,6 +745,9 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		}
 	}
 
+	private record DecompileShard(Path inputJar, Path outputJar, Path lineMapFile) {
+	}
+
 	public interface MappingsProcessor {
 		boolean transform(MemoryMappingTree mappings);
 	}
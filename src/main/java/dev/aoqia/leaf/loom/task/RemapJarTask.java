@@ -25,11 +25,9 @@
 package dev.aoqia.leaf.loom.task;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.Objects;
-import java.util.stream.Stream;
+import java.util.Set;
 
 import javax.inject.Inject;
 
@@ -50,13 +48,14 @@ import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.SourceSet;
 import org.jetbrains.annotations.ApiStatus;
 import org.jspecify.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.fabricmc.classtweaker.api.ClassTweakerReader;
 import net.fabricmc.classtweaker.api.ClassTweakerWriter;
 import net.fabricmc.classtweaker.visitors.ClassTweakerRemapperVisitor;
-import net.fabricmc.tinyremapper.OutputConsumerPath;
 import net.fabricmc.tinyremapper.TinyRemapper;
 
 import dev.aoqia.leaf.loom.LoomGradleExtension;
@@ -68,9 +67,8 @@ import dev.aoqia.leaf.loom.task.service.ClientEntriesService;
 import dev.aoqia.leaf.loom.task.service.MixinRefmapService;
 import dev.aoqia.leaf.loom.task.service.TinyRemapperService;
 import dev.aoqia.leaf.loom.util.Constants;
-import dev.aoqia.leaf.loom.util.Pair;
+import dev.aoqia.leaf.loom.util.JarEntryPipeline;
 import dev.aoqia.leaf.loom.util.SidedClassVisitor;
-import dev.aoqia.leaf.loom.util.ZipUtils;
 import dev.aoqia.leaf.loom.util.fmj.LeafModJsonFactory;
 import dev.aoqia.leaf.loom.util.fmj.LeafModJsonUtils;
 import dev.aoqia.leaf.loom.util.service.ScopedServiceFactory;
@@ -164,6 +162,10 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 		ListProperty<MixinRefmapService.Options> getMixinRefmapServiceOptions();
 	}
 
+	/**
+	 * Remaps the jar in a single streaming pass: the input is read once, every transformation is applied per entry
+	 * while the jar is staged in memory, and the final reproducible jar is written once.
+	 */
 	public abstract static class RemapAction extends AbstractRemapAction<RemapParams> {
 		private static final Logger LOGGER = LoggerFactory.getLogger(RemapAction.class);
 
@@ -186,70 +188,91 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 
 				prepare();
 
+				final Set<String> clientOnlyEntries = getParameters().getClientOnlyEntries().isPresent()
+						? Set.copyOf(getParameters().getClientOnlyEntries().get())
+						: Set.of();
+				final JarEntryPipeline jar;
+
 				if (tinyRemapperService != null) {
 					tinyRemapper = tinyRemapperService.getTinyRemapperForRemapping();
 
-					remap();
+					jar = remap(clientOnlyEntries);
 				} else {
-					Files.copy(inputFile, outputFile, StandardCopyOption.REPLACE_EXISTING);
+					jar = JarEntryPipeline.read(inputFile);
+					markClientOnlyClasses(jar, clientOnlyEntries);
 				}
 
-				if (getParameters().getClientOnlyEntries().isPresent()) {
-					markClientOnlyClasses();
+				remapAccessWidener(jar);
+
+				if (tinyRemapperService != null) {
+					tinyRemapperService.close();
 				}
 
-				remapAccessWidener();
-				addRefmaps(serviceFactory);
-				addNestedJars();
-				modifyJarManifest();
-				rewriteJar();
+				addRefmaps(jar, serviceFactory);
+				addNestedJars(jar);
+				modifyJarManifest(jar);
 
 				if (getParameters().getOptimizeFmj().get()) {
-					optimizeFMJ();
+					optimizeFMJ(jar);
 				}
 
-				if (tinyRemapperService != null) {
-					tinyRemapperService.close();
-				}
+				writeJar(jar);
 
 				LOGGER.debug("Finished remapping {}", inputFile);
 			}
 		}
 
+		@Override
+		protected boolean readsInputBeforeWriting() {
+			// The whole jar is staged in memory, and the remapper is closed before the output is written.
+			return true;
+		}
+
 		private void prepare() {
 			if (tinyRemapperService != null) {
 				tinyRemapperService.getTinyRemapperForInputs().readInputsAsync(tinyRemapperService.getOrCreateTag(inputFile), inputFile);
 			}
 		}
 
-		private void remap() throws IOException {
+		private JarEntryPipeline remap(Set<String> clientOnlyEntries) throws IOException {
 			Objects.requireNonNull(tinyRemapperService, "tinyRemapperService");
 			Objects.requireNonNull(tinyRemapper, "tinyRemapper");
 
-			// Delete the old file to prevent deleted contents from sticking around in the jar.
-			Files.deleteIfExists(outputFile);
+			final var jar = new JarEntryPipeline();
+			jar.readNonClassFiles(inputFile);
 
-			try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(outputFile).build()) {
-				outputConsumer.addNonClassFiles(inputFile);
-				tinyRemapper.apply(outputConsumer, tinyRemapperService.getOrCreateTag(inputFile));
-			}
+			tinyRemapper.apply((name, bytes) -> {
+				final String path = name + ".class";
+
+				if (clientOnlyEntries.contains(path)) {
+					bytes = markClientOnlyClass(bytes);
+				}
+
+				jar.put(path, bytes);
+			}, tinyRemapperService.getOrCreateTag(inputFile));
+
+			return jar;
 		}
 
-		private void markClientOnlyClasses() throws IOException {
-			final Stream<Pair<String, ZipUtils.UnsafeUnaryOperator<byte[]>>> tranformers = getParameters().getClientOnlyEntries().get().stream()
-					.map(s -> new Pair<>(s,
-							(ZipUtils.AsmClassOperator) classVisitor -> SidedClassVisitor.CLIENT.insertApplyVisitor(null, classVisitor)
-					));
+		private void markClientOnlyClasses(JarEntryPipeline jar, Set<String> clientOnlyEntries) throws IOException {
+			for (String entry : clientOnlyEntries) {
+				jar.transform(entry, RemapAction::markClientOnlyClass);
+			}
+		}
 
-			ZipUtils.transformAsync(outputFile, tranformers);
+		private static byte[] markClientOnlyClass(byte[] bytes) {
+			final ClassReader reader = new ClassReader(bytes);
+			final ClassWriter writer = new ClassWriter(0);
+			reader.accept(SidedClassVisitor.CLIENT.insertApplyVisitor(null, writer), 0);
+			return writer.toByteArray();
 		}
 
-		private void remapAccessWidener() throws IOException {
+		private void remapAccessWidener(JarEntryPipeline jar) throws IOException {
 			if (getParameters().namespacesMatch()) {
 				return;
 			}
 
-			final AccessWidenerFile accessWidenerFile = AccessWidenerFile.fromModJar(inputFile);
+			final AccessWidenerFile accessWidenerFile = AccessWidenerFile.fromModJar(jar, inputFile.getFileName().toString());
 
 			if (accessWidenerFile == null) {
 				return;
@@ -258,7 +281,7 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 			byte[] remapped = remapAccessWidener(accessWidenerFile.content());
 
 			// Finally, replace the output with the remaped aw
-			ZipUtils.replace(outputFile, accessWidenerFile.path(), remapped);
+			jar.put(accessWidenerFile.path(), remapped);
 		}
 
 		private byte[] remapAccessWidener(byte[] input) {
@@ -279,7 +302,7 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 			return writer.getOutput();
 		}
 
-		private void addNestedJars() {
+		private void addNestedJars(JarEntryPipeline jar) {
 			FileCollection nestedJars = getParameters().getNestedJars();
 
 			if (nestedJars.isEmpty()) {
@@ -287,26 +310,26 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 				return;
 			}
 
-			JarNester.nestJars(nestedJars.getFiles(), outputFile.toFile());
+			JarNester.nestJars(nestedJars.getFiles(), jar, outputFile.getFileName().toString());
 		}
 
-		private void addRefmaps(ServiceFactory serviceFactory) throws IOException {
+		private void addRefmaps(JarEntryPipeline jar, ServiceFactory serviceFactory) throws IOException {
 			if (getParameters().getUseMixinExtension().getOrElse(false)) {
 				return;
 			}
 
 			for (MixinRefmapService.Options options : getParameters().getMixinRefmapServiceOptions().get()) {
 				MixinRefmapService mixinRefmapService = serviceFactory.get(options);
-				mixinRefmapService.applyToJar(outputFile);
+				mixinRefmapService.applyToJar(jar);
 			}
 		}
 
-		private void optimizeFMJ() throws IOException {
-			if (ZipUtils.contains(outputFile, LeafModJsonFactory.LEAF_MOD_JSON)) {
-			    ZipUtils.transformJson(JsonObject.class, outputFile, LeafModJsonFactory.LEAF_MOD_JSON, LeafModJsonUtils::optimizeFmj);
-			} else if (ZipUtils.contains(outputFile, LeafModJsonFactory.FABRIC_MOD_JSON)) {
-			    ZipUtils.transformJson(JsonObject.class, outputFile, LeafModJsonFactory.FABRIC_MOD_JSON, LeafModJsonUtils::optimizeFmj);
-            }
+		private void optimizeFMJ(JarEntryPipeline jar) throws IOException {
+			if (jar.contains(LeafModJsonFactory.LEAF_MOD_JSON)) {
+				jar.transformJson(JsonObject.class, LeafModJsonFactory.LEAF_MOD_JSON, LeafModJsonUtils::optimizeFmj);
+			} else if (jar.contains(LeafModJsonFactory.FABRIC_MOD_JSON)) {
+				jar.transformJson(JsonObject.class, LeafModJsonFactory.FABRIC_MOD_JSON, LeafModJsonUtils::optimizeFmj);
+			}
 		}
 	}
 
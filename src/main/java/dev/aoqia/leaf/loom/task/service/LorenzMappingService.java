@@ -61,14 +61,24 @@ public final class LorenzMappingService extends Service<LorenzMappingService.Opt
 		));
 	}
 
-	private final Supplier<MappingSet> mappings = Lazy.of(this::readMappings);
+	private final Supplier<MappingsService> mappingsService = Lazy.of(() -> {
+		MappingsService mappingsService = getServiceFactory().get(getOptions().getMappings().get());
+		// Read the tree up front so that it can be shared by concurrent readers.
+		mappingsService.getMemoryMappingTree();
+		return mappingsService;
+	});
+	private final Supplier<MappingSet> mappings = Lazy.of(this::createMappings);
 
 	public LorenzMappingService(Options options, ServiceFactory serviceFactory) {
 		super(options, serviceFactory);
 	}
 
-	private MappingSet readMappings() {
-		MappingsService mappingsService = getServiceFactory().get(getOptions().getMappings().get());
+	/**
+	 * Reads a new copy of the mappings. Mercury completes the class mappings as it remaps, so each concurrent
+	 * remap needs its own copy.
+	 */
+	public MappingSet createMappings() {
+		MappingsService mappingsService = this.mappingsService.get();
 
 		try {
 			try (var reader = new TinyMappingsReader(mappingsService.getMemoryMappingTree(), mappingsService.getFrom(), mappingsService.getTo())) {
@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -42,6 +43,7 @@ import org.gradle.api.tasks.SourceSet;
 import dev.aoqia.leaf.loom.LoomGradleExtension;
 import dev.aoqia.leaf.loom.extension.MixinExtension;
 import dev.aoqia.leaf.loom.task.RemapJarTask;
+import dev.aoqia.leaf.loom.util.JarEntryPipeline;
 import dev.aoqia.leaf.loom.util.ZipUtils;
 import dev.aoqia.leaf.loom.util.fmj.LeafModJson;
 import dev.aoqia.leaf.loom.util.fmj.LeafModJsonFactory;
@@ -112,20 +114,43 @@ public class MixinRefmapService extends Service<MixinRefmapService.Options> {
 			return;
 		}
 
+		final String refmapName = getOptions().getRefmapName().get();
+
+		if (ZipUtils.contains(path, refmapName)) {
+			ZipUtils.transformJson(JsonObject.class, path, getRefmapTransforms(fabricModJson));
+		}
+	}
+
+	/**
+	 * Applies the refmap to the mixin configs of a jar staged in memory.
+	 */
+	public void applyToJar(JarEntryPipeline jar) throws IOException {
+		final LeafModJson fabricModJson = LeafModJsonFactory.createFromJarNullable(jar);
+
+		if (fabricModJson == null) {
+			return;
+		}
+
+		if (jar.contains(getOptions().getRefmapName().get())) {
+			for (Map.Entry<String, ZipUtils.UnsafeUnaryOperator<JsonObject>> entry : getRefmapTransforms(fabricModJson).entrySet()) {
+				jar.transformJson(JsonObject.class, entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	private Map<String, ZipUtils.UnsafeUnaryOperator<JsonObject>> getRefmapTransforms(LeafModJson fabricModJson) {
 		final List<String> allMixinConfigs = fabricModJson.getMixinConfigurations();
 		final List<String> mixinConfigs = getOptions().getMixinConfigs().get().stream()
 				.filter(allMixinConfigs::contains)
 				.toList();
 		final String refmapName = getOptions().getRefmapName().get();
 
-		if (ZipUtils.contains(path, refmapName)) {
-			int transformed = ZipUtils.transformJson(JsonObject.class, path, mixinConfigs.stream().collect(Collectors.toMap(s -> s, s -> json -> {
-				if (!json.has("refmap")) {
-					json.addProperty("refmap", refmapName);
-				}
+		return mixinConfigs.stream().collect(Collectors.toMap(s -> s, s -> json -> {
+			if (!json.has("refmap")) {
+				json.addProperty("refmap", refmapName);
+			}
 
-				return json;
-			})));
-		}
+			return json;
+		}));
 	}
 }
@@ -45,10 +45,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import dev.aoqia.leaf.loom.task.RemapSourcesJarTask;
-import dev.aoqia.leaf.loom.util.DeletingFileVisitor;
-import dev.aoqia.leaf.loom.util.FileSystemUtil;
 import dev.aoqia.leaf.loom.util.SourceRemapper;
-import dev.aoqia.leaf.loom.util.ZipUtils;
 import dev.aoqia.leaf.loom.util.service.Service;
 import dev.aoqia.leaf.loom.util.service.ServiceFactory;
 import dev.aoqia.leaf.loom.util.service.ServiceType;
@@ -85,37 +82,8 @@ public final class SourceRemapperService extends Service<SourceRemapperService.O
 			throw new UnsupportedOperationException("Cannot remap in place");
 		}
 
-		Path srcPath = source;
-		boolean isSrcTmp = false;
-
-		// Create a temp directory with all of the sources
-		if (!Files.isDirectory(source)) {
-			isSrcTmp = true;
-			srcPath = Files.createTempDirectory("fabric-loom-src");
-			ZipUtils.unpackAll(source, srcPath);
-		}
-
-		if (!Files.isDirectory(destination) && Files.exists(destination)) {
-			Files.delete(destination);
-		}
-
-		Mercury mercury = createMercury();
-
-		try (FileSystemUtil.Delegate dstFs = Files.isDirectory(destination) ? null : FileSystemUtil.getJarFileSystem(destination, true)) {
-			Path dstPath = dstFs != null ? dstFs.get().getPath("/") : destination;
-
-			try {
-				mercury.rewrite(srcPath, dstPath);
-			} catch (Exception e) {
-				LOGGER.warn("Could not remap " + source + " fully!", e);
-			}
-
-			SourceRemapper.copyNonJavaFiles(srcPath, dstPath, LOGGER, source);
-		} finally {
-			if (isSrcTmp) {
-				Files.walkFileTree(srcPath, new DeletingFileVisitor());
-			}
-		}
+		Files.deleteIfExists(destination);
+		SourceRemapper.remapSourcesJar(createMercury(), source, destination, false, true, LOGGER);
 	}
 
 	private Mercury createMercury() throws IOException {
@@ -40,6 +40,7 @@ import java.util.Set;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.ConfigurationContainer;
 import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.plugins.JavaPlugin;
 import org.gradle.api.provider.ListProperty;
@@ -47,15 +48,19 @@ import org.gradle.api.provider.Property;
 import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.Classpath;
 import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Nested;
 import org.gradle.api.tasks.Optional;
 import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import dev.aoqia.leaf.loom.LoomGradleExtension;
 import dev.aoqia.leaf.loom.api.mappings.layered.MappingsNamespace;
 import dev.aoqia.leaf.loom.extension.RemapperExtensionHolder;
 import dev.aoqia.leaf.loom.task.AbstractRemapJarTask;
 import dev.aoqia.leaf.loom.util.Constants;
+import dev.aoqia.leaf.loom.util.RemapClasspathCache;
 import dev.aoqia.leaf.loom.util.TinyRemapperLoggerAdapter;
 import dev.aoqia.leaf.loom.util.kotlin.KotlinClasspathService;
 import dev.aoqia.leaf.loom.util.kotlin.KotlinRemapperClassloader;
@@ -69,6 +74,7 @@ import net.fabricmc.tinyremapper.extension.mixin.MixinExtension;
 
 public class TinyRemapperService extends Service<TinyRemapperService.Options> implements TinyRemapperServiceInterface, Closeable {
 	public static final ServiceType<Options, TinyRemapperService> TYPE = new ServiceType<>(Options.class, TinyRemapperService.class);
+	private static final Logger LOGGER = LoggerFactory.getLogger(TinyRemapperService.class);
 
 	public interface Options extends Service.Options {
 		@Input
@@ -86,6 +92,9 @@ public class TinyRemapperService extends Service<TinyRemapperService.Options> im
 		Property<KotlinClasspathService.Options> getKotlinClasspathService();
 		@Classpath
 		ConfigurableFileCollection getClasspath();
+		// Where stripped copies of the classpath jars are cached, when unset the classpath is read directly
+		@Internal
+		DirectoryProperty getClasspathCache();
 		@Input
 		ListProperty<String> getKnownIndyBsms();
 		@Input
@@ -113,6 +122,7 @@ public class TinyRemapperService extends Service<TinyRemapperService.Options> im
 			options.getUselegacyMixinAP().set(legacyMixin);
 			options.getKotlinClasspathService().set(KotlinClasspathService.createOptions(project));
 			options.getClasspath().from(classpath);
+			options.getClasspathCache().set(extension.getFiles().getRemapClasspathCache());
 			options.getKnownIndyBsms().set(extension.getKnownIndyBsms().get().stream().sorted().toList());
 			options.getRemapperExtensions().set(extension.getRemapperExtensions());
 		});
@@ -128,6 +138,7 @@ public class TinyRemapperService extends Service<TinyRemapperService.Options> im
 			options.getMappings().add(MappingsService.createOptionsWithProjectMappings(project, options.getFrom(), options.getTo()));
 			options.getUselegacyMixinAP().set(true);
 			options.getClasspath().from(classpath);
+			options.getClasspathCache().set(extension.getFiles().getRemapClasspathCache());
 			options.getKnownIndyBsms().set(extension.getKnownIndyBsms().get().stream().sorted().toList());
 			options.getRemapperExtensions().set(extension.getRemapperExtensions());
 		});
@@ -255,7 +266,7 @@ public class TinyRemapperService extends Service<TinyRemapperService.Options> im
 				continue;
 			}
 
-			toRead.add(path);
+			toRead.add(getCachedClasspathJar(path));
 			classpath.add(path);
 		}
 
@@ -266,6 +277,19 @@ public class TinyRemapperService extends Service<TinyRemapperService.Options> im
 		tinyRemapper.readClassPath(toRead.toArray(Path[]::new));
 	}
 
+	private Path getCachedClasspathJar(Path path) {
+		if (!getOptions().getClasspathCache().isPresent()) {
+			return path;
+		}
+
+		try {
+			return RemapClasspathCache.get(getOptions().getClasspathCache().get().getAsFile().toPath(), path);
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warn("Failed to cache remap classpath jar {}, reading it directly", path, e);
+			return path;
+		}
+	}
+
 	@Override
 	public void close() throws IOException {
 		if (tinyRemapper != null) {
@@ -29,14 +29,27 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.function.Function;
-import java.util.stream.Stream;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.zip.ZipEntry;
 
 import daomephsta.unpick.api.ConstantUninliner;
 import daomephsta.unpick.api.classresolvers.ClassResolvers;
@@ -45,12 +58,14 @@ import daomephsta.unpick.api.constantgroupers.ConstantGroupers;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.ConfigurationContainer;
 import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.Classpath;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Nested;
 import org.gradle.api.tasks.Optional;
 import org.gradle.api.tasks.OutputFile;
@@ -58,8 +73,14 @@ import org.gradle.api.tasks.PathSensitive;
 import org.gradle.api.tasks.PathSensitivity;
 import org.jspecify.annotations.Nullable;
 import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.MethodNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -68,10 +89,12 @@ import dev.aoqia.leaf.loom.api.mappings.layered.MappingsNamespace;
 import dev.aoqia.leaf.loom.configuration.providers.mappings.MappingConfiguration;
 import dev.aoqia.leaf.loom.configuration.providers.mappings.unpick.UnpickMetadata;
 import dev.aoqia.leaf.loom.task.GenerateSourcesTask;
-import dev.aoqia.leaf.loom.util.AsyncZipProcessor;
 import dev.aoqia.leaf.loom.util.Checksum;
 import dev.aoqia.leaf.loom.util.Constants;
-import dev.aoqia.leaf.loom.util.FileSystemUtil;
+import dev.aoqia.leaf.loom.util.Lazy;
+import dev.aoqia.leaf.loom.util.RawZipFile;
+import dev.aoqia.leaf.loom.util.RawZipOutput;
+import dev.aoqia.leaf.loom.util.RemapClasspathCache;
 import dev.aoqia.leaf.loom.util.SLF4JAdapterHandler;
 import dev.aoqia.leaf.loom.util.service.Service;
 import dev.aoqia.leaf.loom.util.service.ServiceFactory;
@@ -108,6 +131,10 @@ public class UnpickService extends Service<UnpickService.Options> {
 
 		@Input
 		Property<Boolean> getLenient();
+
+		// Where stripped copies of the classpath jars are cached
+		@Internal
+		DirectoryProperty getClasspathCache();
 	}
 
 	public static Provider<Options> createOptions(GenerateSourcesTask task) {
@@ -138,28 +165,51 @@ public class UnpickService extends Service<UnpickService.Options> {
 			options.getUnpickClasspath().setFrom(configurations.named(Constants.Configurations.ZOMBOID_COMPILE_LIBRARIES));
 			options.getUnpickClasspath().from(configurations.named(Constants.Configurations.MOD_COMPILE_CLASSPATH_MAPPED));
 			options.getLenient().set(unpickMetadata instanceof UnpickMetadata.V1);
+			options.getClasspathCache().set(extension.getFiles().getRemapClasspathCache());
 			extension.getZomboidJars(MappingsNamespace.NAMED).forEach(options.getUnpickClasspath()::from);
 			return true;
 		});
 	}
 
+	private final Supplier<String> unpickCacheKey = Lazy.of(this::createUnpickCacheKey);
+
 	public UnpickService(Options options, ServiceFactory serviceFactory) {
 		super(options, serviceFactory);
 	}
 
 	public Path unpickJar(Path inputJar, @Nullable Path existingClasses) throws IOException {
-		final List<Path> classpath = Stream.of(
-				getOptions().getUnpickClasspath().getFiles().stream().map(File::toPath),
-				getOptions().getUnpickConstantJar().getFiles().stream().map(File::toPath),
-				Stream.of(inputJar),
-				Stream.ofNullable(existingClasses)
-			).flatMap(Function.identity()).toList();
+		final Path classpathCache = getOptions().getClasspathCache().get().getAsFile().toPath();
+		final List<Path> classpath = new ArrayList<>();
+
+		// Unpick only needs the class headers and field constants of the libraries and game jars,
+		// so they are read from their stripped copies, which are cached by content.
+		for (File file : getOptions().getUnpickClasspath().getFiles()) {
+			classpath.add(RemapClasspathCache.get(classpathCache, file.toPath()));
+		}
+
+		for (File file : getOptions().getUnpickConstantJar().getFiles()) {
+			classpath.add(RemapClasspathCache.get(classpathCache, file.toPath()));
+		}
+
+		classpath.add(inputJar);
+
+		if (existingClasses != null) {
+			classpath.add(existingClasses);
+		}
+
 		final Path outputJar = getOptions().getUnpickOutputJar().get().getAsFile().toPath();
 		Files.deleteIfExists(outputJar);
 
-		try (ZipFsClasspath zipFsClasspath = ZipFsClasspath.create(classpath);
-				InputStream unpickDefinitions = getUnpickDefinitionsInputStream()) {
-			IClassResolver classResolver = zipFsClasspath.createClassResolver().chain(ClassResolvers.classpath());
+		final byte[] unpickDefinitions;
+
+		try (InputStream inputStream = getUnpickDefinitionsInputStream()) {
+			unpickDefinitions = inputStream.readAllBytes();
+		}
+
+		final UnpickTargets targets = UnpickTargets.parse(new String(unpickDefinitions, StandardCharsets.UTF_8));
+
+		try (IndexedClasspath indexedClasspath = IndexedClasspath.create(classpath)) {
+			IClassResolver classResolver = indexedClasspath.chain(ClassResolvers.classpath());
 			ConstantUninliner uninliner = ConstantUninliner.builder()
 					.logger(JAVA_LOGGER)
 					.classResolver(classResolver)
@@ -167,16 +217,109 @@ public class UnpickService extends Service<UnpickService.Options> {
 							.logger(JAVA_LOGGER)
 							.lenient(getOptions().getLenient().get())
 							.classResolver(classResolver)
-							.mappingSource(unpickDefinitions)
+							.mappingSource(new ByteArrayInputStream(unpickDefinitions))
 							.build())
 					.build();
 
-			AsyncZipProcessor.processEntries(inputJar, outputJar, new UnpickZipProcessor(uninliner));
+			unpickClasses(uninliner, targets, inputJar, outputJar);
 		}
 
 		return outputJar;
 	}
 
+	/**
+	 * Unpicks the classes of the input jar on a bounded pool, writing the results in entry order.
+	 * Classes that do not use any of the unpick targets are not parsed, and classes that unpick did not change are
+	 * copied without being rewritten or recompressed.
+	 */
+	private static void unpickClasses(ConstantUninliner uninliner, UnpickTargets targets, Path inputJar, Path outputJar) throws IOException {
+		final int parallelism = Runtime.getRuntime().availableProcessors();
+		// Results are written in entry order, at most this many entries are pending at once.
+		final int window = parallelism * 2;
+		final Deque<Future<UnpickOutput>> pending = new ArrayDeque<>(window);
+
+		try (RawZipFile inputZip = RawZipFile.open(inputJar);
+				RawZipOutput outputZip = new RawZipOutput(outputJar);
+				ExecutorService executor = Executors.newFixedThreadPool(parallelism)) {
+			try {
+				for (RawZipFile.Entry entry : inputZip.entries()) {
+					if (pending.size() >= window) {
+						write(outputZip, pending.removeFirst());
+					}
+
+					if (entry.isDirectory() || !entry.name().endsWith(".class")) {
+						pending.addLast(CompletableFuture.completedFuture(new UnpickOutput(inputZip, entry, null)));
+					} else {
+						pending.addLast(executor.submit(() -> new UnpickOutput(inputZip, entry, unpickClass(uninliner, targets, inputZip.readAllBytes(entry)))));
+					}
+				}
+
+				while (!pending.isEmpty()) {
+					write(outputZip, pending.removeFirst());
+				}
+			} finally {
+				pending.forEach(future -> future.cancel(true));
+			}
+		}
+	}
+
+	/**
+	 * @return the unpicked class, or null when unpick did not change it
+	 */
+	private static byte @Nullable [] unpickClass(ConstantUninliner uninliner, UnpickTargets targets, byte[] bytes) {
+		final ClassReader reader = new ClassReader(bytes);
+
+		if (!targets.isUsedBy(reader)) {
+			return null;
+		}
+
+		final ClassNode classNode = new ClassNode();
+		reader.accept(classNode, 0);
+
+		// Unpick edits the instruction lists in place, each list records whether it was changed.
+		final List<TrackingInsnList> instructions = new ArrayList<>(classNode.methods.size());
+
+		for (MethodNode method : classNode.methods) {
+			final TrackingInsnList tracking = TrackingInsnList.of(method.instructions);
+			method.instructions = tracking;
+			instructions.add(tracking);
+		}
+
+		LOGGER.debug("Unpick class: {}", classNode.name);
+		uninliner.transform(classNode);
+
+		if (instructions.stream().noneMatch(TrackingInsnList::isModified)) {
+			return null;
+		}
+
+		ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		classNode.accept(writer);
+		return writer.toByteArray();
+	}
+
+	private static void write(RawZipOutput outputZip, Future<UnpickOutput> future) throws IOException {
+		final UnpickOutput result;
+
+		try {
+			result = future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while unpicking", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException ioException) {
+				throw ioException;
+			}
+
+			throw new RuntimeException("Failed to unpick jar", e.getCause());
+		}
+
+		if (result.data() == null) {
+			outputZip.copyRaw(result.source(), result.entry(), true);
+		} else {
+			outputZip.write(result.entry().name(), result.data(), ZipEntry.DEFLATED, result.entry().dosTime(), result.entry().dosDate());
+		}
+	}
+
 	private InputStream getUnpickDefinitionsInputStream() throws IOException {
 		final Path unpickDefinitionsPath = getOptions().getUnpickDefinitions().getAsFile().get().toPath();
 
@@ -195,79 +338,300 @@ public class UnpickService extends Service<UnpickService.Options> {
 	}
 
 	public String getUnpickCacheKey() {
-		return Checksum.of(List.of(
-				Checksum.of(getOptions().getUnpickDefinitions().getAsFile().get()),
-				Checksum.of(getOptions().getUnpickConstantJar()),
-				Checksum.of(getOptions().getUnpickRemapperService()
-						.flatMap(options -> options.getTinyRemapper()
-								.flatMap(TinyRemapperService.Options::getFrom))
-						.getOrElse("named"))
-		)).sha256().hex();
+		return unpickCacheKey.get();
 	}
 
-	private record UnpickZipProcessor(ConstantUninliner uninliner) implements AsyncZipProcessor {
-		@Override
-		public void processEntryAsync(Path input, Path output) throws IOException {
-			Files.createDirectories(output.getParent());
+	private String createUnpickCacheKey() {
+		final List<Checksum> checksums = new ArrayList<>();
 
-			String fileName = input.toAbsolutePath().toString();
+		try {
+			checksums.add(Checksum.of(RemapClasspathCache.getHash(getOptions().getUnpickDefinitions().getAsFile().get().toPath())));
 
-			if (!fileName.endsWith(".class")) {
-				// Copy non-class files
-				Files.copy(input, output);
-				return;
+			for (File file : getOptions().getUnpickConstantJar().getFiles()) {
+				checksums.add(Checksum.of(RemapClasspathCache.getHash(file.toPath())));
 			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to hash unpick inputs", e);
+		}
+
+		checksums.add(Checksum.of(getOptions().getUnpickRemapperService()
+				.flatMap(options -> options.getTinyRemapper()
+						.flatMap(TinyRemapperService.Options::getFrom))
+				.getOrElse("named")));
+		return Checksum.of(checksums).sha256().hex();
+	}
 
-			ClassNode classNode = new ClassNode();
+	private record UnpickOutput(RawZipFile source, RawZipFile.Entry entry, byte @Nullable [] data) {
+	}
 
-			try (InputStream is = Files.newInputStream(input)) {
-				ClassReader reader = new ClassReader(is);
-				reader.accept(classNode, 0);
+	/**
+	 * The methods and fields that the unpick definitions target, used to skip the classes that unpick can not change.
+	 * Unpick only replaces constants passed to, returned from or compared with a target, so a class that does not
+	 * declare or use a target member with a constant load is left as is. Default groups apply to every constant of
+	 * their type, when the definitions contain one any class with a constant load is unpicked.
+	 *
+	 * @param members The name and descriptor of each target method and field
+	 * @param defaultGroups Whether the definitions contain a default group
+	 */
+	record UnpickTargets(Set<String> members, boolean defaultGroups) {
+		static UnpickTargets parse(String definitions) {
+			final Set<String> members = new HashSet<>();
+			boolean defaultGroups = false;
+
+			for (String line : definitions.split("\n")) {
+				final int comment = line.indexOf('#');
+				final String[] tokens = (comment != -1 ? line.substring(0, comment) : line).trim().split("\\s+");
+
+				switch (tokens[0]) {
+				case "target_method", "target_field" -> {
+					if (tokens.length >= 4) {
+						members.add(tokens[2] + tokens[3]);
+					}
+				}
+				// A group without a name
+				case "group" -> defaultGroups |= tokens.length == 2;
+				default -> {
+				}
+				}
 			}
 
-			LOGGER.debug("Unpick class: {}", classNode.name);
-			uninliner.transform(classNode);
+			return new UnpickTargets(Set.copyOf(members), defaultGroups);
+		}
+
+		/**
+		 * Returns true when the class loads a constant and uses a target, without building a tree of the class.
+		 */
+		boolean isUsedBy(ClassReader reader) {
+			final boolean[] loadsConstant = new boolean[1];
+			final boolean[] usesTarget = new boolean[] {defaultGroups};
+
+			reader.accept(new ClassVisitor(Constants.ASM_VERSION) {
+				@Override
+				public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+					if (loadsConstant[0] && usesTarget[0]) {
+						return null;
+					}
+
+					// Constants returned from a target method, including overrides
+					if (members.contains(name + descriptor)) {
+						usesTarget[0] = true;
+					}
+
+					return new MethodVisitor(Constants.ASM_VERSION) {
+						@Override
+						public void visitInsn(int opcode) {
+							if (opcode >= Opcodes.ICONST_M1 && opcode <= Opcodes.DCONST_1) {
+								loadsConstant[0] = true;
+							}
+						}
+
+						@Override
+						public void visitIntInsn(int opcode, int operand) {
+							if (opcode == Opcodes.BIPUSH || opcode == Opcodes.SIPUSH) {
+								loadsConstant[0] = true;
+							}
+						}
+
+						@Override
+						public void visitLdcInsn(Object value) {
+							loadsConstant[0] = true;
+						}
+
+						// The owner is not compared, a target may be called through a sub class
+						@Override
+						public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+							if (members.contains(name + descriptor)) {
+								usesTarget[0] = true;
+							}
+						}
+
+						@Override
+						public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+							if (members.contains(name + descriptor)) {
+								usesTarget[0] = true;
+							}
+						}
+					};
+				}
+			}, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+
+			return loadsConstant[0] && usesTarget[0];
+		}
+	}
+
+	/**
+	 * An instruction list that records whether it was changed after it was created.
+	 */
+	private static final class TrackingInsnList extends InsnList {
+		private boolean modified;
+
+		static TrackingInsnList of(InsnList instructions) {
+			final var tracking = new TrackingInsnList();
+			tracking.add(instructions);
+			tracking.modified = false;
+			return tracking;
+		}
+
+		boolean isModified() {
+			return modified;
+		}
+
+		@Override
+		public void set(AbstractInsnNode oldInsnNode, AbstractInsnNode newInsnNode) {
+			modified = true;
+			super.set(oldInsnNode, newInsnNode);
+		}
+
+		@Override
+		public void add(AbstractInsnNode insnNode) {
+			modified = true;
+			super.add(insnNode);
+		}
+
+		@Override
+		public void add(InsnList insnList) {
+			modified = true;
+			super.add(insnList);
+		}
+
+		@Override
+		public void insert(AbstractInsnNode insnNode) {
+			modified = true;
+			super.insert(insnNode);
+		}
+
+		@Override
+		public void insert(InsnList insnList) {
+			modified = true;
+			super.insert(insnList);
+		}
+
+		@Override
+		public void insert(AbstractInsnNode previousInsn, AbstractInsnNode insnNode) {
+			modified = true;
+			super.insert(previousInsn, insnNode);
+		}
 
-			ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
-			classNode.accept(writer);
+		@Override
+		public void insert(AbstractInsnNode previousInsn, InsnList insnList) {
+			modified = true;
+			super.insert(previousInsn, insnList);
+		}
 
-			Files.write(output, writer.toByteArray());
+		@Override
+		public void insertBefore(AbstractInsnNode nextInsn, AbstractInsnNode insnNode) {
+			modified = true;
+			super.insertBefore(nextInsn, insnNode);
+		}
+
+		@Override
+		public void insertBefore(AbstractInsnNode nextInsn, InsnList insnList) {
+			modified = true;
+			super.insertBefore(nextInsn, insnList);
+		}
+
+		@Override
+		public void remove(AbstractInsnNode insnNode) {
+			modified = true;
+			super.remove(insnNode);
+		}
+
+		@Override
+		public void clear() {
+			modified = true;
+			super.clear();
 		}
 	}
 
-	private record ZipFsClasspath(List<FileSystemUtil.Delegate> fileSystems) implements Closeable {
-		private ZipFsClasspath {
-			if (fileSystems.isEmpty()) {
-				throw new IllegalArgumentException("No resolvers provided");
+	/**
+	 * Resolves classes through an index of the class entries in the classpath jars, built from their central
+	 * directories. A class is only read the first time unpick asks for it, directories are searched after the jars.
+	 */
+	private static final class IndexedClasspath implements IClassResolver, Closeable {
+		private final List<RawZipFile> zipFiles = new ArrayList<>();
+		private final Map<String, ClassSource> index = new HashMap<>();
+		private final List<IClassResolver> directories = new ArrayList<>();
+		private final Map<String, ClassReader> cache = new ConcurrentHashMap<>();
+
+		static IndexedClasspath create(List<Path> classpath) throws IOException {
+			final var indexedClasspath = new IndexedClasspath();
+
+			try {
+				for (Path path : classpath) {
+					indexedClasspath.add(path);
+				}
+			} catch (IOException e) {
+				indexedClasspath.close();
+				throw e;
 			}
+
+			return indexedClasspath;
 		}
 
-		public static ZipFsClasspath create(List<Path> classpath) throws IOException {
-			var fileSystems = new ArrayList<FileSystemUtil.Delegate>();
+		private void add(Path path) throws IOException {
+			if (Files.isDirectory(path)) {
+				directories.add(ClassResolvers.fromDirectory(path));
+				return;
+			}
+
+			final RawZipFile zipFile = RawZipFile.open(path);
+			zipFiles.add(zipFile);
 
-			for (Path path : classpath) {
-				FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(path, false);
-				fileSystems.add(fs);
+			for (RawZipFile.Entry entry : zipFile.entries()) {
+				final String name = entry.name();
+
+				if (!entry.isDirectory() && name.endsWith(".class")) {
+					// The first jar on the classpath wins
+					index.putIfAbsent(name.substring(0, name.length() - 6), new ClassSource(zipFile, entry));
+				}
 			}
+		}
 
-			return new ZipFsClasspath(fileSystems);
+		@Override
+		public @Nullable ClassReader resolveClass(String internalName) {
+			ClassReader reader = cache.get(internalName);
+
+			if (reader == null) {
+				reader = readClass(internalName);
+
+				if (reader != null) {
+					cache.putIfAbsent(internalName, reader);
+				}
+			}
+
+			return reader;
 		}
 
-		public IClassResolver createClassResolver() {
-			IClassResolver resolver = ClassResolvers.fromDirectory(fileSystems.getFirst().getRoot());
+		private @Nullable ClassReader readClass(String internalName) {
+			final ClassSource source = index.get(internalName);
 
-			for (int i = 1; i < fileSystems.size(); i++) {
-				resolver = resolver.chain(ClassResolvers.fromDirectory(fileSystems.get(i).getRoot()));
+			if (source != null) {
+				try {
+					return new ClassReader(source.zipFile().readAllBytes(source.entry()));
+				} catch (IOException e) {
+					throw new UncheckedIOException("Failed to read class " + internalName, e);
+				}
 			}
 
-			return resolver;
+			for (IClassResolver directory : directories) {
+				final ClassReader reader = directory.resolveClass(internalName);
+
+				if (reader != null) {
+					return reader;
+				}
+			}
+
+			return null;
 		}
 
 		@Override
 		public void close() throws IOException {
-			for (FileSystemUtil.Delegate fileSystem : fileSystems) {
-				fileSystem.close();
+			for (RawZipFile zipFile : zipFiles) {
+				zipFile.close();
 			}
 		}
+
+		private record ClassSource(RawZipFile zipFile, RawZipFile.Entry entry) {
+		}
 	}
 }
@@ -0,0 +1,262 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Locks an entry of a cache that is shared between projects, and between Gradle daemons, while it is read or produced.
+ *
+ * <p>Other processes are excluded with a {@link FileLock} on a {@code .cachelock} file next to the entry, the
+ * {@code .lock} suffix is already used by downloads to mark an interrupted download. Readers take a shared lock and
+ * writers an exclusive one. File locks are held by the whole JVM, so the threads of this JVM are excluded by a
+ * {@link ReentrantReadWriteLock} per entry, and all the readers in this JVM share one file lock.
+ *
+ * <p>A lock is scoped to the action it is held for and is reentrant within a thread. A thread holding a shared lock
+ * cannot upgrade it to an exclusive lock. Waiting for a lock gives up after an hour, or a minute on CI.
+ */
+public final class CacheLock {
+	private static final Logger LOGGER = LoggerFactory.getLogger(CacheLock.class);
+	private static final Map<Path, Entry> ENTRIES = new ConcurrentHashMap<>();
+	private static final long POLL_INTERVAL_MS = 100;
+	// The lock is taken on a region past the end of the file, so that the holder's pid can be written to it
+	private static final long LOCK_POSITION = Long.MAX_VALUE - 1;
+
+	private CacheLock() {
+	}
+
+	/**
+	 * Runs the action while holding a lock that other readers may also hold, use this to check or read an entry.
+	 */
+	public static <T, E extends Exception> T withSharedLock(Path entry, Action<T, E> action) throws IOException, E {
+		return withLock(entry, true, action);
+	}
+
+	/**
+	 * Runs the action while holding the only lock on the entry, use this to produce or replace an entry.
+	 */
+	public static <T, E extends Exception> T withExclusiveLock(Path entry, Action<T, E> action) throws IOException, E {
+		return withLock(entry, false, action);
+	}
+
+	public static Path getLockFile(Path entry) {
+		return entry.resolveSibling(entry.getFileName() + ".cachelock");
+	}
+
+	private static <T, E extends Exception> T withLock(Path entry, boolean shared, Action<T, E> action) throws IOException, E {
+		final Path lockFile = getLockFile(entry.toAbsolutePath().normalize());
+		final Entry lockEntry = ENTRIES.computeIfAbsent(lockFile, Entry::new);
+		final ReentrantReadWriteLock threadLock = lockEntry.threadLock;
+
+		if (threadLock.isWriteLockedByCurrentThread()) {
+			// The exclusive lock also covers any shared request from the same thread
+			return action.run();
+		}
+
+		if (threadLock.getReadHoldCount() > 0) {
+			if (!shared) {
+				throw new IllegalStateException("Cannot take an exclusive lock on %s while holding a shared lock on it".formatted(lockFile));
+			}
+
+			return action.run();
+		}
+
+		final Duration timeout = getTimeout();
+		final long deadline = System.nanoTime() + timeout.toNanos();
+		final Lock lock = shared ? threadLock.readLock() : threadLock.writeLock();
+
+		try {
+			if (!lock.tryLock(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+				throw new IOException("Have been waiting on lock file '%s' held by another thread of this process for %s. Giving up as timeout is %s."
+						.formatted(lockFile, timeout, timeout));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for " + lockFile, e);
+		}
+
+		try {
+			lockEntry.acquireFileLock(shared, deadline, timeout);
+
+			try {
+				return action.run();
+			} finally {
+				lockEntry.releaseFileLock();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private static Duration getTimeout() {
+		if (System.getenv("CI") != null) {
+			// Set a small timeout on CI, as it's unlikely going to unlock.
+			return Duration.ofMinutes(1);
+		}
+
+		return Duration.ofHours(1);
+	}
+
+	private static String describeHolder(Path lockFile) {
+		final long pid;
+
+		try {
+			pid = Long.parseLong(Files.readString(lockFile, StandardCharsets.UTF_8).trim());
+		} catch (IOException | NumberFormatException e) {
+			return "an unknown process";
+		}
+
+		final Optional<ProcessHandle> handle = ProcessHandle.of(pid);
+
+		if (handle.isEmpty()) {
+			return "pid '%d', which is no longer running".formatted(pid);
+		}
+
+		return "pid '%d'\n%s".formatted(pid, ProcessUtil.create(ProcessUtil.ArgumentVisibility.HIDE).printWithParents(handle.get()));
+	}
+
+	private static final class Entry {
+		private final Path lockFile;
+		private final ReentrantReadWriteLock threadLock = new ReentrantReadWriteLock();
+		// Guarded by this, the file lock is shared by all the threads holding the read lock
+		private FileChannel channel;
+		private FileLock fileLock;
+		private int holders;
+
+		private Entry(Path lockFile) {
+			this.lockFile = lockFile;
+		}
+
+		synchronized void acquireFileLock(boolean shared, long deadline, Duration timeout) throws IOException {
+			if (holders > 0) {
+				// Only readers can get here at the same time, and they already share the file lock
+				holders++;
+				return;
+			}
+
+			Files.createDirectories(lockFile.getParent());
+			final FileChannel newChannel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+			try {
+				fileLock = waitForFileLock(newChannel, shared, deadline, timeout);
+
+				// Record the holder, so that a process waiting on this lock can report it
+				final byte[] pid = String.valueOf(ProcessHandle.current().pid()).getBytes(StandardCharsets.UTF_8);
+				newChannel.truncate(0);
+				newChannel.write(ByteBuffer.wrap(pid), 0);
+			} catch (IOException | RuntimeException e) {
+				if (fileLock != null) {
+					fileLock.release();
+					fileLock = null;
+				}
+
+				newChannel.close();
+				throw e;
+			}
+
+			channel = newChannel;
+			holders = 1;
+		}
+
+		synchronized void releaseFileLock() throws IOException {
+			if (--holders > 0) {
+				return;
+			}
+
+			try {
+				fileLock.release();
+			} finally {
+				fileLock = null;
+				channel.close();
+				channel = null;
+			}
+		}
+
+		private FileLock waitForFileLock(FileChannel channel, boolean shared, long deadline, Duration timeout) throws IOException {
+			long waitedMs = 0;
+
+			while (true) {
+				FileLock lock;
+
+				try {
+					lock = channel.tryLock(LOCK_POSITION, 1, shared);
+				} catch (OverlappingFileLockException e) {
+					// Held by a copy of loom loaded by another classloader of this JVM
+					lock = null;
+				}
+
+				if (lock != null) {
+					return lock;
+				}
+
+				if (waitedMs == 0) {
+					LOGGER.warn("Waiting for {} to be released, it is held by {}", lockFile, describeHolder(lockFile));
+				} else if (waitedMs % (1000 * 60) == 0) {
+					LOGGER.warn("""
+							Have been waiting on "{}" for {} minute(s).
+							If this persists for an unreasonable length of time, kill the process holding it, run './gradlew --stop' and then try again.""",
+							lockFile, waitedMs / 1000 / 60);
+				}
+
+				if (System.nanoTime() - deadline >= 0) {
+					throw new IOException("Have been waiting on lock file '%s' for %s ms. Giving up as timeout is %s. The lock is held by %s"
+							.formatted(lockFile, waitedMs, timeout, describeHolder(lockFile)));
+				}
+
+				try {
+					Thread.sleep(POLL_INTERVAL_MS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while waiting for " + lockFile, e);
+				}
+
+				waitedMs += POLL_INTERVAL_MS;
+			}
+		}
+	}
+
+	@FunctionalInterface
+	public interface Action<T, E extends Exception> {
+		T run() throws E;
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A file recording a value, such as a hash, for each file along with the size and modification time the file had when
+ * the value was computed. Each user of a ledger has its own magic, so that ledgers can not be mistaken for each other.
+ */
+public final class FileStampLedger {
+	private static final Logger LOGGER = LoggerFactory.getLogger(FileStampLedger.class);
+	private static final int VERSION = 1;
+
+	private FileStampLedger() {
+	}
+
+	/**
+	 * Reads a ledger, a ledger that does not exist or can not be read is returned empty.
+	 *
+	 * @param name The name of the ledger used in log messages
+	 * @return a mutable, thread safe map of the entries in the ledger
+	 */
+	public static Map<String, Entry> read(Path ledgerFile, int magic, String name) {
+		final Map<String, Entry> ledger = new ConcurrentHashMap<>();
+
+		if (Files.notExists(ledgerFile)) {
+			return ledger;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(ledgerFile)))) {
+			if (in.readInt() != magic || in.readInt() != VERSION) {
+				LOGGER.info("Ignoring {} with unknown format: {}", name, ledgerFile);
+				return ledger;
+			}
+
+			final int count = in.readInt();
+
+			for (int i = 0; i < count; i++) {
+				ledger.put(in.readUTF(), new Entry(in.readLong(), in.readLong(), in.readUTF()));
+			}
+		} catch (IOException e) {
+			LOGGER.warn("Failed to read {}, all files will be checked again", name, e);
+			ledger.clear();
+		}
+
+		return ledger;
+	}
+
+	/**
+	 * Atomically replaces the ledger with the given entries.
+	 */
+	public static void write(Path ledgerFile, int magic, Map<String, Entry> ledger) throws IOException {
+		Files.createDirectories(ledgerFile.getParent());
+		final Path tempFile = ledgerFile.resolveSibling(ledgerFile.getFileName() + ".tmp");
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+			out.writeInt(magic);
+			out.writeInt(VERSION);
+			out.writeInt(ledger.size());
+
+			for (Map.Entry<String, Entry> entry : ledger.entrySet()) {
+				out.writeUTF(entry.getKey());
+				out.writeLong(entry.getValue().size());
+				out.writeLong(entry.getValue().lastModified());
+				out.writeUTF(entry.getValue().value());
+			}
+		} catch (IOException e) {
+			Files.deleteIfExists(tempFile);
+			throw e;
+		}
+
+		Files.move(tempFile, ledgerFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * @param size The size of the file when the value was recorded
+	 * @param lastModified The modification time of the file when the value was recorded
+	 * @param value The recorded value
+	 */
+	public record Entry(long size, long lastModified, String value) {
+		public static Entry of(BasicFileAttributes attributes, String value) {
+			return new Entry(attributes.size(), attributes.lastModifiedTime().toMillis(), value);
+		}
+
+		/**
+		 * @return whether the file still has the size and modification time it had when the value was recorded
+		 */
+		public boolean matches(BasicFileAttributes attributes) {
+			return size == attributes.size() && lastModified == attributes.lastModifiedTime().toMillis();
+		}
+	}
+}
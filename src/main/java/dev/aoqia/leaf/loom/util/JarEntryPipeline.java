@@ -0,0 +1,344 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.gradle.api.tasks.bundling.ZipEntryCompression;
+import org.jspecify.annotations.Nullable;
+
+import dev.aoqia.leaf.loom.LoomGradlePlugin;
+
+/**
+ * Stages the entries of a jar in memory so that any number of per-entry transformations can be
+ * applied before the jar is written to disk exactly once.
+ *
+ * <p>Entries are kept in insertion order. Entries read from a zip and files added with {@link #putFile(String, Path)}
+ * are only loaded into memory when they are transformed, otherwise they are streamed from their source when the jar
+ * is written. {@link #put(String, byte[])} is safe to call from multiple threads.
+ */
+public final class JarEntryPipeline {
+	private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+	/**
+	 * Indexes every non-directory entry of the given zip in a single pass, the contents are read when needed.
+	 */
+	public static JarEntryPipeline read(Path zip) throws IOException {
+		var pipeline = new JarEntryPipeline();
+		pipeline.readEntries(zip, false);
+		return pipeline;
+	}
+
+	/**
+	 * Reads every entry of the given zip that is not a class file, class files are expected to be
+	 * provided by the remapper.
+	 */
+	public void readNonClassFiles(Path zip) throws IOException {
+		readEntries(zip, true);
+	}
+
+	private void readEntries(Path zip, boolean skipClasses) throws IOException {
+		try (var zipFile = new ZipFile(zip.toFile())) {
+			Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+
+			while (zipEntries.hasMoreElements()) {
+				ZipEntry zipEntry = zipEntries.nextElement();
+
+				if (zipEntry.isDirectory() || (skipClasses && zipEntry.getName().endsWith(".class"))) {
+					continue;
+				}
+
+				putEntry(zipEntry.getName(), new Entry(null, zip, zipEntry.getName(), zipEntry.getTime()));
+			}
+		}
+	}
+
+	public synchronized void put(String path, byte[] bytes) {
+		final Entry existing = entries.get(path);
+		putEntry(path, new Entry(bytes, null, null, existing != null ? existing.time() : -1));
+	}
+
+	/**
+	 * Adds an entry whose contents are streamed from the given file when the jar is written.
+	 *
+	 * @throws IllegalArgumentException if an entry already exists at the given path
+	 */
+	public synchronized void putFile(String path, Path file) {
+		if (entries.containsKey(path)) {
+			throw new IllegalArgumentException("Jar already contains entry (%s)".formatted(path));
+		}
+
+		putEntry(path, new Entry(null, file, null, -1));
+	}
+
+	private synchronized void putEntry(String path, Entry entry) {
+		entries.put(path, entry);
+	}
+
+	public synchronized boolean contains(String path) {
+		return entries.containsKey(path);
+	}
+
+	public synchronized byte @Nullable [] get(String path) throws IOException {
+		final Entry entry = entries.get(path);
+		return entry != null ? entry.bytes() : null;
+	}
+
+	/**
+	 * Transforms a single entry in place, preserving its position and time stamp.
+	 *
+	 * @return true when the entry existed and was transformed
+	 */
+	public synchronized boolean transform(String path, ZipUtils.UnsafeUnaryOperator<byte[]> transformer) throws IOException {
+		final Entry entry = entries.get(path);
+
+		if (entry == null) {
+			return false;
+		}
+
+		entries.put(path, new Entry(transformer.apply(entry.bytes()), null, null, entry.time()));
+		return true;
+	}
+
+	/**
+	 * Transforms each entry present in the map, entries that are not present in the jar are ignored.
+	 *
+	 * @return the number of transformed entries
+	 */
+	public int transform(Map<String, ZipUtils.UnsafeUnaryOperator<byte[]>> transforms) throws IOException {
+		int count = 0;
+
+		for (Map.Entry<String, ZipUtils.UnsafeUnaryOperator<byte[]>> entry : transforms.entrySet()) {
+			if (transform(entry.getKey(), entry.getValue())) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	public <T> boolean transformJson(Class<T> typeOfT, String path, ZipUtils.UnsafeUnaryOperator<T> transformer) throws IOException {
+		return transform(path, bytes -> {
+			T json = LoomGradlePlugin.GSON.fromJson(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8), typeOfT);
+			return LoomGradlePlugin.GSON.toJson(transformer.apply(json), typeOfT).getBytes(StandardCharsets.UTF_8);
+		});
+	}
+
+	/**
+	 * Writes the staged entries to the given file, replacing it atomically where the file system supports it.
+	 * Parent directory entries are created for every entry, matching the output of a zip file system.
+	 */
+	public synchronized void write(Path file, boolean reproducibleFileOrder, boolean preserveFileTimestamps, ZipEntryCompression compression) throws IOException {
+		final Map<String, Entry> output = new LinkedHashMap<>();
+
+		for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+			String name = entry.getKey();
+			int index = name.indexOf('/');
+
+			while (index != -1) {
+				output.putIfAbsent(name.substring(0, index + 1), Entry.DIRECTORY);
+				index = name.indexOf('/', index + 1);
+			}
+
+			output.put(name, entry.getValue());
+		}
+
+		final List<String> names = new ArrayList<>(output.keySet());
+
+		if (reproducibleFileOrder) {
+			names.sort(Comparator.comparing(s -> s, ZipReprocessorUtil::specialOrdering));
+		}
+
+		final Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+		// The source zips of the entries that were not transformed, opened once for the whole write
+		final Map<Path, ZipFile> sources = new HashMap<>();
+
+		try {
+			try (OutputStream fileOutputStream = Files.newOutputStream(tempFile);
+					var zipOutputStream = new ZipOutputStream(fileOutputStream)) {
+				for (String name : names) {
+					writeEntry(zipOutputStream, name, output.get(name), sources, preserveFileTimestamps, compression);
+				}
+			} finally {
+				for (ZipFile zipFile : sources.values()) {
+					zipFile.close();
+				}
+			}
+
+			try {
+				Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(tempFile);
+			throw e;
+		}
+	}
+
+	private static void writeEntry(ZipOutputStream zipOutputStream, String name, Entry entry, Map<Path, ZipFile> sources, boolean preserveFileTimestamps, ZipEntryCompression compression) throws IOException {
+		final var zipEntry = new ZipEntry(name);
+
+		if (preserveFileTimestamps && entry.time() != -1) {
+			zipEntry.setTime(entry.time());
+		} else {
+			ZipReprocessorUtil.setConstantFileTime(zipEntry);
+		}
+
+		if (entry == Entry.DIRECTORY) {
+			zipEntry.setMethod(ZipEntry.STORED);
+			zipEntry.setSize(0);
+			zipEntry.setCompressedSize(0);
+			zipEntry.setCrc(0);
+			zipOutputStream.putNextEntry(zipEntry);
+			zipOutputStream.closeEntry();
+			return;
+		}
+
+		if (compression == ZipEntryCompression.STORED) {
+			final ZipEntry sourceEntry = entry.zipEntryName() != null ? getSource(entry, sources).getEntry(entry.zipEntryName()) : null;
+
+			if (sourceEntry != null && sourceEntry.getSize() != -1 && sourceEntry.getCrc() != -1) {
+				// The size and crc are known from the source zip, so the data does not need to be read up front
+				zipEntry.setMethod(ZipEntry.STORED);
+				zipEntry.setCrc(sourceEntry.getCrc());
+				zipEntry.setSize(sourceEntry.getSize());
+				zipEntry.setCompressedSize(sourceEntry.getSize());
+				zipOutputStream.putNextEntry(zipEntry);
+
+				try (InputStream is = getSource(entry, sources).getInputStream(sourceEntry)) {
+					is.transferTo(zipOutputStream);
+				}
+			} else {
+				final byte[] data = entry.data() != null ? entry.data() : readAllBytes(entry, sources);
+				final var crc = new CRC32();
+				crc.update(data);
+				zipEntry.setMethod(ZipEntry.STORED);
+				zipEntry.setCrc(crc.getValue());
+				zipEntry.setSize(data.length);
+				zipEntry.setCompressedSize(data.length);
+				zipOutputStream.putNextEntry(zipEntry);
+				zipOutputStream.write(data);
+			}
+		} else {
+			zipEntry.setMethod(ZipEntry.DEFLATED);
+			zipOutputStream.putNextEntry(zipEntry);
+
+			if (entry.data() != null) {
+				zipOutputStream.write(entry.data());
+			} else {
+				try (InputStream is = openStream(entry, sources)) {
+					is.transferTo(zipOutputStream);
+				}
+			}
+		}
+
+		zipOutputStream.closeEntry();
+	}
+
+	private static ZipFile getSource(Entry entry, Map<Path, ZipFile> sources) throws IOException {
+		ZipFile zipFile = sources.get(entry.file());
+
+		if (zipFile == null) {
+			zipFile = new ZipFile(entry.file().toFile());
+			sources.put(entry.file(), zipFile);
+		}
+
+		return zipFile;
+	}
+
+	private static InputStream openStream(Entry entry, Map<Path, ZipFile> sources) throws IOException {
+		if (entry.zipEntryName() == null) {
+			return Files.newInputStream(entry.file());
+		}
+
+		final ZipFile zipFile = getSource(entry, sources);
+		final ZipEntry zipEntry = zipFile.getEntry(entry.zipEntryName());
+
+		if (zipEntry == null) {
+			throw new IOException("Entry (%s) no longer exists in %s".formatted(entry.zipEntryName(), entry.file()));
+		}
+
+		return zipFile.getInputStream(zipEntry);
+	}
+
+	private static byte[] readAllBytes(Entry entry, Map<Path, ZipFile> sources) throws IOException {
+		try (InputStream is = openStream(entry, sources)) {
+			return is.readAllBytes();
+		}
+	}
+
+	/**
+	 * @param data The contents of the entry, or null when they are read from the file
+	 * @param file The file containing the entry, either the file itself or the zip it is read from
+	 * @param zipEntryName The name of the entry within the zip, or null when the file is the entry itself
+	 * @param time The time stamp of the entry, or -1 when it has none
+	 */
+	private record Entry(byte @Nullable [] data, @Nullable Path file, @Nullable String zipEntryName, long time) {
+		static final Entry DIRECTORY = new Entry(new byte[0], null, null, -1);
+
+		byte[] bytes() throws IOException {
+			if (data != null) {
+				return data;
+			}
+
+			if (zipEntryName == null) {
+				return Files.readAllBytes(file);
+			}
+
+			try (var zipFile = new ZipFile(file.toFile())) {
+				final ZipEntry zipEntry = zipFile.getEntry(zipEntryName);
+
+				if (zipEntry == null) {
+					throw new IOException("Entry (%s) no longer exists in %s".formatted(zipEntryName, file));
+				}
+
+				try (InputStream is = zipFile.getInputStream(zipEntry)) {
+					return is.readAllBytes();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,372 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.util;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A minimal zip reader that exposes the central directory and the raw (still compressed) bytes of each entry.
+ * This allows entries to be copied into another zip without being inflated and deflated again.
+ *
+ * <p>Zip64 archives are supported, encrypted entries are not.
+ */
+public final class RawZipFile implements Closeable {
+	static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+	static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+	static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+	static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+	static final int ZIP64_EXTRA_ID = 0x0001;
+	static final int LOCAL_HEADER_SIZE = 30;
+	static final int CENTRAL_HEADER_SIZE = 46;
+	static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+	static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE = 56;
+	static final int ZIP64_LOCATOR_SIZE = 20;
+	static final int ZIP64_VERSION = 45;
+	static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+	static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+	private final Path path;
+	private final FileChannel channel;
+	private final List<Entry> entries;
+
+	private static final long MAX_BUFFERED_SIZE = Integer.MAX_VALUE - 8;
+
+	private RawZipFile(Path path, FileChannel channel, List<Entry> entries) {
+		this.path = path;
+		this.channel = channel;
+		this.entries = entries;
+	}
+
+	public static RawZipFile open(Path path) throws IOException {
+		final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+
+		try {
+			return new RawZipFile(path, channel, readCentralDirectory(path, channel));
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the entries in central directory order
+	 */
+	public List<Entry> entries() {
+		return entries;
+	}
+
+	/**
+	 * Transfers the raw, compressed bytes of the entry to the target channel.
+	 */
+	public void transferRawTo(Entry entry, WritableByteChannel target) throws IOException {
+		final long dataOffset = getDataOffset(entry);
+		long transferred = 0;
+
+		while (transferred < entry.compressedSize()) {
+			long count = channel.transferTo(dataOffset + transferred, entry.compressedSize() - transferred, target);
+
+			if (count <= 0) {
+				throw new EOFException("Unexpected end of zip entry %s in %s".formatted(entry.name(), path));
+			}
+
+			transferred += count;
+		}
+	}
+
+	public byte[] readAllBytes(Entry entry) throws IOException {
+		try (InputStream is = getInputStream(entry)) {
+			return is.readAllBytes();
+		}
+	}
+
+	/**
+	 * @return a stream of the uncompressed entry data
+	 */
+	public InputStream getInputStream(Entry entry) throws IOException {
+		final InputStream rawStream;
+
+		if (entry.compressedSize() <= MAX_BUFFERED_SIZE) {
+			final ByteBuffer raw = ByteBuffer.allocate((int) entry.compressedSize());
+			readFully(channel, raw, getDataOffset(entry));
+			rawStream = new ByteArrayInputStream(raw.array());
+		} else {
+			// Too large to hold in a single array, only possible in a Zip64 archive
+			rawStream = new BufferedInputStream(new ChannelRegionInputStream(channel, getDataOffset(entry), entry.compressedSize()));
+		}
+
+		return switch (entry.method()) {
+		case ZipEntry.STORED -> rawStream;
+		case ZipEntry.DEFLATED -> new InflaterInputStream(rawStream, new Inflater(true)) {
+			@Override
+			public void close() throws IOException {
+				super.close();
+				inf.end();
+			}
+		};
+		default -> throw new ZipException("Unsupported compression method %d for %s in %s".formatted(entry.method(), entry.name(), path));
+		};
+	}
+
+	private long getDataOffset(Entry entry) throws IOException {
+		final ByteBuffer header = ByteBuffer.allocate(LOCAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(channel, header, entry.localHeaderOffset());
+
+		if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+			throw new ZipException("Invalid local file header for %s in %s".formatted(entry.name(), path));
+		}
+
+		final int nameLength = Short.toUnsignedInt(header.getShort(26));
+		final int extraLength = Short.toUnsignedInt(header.getShort(28));
+		return entry.localHeaderOffset() + LOCAL_HEADER_SIZE + nameLength + extraLength;
+	}
+
+	private static List<Entry> readCentralDirectory(Path path, FileChannel channel) throws IOException {
+		final long size = channel.size();
+		final int tailSize = (int) Math.min(size, END_OF_CENTRAL_DIRECTORY_SIZE + 0xFFFF);
+		final ByteBuffer tail = ByteBuffer.allocate(tailSize).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(channel, tail, size - tailSize);
+
+		int eocd = -1;
+
+		for (int i = tailSize - END_OF_CENTRAL_DIRECTORY_SIZE; i >= 0; i--) {
+			if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+				eocd = i;
+				break;
+			}
+		}
+
+		if (eocd == -1) {
+			throw new ZipException("Could not find the end of central directory in " + path);
+		}
+
+		long entryCount = Short.toUnsignedInt(tail.getShort(eocd + 10));
+		long centralDirectorySize = Integer.toUnsignedLong(tail.getInt(eocd + 12));
+		long centralDirectoryOffset = Integer.toUnsignedLong(tail.getInt(eocd + 16));
+
+		final long eocdPosition = size - tailSize + eocd;
+
+		if (eocdPosition >= ZIP64_LOCATOR_SIZE) {
+			final ByteBuffer locator = ByteBuffer.allocate(ZIP64_LOCATOR_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			readFully(channel, locator, eocdPosition - ZIP64_LOCATOR_SIZE);
+
+			if (locator.getInt(0) == ZIP64_LOCATOR_SIGNATURE) {
+				final ByteBuffer zip64End = ByteBuffer.allocate(ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+				readFully(channel, zip64End, locator.getLong(8));
+
+				if (zip64End.getInt(0) != ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+					throw new ZipException("Invalid Zip64 end of central directory in " + path);
+				}
+
+				entryCount = zip64End.getLong(32);
+				centralDirectorySize = zip64End.getLong(40);
+				centralDirectoryOffset = zip64End.getLong(48);
+			}
+		}
+
+		if (centralDirectorySize > Integer.MAX_VALUE || entryCount > Integer.MAX_VALUE) {
+			throw new ZipException("Central directory is too large in " + path);
+		}
+
+		final ByteBuffer centralDirectory = ByteBuffer.allocate(Math.toIntExact(centralDirectorySize)).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(channel, centralDirectory, centralDirectoryOffset);
+
+		final List<Entry> entries = new ArrayList<>((int) entryCount);
+		int pos = 0;
+
+		for (int i = 0; i < entryCount; i++) {
+			if (centralDirectory.getInt(pos) != CENTRAL_HEADER_SIGNATURE) {
+				throw new ZipException("Invalid central directory header in " + path);
+			}
+
+			final int flags = Short.toUnsignedInt(centralDirectory.getShort(pos + 8));
+			final int method = Short.toUnsignedInt(centralDirectory.getShort(pos + 10));
+			final int dosTime = Short.toUnsignedInt(centralDirectory.getShort(pos + 12));
+			final int dosDate = Short.toUnsignedInt(centralDirectory.getShort(pos + 14));
+			final long crc = Integer.toUnsignedLong(centralDirectory.getInt(pos + 16));
+			long compressedSize = Integer.toUnsignedLong(centralDirectory.getInt(pos + 20));
+			long uncompressedSize = Integer.toUnsignedLong(centralDirectory.getInt(pos + 24));
+			final int nameLength = Short.toUnsignedInt(centralDirectory.getShort(pos + 28));
+			final int extraLength = Short.toUnsignedInt(centralDirectory.getShort(pos + 30));
+			final int commentLength = Short.toUnsignedInt(centralDirectory.getShort(pos + 32));
+			long localHeaderOffset = Integer.toUnsignedLong(centralDirectory.getInt(pos + 42));
+
+			if ((flags & 1) != 0) {
+				throw new ZipException("Encrypted zip entries are not supported: " + path);
+			}
+
+			final byte[] nameBytes = new byte[nameLength];
+			centralDirectory.get(pos + CENTRAL_HEADER_SIZE, nameBytes);
+			final byte[] extra = new byte[extraLength];
+			centralDirectory.get(pos + CENTRAL_HEADER_SIZE + nameLength, extra);
+
+			if (uncompressedSize == ZIP64_MAGIC || compressedSize == ZIP64_MAGIC || localHeaderOffset == ZIP64_MAGIC) {
+				// The Zip64 extra field only holds the values that did not fit, in this order
+				final ByteBuffer zip64Extra = findExtraField(extra, ZIP64_EXTRA_ID);
+
+				if (zip64Extra == null) {
+					throw new ZipException("Missing Zip64 extra field for %s in %s".formatted(new String(nameBytes, StandardCharsets.UTF_8), path));
+				}
+
+				if (uncompressedSize == ZIP64_MAGIC) {
+					uncompressedSize = zip64Extra.getLong();
+				}
+
+				if (compressedSize == ZIP64_MAGIC) {
+					compressedSize = zip64Extra.getLong();
+				}
+
+				if (localHeaderOffset == ZIP64_MAGIC) {
+					localHeaderOffset = zip64Extra.getLong();
+				}
+			}
+
+			entries.add(new Entry(
+					new String(nameBytes, StandardCharsets.UTF_8),
+					method,
+					dosTime,
+					dosDate,
+					crc,
+					compressedSize,
+					uncompressedSize,
+					extra,
+					localHeaderOffset
+			));
+
+			pos += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+		}
+
+		return Collections.unmodifiableList(entries);
+	}
+
+	/**
+	 * @return the data of the extra field with the given id, or null when it is not present
+	 */
+	static @Nullable ByteBuffer findExtraField(byte[] extra, int id) {
+		final ByteBuffer buffer = ByteBuffer.wrap(extra).order(ByteOrder.LITTLE_ENDIAN);
+
+		while (buffer.remaining() >= 4) {
+			final int fieldId = Short.toUnsignedInt(buffer.getShort());
+			final int fieldSize = Short.toUnsignedInt(buffer.getShort());
+
+			if (fieldSize > buffer.remaining()) {
+				break;
+			}
+
+			if (fieldId == id) {
+				return buffer.slice(buffer.position(), fieldSize).order(ByteOrder.LITTLE_ENDIAN);
+			}
+
+			buffer.position(buffer.position() + fieldSize);
+		}
+
+		return null;
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position + buffer.position());
+
+			if (read < 0) {
+				throw new EOFException();
+			}
+		}
+
+		buffer.flip();
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Reads a region of a channel with positional reads, so that entries can be read from multiple threads.
+	 */
+	private static final class ChannelRegionInputStream extends InputStream {
+		private final FileChannel channel;
+		private long position;
+		private long remaining;
+
+		ChannelRegionInputStream(FileChannel channel, long position, long length) {
+			this.channel = channel;
+			this.position = position;
+			this.remaining = length;
+		}
+
+		@Override
+		public int read() throws IOException {
+			final byte[] b = new byte[1];
+			return read(b, 0, 1) == -1 ? -1 : Byte.toUnsignedInt(b[0]);
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (remaining <= 0) {
+				return -1;
+			}
+
+			final int read = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)), position);
+
+			if (read < 0) {
+				throw new EOFException();
+			}
+
+			position += read;
+			remaining -= read;
+			return read;
+		}
+	}
+
+	/**
+	 * A central directory entry. The time and date are kept in their raw MS-DOS form so they can be copied as is.
+	 */
+	public record Entry(String name, int method, int dosTime, int dosDate, long crc, long compressedSize, long size, byte[] extra, long localHeaderOffset) {
+		public boolean isDirectory() {
+			return name.endsWith("/");
+		}
+	}
+}
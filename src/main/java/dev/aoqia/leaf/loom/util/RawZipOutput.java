@@ -0,0 +1,382 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import org.intellij.lang.annotations.MagicConstant;
+
+/**
+ * A minimal zip writer that can copy entries from a {@link RawZipFile} without recompressing them.
+ * Only entries that are new or modified are compressed.
+ *
+ * <p>Zip64 records are written when an entry, the archive or the number of entries exceeds the classic zip limits.
+ */
+public final class RawZipOutput implements Closeable {
+	// 1980-01-01 00:00:00, see ZipReprocessorUtil#setConstantFileTime
+	public static final int CONSTANT_DOS_TIME = 0;
+	public static final int CONSTANT_DOS_DATE = (1 << 5) | 1;
+
+	private static final int VERSION = 20;
+	private static final int UTF8_FLAG = 1 << 11;
+	private static final byte[] NO_EXTRA = new byte[0];
+	// The offset of the CRC within a local header, it is followed by the compressed and uncompressed sizes
+	private static final int LOCAL_HEADER_CRC_OFFSET = 14;
+	private static final int BUFFER_SIZE = 8192;
+
+	private final FileChannel channel;
+	private final List<CentralEntry> centralEntries = new ArrayList<>();
+	private final Set<String> names = new HashSet<>();
+
+	public RawZipOutput(Path path) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+	}
+
+	public boolean contains(String name) {
+		return names.contains(name);
+	}
+
+	/**
+	 * Copies the compressed bytes, CRC and sizes of an entry straight from the source zip.
+	 *
+	 * @param preserveFileTimestamps when false the entry is written with a constant time stamp, and its extra fields are dropped
+	 */
+	public void copyRaw(RawZipFile source, RawZipFile.Entry entry, boolean preserveFileTimestamps) throws IOException {
+		final CentralEntry centralEntry = new CentralEntry(
+				entry.name(),
+				entry.method(),
+				preserveFileTimestamps ? entry.dosTime() : CONSTANT_DOS_TIME,
+				preserveFileTimestamps ? entry.dosDate() : CONSTANT_DOS_DATE,
+				entry.crc(),
+				entry.compressedSize(),
+				entry.size(),
+				preserveFileTimestamps ? stripZip64Extra(entry.extra()) : NO_EXTRA,
+				channel.position()
+		);
+
+		writeLocalHeader(centralEntry);
+		source.transferRawTo(entry, channel);
+	}
+
+	/**
+	 * Writes a new entry with a constant time stamp, compressing it with the given method.
+	 */
+	public void write(String name, byte[] data, @MagicConstant(intValues = {ZipEntry.STORED, ZipEntry.DEFLATED}) int method) throws IOException {
+		write(name, data, method, CONSTANT_DOS_TIME, CONSTANT_DOS_DATE);
+	}
+
+	public void write(String name, byte[] data, @MagicConstant(intValues = {ZipEntry.STORED, ZipEntry.DEFLATED}) int method, int dosTime, int dosDate) throws IOException {
+		final var crc = new CRC32();
+		crc.update(data);
+
+		final byte[] compressed = switch (method) {
+		case ZipEntry.STORED -> data;
+		case ZipEntry.DEFLATED -> deflate(data);
+		default -> throw new ZipException("Unsupported compression method: " + method);
+		};
+
+		final CentralEntry centralEntry = new CentralEntry(name, method, dosTime, dosDate, crc.getValue(), compressed.length, data.length, NO_EXTRA, channel.position());
+		writeLocalHeader(centralEntry);
+		writeFully(ByteBuffer.wrap(compressed));
+	}
+
+	/**
+	 * Writes a new entry with a constant time stamp, streaming the data, see {@link #write(String, InputStream, int, int, int)}.
+	 */
+	public void write(String name, InputStream data, @MagicConstant(intValues = {ZipEntry.STORED, ZipEntry.DEFLATED}) int method) throws IOException {
+		write(name, data, method, CONSTANT_DOS_TIME, CONSTANT_DOS_DATE);
+	}
+
+	/**
+	 * Writes a new entry without reading the data into memory. The data is compressed and its CRC computed while it
+	 * is written, the local header is written up front and updated with the CRC and sizes afterwards.
+	 */
+	public void write(String name, InputStream data, @MagicConstant(intValues = {ZipEntry.STORED, ZipEntry.DEFLATED}) int method, int dosTime, int dosDate) throws IOException {
+		if (method != ZipEntry.STORED && method != ZipEntry.DEFLATED) {
+			throw new ZipException("Unsupported compression method: " + method);
+		}
+
+		final long localHeaderOffset = channel.position();
+		writeLocalHeader(new CentralEntry(name, method, dosTime, dosDate, 0, 0, 0, NO_EXTRA, localHeaderOffset));
+
+		final long dataOffset = channel.position();
+		final var crc = new CRC32();
+		long size = 0;
+
+		// Not closed, that would close the channel
+		final OutputStream channelStream = Channels.newOutputStream(channel);
+		final Deflater deflater = method == ZipEntry.DEFLATED ? new Deflater(Deflater.DEFAULT_COMPRESSION, true) : null;
+
+		try {
+			final DeflaterOutputStream deflaterStream = deflater != null ? new DeflaterOutputStream(channelStream, deflater, BUFFER_SIZE) : null;
+			final OutputStream out = deflaterStream != null ? deflaterStream : channelStream;
+			final byte[] buffer = new byte[BUFFER_SIZE];
+			int read;
+
+			while ((read = data.read(buffer)) != -1) {
+				crc.update(buffer, 0, read);
+				out.write(buffer, 0, read);
+				size += read;
+			}
+
+			if (deflaterStream != null) {
+				deflaterStream.finish();
+			}
+		} finally {
+			if (deflater != null) {
+				deflater.end();
+			}
+		}
+
+		final long compressedSize = channel.position() - dataOffset;
+
+		// The local header was written without the Zip64 extra field
+		if (size >= RawZipFile.ZIP64_MAGIC || compressedSize >= RawZipFile.ZIP64_MAGIC) {
+			throw new ZipException("Zip entry (%s) is too large to be streamed".formatted(name));
+		}
+
+		final ByteBuffer sizes = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+		sizes.putInt((int) crc.getValue());
+		sizes.putInt((int) compressedSize);
+		sizes.putInt((int) size);
+		sizes.flip();
+
+		long position = localHeaderOffset + LOCAL_HEADER_CRC_OFFSET;
+
+		while (sizes.hasRemaining()) {
+			position += channel.write(sizes, position);
+		}
+
+		centralEntries.set(centralEntries.size() - 1, new CentralEntry(name, method, dosTime, dosDate, crc.getValue(), compressedSize, size, NO_EXTRA, localHeaderOffset));
+	}
+
+	private static byte[] deflate(byte[] data) throws IOException {
+		final var deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+
+		try {
+			final var out = new ByteArrayOutputStream(Math.max(32, data.length / 2));
+
+			try (var deflaterStream = new DeflaterOutputStream(out, deflater)) {
+				deflaterStream.write(data);
+			}
+
+			return out.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private void writeLocalHeader(CentralEntry entry) throws IOException {
+		if (!names.add(entry.name())) {
+			throw new ZipException("Duplicate zip entry: " + entry.name());
+		}
+
+		// Both sizes move to the Zip64 extra field when either of them does not fit
+		final boolean zip64 = entry.compressedSize() >= RawZipFile.ZIP64_MAGIC || entry.size() >= RawZipFile.ZIP64_MAGIC;
+		final byte[] extra = zip64 ? withZip64Extra(entry.extra(), entry.size(), entry.compressedSize()) : entry.extra();
+
+		final byte[] name = entry.name().getBytes(StandardCharsets.UTF_8);
+		final ByteBuffer header = ByteBuffer.allocate(RawZipFile.LOCAL_HEADER_SIZE + name.length + extra.length).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(RawZipFile.LOCAL_HEADER_SIGNATURE);
+		header.putShort((short) (zip64 ? RawZipFile.ZIP64_VERSION : VERSION));
+		header.putShort((short) UTF8_FLAG);
+		header.putShort((short) entry.method());
+		header.putShort((short) entry.dosTime());
+		header.putShort((short) entry.dosDate());
+		header.putInt((int) entry.crc());
+		header.putInt((int) (zip64 ? RawZipFile.ZIP64_MAGIC : entry.compressedSize()));
+		header.putInt((int) (zip64 ? RawZipFile.ZIP64_MAGIC : entry.size()));
+		header.putShort((short) name.length);
+		header.putShort((short) extra.length);
+		header.put(name);
+		header.put(extra);
+		header.flip();
+		writeFully(header);
+
+		centralEntries.add(entry);
+	}
+
+	/**
+	 * @return the extra fields with a Zip64 extra field holding the given values appended
+	 */
+	private static byte[] withZip64Extra(byte[] extra, long... values) {
+		final ByteBuffer buffer = ByteBuffer.allocate(extra.length + 4 + values.length * 8).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.put(extra);
+		buffer.putShort((short) RawZipFile.ZIP64_EXTRA_ID);
+		buffer.putShort((short) (values.length * 8));
+
+		for (long value : values) {
+			buffer.putLong(value);
+		}
+
+		return buffer.array();
+	}
+
+	/**
+	 * Removes the Zip64 extra field of a copied entry, a new one is written when the entry still needs it.
+	 */
+	private static byte[] stripZip64Extra(byte[] extra) {
+		if (RawZipFile.findExtraField(extra, RawZipFile.ZIP64_EXTRA_ID) == null) {
+			return extra;
+		}
+
+		final ByteBuffer input = ByteBuffer.wrap(extra).order(ByteOrder.LITTLE_ENDIAN);
+		final ByteBuffer output = ByteBuffer.allocate(extra.length).order(ByteOrder.LITTLE_ENDIAN);
+
+		while (input.remaining() >= 4) {
+			final int id = Short.toUnsignedInt(input.getShort());
+			final int size = Math.min(Short.toUnsignedInt(input.getShort()), input.remaining());
+
+			if (id != RawZipFile.ZIP64_EXTRA_ID) {
+				output.putShort((short) id);
+				output.putShort((short) size);
+				output.put(input.slice(input.position(), size));
+			}
+
+			input.position(input.position() + size);
+		}
+
+		final byte[] stripped = new byte[output.position()];
+		output.flip().get(stripped);
+		return stripped;
+	}
+
+	private void writeFully(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		try (channel) {
+			final long centralDirectoryOffset = channel.position();
+
+			for (CentralEntry entry : centralEntries) {
+				final List<Long> zip64Values = new ArrayList<>(3);
+
+				if (entry.size() >= RawZipFile.ZIP64_MAGIC) {
+					zip64Values.add(entry.size());
+				}
+
+				if (entry.compressedSize() >= RawZipFile.ZIP64_MAGIC) {
+					zip64Values.add(entry.compressedSize());
+				}
+
+				if (entry.localHeaderOffset() >= RawZipFile.ZIP64_MAGIC) {
+					zip64Values.add(entry.localHeaderOffset());
+				}
+
+				final boolean zip64 = !zip64Values.isEmpty();
+				final byte[] extra = zip64 ? withZip64Extra(entry.extra(), zip64Values.stream().mapToLong(Long::longValue).toArray()) : entry.extra();
+				final byte[] name = entry.name().getBytes(StandardCharsets.UTF_8);
+				final ByteBuffer header = ByteBuffer.allocate(RawZipFile.CENTRAL_HEADER_SIZE + name.length + extra.length).order(ByteOrder.LITTLE_ENDIAN);
+				header.putInt(RawZipFile.CENTRAL_HEADER_SIGNATURE);
+				header.putShort((short) (zip64 ? RawZipFile.ZIP64_VERSION : VERSION)); // Version made by
+				header.putShort((short) (zip64 ? RawZipFile.ZIP64_VERSION : VERSION)); // Version needed to extract
+				header.putShort((short) UTF8_FLAG);
+				header.putShort((short) entry.method());
+				header.putShort((short) entry.dosTime());
+				header.putShort((short) entry.dosDate());
+				header.putInt((int) entry.crc());
+				header.putInt((int) Math.min(entry.compressedSize(), RawZipFile.ZIP64_MAGIC));
+				header.putInt((int) Math.min(entry.size(), RawZipFile.ZIP64_MAGIC));
+				header.putShort((short) name.length);
+				header.putShort((short) extra.length);
+				header.putShort((short) 0); // Comment length
+				header.putShort((short) 0); // Disk number
+				header.putShort((short) 0); // Internal attributes
+				header.putInt(0); // External attributes
+				header.putInt((int) Math.min(entry.localHeaderOffset(), RawZipFile.ZIP64_MAGIC));
+				header.put(name);
+				header.put(extra);
+				header.flip();
+				writeFully(header);
+			}
+
+			final long centralDirectorySize = channel.position() - centralDirectoryOffset;
+			final boolean zip64 = centralEntries.size() >= RawZipFile.ZIP64_MAGIC_COUNT
+					|| centralDirectorySize >= RawZipFile.ZIP64_MAGIC
+					|| centralDirectoryOffset >= RawZipFile.ZIP64_MAGIC;
+
+			if (zip64) {
+				final long zip64EndOffset = channel.position();
+				final ByteBuffer zip64End = ByteBuffer.allocate(RawZipFile.ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE + RawZipFile.ZIP64_LOCATOR_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+				zip64End.putInt(RawZipFile.ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+				zip64End.putLong(RawZipFile.ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE - 12); // Size of the remaining record
+				zip64End.putShort((short) RawZipFile.ZIP64_VERSION); // Version made by
+				zip64End.putShort((short) RawZipFile.ZIP64_VERSION); // Version needed to extract
+				zip64End.putInt(0); // Disk number
+				zip64End.putInt(0); // Disk with the central directory
+				zip64End.putLong(centralEntries.size());
+				zip64End.putLong(centralEntries.size());
+				zip64End.putLong(centralDirectorySize);
+				zip64End.putLong(centralDirectoryOffset);
+
+				zip64End.putInt(RawZipFile.ZIP64_LOCATOR_SIGNATURE);
+				zip64End.putInt(0); // Disk with the Zip64 end of central directory
+				zip64End.putLong(zip64EndOffset);
+				zip64End.putInt(1); // Total number of disks
+				zip64End.flip();
+				writeFully(zip64End);
+			}
+
+			final ByteBuffer end = ByteBuffer.allocate(RawZipFile.END_OF_CENTRAL_DIRECTORY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			end.putInt(RawZipFile.END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+			end.putShort((short) 0); // Disk number
+			end.putShort((short) 0); // Disk with the central directory
+			end.putShort((short) Math.min(centralEntries.size(), RawZipFile.ZIP64_MAGIC_COUNT));
+			end.putShort((short) Math.min(centralEntries.size(), RawZipFile.ZIP64_MAGIC_COUNT));
+			end.putInt((int) Math.min(centralDirectorySize, RawZipFile.ZIP64_MAGIC));
+			end.putInt((int) Math.min(centralDirectoryOffset, RawZipFile.ZIP64_MAGIC));
+			end.putShort((short) 0); // Comment length
+			end.flip();
+			writeFully(end);
+		}
+	}
+
+	private record CentralEntry(String name, int method, int dosTime, int dosDate, long crc, long compressedSize, long size, byte[] extra, long localHeaderOffset) {
+	}
+}
@@ -0,0 +1,226 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.util;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches a stripped copy of each remap classpath jar, keyed by the hash of its contents.
+ *
+ * <p>Tiny remapper only needs the class hierarchy and member declarations of classpath classes, so the cached copy
+ * keeps every class without its method code and debug info. This makes the jars much quicker to read,
+ * and the copies are shared between builds and projects using the same game version or libraries.
+ *
+ * <p>The modification time of a cached jar is used as its last access time, jars that have not been used for
+ * {@link #MAX_AGE} are pruned the first time the cache is used by a daemon.
+ */
+public final class RemapClasspathCache {
+	private static final Logger LOGGER = LoggerFactory.getLogger(RemapClasspathCache.class);
+	// Bump when the contents of the cached jars change
+	private static final int VERSION = 1;
+	private static final Duration MAX_AGE = Duration.ofDays(30);
+	// Only update the access time once a day, so that a build does not write to every cached jar it reads
+	private static final Duration ACCESS_TIME_RESOLUTION = Duration.ofDays(1);
+
+	// Avoids hashing unchanged jars more than once per daemon
+	private static final Map<FileKey, String> HASHES = new ConcurrentHashMap<>();
+	// Cache directories that have already been pruned by this daemon
+	private static final Set<Path> PRUNED = ConcurrentHashMap.newKeySet();
+
+	private RemapClasspathCache() {
+	}
+
+	/**
+	 * Returns the cached classpath jar for the given jar, creating it if needed.
+	 * Directories and files that are not jars are returned unchanged.
+	 */
+	public static Path get(Path cacheDir, Path jar) throws IOException {
+		final BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+
+		if (!attributes.isRegularFile() || !ZipUtils.isZip(jar)) {
+			return jar;
+		}
+
+		if (PRUNED.add(cacheDir.toAbsolutePath())) {
+			prune(cacheDir, MAX_AGE);
+		}
+
+		final String hash = getHash(jar, attributes);
+		final Path cachedJar = cacheDir.resolve("v" + VERSION).resolve(hash.substring(0, 2)).resolve(hash + ".jar");
+
+		if (markAccessed(cachedJar)) {
+			return cachedJar;
+		}
+
+		LOGGER.info("Indexing remap classpath jar: {}", jar);
+		Files.createDirectories(cachedJar.getParent());
+
+		// Write to a unique temp file, as other builds may be creating the same jar
+		final Path tempJar = Files.createTempFile(cachedJar.getParent(), hash, ".tmp");
+
+		try {
+			writeStrippedJar(jar, tempJar);
+
+			try {
+				Files.move(tempJar, cachedJar, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempJar, cachedJar, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tempJar);
+		}
+
+		return cachedJar;
+	}
+
+	/**
+	 * Deletes the cached jars, including those of previous cache versions, that have not been used for the given duration.
+	 */
+	public static void prune(Path cacheDir, Duration maxAge) throws IOException {
+		if (Files.notExists(cacheDir)) {
+			return;
+		}
+
+		final Instant threshold = Instant.now().minus(maxAge);
+		int pruned = 0;
+
+		try (Stream<Path> walk = Files.walk(cacheDir)) {
+			Iterator<Path> iterator = walk.iterator();
+
+			while (iterator.hasNext()) {
+				final Path path = iterator.next();
+
+				if (!Files.isRegularFile(path)) {
+					continue;
+				}
+
+				try {
+					if (Files.getLastModifiedTime(path).toInstant().isBefore(threshold) && Files.deleteIfExists(path)) {
+						pruned++;
+					}
+				} catch (NoSuchFileException e) {
+					// Pruned by another build
+				}
+			}
+		}
+
+		if (pruned > 0) {
+			LOGGER.info("Pruned {} unused remap classpath jars", pruned);
+		}
+	}
+
+	/**
+	 * Updates the access time of a cached jar.
+	 *
+	 * @return false when the jar does not exist
+	 */
+	private static boolean markAccessed(Path cachedJar) throws IOException {
+		final Instant now = Instant.now();
+
+		try {
+			if (Files.getLastModifiedTime(cachedJar).toInstant().isBefore(now.minus(ACCESS_TIME_RESOLUTION))) {
+				Files.setLastModifiedTime(cachedJar, FileTime.from(now));
+			}
+
+			return true;
+		} catch (NoSuchFileException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the sha256 hash of a file, only hashing it again when its size or modification time changes.
+	 */
+	public static String getHash(Path file) throws IOException {
+		return getHash(file, Files.readAttributes(file, BasicFileAttributes.class));
+	}
+
+	private static String getHash(Path file, BasicFileAttributes attributes) {
+		final var fileKey = new FileKey(file.toAbsolutePath().toString(), attributes.size(), attributes.lastModifiedTime().toMillis());
+		return HASHES.computeIfAbsent(fileKey, key -> Checksum.of(file).sha256().hex());
+	}
+
+	private static void writeStrippedJar(Path input, Path output) throws IOException {
+		try (var zipFile = new ZipFile(input.toFile());
+				var outputStream = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(output)))) {
+			final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+
+			while (entries.hasMoreElements()) {
+				final ZipEntry entry = entries.nextElement();
+
+				if (entry.isDirectory() || !entry.getName().endsWith(".class")) {
+					continue;
+				}
+
+				final byte[] bytes;
+
+				try (InputStream inputStream = zipFile.getInputStream(entry)) {
+					bytes = strip(inputStream.readAllBytes());
+				}
+
+				final var outputEntry = new ZipEntry(entry.getName());
+				ZipReprocessorUtil.setConstantFileTime(outputEntry);
+				outputStream.putNextEntry(outputEntry);
+				outputStream.write(bytes);
+				outputStream.closeEntry();
+			}
+		}
+	}
+
+	private static byte[] strip(byte[] classBytes) {
+		final var reader = new ClassReader(classBytes);
+		final var writer = new ClassWriter(0);
+		reader.accept(writer, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+		return writer.toByteArray();
+	}
+
+	private record FileKey(String path, long size, long lastModified) {
+	}
+}
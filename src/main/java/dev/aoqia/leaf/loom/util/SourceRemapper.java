@@ -29,9 +29,16 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
-import java.util.function.Consumer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+import java.util.zip.ZipEntry;
 
 import org.cadixdev.lorenz.MappingSet;
 import org.cadixdev.mercury.Mercury;
@@ -50,12 +57,16 @@ import dev.aoqia.leaf.loom.task.service.LorenzMappingService;
 import dev.aoqia.leaf.loom.util.service.ServiceFactory;
 
 public class SourceRemapper {
+	private static final long MIB = 1024 * 1024;
+	// Rough heap cost of a Mercury instance, mostly its copy of the mappings and the classpath bindings.
+	private static final long MERCURY_BASE_MEMORY = 256 * MIB;
+	// Rough heap cost of the parsed sources, relative to the compressed size of the sources jar.
+	private static final int SOURCES_MEMORY_FACTOR = 32;
+
 	private final Project project;
 	private final ServiceFactory serviceFactory;
 	private final boolean toNamed;
-	private final List<Consumer<ProgressLogger>> remapTasks = new ArrayList<>();
-
-	private Mercury mercury;
+	private final List<RemapTask> remapTasks = new ArrayList<>();
 
 	public SourceRemapper(Project project, ServiceFactory serviceFactory, boolean toNamed) {
 		this.project = project;
@@ -64,27 +75,16 @@ public class SourceRemapper {
 	}
 
 	public void scheduleRemapSources(File source, File destination, boolean reproducibleFileOrder, boolean preserveFileTimestamps, Runnable completionCallback) {
-		remapTasks.add((logger) -> {
-			try {
-				logger.progress("remapping sources - " + source.getName());
-				Files.deleteIfExists(destination.toPath());
-				remapSourcesInner(source, destination);
-
-				if (reproducibleFileOrder || !preserveFileTimestamps) {
-					ZipReprocessorUtil.reprocessZip(destination.toPath(), reproducibleFileOrder, preserveFileTimestamps);
-				}
-
-				// Set the remapped sources creation date to match the sources if we're likely succeeded in making it
-				destination.setLastModified(source.lastModified());
-				completionCallback.run();
-			} catch (Exception e) {
-				// Failed to remap, lets clean up to ensure we try again next time
-				destination.delete();
-				throw new RuntimeException("Failed to remap sources for " + source, e);
-			}
-		});
+		remapTasks.add(new RemapTask(source, destination, reproducibleFileOrder, preserveFileTimestamps, completionCallback));
 	}
 
+	/**
+	 * Remaps all the scheduled sources jars. Independent jars are remapped concurrently, each thread using its own
+	 * Mercury instance, while the estimated heap usage is kept within half of the max heap.
+	 *
+	 * <p>A thread keeps its Mercury instance for as long as the pool lives, so the number of threads is limited to the
+	 * number of instances the budget can hold. The rest of the budget is shared by the parsed sources of running jobs.
+	 */
 	public void remapAll() {
 		if (remapTasks.isEmpty()) {
 			return;
@@ -96,73 +96,57 @@ public class SourceRemapper {
 		ProgressLogger progressLogger = progressLoggerFactory.newOperation(SourceRemapper.class.getName());
 		progressLogger.start("Remapping dependency sources", "sources");
 
-		remapTasks.forEach(consumer -> consumer.accept(progressLogger));
-
-		progressLogger.completed();
-
-		// TODO: FIXME - WORKAROUND https://github.com/FabricMC/fabric-loom/issues/45
-		System.gc();
-	}
-
-	private void remapSourcesInner(File source, File destination) throws Exception {
-		project.getLogger().info(":remapping source jar");
-		Mercury mercury = getMercuryInstance();
-
-		if (source.equals(destination)) {
-			if (source.isDirectory()) {
-				throw new RuntimeException("Directories must differ!");
-			}
-
-			source = new File(destination.getAbsolutePath().substring(0, destination.getAbsolutePath().lastIndexOf('.')) + "-dev.jar");
-
-			try {
-				Files.move(destination.toPath(), source.toPath());
-			} catch (IOException e) {
-				throw new RuntimeException("Could not rename " + destination.getName() + "!", e);
-			}
-		}
-
-		Path srcPath = source.toPath();
-		boolean isSrcTmp = false;
-
-		if (!source.isDirectory()) {
-			// create tmp directory
-			isSrcTmp = true;
-			srcPath = Files.createTempDirectory("fabric-loom-src");
-			ZipUtils.unpackAll(source.toPath(), srcPath);
-		}
-
-		if (!destination.isDirectory() && destination.exists()) {
-			if (!destination.delete()) {
-				throw new RuntimeException("Could not delete " + destination.getName() + "!");
+		// Resolve the classpath and read the mappings on this thread, the workers only create Mercury instances from them.
+		final Supplier<Mercury> mercuryFactory = createMercuryFactory();
+		final ThreadLocal<Mercury> mercury = ThreadLocal.withInitial(mercuryFactory);
+		final long budget = Math.max(1, Runtime.getRuntime().maxMemory() / 2 / MIB);
+		final long mercuryCost = MERCURY_BASE_MEMORY / MIB;
+		final int threads = (int) Math.max(1, Math.min(Math.min(remapTasks.size(), Runtime.getRuntime().availableProcessors()), budget / mercuryCost));
+		final int sourcesBudget = (int) Math.max(1, Math.min(Integer.MAX_VALUE, budget - threads * mercuryCost));
+		final Semaphore memory = new Semaphore(sourcesBudget);
+		final List<Future<?>> futures = new ArrayList<>(remapTasks.size());
+
+		try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+			for (RemapTask task : remapTasks) {
+				final int cost = (int) Math.min(sourcesBudget, task.estimateSourcesMemory() / MIB);
+
+				futures.add(executor.submit(() -> {
+					memory.acquireUninterruptibly(cost);
+
+					try {
+						synchronized (progressLogger) {
+							progressLogger.progress("remapping sources - " + task.source().getName());
+						}
+
+						task.remap(mercury.get(), project.getLogger());
+					} finally {
+						memory.release(cost);
+					}
+				}));
 			}
 		}
 
-		FileSystemUtil.Delegate dstFs = destination.isDirectory() ? null : FileSystemUtil.getJarFileSystem(destination, true);
-		Path dstPath = dstFs != null ? dstFs.get().getPath("/") : destination.toPath();
-
 		try {
-			mercury.rewrite(srcPath, dstPath);
-		} catch (Exception e) {
-			project.getLogger().warn("Could not remap " + source.getName() + " fully!", e);
-		}
-
-		copyNonJavaFiles(srcPath, dstPath, project.getLogger(), source.toPath());
-
-		if (dstFs != null) {
-			dstFs.close();
-		}
+			// Run the callbacks on this thread, in the order the sources were scheduled.
+			for (int i = 0; i < remapTasks.size(); i++) {
+				futures.get(i).get();
+				remapTasks.get(i).completionCallback().run();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while remapping sources", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
 
-		if (isSrcTmp) {
-			Files.walkFileTree(srcPath, new DeletingFileVisitor());
+			throw new RuntimeException("Failed to remap sources", e.getCause());
+		} finally {
+			progressLogger.completed();
 		}
 	}
 
-	private Mercury getMercuryInstance() {
-		if (this.mercury != null) {
-			return this.mercury;
-		}
-
+	private Supplier<Mercury> createMercuryFactory() {
 		LoomGradleExtension extension = LoomGradleExtension.get(project);
 		MappingConfiguration mappingConfiguration = extension.getMappingConfiguration();
 		MappingsNamespace prodNamespace = extension.getProductionNamespaceEnum().get();
@@ -172,40 +156,112 @@ public class SourceRemapper {
 				mappingConfiguration,
 				toNamed ? prodNamespace : MappingsNamespace.NAMED,
 				toNamed ? MappingsNamespace.NAMED : prodNamespace));
-		MappingSet mappings = lorenzMappingService.getMappings();
 
-		Mercury mercury = createMercuryWithClassPath(project, toNamed);
-		// Always use the latest version
-		mercury.setSourceCompatibilityFromRelease(Integer.MAX_VALUE);
+		final List<Path> classPath = getClassPath(project, toNamed);
 
 		for (File file : extension.getUnmappedModCollection()) {
 			Path path = file.toPath();
 
 			if (Files.isRegularFile(path)) {
-				mercury.getClassPath().add(path);
+				classPath.add(path);
 			}
 		}
 
-		for (Path productionJar : extension.getZomboidJars(prodNamespace)) {
-			mercury.getClassPath().add(productionJar);
-		}
-
-		for (Path intermediaryJar : extension.getZomboidJars(MappingsNamespace.NAMED)) {
-			mercury.getClassPath().add(intermediaryJar);
-		}
+		classPath.addAll(extension.getZomboidJars(prodNamespace));
+		classPath.addAll(extension.getZomboidJars(MappingsNamespace.NAMED));
 
 		Set<File> files = project.getConfigurations()
 				.detachedConfiguration(project.getDependencies().create(LoomVersions.JETBRAINS_ANNOTATIONS.mavenNotation()))
 				.resolve();
 
 		for (File file : files) {
-			mercury.getClassPath().add(file.toPath());
+			classPath.add(file.toPath());
+		}
+
+		// Mercury completes the class mappings as it remaps, so each instance gets its own copy
+		final MappingSet mappings = lorenzMappingService.createMappings();
+
+		return () -> {
+			final MappingSet copy;
+
+			synchronized (mappings) {
+				copy = mappings.copy();
+			}
+
+			Mercury mercury = new Mercury();
+			mercury.setGracefulClasspathChecks(true);
+			// Always use the latest version
+			mercury.setSourceCompatibilityFromRelease(Integer.MAX_VALUE);
+			mercury.getClassPath().addAll(classPath);
+			mercury.getProcessors().add(MercuryRemapper.create(copy));
+			return mercury;
+		};
+	}
+
+	/**
+	 * Remaps a sources jar with Mercury.
+	 *
+	 * <p>JDT can only parse sources from disk, so the java files are extracted to a temporary directory. The output
+	 * jar is then written in a single pass: remapped sources are read from Mercury's output, and all other entries
+	 * are copied from the input jar without being recompressed.
+	 */
+	public static void remapSourcesJar(Mercury mercury, Path source, Path destination, boolean reproducibleFileOrder, boolean preserveFileTimestamps, Logger logger) throws IOException {
+		final Path tempDir = Files.createTempDirectory("leaf-loom-src");
+		final Path inputDir = tempDir.resolve("input");
+		final Path outputDir = tempDir.resolve("output");
+
+		try (RawZipFile zipFile = RawZipFile.open(source)) {
+			List<RawZipFile.Entry> entries = zipFile.entries();
+
+			for (RawZipFile.Entry entry : entries) {
+				if (!entry.isDirectory() && isJavaFile(entry.name())) {
+					final Path path = resolveEntry(inputDir, entry.name());
+					Files.createDirectories(path.getParent());
+					Files.write(path, zipFile.readAllBytes(entry));
+				}
+			}
+
+			Files.createDirectories(inputDir);
+			Files.createDirectories(outputDir);
+
+			try {
+				mercury.rewrite(inputDir, outputDir);
+			} catch (Exception e) {
+				logger.warn("Could not remap " + source + " fully!", e);
+			}
+
+			if (reproducibleFileOrder) {
+				entries = entries.stream()
+						.sorted(Comparator.comparing(RawZipFile.Entry::name, ZipReprocessorUtil::specialOrdering))
+						.toList();
+			}
+
+			try (RawZipOutput output = new RawZipOutput(destination)) {
+				for (RawZipFile.Entry entry : entries) {
+					final Path remapped = entry.isDirectory() || !isJavaFile(entry.name()) ? null : resolveEntry(outputDir, entry.name());
+
+					if (remapped == null || !Files.isRegularFile(remapped)) {
+						output.copyRaw(zipFile, entry, preserveFileTimestamps);
+					} else if (preserveFileTimestamps) {
+						output.write(entry.name(), Files.readAllBytes(remapped), ZipEntry.DEFLATED, entry.dosTime(), entry.dosDate());
+					} else {
+						output.write(entry.name(), Files.readAllBytes(remapped), ZipEntry.DEFLATED);
+					}
+				}
+			}
+		} finally {
+			Files.walkFileTree(tempDir, new DeletingFileVisitor());
 		}
+	}
 
-		mercury.getProcessors().add(MercuryRemapper.create(mappings));
+	private static Path resolveEntry(Path root, String name) throws IOException {
+		final Path path = root.resolve(name).normalize();
+
+		if (!path.startsWith(root)) {
+			throw new IOException("Zip entry (%s) is outside of the target directory".formatted(name));
+		}
 
-		this.mercury = mercury;
-		return this.mercury;
+		return path;
 	}
 
 	public static void copyNonJavaFiles(Path from, Path to, Logger logger, Path source) throws IOException {
@@ -225,7 +281,11 @@ public class SourceRemapper {
 	public static Mercury createMercuryWithClassPath(Project project, boolean toNamed) {
 		Mercury m = new Mercury();
 		m.setGracefulClasspathChecks(true);
+		m.getClassPath().addAll(getClassPath(project, toNamed));
+		return m;
+	}
 
+	private static List<Path> getClassPath(Project project, boolean toNamed) {
 		final List<Path> classPath = new ArrayList<>();
 
 		for (File file : project.getConfigurations().getByName(Constants.Configurations.ZOMBOID_COMPILE_LIBRARIES).getFiles()) {
@@ -246,18 +306,93 @@ public class SourceRemapper {
 			}
 		}
 
-		for (Path path : classPath) {
-			if (Files.exists(path)) {
-				m.getClassPath().add(path);
-			}
-		}
-
-		return m;
+		classPath.removeIf(Files::notExists);
+		return classPath;
 	}
 
 	private static boolean isJavaFile(Path path) {
-		String name = path.getFileName().toString();
+		return isJavaFile(path.getFileName().toString());
+	}
+
+	private static boolean isJavaFile(String name) {
+		final String fileName = name.substring(name.lastIndexOf('/') + 1);
 		// ".java" is not a valid java file
-		return name.endsWith(".java") && name.length() != 5;
+		return fileName.endsWith(".java") && fileName.length() != 5;
+	}
+
+	private record RemapTask(File source, File destination, boolean reproducibleFileOrder, boolean preserveFileTimestamps, Runnable completionCallback) {
+		long estimateSourcesMemory() {
+			return source.length() * SOURCES_MEMORY_FACTOR;
+		}
+
+		void remap(Mercury mercury, Logger logger) {
+			try {
+				Files.deleteIfExists(destination.toPath());
+				remapSources(mercury, logger);
+
+				// Set the remapped sources creation date to match the sources if we're likely succeeded in making it
+				destination.setLastModified(source.lastModified());
+			} catch (Exception e) {
+				// Failed to remap, lets clean up to ensure we try again next time
+				destination.delete();
+				throw new RuntimeException("Failed to remap sources for " + source, e);
+			}
+		}
+
+		private void remapSources(Mercury mercury, Logger logger) throws Exception {
+			File source = this.source;
+
+			if (source.equals(destination)) {
+				if (source.isDirectory()) {
+					throw new RuntimeException("Directories must differ!");
+				}
+
+				source = new File(destination.getAbsolutePath().substring(0, destination.getAbsolutePath().lastIndexOf('.')) + "-dev.jar");
+
+				try {
+					Files.move(destination.toPath(), source.toPath());
+				} catch (IOException e) {
+					throw new RuntimeException("Could not rename " + destination.getName() + "!", e);
+				}
+			}
+
+			if (!source.isDirectory() && !destination.isDirectory()) {
+				remapSourcesJar(mercury, source.toPath(), destination.toPath(), reproducibleFileOrder, preserveFileTimestamps, logger);
+				return;
+			}
+
+			// Directories are remapped in place, without any of the zip handling.
+			Path srcPath = source.toPath();
+			boolean isSrcTmp = false;
+
+			if (!source.isDirectory()) {
+				isSrcTmp = true;
+				srcPath = Files.createTempDirectory("leaf-loom-src");
+				ZipUtils.unpackAll(source.toPath(), srcPath);
+			}
+
+			FileSystemUtil.Delegate dstFs = destination.isDirectory() ? null : FileSystemUtil.getJarFileSystem(destination, true);
+			Path dstPath = dstFs != null ? dstFs.get().getPath("/") : destination.toPath();
+
+			try {
+				mercury.rewrite(srcPath, dstPath);
+			} catch (Exception e) {
+				logger.warn("Could not remap " + source.getName() + " fully!", e);
+			}
+
+			copyNonJavaFiles(srcPath, dstPath, logger, source.toPath());
+
+			if (dstFs != null) {
+				dstFs.close();
+			}
+
+			if (isSrcTmp) {
+				Files.walkFileTree(srcPath, new DeletingFileVisitor());
+			}
+
+			if (dstFs != null && (reproducibleFileOrder || !preserveFileTimestamps)) {
+				ZipReprocessorUtil.reprocessZip(destination.toPath(), reproducibleFileOrder, preserveFileTimestamps);
+			}
+		}
 	}
 }
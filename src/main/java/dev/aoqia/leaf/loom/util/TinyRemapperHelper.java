@@ -34,9 +34,10 @@ import org.gradle.api.Project;
 
 import dev.aoqia.leaf.loom.LoomGradleExtension;
 import dev.aoqia.leaf.loom.api.mappings.layered.MappingsNamespace;
+import dev.aoqia.leaf.loom.configuration.providers.mappings.tiny.BinaryMappingTree;
 import dev.aoqia.leaf.loom.util.service.ServiceFactory;
 import net.fabricmc.mappingio.MappingReader;
-import net.fabricmc.mappingio.tree.MappingTree;
+import net.fabricmc.mappingio.tree.MappingTreeView;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 import net.fabricmc.tinyremapper.IMappingProvider;
 import net.fabricmc.tinyremapper.TinyRemapper;
@@ -95,17 +96,24 @@ public final class TinyRemapperHelper {
 	}
 
 	public static IMappingProvider create(Path mappings, String from, String to, boolean remapLocalVariables) throws IOException {
+		// Prefer the binary mappings written alongside the project mappings, as they do not need to be parsed
+		BinaryMappingTree binaryMappingTree = BinaryMappingTree.openIfPresent(mappings);
+
+		if (binaryMappingTree != null) {
+			return create(binaryMappingTree, from, to, remapLocalVariables);
+		}
+
 		MemoryMappingTree mappingTree = new MemoryMappingTree();
 		MappingReader.read(mappings, mappingTree);
 		return create(mappingTree, from, to, remapLocalVariables);
 	}
 
-	public static IMappingProvider create(MappingTree mappings, String from, String to, boolean remapLocalVariables) {
+	public static IMappingProvider create(MappingTreeView mappings, String from, String to, boolean remapLocalVariables) {
 		return (acceptor) -> {
 			final int fromId = mappings.getNamespaceId(from);
 			final int toId = mappings.getNamespaceId(to);
 
-			for (MappingTree.ClassMapping classDef : mappings.getClasses()) {
+			for (MappingTreeView.ClassMappingView classDef : mappings.getClasses()) {
 				String className = classDef.getName(fromId);
 
 				if (className == null) {
@@ -121,7 +129,7 @@ public final class TinyRemapperHelper {
 
 				acceptor.acceptClass(className, dstClassName);
 
-				for (MappingTree.FieldMapping field : classDef.getFields()) {
+				for (MappingTreeView.FieldMappingView field : classDef.getFields()) {
 					String fieldName = field.getName(fromId);
 
 					if (fieldName == null) {
@@ -137,7 +145,7 @@ public final class TinyRemapperHelper {
 					acceptor.acceptField(memberOf(className, fieldName, field.getDesc(fromId)), dstFieldName);
 				}
 
-				for (MappingTree.MethodMapping method : classDef.getMethods()) {
+				for (MappingTreeView.MethodMappingView method : classDef.getMethods()) {
 					String methodName = method.getName(fromId);
 
 					if (methodName == null) {
@@ -154,7 +162,7 @@ public final class TinyRemapperHelper {
 					acceptor.acceptMethod(methodIdentifier, dstMethodName);
 
 					if (remapLocalVariables) {
-						for (MappingTree.MethodArgMapping parameter : method.getArgs()) {
+						for (MappingTreeView.MethodArgMappingView parameter : method.getArgs()) {
 							String name = parameter.getName(toId);
 
 							if (name == null) {
@@ -164,7 +172,7 @@ public final class TinyRemapperHelper {
 							acceptor.acceptMethodArg(methodIdentifier, parameter.getLvIndex(), name);
 						}
 
-						for (MappingTree.MethodVarMapping localVariable : method.getVars()) {
+						for (MappingTreeView.MethodVarMappingView localVariable : method.getVars()) {
 							acceptor.acceptMethodVar(methodIdentifier, localVariable.getLvIndex(),
 									localVariable.getStartOpIdx(), localVariable.getLvtRowIndex(),
 									localVariable.getName(toId));
@@ -33,11 +33,9 @@ import java.nio.file.StandardCopyOption;
 import java.util.Calendar;
 import java.util.Comparator;
 import java.util.GregorianCalendar;
+import java.util.List;
 import java.util.Map;
-import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
-import java.util.zip.ZipOutputStream;
 
 import org.gradle.api.tasks.bundling.ZipEntryCompression;
 import org.intellij.lang.annotations.MagicConstant;
@@ -66,7 +64,7 @@ public class ZipReprocessorUtil {
 				|| parts[1].endsWith(".EC");
 	}
 
-	private static int specialOrdering(String name1, String name2) {
+	static int specialOrdering(String name1, String name2) {
 		if (name1.equals(name2)) {
 			return 0;
 		} else if (name1.equals(Constants.Manifest.PATH)) {
@@ -93,42 +91,36 @@ public class ZipReprocessorUtil {
 		reprocessZip(file, reproducibleFileOrder, preserveFileTimestamps, ZipEntryCompression.DEFLATED);
 	}
 
+	/**
+	 * Rewrites a zip with a reproducible entry order and/or constant time stamps.
+	 * Entries that are already compressed with the requested method are copied without being recompressed.
+	 */
 	public static void reprocessZip(Path file, boolean reproducibleFileOrder, boolean preserveFileTimestamps, ZipEntryCompression zipEntryCompression) throws IOException {
 		final Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+		final int method = zipEntryCompressionMethod(zipEntryCompression);
 
-		try (var zipFile = new ZipFile(file.toFile());
-				var fileOutputStream = Files.newOutputStream(tempFile)) {
-			ZipEntry[] entries;
+		try (var zipFile = RawZipFile.open(file);
+				var output = new RawZipOutput(tempFile)) {
+			List<RawZipFile.Entry> entries = zipFile.entries();
 
 			if (reproducibleFileOrder) {
-				entries = zipFile.stream()
-						.sorted(Comparator.comparing(ZipEntry::getName, ZipReprocessorUtil::specialOrdering))
-						.toArray(ZipEntry[]::new);
-			} else {
-				entries = zipFile.stream()
-						.toArray(ZipEntry[]::new);
+				entries = entries.stream()
+						.sorted(Comparator.comparing(RawZipFile.Entry::name, ZipReprocessorUtil::specialOrdering))
+						.toList();
 			}
 
-			try (var zipOutputStream = new ZipOutputStream(fileOutputStream)) {
-				zipOutputStream.setMethod(zipOutputStreamCompressionMethod(zipEntryCompression));
-
-				for (ZipEntry entry : entries) {
-					ZipEntry newEntry = entry;
-
-					if (!preserveFileTimestamps) {
-						newEntry = new ZipEntry(entry.getName());
-						setConstantFileTime(newEntry);
-					}
-
-					newEntry.setMethod(zipEntryCompressionMethod(zipEntryCompression));
-
-					if (zipEntryCompression == ZipEntryCompression.STORED) {
-						copyUncompressedZipEntry(zipOutputStream, newEntry, zipFile.getInputStream(entry));
-					} else {
-						copyZipEntry(zipOutputStream, newEntry, zipFile.getInputStream(entry));
-					}
+			for (RawZipFile.Entry entry : entries) {
+				if (entry.method() == method) {
+					output.copyRaw(zipFile, entry, preserveFileTimestamps);
+				} else if (preserveFileTimestamps) {
+					output.write(entry.name(), zipFile.readAllBytes(entry), method, entry.dosTime(), entry.dosDate());
+				} else {
+					output.write(entry.name(), zipFile.readAllBytes(entry), method);
 				}
 			}
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(tempFile);
+			throw e;
 		}
 
 		Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
@@ -136,7 +128,8 @@ public class ZipReprocessorUtil {
 
 	/**
 	 * Transforms a single entry in a zip file, preserving the existing entry order.
-	 * The transformed entry is written with a constant time stamp to ensure reproducibility.
+	 * The transformed entry is written with a constant time stamp to ensure reproducibility,
+	 * all other entries are copied without being recompressed.
 	 * This method should only be used when a reproducible output is required, use {@link ZipUtils#transform(Path, java.util.Map)} normally.
 	 *
 	 * @throws IllegalArgumentException if the zip file does not contain the specified entry
@@ -144,28 +137,26 @@ public class ZipReprocessorUtil {
 	public static void transformZipEntry(Path file, String path, ZipUtils.UnsafeUnaryOperator<byte[]> transformer) throws IOException {
 		final Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
 
-		try (var zipFile = new ZipFile(file.toFile());
-				var fileOutputStream = Files.newOutputStream(tempFile)) {
-			ZipEntry[] entries = zipFile.stream().toArray(ZipEntry[]::new);
+		try (var zipFile = RawZipFile.open(file);
+				var output = new RawZipOutput(tempFile)) {
 			boolean found = false;
 
-			try (var zipOutputStream = new ZipOutputStream(fileOutputStream)) {
-				for (ZipEntry entry : entries) {
-					if (entry.getName().equals(path)) {
-						found = true;
-						byte[] transformed = transformer.apply(zipFile.getInputStream(entry).readAllBytes());
-						var newEntry = new ZipEntry(path);
-						setConstantFileTime(newEntry);
-						copyZipEntry(zipOutputStream, newEntry, new ByteArrayInputStream(transformed));
-					} else {
-						copyZipEntry(zipOutputStream, entry, zipFile.getInputStream(entry));
-					}
+			for (RawZipFile.Entry entry : zipFile.entries()) {
+				if (entry.name().equals(path)) {
+					found = true;
+					byte[] transformed = transformer.apply(zipFile.readAllBytes(entry));
+					output.write(path, transformed, ZipEntry.DEFLATED);
+				} else {
+					output.copyRaw(zipFile, entry, true);
 				}
 			}
 
 			if (!found) {
 				throw new IllegalArgumentException("Zip file (%s) does not contain entry (%s)".formatted(file.getFileName().toString(), path));
 			}
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(tempFile);
+			throw e;
 		}
 
 		Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
@@ -182,31 +173,29 @@ public class ZipReprocessorUtil {
 
 	/**
 	 * Appends an entry to a zip file, persevering the existing entry order and time stamps.
-	 * The new entry is added with a constant time stamp to ensure reproducibility.
+	 * The new entry is added with a constant time stamp to ensure reproducibility,
+	 * the existing entries are copied without being recompressed.
 	 * This method should only be used when a reproducible output is required, use {@link ZipUtils#add(Path, String, byte[])} normally.
 	 */
 	public static void appendZipEntry(Path file, String path, InputStream data) throws IOException {
 		final Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
 
-		try (var zipFile = new ZipFile(file.toFile());
-				var fileOutputStream = Files.newOutputStream(tempFile)) {
-			ZipEntry[] entries = zipFile.stream().toArray(ZipEntry[]::new);
-
-			try (var zipOutputStream = new ZipOutputStream(fileOutputStream)) {
-				// Copy existing entries
-				for (ZipEntry entry : entries) {
-					if (entry.getName().equals(path)) {
-						throw new IllegalArgumentException("Zip file (%s) already contains entry (%s)".formatted(file.getFileName().toString(), path));
-					}
-
-					copyZipEntry(zipOutputStream, entry, zipFile.getInputStream(entry));
+		try (var zipFile = RawZipFile.open(file);
+				var output = new RawZipOutput(tempFile)) {
+			// Copy existing entries
+			for (RawZipFile.Entry entry : zipFile.entries()) {
+				if (entry.name().equals(path)) {
+					throw new IllegalArgumentException("Zip file (%s) already contains entry (%s)".formatted(file.getFileName().toString(), path));
 				}
 
-				// Append the new entry
-				var entry = new ZipEntry(path);
-				setConstantFileTime(entry);
-				copyZipEntry(zipOutputStream, entry, data);
+				output.copyRaw(zipFile, entry, true);
 			}
+
+			// Append the new entry
+			output.write(path, data, ZipEntry.DEFLATED);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(tempFile);
+			throw e;
 		}
 
 		Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
@@ -214,7 +203,8 @@ public class ZipReprocessorUtil {
 
 	/**
 	 * Appends files to a zip file, preserving the existing entry order and time stamps.
-	 * The new entries are appended in map iteration order with constant time stamps to ensure reproducibility.
+	 * The new entries are appended in map iteration order with constant time stamps to ensure reproducibility,
+	 * the existing entries are copied without being recompressed.
 	 * This method should only be used when a reproducible output is required, use {@link ZipUtils#add(Path, Iterable)} normally.
 	 */
 	public static void appendZipEntries(Path file, Map<String, Path> paths) throws IOException {
@@ -224,67 +214,34 @@ public class ZipReprocessorUtil {
 
 		final Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
 
-		try (var zipFile = new ZipFile(file.toFile());
-				var fileOutputStream = Files.newOutputStream(tempFile)) {
-			ZipEntry[] entries = zipFile.stream().toArray(ZipEntry[]::new);
-
-			try (var zipOutputStream = new ZipOutputStream(fileOutputStream)) {
-				for (ZipEntry entry : entries) {
-					if (paths.containsKey(entry.getName())) {
-						throw new IllegalArgumentException("Zip file (%s) already contains entry (%s)".formatted(file.getFileName().toString(), entry.getName()));
-					}
-
-					copyZipEntry(zipOutputStream, entry, zipFile.getInputStream(entry));
+		try (var zipFile = RawZipFile.open(file);
+				var output = new RawZipOutput(tempFile)) {
+			for (RawZipFile.Entry entry : zipFile.entries()) {
+				if (paths.containsKey(entry.name())) {
+					throw new IllegalArgumentException("Zip file (%s) already contains entry (%s)".formatted(file.getFileName().toString(), entry.name()));
 				}
 
-				for (Map.Entry<String, Path> path : paths.entrySet()) {
-					var entry = new ZipEntry(path.getKey());
-					setConstantFileTime(entry);
+				output.copyRaw(zipFile, entry, true);
+			}
 
-					try (var inputStream = Files.newInputStream(path.getValue())) {
-						copyZipEntry(zipOutputStream, entry, inputStream);
-					}
+			for (Map.Entry<String, Path> path : paths.entrySet()) {
+				try (InputStream inputStream = Files.newInputStream(path.getValue())) {
+					output.write(path.getKey(), inputStream, ZipEntry.DEFLATED);
 				}
 			}
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(tempFile);
+			throw e;
 		}
 
 		Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
 	}
 
-	private static void copyZipEntry(ZipOutputStream zipOutputStream, ZipEntry entry, InputStream inputStream) throws IOException {
-		zipOutputStream.putNextEntry(entry);
-		inputStream.transferTo(zipOutputStream);
-		zipOutputStream.closeEntry();
-	}
-
-	private static void copyUncompressedZipEntry(ZipOutputStream zipOutputStream, ZipEntry entry, InputStream inputStream) throws IOException {
-		// We need to read the entire input stream to calculate the CRC32 checksum and the size of the entry.
-		final byte[] data = inputStream.readAllBytes();
-
-		var crc = new CRC32();
-		crc.update(data);
-		entry.setCrc(crc.getValue());
-		entry.setSize(data.length);
-		entry.setCompressedSize(data.length);
-
-		zipOutputStream.putNextEntry(entry);
-		zipOutputStream.write(data, 0, data.length);
-		zipOutputStream.closeEntry();
-	}
-
-	private static void setConstantFileTime(ZipEntry entry) {
+	static void setConstantFileTime(ZipEntry entry) {
 		// See https://github.com/openjdk/jdk/blob/master/test/jdk/java/util/zip/ZipFile/ZipEntryTimeBounds.java
 		entry.setTime(new GregorianCalendar(1980, Calendar.JANUARY, 1, 0, 0, 0).getTimeInMillis());
 	}
 
-	@MagicConstant(valuesFromClass = ZipOutputStream.class)
-	private static int zipOutputStreamCompressionMethod(ZipEntryCompression compression) {
-		return switch (compression) {
-		case STORED -> ZipOutputStream.STORED;
-		case DEFLATED -> ZipOutputStream.DEFLATED;
-		};
-	}
-
 	@MagicConstant(valuesFromClass = ZipEntry.class)
 	private static int zipEntryCompressionMethod(ZipEntryCompression compression) {
 		return switch (compression) {
@@ -24,21 +24,24 @@
 package dev.aoqia.leaf.loom.util.copygamefile;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.HexFormat;
 import java.util.Locale;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.function.IntConsumer;
 
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,6 +50,10 @@ import dev.aoqia.leaf.loom.util.Checksum;
 
 public final class CopyGameFile {
     private static final Logger LOGGER = LoggerFactory.getLogger(CopyGameFile.class);
+    private static final String HASH_ATTRIBUTE = "LoomHash";
+    private static final String SOURCE_ATTRIBUTE = "LoomSource";
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final long TRANSFER_SIZE = 8L * 1024 * 1024;
     private final Path path;
     private final String expectedHash;
     private final Duration maxAge;
@@ -81,7 +88,12 @@ public final class CopyGameFile {
         return path.getFileSystem() == FileSystems.getDefault() ? path.toFile().exists() : Files.exists(path);
     }
 
-    private void copyGameFileToPath(Path output) throws IOException {
+    /**
+     * Copy the game file to the output, computing the hash of the copied bytes when a hash is expected.
+     *
+     * @return the sha1 hash of the copied file, or null when no hash is expected
+     */
+    private @Nullable String copyGameFileToPath(Path output) throws IOException {
         // Copy the file initially to a .part file
         final Path partFile = getPartFile(output);
 
@@ -92,16 +104,18 @@ public final class CopyGameFile {
             throw error(e, "Failed to delete existing file");
         }
 
-        final long length = this.path.toFile().length();
-        AtomicLong totalBytes = new AtomicLong(0);
+        final long length = Files.size(this.path);
+        final MessageDigest digest = expectedHash != null ? createSha1Digest() : null;
 
         try (
-            InputStream inputStream = Files.newInputStream(this.path, StandardOpenOption.READ);
-            OutputStream outputStream = Files.newOutputStream(partFile, StandardOpenOption.CREATE_NEW)
+            FileChannel source = FileChannel.open(this.path, StandardOpenOption.READ);
+            FileChannel target = FileChannel.open(partFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)
         ) {
-            copyWithCallback(inputStream, outputStream, value -> {
-                progressListener.onProgress(totalBytes.addAndGet(value), length);
-            });
+            if (digest == null) {
+                transfer(source, target, length);
+            } else {
+                copyAndHash(source, target, digest, length);
+            }
         } catch (IOException e) {
             throw error(e, "Failed to write game file output");
         }
@@ -130,19 +144,54 @@ public final class CopyGameFile {
             // This ensures that the output file only exists in fully populated
             // state.
             Files.move(partFile, output);
-            // Files.move(partFile, output, StandardCopyOption.COPY_ATTRIBUTES);
         } catch (IOException e) {
             throw error(e, "Failed to complete copy of game file");
         }
+
+        return digest != null ? HexFormat.of().formatHex(digest.digest()) : null;
     }
 
-    private void copyWithCallback(InputStream is, OutputStream os, IntConsumer consumer) throws IOException {
-        byte[] buffer = new byte[1024];
-        int length;
+    // Lets the OS copy the file without the bytes passing through the JVM, used when there is no hash to compute.
+    private void transfer(FileChannel source, FileChannel target, long length) throws IOException {
+        long position = 0;
+
+        while (position < length) {
+            final long transferred = source.transferTo(position, Math.min(TRANSFER_SIZE, length - position), target);
+
+            if (transferred <= 0) {
+                break;
+            }
+
+            position += transferred;
+            progressListener.onProgress(position, length);
+        }
+    }
+
+    private void copyAndHash(FileChannel source, FileChannel target, MessageDigest digest, long length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        long position = 0;
+        int read;
+
+        while ((read = source.read(buffer)) > 0) {
+            buffer.flip();
+            digest.update(buffer);
+            buffer.flip();
+
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
 
-        while ((length = is.read(buffer)) > 0) {
-            os.write(buffer, 0, length);
-            consumer.accept(length);
+            buffer.clear();
+            position += read;
+            progressListener.onProgress(position, length);
+        }
+    }
+
+    private static MessageDigest createSha1Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 
@@ -171,6 +220,11 @@ public final class CopyGameFile {
             return true;
         }
 
+        if (isSourceUnchanged(output)) {
+            // Copied from the same version of the source file, which was verified at the time.
+            return false;
+        }
+
         if (expectedHash != null) {
             final String hashAttribute = readHash(output).orElse("");
 
@@ -197,6 +251,29 @@ public final class CopyGameFile {
         return true;
     }
 
+    /**
+     * Check the size and modification time of the source recorded when copying the output,
+     * this avoids having to re-hash either file when nothing has changed.
+     */
+    private boolean isSourceUnchanged(Path output) throws IOException {
+        final Optional<String> sourceAttribute = readAttribute(output, SOURCE_ATTRIBUTE);
+
+        if (sourceAttribute.isEmpty() || !sourceAttribute.get().equals(getSourceStamp())) {
+            return false;
+        }
+
+        if (Files.size(output) != Files.size(this.path)) {
+            return false;
+        }
+
+        return expectedHash == null || expectedHash.equalsIgnoreCase(readHash(output).orElse(""));
+    }
+
+    private String getSourceStamp() throws IOException {
+        final BasicFileAttributes attributes = Files.readAttributes(this.path, BasicFileAttributes.class);
+        return attributes.size() + ":" + attributes.lastModifiedTime().toMillis();
+    }
+
     private boolean isHashValid(Path path) {
         int i = expectedHash.indexOf(':');
         String algorithm = expectedHash.substring(0, i);
@@ -223,18 +300,30 @@ public final class CopyGameFile {
     }
 
     private Optional<String> readHash(Path output) {
+        return readAttribute(output, HASH_ATTRIBUTE);
+    }
+
+    private void writeHash(Path output, String value) throws IOException {
+        try {
+            AttributeHelper.writeAttribute(output, HASH_ATTRIBUTE, value);
+        } catch (IOException e) {
+            throw error(e, "Failed to write hash to (%s)", output);
+        }
+    }
+
+    private Optional<String> readAttribute(Path output, String key) {
         try {
-            return AttributeHelper.readAttribute(output, "LoomHash");
+            return AttributeHelper.readAttribute(output, key);
         } catch (IOException e) {
             return Optional.empty();
         }
     }
 
-    private void writeHash(Path output, String value) throws IOException {
+    private void writeSourceStamp(Path output, String stamp) throws IOException {
         try {
-            AttributeHelper.writeAttribute(output, "LoomHash", value);
+            AttributeHelper.writeAttribute(output, SOURCE_ATTRIBUTE, stamp);
         } catch (IOException e) {
-            throw error(e, "Failed to write hash to (%s)", output);
+            throw error(e, "Failed to write source attribute to (%s)", output);
         }
     }
 
@@ -308,7 +397,7 @@ public final class CopyGameFile {
 
     private void doCopyGameFile(Path output) throws IOException {
         try {
-            Files.createDirectories(output);
+            Files.createDirectories(output.getParent());
         } catch (IOException e) {
             throw error(e, "Failed to create parent directories");
         }
@@ -331,30 +420,24 @@ public final class CopyGameFile {
             }
         }
 
-        copyGameFileToPath(output);
+        // Read before copying, so that a source modified during the copy is not recorded as unchanged.
+        final String sourceStamp = getSourceStamp();
+        final String actualHash = copyGameFileToPath(output);
 
-        if (expectedHash == null) {
-            return;
-        }
-
-        // Ensure we downloaded the expected hash.
-        if (!isHashValid(output)) {
-            String actualHash;
-
-            try {
-                actualHash = Checksum.of(output).sha1().hex();
+        if (expectedHash != null) {
+            // Ensure we copied the expected hash, the hash was computed from the copied bytes.
+            if (!expectedHash.substring(expectedHash.indexOf(':') + 1).equalsIgnoreCase(actualHash)) {
                 Files.deleteIfExists(output);
-            } catch (IOException e) {
-                actualHash = "unknown hash";
+                throw error("Failed to copy (%s) with expected hash: %s got %s", path, expectedHash, actualHash);
             }
 
-            throw error("Failed to copy (%s) with expected hash: %s got %s", path, expectedHash, actualHash);
+            // Write the hash to the file attribute.
+            // This saves a lot of time trying to re-compute the hash when
+            // re-visiting this file.
+            writeHash(output, expectedHash);
         }
 
-        // Write the hash to the file attribute.
-        // This saves a lot of time trying to re-compute the hash when
-        // re-visiting this file.
-        writeHash(output, expectedHash);
+        writeSourceStamp(output, sourceStamp);
     }
 
     private IOException error(String message, Object... args) {
@@ -25,12 +25,16 @@ package dev.aoqia.leaf.loom.util.copygamefile;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 public class CopyGameFileExecutor implements AutoCloseable {
     private final ExecutorService executorService;
@@ -40,6 +44,35 @@ public class CopyGameFileExecutor implements AutoCloseable {
         executorService = Executors.newFixedThreadPool(threads);
     }
 
+    /**
+     * Copy a batch of game files concurrently, waiting for all copies to complete.
+     *
+     * @param copies The output paths mapped to the builder of the game file to copy there.
+     */
+    public static void copyAll(Map<Path, CopyGameFileBuilder> copies) throws IOException {
+        if (copies.isEmpty()) {
+            return;
+        }
+
+        final int threads = Math.min(copies.size(), Runtime.getRuntime().availableProcessors());
+
+        try (CopyGameFileExecutor executor = new CopyGameFileExecutor(threads)) {
+            copies.forEach((output, builder) -> builder.copyGameFileFromPathAsync(output, executor));
+        }
+    }
+
+    /**
+     * Copy a batch of game files concurrently, skipping any output that is already up-to-date.
+     *
+     * @param copies The output paths mapped to the game file to copy there.
+     * @param builderFactory Creates the builder of a game file with the settings of the project.
+     */
+    public static void copyAll(Map<Path, String> copies, Function<String, CopyGameFileBuilder> builderFactory) throws IOException {
+        final Map<Path, CopyGameFileBuilder> builders = new LinkedHashMap<>();
+        copies.forEach((output, path) -> builders.put(output, builderFactory.apply(path)));
+        copyAll(builders);
+    }
+
     void runAsync(CopyGameFileRunner copyGameFileRunner) {
         if (!copyExceptions.isEmpty()) {
             return;
@@ -23,7 +23,9 @@
  */
 package dev.aoqia.leaf.loom.util.copygamefile;
 
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Map;
 import javax.inject.Inject;
 
 import org.gradle.api.Project;
@@ -58,4 +60,13 @@ public abstract class CopyGameFileFactory {
 
         return builder;
     }
+
+    /**
+     * Copy a batch of game files concurrently, skipping any output that is already up-to-date.
+     *
+     * @param copies The output paths mapped to the game file to copy there.
+     */
+    public void copyGameFiles(Map<Path, String> copies) throws IOException {
+        CopyGameFileExecutor.copyAll(copies, this::copyGameFile);
+    }
 }
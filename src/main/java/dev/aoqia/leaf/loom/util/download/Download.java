@@ -36,6 +36,8 @@ import java.net.http.HttpClient;
 import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
@@ -44,11 +46,18 @@ import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.FileTime;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.IntConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
 
 import org.jspecify.annotations.Nullable;
@@ -62,6 +71,13 @@ public final class Download {
 	private static final String E_TAG = "ETag";
 	private static final Logger LOGGER = LoggerFactory.getLogger(Download.class);
 	private static final Duration TIMEOUT = Duration.ofMinutes(1);
+	private static final int BUFFER_SIZE = 64 * 1024;
+	// Files larger than this are downloaded in multiple concurrent range requests
+	private static final long CHUNK_SIZE = 4L * 1024 * 1024;
+	private static final int MAX_CONCURRENT_CHUNKS = 4;
+	private static final int MAX_CHUNK_ATTEMPTS = 3;
+	private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+	private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+)");
 	private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
 			.executor(Executors.newVirtualThreadPerTaskExecutor())
 			.followRedirects(HttpClient.Redirect.ALWAYS)
@@ -113,12 +129,24 @@ public final class Download {
 				.build();
 	}
 
+	private HttpRequest getRangeRequest(long start, long end) {
+		return requestBuilder()
+				.header("Range", "bytes=%d-%d".formatted(start, end))
+				.build();
+	}
+
 	private <T> HttpResponse<T> send(HttpRequest httpRequest, HttpResponse.BodyHandler<T> bodyHandler) throws DownloadException {
+		return send(httpRequest, bodyHandler, true);
+	}
+
+	private <T> HttpResponse<T> send(HttpRequest httpRequest, HttpResponse.BodyHandler<T> bodyHandler, boolean notifyStart) throws DownloadException {
 		if (offline) {
 			throw error("Unable to download %s in offline mode", this.url);
 		}
 
-		progressListener.onStart();
+		if (notifyStart) {
+			progressListener.onStart();
+		}
 
 		try {
 			return HTTP_CLIENT.send(httpRequest, bodyHandler);
@@ -180,9 +208,11 @@ public final class Download {
 			throw error(e, "Failed to create parent directories");
 		}
 
+		// Request the first chunk when the download can be resumed or split, servers that do not support ranges will send the whole file.
+		final long resumeOffset = eTag.isEmpty() ? getResumeOffset(output) : 0;
 		final HttpRequest httpRequest = eTag
 				.map(this::getETagRequest)
-				.orElseGet(this::getRequest);
+				.orElseGet(() -> isResumable() ? getRangeRequest(resumeOffset, resumeOffset + CHUNK_SIZE - 1) : getRequest());
 
 		// Create a .lock file, this allows us to re-download if the download was forcefully aborted part way through.
 		createLock(output);
@@ -204,11 +234,20 @@ public final class Download {
 			return;
 		}
 
+		if (statusCode == HTTP_RANGE_NOT_SATISFIABLE) {
+			// The existing part file is not a prefix of the file, start again from the beginning.
+			deletePartFile(output);
+		}
+
 		if (!success) {
 			throw statusError("HTTP request returned unsuccessful status (%d)", statusCode);
 		}
 
-		downloadToPath(output, response);
+		if (statusCode == HttpURLConnection.HTTP_PARTIAL) {
+			downloadRanges(output, response, resumeOffset);
+		} else {
+			downloadToPath(output, response);
+		}
 
 		if (useEtag) {
 			final HttpHeaders headers = response.headers();
@@ -287,8 +326,177 @@ public final class Download {
 		}
 	}
 
+	private void downloadRanges(Path output, HttpResponse<InputStream> response, long offset) throws DownloadException {
+		final Path partFile = getPartFile(output);
+		final ContentRange range = ContentRange.parse(response.headers());
+
+		if (range == null || range.start() != offset) {
+			throw error("Unexpected content range (%s) when requesting from %d bytes", response.headers().firstValue("Content-Range").orElse(""), offset);
+		}
+
+		if (!response.headers().firstValue("Content-Encoding").orElse("").isEmpty()) {
+			throw error("Unsupported encoding for range request: %s", response.headers().firstValue("Content-Encoding").get());
+		}
+
+		if (offset > 0) {
+			LOGGER.info("Resuming download of {} from {} bytes", url, offset);
+		}
+
+		final long length = range.total();
+		final AtomicLong totalBytes = new AtomicLong(offset);
+		final IntConsumer progress = value -> reportProgress(totalBytes.addAndGet(value), length);
+
+		try {
+			Files.deleteIfExists(output);
+		} catch (IOException e) {
+			throw error(e, "Failed to delete existing file");
+		}
+
+		try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			channel.truncate(offset);
+			writeRange(channel, response.body(), range, progress);
+
+			final List<ContentRange> chunks = new ArrayList<>();
+
+			for (long start = range.end() + 1; start < length; start += CHUNK_SIZE) {
+				chunks.add(new ContentRange(start, Math.min(start + CHUNK_SIZE, length) - 1, length));
+			}
+
+			if (!chunks.isEmpty()) {
+				downloadChunks(channel, chunks, totalBytes, length);
+			}
+
+			if (channel.size() != length) {
+				throw error("Unexpected file length of %d bytes, expected %d bytes", channel.size(), length);
+			}
+		} catch (IOException e) {
+			throw error(e, "Failed to write download output");
+		}
+
+		try {
+			// Once the file has been fully read, move it to the destination file.
+			// This ensures that the output file only exists in fully populated state.
+			Files.move(partFile, output);
+		} catch (IOException e) {
+			throw error(e, "Failed to complete download");
+		}
+	}
+
+	private void downloadChunks(FileChannel channel, List<ContentRange> chunks, AtomicLong totalBytes, long length) throws IOException {
+		final boolean[] completed = new boolean[chunks.size()];
+		final List<Future<?>> futures = new ArrayList<>();
+
+		try (ExecutorService executor = Executors.newFixedThreadPool(MAX_CONCURRENT_CHUNKS, Thread.ofVirtual().factory())) {
+			for (int i = 0; i < chunks.size(); i++) {
+				final int index = i;
+
+				futures.add(executor.submit(() -> {
+					downloadChunk(channel, chunks.get(index), totalBytes, length);
+					completed[index] = true;
+					return null;
+				}));
+			}
+		}
+
+		Throwable failure = null;
+
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				failure = e.getCause();
+				break;
+			} catch (InterruptedException e) {
+				failure = e;
+				break;
+			}
+		}
+
+		if (failure != null) {
+			// Only keep the completed prefix of the part file, so that the download can be resumed from there
+			long resumeOffset = chunks.getFirst().start();
+
+			for (int i = 0; i < chunks.size() && completed[i]; i++) {
+				resumeOffset = chunks.get(i).end() + 1;
+			}
+
+			channel.truncate(resumeOffset);
+			throw error(failure, "Failed to download (%s) in chunks", url);
+		}
+	}
+
+	private void downloadChunk(FileChannel channel, ContentRange chunk, AtomicLong totalBytes, long length) throws DownloadException {
+		for (int attempt = 1; ; attempt++) {
+			final AtomicLong written = new AtomicLong(0);
+
+			try {
+				// The progress listener was already started by the request that discovered the content length
+				final HttpResponse<InputStream> response = send(getRangeRequest(chunk.start(), chunk.end()), HttpResponse.BodyHandlers.ofInputStream(), false);
+
+				if (response.statusCode() != HttpURLConnection.HTTP_PARTIAL) {
+					response.body().close();
+					throw statusError("HTTP range request returned unexpected status (%d)", response.statusCode());
+				}
+
+				if (!chunk.equals(ContentRange.parse(response.headers()))) {
+					response.body().close();
+					throw error("Unexpected content range (%s) when requesting %s", response.headers().firstValue("Content-Range").orElse(""), chunk);
+				}
+
+				writeRange(channel, response.body(), chunk, value -> {
+					written.addAndGet(value);
+					reportProgress(totalBytes.addAndGet(value), length);
+				});
+				return;
+			} catch (IOException e) {
+				totalBytes.addAndGet(-written.get());
+
+				if (e.getCause() instanceof InterruptedException) {
+					throw error(e.getCause(), "Interrupted while downloading (%s)", url);
+				}
+
+				if (offline || attempt >= MAX_CHUNK_ATTEMPTS) {
+					throw error(e, "Failed to download bytes %d-%d of (%s)", chunk.start(), chunk.end(), url);
+				}
+
+				LOGGER.debug("Retrying download of bytes {}-{} of {}", chunk.start(), chunk.end(), url, e);
+			}
+		}
+	}
+
+	private void writeRange(FileChannel channel, InputStream inputStream, ContentRange range, IntConsumer consumer) throws IOException {
+		long position = range.start();
+
+		try (inputStream) {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int length;
+
+			while ((length = inputStream.read(buffer)) > 0) {
+				if (position + length > range.end() + 1) {
+					throw new IOException("Received more data than requested for %s".formatted(range));
+				}
+
+				final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, length);
+
+				while (byteBuffer.hasRemaining()) {
+					position += channel.write(byteBuffer, position);
+				}
+
+				consumer.accept(length);
+			}
+		}
+
+		if (position != range.end() + 1) {
+			throw new IOException("Received %d bytes of %s".formatted(position - range.start(), range));
+		}
+	}
+
+	private synchronized void reportProgress(long bytesTransferred, long contentLength) {
+		progressListener.onProgress(bytesTransferred, contentLength);
+	}
+
 	private void copyWithCallback(InputStream is, OutputStream os, IntConsumer consumer) throws IOException {
-		byte[] buffer = new byte[1024];
+		byte[] buffer = new byte[BUFFER_SIZE];
 		int length;
 
 		while ((length = is.read(buffer)) > 0) {
@@ -343,6 +551,28 @@ public final class Download {
 		return true;
 	}
 
+	/**
+	 * Range requests are only used when the downloaded file can be verified with the expected hash,
+	 * as a resumed or chunked download could otherwise silently combine different versions of the file.
+	 */
+	private boolean isResumable() {
+		return expectedHash != null;
+	}
+
+	private long getResumeOffset(Path output) {
+		final Path partFile = getPartFile(output);
+
+		if (!isResumable() || !exists(partFile)) {
+			return 0;
+		}
+
+		try {
+			return Files.size(partFile);
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+
 	private boolean isHashValid(Path path) {
 		int i = expectedHash.indexOf(':');
 		String algorithm = expectedHash.substring(0, i);
@@ -399,6 +629,12 @@ public final class Download {
 			// ignored
 		}
 
+		if (!isResumable()) {
+			deletePartFile(output);
+		}
+	}
+
+	private void deletePartFile(Path output) {
 		try {
 			Files.deleteIfExists(getPartFile(output));
 		} catch (IOException ignored) {
@@ -461,4 +697,22 @@ public final class Download {
 	}
 
 	private record DownloadResultImpl(boolean didDownload) implements DownloadResult { }
+
+	private record ContentRange(long start, long end, long total) {
+		@Nullable
+		static ContentRange parse(HttpHeaders headers) {
+			final Matcher matcher = CONTENT_RANGE.matcher(headers.firstValue("Content-Range").orElse(""));
+
+			if (!matcher.matches()) {
+				return null;
+			}
+
+			return new ContentRange(Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2)), Long.parseLong(matcher.group(3)));
+		}
+
+		@Override
+		public String toString() {
+			return "bytes %d-%d/%d".formatted(start, end, total);
+		}
+	}
 }
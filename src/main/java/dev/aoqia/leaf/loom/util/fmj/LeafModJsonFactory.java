@@ -46,6 +46,7 @@ import org.slf4j.LoggerFactory;
 
 import dev.aoqia.leaf.loom.LoomGradlePlugin;
 import dev.aoqia.leaf.loom.util.FileSystemUtil;
+import dev.aoqia.leaf.loom.util.JarEntryPipeline;
 import dev.aoqia.leaf.loom.util.ZipUtils;
 import dev.aoqia.leaf.loom.util.gradle.SourceSetHelper;
 
@@ -128,6 +129,29 @@ public final class LeafModJsonFactory {
 		return create(jsonObject, new LeafModJsonSource.ZipSource(zipPath));
 	}
 
+	/**
+	 * Creates a mod json from a jar staged in memory, or returns null if the jar does not contain one.
+	 */
+	@Nullable
+	public static LeafModJson createFromJarNullable(JarEntryPipeline jar) {
+		try {
+			byte[] bytes = jar.get(LEAF_MOD_JSON);
+
+			if (bytes == null) {
+				bytes = jar.get(FABRIC_MOD_JSON);
+			}
+
+			if (bytes == null) {
+				return null;
+			}
+
+			JsonObject jsonObject = LoomGradlePlugin.GSON.fromJson(new String(bytes, StandardCharsets.UTF_8), JsonObject.class);
+			return create(jsonObject, jar::get);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read mod json from jar", e);
+		}
+	}
+
 	public static Optional<LeafModJson> createFromZipOptional(Path zipPath) {
 		return Optional.ofNullable(createFromZipNullable(zipPath));
 	}
@@ -180,6 +204,10 @@ public final class LeafModJsonFactory {
 		return ZipUtils.contains(input, LEAF_MOD_JSON) || ZipUtils.contains(input, FABRIC_MOD_JSON);
 	}
 
+	public static boolean isModJar(JarEntryPipeline jar) {
+		return jar.contains(LEAF_MOD_JSON) || jar.contains(FABRIC_MOD_JSON);
+	}
+
 	public static boolean containsMod(FileSystemUtil.Delegate fs) {
 		return Files.exists(fs.getPath(LEAF_MOD_JSON)) || Files.exists(fs.getPath(FABRIC_MOD_JSON));
 	}
@@ -24,10 +24,8 @@
 
 package dev.aoqia.leaf.loom.util.gradle;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Consumer;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.gradle.api.Project;
 import org.gradle.api.internal.project.ProjectInternal;
@@ -35,7 +33,12 @@ import org.gradle.api.logging.Logger;
 import org.gradle.internal.logging.progress.ProgressLogger;
 import org.gradle.internal.logging.progress.ProgressLoggerFactory;
 
-public class ThreadedProgressLoggerConsumer implements Consumer<String>, AutoCloseable {
+import dev.aoqia.leaf.loom.util.ipc.IPCServer;
+
+/**
+ * Shows a progress logger for each thread of each client connected to an {@link IPCServer}.
+ */
+public class ThreadedProgressLoggerConsumer implements IPCServer.Listener, AutoCloseable {
 	public static final String CLOSE_LOGGERS = "LOOM_CLOSE_LOGGERS";
 
 	private final Logger logger;
@@ -44,7 +47,7 @@ public class ThreadedProgressLoggerConsumer implements Consumer<String>, AutoClo
 
 	private final ProgressLoggerFactory progressLoggerFactory;
 	private final ProgressLogger progressGroup;
-	private final Map<String, ProgressLogger> loggers = Collections.synchronizedMap(new HashMap<>());
+	private final Map<LoggerKey, ProgressLogger> loggers = new ConcurrentHashMap<>();
 
 	public ThreadedProgressLoggerConsumer(Project project, String name, String desc) {
 		this.logger = project.getLogger();
@@ -66,25 +69,23 @@ public class ThreadedProgressLoggerConsumer implements Consumer<String>, AutoClo
 	}
 
 	@Override
-	public void accept(String line) {
-		if (!line.contains("::")) {
-			logger.debug("Malformed threaded IPC log message: " + line);
-			return;
-		}
-
-		int idx = line.indexOf("::");
-		String id = line.substring(0, idx).trim();
-		String data = line.substring(idx + 2).trim();
-
-		if (data.equals(CLOSE_LOGGERS)) {
-			resetLoggers();
-			return;
-		}
-
-		loggers.computeIfAbsent(id, this::createLogger).progress(data);
+	public void progress(int clientId, long threadId, String message) {
+		loggers.computeIfAbsent(new LoggerKey(clientId, threadId), this::createLogger).progress(message);
 	}
 
-	private ProgressLogger createLogger(String id) {
+	@Override
+	public void reset(int clientId) {
+		loggers.entrySet().removeIf(entry -> {
+			if (entry.getKey().clientId() != clientId) {
+				return false;
+			}
+
+			entry.getValue().completed();
+			return true;
+		});
+	}
+
+	private ProgressLogger createLogger(LoggerKey key) {
 		ProgressLogger progressLogger = progressLoggerFactory.newOperation(getClass(), progressGroup);
 		progressLogger.setDescription(desc);
 		progressLogger.started();
@@ -102,4 +103,7 @@ public class ThreadedProgressLoggerConsumer implements Consumer<String>, AutoClo
 
 		progressGroup.completed();
 	}
+
+	private record LoggerKey(int clientId, long threadId) {
+	}
 }
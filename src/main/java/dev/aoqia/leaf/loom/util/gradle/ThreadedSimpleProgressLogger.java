@@ -25,13 +25,21 @@
 package dev.aoqia.leaf.loom.util.gradle;
 
 import java.io.IOException;
-import java.util.Locale;
 
 import dev.aoqia.leaf.loom.util.IOStringConsumer;
+import dev.aoqia.leaf.loom.util.ipc.IPCClient;
 
-public record ThreadedSimpleProgressLogger(IOStringConsumer parent) implements IOStringConsumer {
+/**
+ * Sends the progress of each thread to a {@link ThreadedProgressLoggerConsumer} in another JVM.
+ */
+public record ThreadedSimpleProgressLogger(IPCClient client) implements IOStringConsumer {
 	@Override
 	public void accept(String data) throws IOException {
-		parent.accept(String.format(Locale.ENGLISH, "%d::%s", Thread.currentThread().getId(), data));
+		if (data.equals(ThreadedProgressLoggerConsumer.CLOSE_LOGGERS)) {
+			client.reset();
+			return;
+		}
+
+		client.accept(data);
 	}
 }
@@ -25,21 +25,55 @@
 package dev.aoqia.leaf.loom.util.ipc;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.UnixDomainSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.jspecify.annotations.Nullable;
 
 import dev.aoqia.leaf.loom.util.IOStringConsumer;
 
+/**
+ * Sends messages to an {@link IPCServer}.
+ *
+ * <p>Each thread encodes its messages into its own buffer, the frames are then appended to a shared batch that is
+ * written to the socket once it is large enough or has been pending for {@link #FLUSH_INTERVAL_MS}. The threads
+ * sending messages only wait on each other for the copy into the batch, not for the socket.
+ */
 public final class IPCClient implements IOStringConsumer, AutoCloseable {
+	private static final int FLUSH_SIZE = 1 << 14;
+	private static final long FLUSH_INTERVAL_MS = 50;
+
 	private final Path path;
 	private final SocketChannel socketChannel;
+	private final ScheduledExecutorService flushService;
+	private final ThreadLocal<ByteBuffer> frameBuffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(256));
+
+	// Guarded by batchLock
+	private ByteBuffer batch = ByteBuffer.allocate(FLUSH_SIZE * 2);
+	private final Object batchLock = new Object();
+
+	// Guarded by writeLock, the batch that is swapped in while the other one is written
+	private ByteBuffer spare = ByteBuffer.allocate(FLUSH_SIZE * 2);
+	private final Object writeLock = new Object();
+
+	private volatile @Nullable IOException flushFailure;
 
 	public IPCClient(Path path) throws IOException {
 		this.path = path;
 		socketChannel = setupChannel();
+		flushService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			final Thread thread = new Thread(runnable, "IPC client flush");
+			thread.setDaemon(true);
+			return thread;
+		});
+		flushService.scheduleWithFixedDelay(this::flushPending, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
 	}
 
 	private SocketChannel setupChannel() throws IOException {
@@ -47,21 +81,110 @@ public final class IPCClient implements IOStringConsumer, AutoCloseable {
 		return SocketChannel.open(address);
 	}
 
+	/**
+	 * Sends a progress message for the current thread.
+	 */
 	@Override
 	public void accept(String s) throws IOException {
-		synchronized (socketChannel) {
-			ByteBuffer buf = ByteBuffer.wrap((s + "\n").getBytes(StandardCharsets.UTF_8));
+		final byte[] message = s.getBytes(StandardCharsets.UTF_8);
+		final ByteBuffer frame = frameBuffer(IPCProtocol.PROGRESS_HEADER_SIZE + message.length)
+				.putInt(1 + Long.BYTES + message.length)
+				.put(IPCProtocol.PROGRESS)
+				.putLong(Thread.currentThread().threadId())
+				.put(message)
+				.flip();
+		append(frame);
+	}
+
+	/**
+	 * Tells the server that the work the progress messages were sent for is done, the message is sent immediately.
+	 */
+	public void reset() throws IOException {
+		final ByteBuffer frame = frameBuffer(IPCProtocol.HEADER_SIZE)
+				.putInt(1)
+				.put(IPCProtocol.RESET)
+				.flip();
+		append(frame);
+		flush();
+	}
+
+	private ByteBuffer frameBuffer(int size) {
+		ByteBuffer buffer = frameBuffers.get();
+
+		if (buffer.capacity() < size) {
+			buffer = ByteBuffer.allocate(Math.max(size, buffer.capacity() * 2));
+			frameBuffers.set(buffer);
+		}
+
+		return buffer.clear();
+	}
+
+	private void append(ByteBuffer frame) throws IOException {
+		final IOException failure = flushFailure;
+
+		if (failure != null) {
+			throw new IOException("Failed to send IPC messages", failure);
+		}
+
+		final boolean full;
 
-			while (buf.hasRemaining()) {
-				socketChannel.write(buf);
+		synchronized (batchLock) {
+			if (batch.remaining() < frame.remaining()) {
+				final ByteBuffer grown = ByteBuffer.allocate(Math.max(batch.capacity() * 2, batch.position() + frame.remaining()));
+				batch = grown.put(batch.flip());
 			}
+
+			batch.put(frame);
+			full = batch.position() >= FLUSH_SIZE;
+		}
+
+		if (full) {
+			flush();
+		}
+	}
+
+	private void flush() throws IOException {
+		synchronized (writeLock) {
+			final ByteBuffer pending;
+
+			synchronized (batchLock) {
+				if (batch.position() == 0) {
+					return;
+				}
+
+				pending = batch;
+				batch = spare;
+			}
+
+			pending.flip();
+
+			while (pending.hasRemaining()) {
+				socketChannel.write(pending);
+			}
+
+			spare = pending.clear();
+		}
+	}
+
+	private void flushPending() {
+		try {
+			flush();
+		} catch (IOException e) {
+			flushFailure = e;
+			throw new UncheckedIOException(e);
 		}
 	}
 
 	@Override
 	public void close() throws Exception {
-		synchronized (socketChannel) {
-			socketChannel.close();
+		// Let a running flush finish, interrupting it would close the channel
+		flushService.shutdown();
+		flushService.awaitTermination(10, TimeUnit.SECONDS);
+
+		try (socketChannel) {
+			if (flushFailure == null) {
+				flush();
+			}
 		}
 	}
 }
@@ -0,0 +1,45 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.util.ipc;
+
+/**
+ * The framing used between {@link IPCClient} and {@link IPCServer}.
+ *
+ * <p>Every message is a frame of {@code [int length][byte type][payload]}, the length covers the type and the payload.
+ * A progress message has the id of the sending thread followed by the UTF-8 message as its payload, a reset message
+ * has no payload.
+ */
+final class IPCProtocol {
+	static final byte PROGRESS = 1;
+	static final byte RESET = 2;
+
+	static final int HEADER_SIZE = Integer.BYTES + 1;
+	static final int PROGRESS_HEADER_SIZE = HEADER_SIZE + Long.BYTES;
+	// Anything larger is not a log message, the stream must be corrupt
+	static final int MAX_FRAME_SIZE = 1 << 24;
+
+	private IPCProtocol() {
+	}
+}
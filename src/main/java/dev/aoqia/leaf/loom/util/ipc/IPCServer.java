@@ -24,33 +24,58 @@
 
 package dev.aoqia.leaf.loom.util.ipc;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.StandardProtocolFamily;
 import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.util.Scanner;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Receives messages from any number of {@link IPCClient}s, each connected client is read on its own thread.
+ */
 public class IPCServer implements AutoCloseable {
-	private final ExecutorService loggerReceiverService = Executors.newSingleThreadExecutor();
+	private static final Logger LOGGER = LoggerFactory.getLogger(IPCServer.class);
+
+	private final ExecutorService loggerReceiverService = Executors.newCachedThreadPool();
 	private final Path path;
-	private final Consumer<String> consumer;
+	private final Listener listener;
 
 	private final CountDownLatch startupLock = new CountDownLatch(1);
 
-	private boolean receivedMessage = false;
+	private volatile boolean receivedMessage = false;
 
 	public IPCServer(Path path, Consumer<String> consumer) {
+		this(path, new Listener() {
+			@Override
+			public void progress(int clientId, long threadId, String message) {
+				consumer.accept(message);
+			}
+
+			@Override
+			public void reset(int clientId) {
+			}
+		});
+	}
+
+	public IPCServer(Path path, Listener listener) {
 		this.path = path;
-		this.consumer = consumer;
+		this.listener = listener;
 
 		loggerReceiverService.submit(this::run);
 
@@ -69,17 +94,59 @@ public class IPCServer implements AutoCloseable {
 
 			startupLock.countDown();
 
-			try (SocketChannel clientChannel = serverChannel.accept();
-					Scanner scanner = new Scanner(clientChannel, StandardCharsets.UTF_8)) {
-				while (!Thread.currentThread().isInterrupted()) {
-					if (scanner.hasNextLine()) {
-						receivedMessage = true;
-						this.consumer.accept(scanner.nextLine());
+			int nextClientId = 0;
+
+			while (!Thread.currentThread().isInterrupted()) {
+				final SocketChannel clientChannel = serverChannel.accept();
+				final int clientId = nextClientId++;
+				loggerReceiverService.submit(() -> receive(clientId, clientChannel));
+			}
+		} catch (ClosedByInterruptException e) {
+			// The server has been closed
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to listen for IPC messages", e);
+		}
+	}
+
+	private void receive(int clientId, SocketChannel clientChannel) {
+		try (clientChannel;
+				DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(clientChannel), 1 << 16))) {
+			while (!Thread.currentThread().isInterrupted()) {
+				final int length;
+
+				try {
+					length = in.readInt();
+				} catch (EOFException e) {
+					// The client has disconnected
+					return;
+				}
+
+				if (length < 1 || length > IPCProtocol.MAX_FRAME_SIZE) {
+					throw new IOException("Invalid IPC frame length " + length);
+				}
+
+				final byte type = in.readByte();
+				receivedMessage = true;
+
+				switch (type) {
+				case IPCProtocol.PROGRESS -> {
+					if (length < 1 + Long.BYTES) {
+						throw new IOException("Invalid IPC progress frame length " + length);
 					}
+
+					final long threadId = in.readLong();
+					final byte[] message = new byte[length - 1 - Long.BYTES];
+					in.readFully(message);
+					listener.progress(clientId, threadId, new String(message, StandardCharsets.UTF_8));
+				}
+				case IPCProtocol.RESET -> listener.reset(clientId);
+				default -> throw new IOException("Unknown IPC message type " + type);
 				}
 			}
+		} catch (ClosedByInterruptException e) {
+			// The server has been closed
 		} catch (IOException e) {
-			throw new UncheckedIOException("Failed to listen for IPC messages", e);
+			LOGGER.warn("Failed to read IPC messages from client {}", clientId, e);
 		}
 	}
 
@@ -96,4 +163,20 @@ public class IPCServer implements AutoCloseable {
 	public Path getPath() {
 		return path;
 	}
+
+	/**
+	 * Called from the thread reading the client, messages from a single client are received in order.
+	 */
+	public interface Listener {
+		/**
+		 * @param clientId A unique id for each connected client
+		 * @param threadId The id of the thread that sent the message, only unique within a client
+		 */
+		void progress(int clientId, long threadId, String message);
+
+		/**
+		 * The client has finished the work it reported progress on.
+		 */
+		void reset(int clientId);
+	}
 }
@@ -58,8 +58,8 @@ class OfflineModeTest extends Specification implements GradleProjectTestTrait {
 
 		def projectHash = result1.output.split("%%")[1]
 
-		// Create a dummy lock file to ensure that the loom cache is rebuilt on the next run
-		def lockFile = new File(gradle.gradleHomeDir, "caches/fabric-loom/.${projectHash}.lock")
+		// Create a dummy owner file to ensure that the loom cache is rebuilt on the next run
+		def lockFile = new File(gradle.gradleHomeDir, "caches/fabric-loom/.${projectHash}.owner")
 		lockFile.text = "12345"
 
 		// Run with --offline to ensure that nothing is downloaded.
@@ -68,7 +68,7 @@ class OfflineModeTest extends Specification implements GradleProjectTestTrait {
 		result1.task(":build").outcome == SUCCESS
 		result2.task(":build").outcome == SUCCESS
 
-		result2.output.contains("is currently held by pid '12345'")
+		result2.output.contains("Locking process '12345' did not release")
 		result2.output.contains("rebuilding loom cache")
 	}
 }
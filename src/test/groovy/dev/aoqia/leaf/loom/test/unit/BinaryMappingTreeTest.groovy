@@ -0,0 +1,122 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import dev.aoqia.leaf.loom.configuration.providers.mappings.tiny.BinaryMappingTree
+import dev.aoqia.leaf.loom.configuration.providers.mappings.tiny.BinaryMappingWriter
+import net.fabricmc.mappingio.MappingReader
+import net.fabricmc.mappingio.format.MappingFormat
+import net.fabricmc.mappingio.tree.MemoryMappingTree
+
+class BinaryMappingTreeTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "read binary mappings"() {
+		given:
+		def tree = readTiny()
+		def binaryPath = tempDir.resolve("mappings.bin")
+		when:
+		BinaryMappingWriter.write(tree, binaryPath)
+		def binary = BinaryMappingTree.open(binaryPath)
+		def namedNs = binary.getNamespaceId("named")
+		then:
+		binary.srcNamespace == "official"
+		binary.dstNamespaces == ["intermediary", "named"]
+		binary.classes.size() == 2
+		binary.classes[0].srcName == "a"
+		binary.classes[0].getDstName(namedNs) == "test/ClassA"
+		binary.classes[0].comment == "class comment"
+		binary.getClass("b").getDstName(namedNs) == "test/ClassB"
+		binary.getClass("c") == null
+
+		def field = binary.getClass("a").getField("a", "I")
+		field.getDstName(namedNs) == "field"
+		field.comment == "field comment"
+		binary.getClass("a").getField("a", null) == field
+		binary.getClass("a").getField("a", "J") == null
+
+		def method = binary.getClass("a").getMethod("b", "(I)V")
+		method.getDstName(namedNs) == "method"
+		method.args.size() == 1
+		method.args[0].lvIndex == 1
+		method.args[0].getDstName(namedNs) == "value"
+		method.getArg(-1, 1, null) == method.args[0]
+	}
+
+	def "accept binary mappings"() {
+		given:
+		def tree = readTiny()
+		def binaryPath = tempDir.resolve("mappings.bin")
+		when:
+		BinaryMappingWriter.write(tree, binaryPath)
+		def copy = new MemoryMappingTree()
+		BinaryMappingTree.open(binaryPath).accept(copy)
+		then:
+		copy.srcNamespace == tree.srcNamespace
+		copy.dstNamespaces == tree.dstNamespaces
+		copy.classes.size() == tree.classes.size()
+		copy.getClass("a").getMethod("b", "(I)V").args[0].getDstName(1) == "value"
+		copy.getClass("b").getField("c", "Ljava/lang/String;").getDstName(1) == "name"
+	}
+
+	def "open if present"() {
+		given:
+		def tinyPath = tempDir.resolve("mappings.tiny")
+		Files.writeString(tinyPath, MAPPINGS)
+		when:
+		def missing = BinaryMappingTree.openIfPresent(tinyPath)
+		BinaryMappingWriter.write(readTiny(), BinaryMappingTree.getBinaryPath(tinyPath))
+		def present = BinaryMappingTree.openIfPresent(tinyPath)
+		then:
+		missing == null
+		present != null
+		present.classes.size() == 2
+	}
+
+	private static MemoryMappingTree readTiny() {
+		def tree = new MemoryMappingTree()
+		MappingReader.read(new StringReader(MAPPINGS), MappingFormat.TINY_2_FILE, tree)
+		return tree
+	}
+
+	private static final String MAPPINGS = """
+tiny\t2\t0\tofficial\tintermediary\tnamed
+c\ta\tclass_1\ttest/ClassA
+\tc\tclass comment
+\tf\tI\ta\tfield_1\tfield
+\t\tc\tfield comment
+\tm\t(I)V\tb\tmethod_1\tmethod
+\t\tp\t1\t\t\tvalue
+c\tb\tclass_2\ttest/ClassB
+\tf\tLjava/lang/String;\tc\tfield_2\tname
+""".trim()
+}
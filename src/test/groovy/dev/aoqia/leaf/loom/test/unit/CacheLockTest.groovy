@@ -0,0 +1,92 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.test.unit
+
+import java.nio.file.Path
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import dev.aoqia.leaf.loom.util.CacheLock
+
+class CacheLockTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "shared locks do not block each other"() {
+		given:
+		def entry = tempDir.resolve("entry")
+		def latch = new CountDownLatch(2)
+		def executor = Executors.newFixedThreadPool(2)
+
+		when:
+		def futures = (0..<2).collect {
+			executor.submit {
+				CacheLock.withSharedLock(entry) {
+					latch.countDown()
+					// Only returns true when both readers hold the lock at the same time
+					return latch.await(10, TimeUnit.SECONDS)
+				}
+			}
+		}
+
+		then:
+		futures*.get() == [true, true]
+
+		cleanup:
+		executor.shutdown()
+	}
+
+	def "exclusive lock is reentrant"() {
+		given:
+		def entry = tempDir.resolve("entry")
+
+		when:
+		def result = CacheLock.withExclusiveLock(entry) {
+			CacheLock.withSharedLock(entry) {
+				CacheLock.withExclusiveLock(entry) { "done" }
+			}
+		}
+
+		then:
+		result == "done"
+	}
+
+	def "shared lock cannot be upgraded"() {
+		given:
+		def entry = tempDir.resolve("entry")
+
+		when:
+		CacheLock.withSharedLock(entry) {
+			CacheLock.withExclusiveLock(entry) { null }
+		}
+
+		then:
+		thrown IllegalStateException
+	}
+}
@@ -46,6 +46,51 @@ class ClassLineNumbersTest extends Specification {
 		lineMap["net/minecraft/server/dedicated/ServerPropertiesLoader"].maxLineDest() == 30
 	}
 
+	def "look up lines"() {
+		when:
+		def entry = new ClassLineNumbers.Entry("net/test/TestClass", 30, 40, [30: 40, 27: 37, 29: 39])
+		def lineMap = entry.lineMap()
+
+		then:
+		lineMap.size() == 3
+		(0..<lineMap.size()).collect { lineMap.sourceLine(it) } == [27, 29, 30]
+		lineMap.get(27) == 37
+		lineMap.get(30) == 40
+		lineMap.get(28) == ClassLineNumbers.LineMap.NO_LINE
+		lineMap.get(100) == ClassLineNumbers.LineMap.NO_LINE
+	}
+
+	def "write and read binary linemap"() {
+		given:
+		def lineNumbers = ClassLineNumbers.readMappings(new BufferedReader(new StringReader(LINE_MAP)))
+		def entry = lineNumbers.lineMap()["net/minecraft/server/dedicated/ServerPropertiesHandler"]
+
+		when:
+		def bytes = new ByteArrayOutputStream()
+		new DataOutputStream(bytes).withCloseable {
+			entry.writeBinary(it)
+		}
+		def readEntry = ClassLineNumbers.Entry.readBinary(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())))
+
+		then:
+		readEntry == entry
+		readEntry.lineMap().get(48) == 187
+		readEntry.lineMap().get(203) == 182
+	}
+
+	def "write and read text linemap"() {
+		given:
+		def lineNumbers = ClassLineNumbers.readMappings(new BufferedReader(new StringReader(LINE_MAP)))
+
+		when:
+		def writer = new StringWriter()
+		lineNumbers.write(writer)
+		def readLineNumbers = ClassLineNumbers.readMappings(new BufferedReader(new StringReader(writer.toString())))
+
+		then:
+		readLineNumbers == lineNumbers
+	}
+
 	private static final String LINE_MAP = """
 net/minecraft/server/dedicated/ServerPropertiesHandler\t203\t187
 \t48\t187
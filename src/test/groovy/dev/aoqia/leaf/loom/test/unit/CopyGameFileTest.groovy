@@ -0,0 +1,150 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import dev.aoqia.leaf.loom.util.Checksum
+import dev.aoqia.leaf.loom.util.copygamefile.CopyGameFile
+import dev.aoqia.leaf.loom.util.copygamefile.CopyGameFileExecutor
+
+class CopyGameFileTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "copy with hash"() {
+		given:
+		def source = tempDir.resolve("game.jar")
+		Files.writeString(source, "Hello World")
+		def output = tempDir.resolve("cache/game.jar")
+
+		when:
+		CopyGameFile.create(source)
+				.sha1(Checksum.of(source).sha1().hex())
+				.copyGameFileFromPath(output)
+
+		then:
+		Files.readString(output) == "Hello World"
+		Files.notExists(tempDir.resolve("cache/game.jar.part"))
+	}
+
+	def "invalid hash"() {
+		given:
+		def source = tempDir.resolve("game.jar")
+		Files.writeString(source, "Hello World")
+		def output = tempDir.resolve("cache/game.jar")
+
+		when:
+		CopyGameFile.create(source)
+				.sha1("d139cccf047a749691416ce385d3f168c1e28309")
+				.maxRetries(1)
+				.copyGameFileFromPath(output)
+
+		then:
+		thrown IOException
+		Files.notExists(output)
+	}
+
+	def "skip unchanged source"() {
+		given:
+		def source = tempDir.resolve("game.jar")
+		Files.writeString(source, "Hello World")
+		def output = tempDir.resolve("cache/game.jar")
+
+		when:
+		CopyGameFile.create(source).copyGameFileFromPath(output)
+		// Modify the output to detect if it is copied again
+		Files.writeString(output, "Hello Moon!")
+		CopyGameFile.create(source).copyGameFileFromPath(output)
+
+		then:
+		Files.readString(output) == "Hello Moon!"
+
+		when:
+		Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 10_000))
+		CopyGameFile.create(source).copyGameFileFromPath(output)
+
+		then:
+		Files.readString(output) == "Hello World"
+	}
+
+	def "skip matching hash"() {
+		given:
+		def source = tempDir.resolve("game.jar")
+		Files.writeString(source, "Hello World")
+		def sha1 = Checksum.of(source).sha1().hex()
+		def output = tempDir.resolve("cache/game.jar")
+
+		when:
+		CopyGameFile.create(source).sha1(sha1).copyGameFileFromPath(output)
+		// Same length, different content, only the LoomHash attribute can show the output as intact
+		Files.writeString(output, "Hello Moon!")
+		// Invalidate the recorded source stamp so the hash attribute is checked
+		Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 10_000))
+		CopyGameFile.create(source).sha1(sha1).copyGameFileFromPath(output)
+
+		then:
+		Files.readString(output) == "Hello Moon!"
+
+		when:
+		CopyGameFile.create(source).sha1(sha1).forced().copyGameFileFromPath(output)
+
+		then:
+		Files.readString(output) == "Hello World"
+	}
+
+	def "copy batch skips unchanged"() {
+		given:
+		def source = tempDir.resolve("game.jar")
+		Files.writeString(source, "Hello World")
+		def outputs = (0..<4).collect { tempDir.resolve("cache/game-${it}.jar") }
+
+		when:
+		CopyGameFileExecutor.copyAll(outputs.collectEntries { [(it): CopyGameFile.create(source)] })
+		outputs.each { Files.writeString(it, "Hello Moon!") }
+		CopyGameFileExecutor.copyAll(outputs.collectEntries { [(it): CopyGameFile.create(source)] })
+
+		then:
+		outputs.every { Files.readString(it) == "Hello Moon!" }
+	}
+
+	def "copy batch"() {
+		given:
+		def source = tempDir.resolve("game.jar")
+		Files.writeString(source, "Hello World")
+		def copies = (0..<4).collectEntries { [(tempDir.resolve("cache/game-${it}.jar")): CopyGameFile.create(source)] }
+
+		when:
+		CopyGameFileExecutor.copyAll(copies)
+
+		then:
+		copies.keySet().every { Files.readString(it) == "Hello World" }
+	}
+}
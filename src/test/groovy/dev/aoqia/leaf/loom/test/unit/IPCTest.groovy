@@ -63,4 +63,44 @@ class IPCTest extends Specification {
 		received[0] == "Test"
 		received[1] == "Hello"
 	}
+
+	def "multiple clients"() {
+		given:
+		def path = Files.createTempFile("loom", "ipc")
+		Files.deleteIfExists(path)
+
+		def received = Collections.synchronizedList([])
+		def resets = Collections.synchronizedList([])
+		def listener = new IPCServer.Listener() {
+			@Override
+			void progress(int clientId, long threadId, String message) {
+				received << "${clientId}/${message}".toString()
+			}
+
+			@Override
+			void reset(int clientId) {
+				resets << clientId
+			}
+		}
+
+		when:
+		def ipcServer = new IPCServer(path, listener)
+
+		new IPCClient(path).withCloseable { first ->
+			new IPCClient(path).withCloseable { second ->
+				first.accept("Hello")
+				second.accept("World")
+				first.reset()
+				second.reset()
+			}
+		}
+
+		// Allow ipcServer to finish reading, before closing.
+		while (resets.size() != 2) { }
+		ipcServer.close()
+
+		then:
+		received.toSorted() == ["0/Hello", "1/World"]
+		resets.toSorted() == [0, 1]
+	}
 }
@@ -0,0 +1,125 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.test.unit
+
+import java.nio.charset.StandardCharsets
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+
+import com.google.gson.JsonObject
+import org.gradle.api.tasks.bundling.ZipEntryCompression
+import spock.lang.Specification
+
+import dev.aoqia.leaf.loom.util.JarEntryPipeline
+import dev.aoqia.leaf.loom.util.ZipUtils
+
+class JarEntryPipelineTest extends Specification {
+	def "read, transform and write once"() {
+		given:
+		def dir = File.createTempDir()
+		def zip = File.createTempFile("loom-zip-test", ".zip").toPath()
+		new File(dir, "META-INF").mkdirs()
+		new File(dir, "META-INF/MANIFEST.MF").text = "Manifest-Version: 1.0\n"
+		new File(dir, "b.txt").text = "b"
+		new File(dir, "a/c.json").parentFile.mkdirs()
+		new File(dir, "a/c.json").text = '{"key": "value"}'
+		ZipUtils.pack(dir.toPath(), zip)
+
+		when:
+		def jar = JarEntryPipeline.read(zip)
+		jar.transform("b.txt") { new String(it, StandardCharsets.UTF_8).toUpperCase().getBytes(StandardCharsets.UTF_8) }
+		jar.transformJson(JsonObject.class, "a/c.json") {
+			it.addProperty("added", true)
+			it
+		}
+		jar.put("d.txt", "d".getBytes(StandardCharsets.UTF_8))
+		jar.write(zip, true, false, ZipEntryCompression.DEFLATED)
+
+		then:
+		def zipFile = new ZipFile(zip.toFile())
+		zipFile.stream().map(ZipEntry::getName).toList() == ["META-INF/MANIFEST.MF", "META-INF/", "a/", "a/c.json", "b.txt", "d.txt"]
+		zipFile.stream().allMatch { it.time == new GregorianCalendar(1980, Calendar.JANUARY, 1, 0, 0, 0).getTimeInMillis() }
+		zipFile.close()
+
+		new String(ZipUtils.unpack(zip, "b.txt"), StandardCharsets.UTF_8) == "B"
+		def json = ZipUtils.unpackJson(zip, "a/c.json", JsonObject.class)
+		json.get("key").asString == "value"
+		json.get("added").asBoolean
+	}
+
+	def "transform missing entry"() {
+		given:
+		def jar = new JarEntryPipeline()
+
+		when:
+		def transformed = jar.transform("missing.txt") { it }
+
+		then:
+		!transformed
+	}
+
+	def "put file is read on write"() {
+		given:
+		def zip = File.createTempFile("loom-zip-test", ".zip").toPath()
+		def nested = File.createTempFile("loom-nested", ".txt")
+		def jar = new JarEntryPipeline()
+
+		when:
+		jar.putFile("META-INF/jars/nested.txt", nested.toPath())
+		nested.text = "written after staging"
+		jar.write(zip, true, false, ZipEntryCompression.STORED)
+
+		then:
+		new String(ZipUtils.unpack(zip, "META-INF/jars/nested.txt"), StandardCharsets.UTF_8) == "written after staging"
+	}
+
+	def "put file twice"() {
+		given:
+		def file = File.createTempFile("loom-nested", ".txt").toPath()
+		def jar = new JarEntryPipeline()
+		jar.putFile("nested.txt", file)
+
+		when:
+		jar.putFile("nested.txt", file)
+
+		then:
+		thrown IllegalArgumentException
+	}
+
+	def "failed write removes the temp file"() {
+		given:
+		def zip = File.createTempFile("loom-zip-test", ".zip").toPath()
+		def missing = zip.resolveSibling("loom-missing-" + UUID.randomUUID() + ".txt")
+		def jar = new JarEntryPipeline()
+		jar.putFile("missing.txt", missing)
+
+		when:
+		jar.write(zip, true, false, ZipEntryCompression.DEFLATED)
+
+		then:
+		thrown IOException
+		!zip.resolveSibling(zip.fileName.toString() + ".tmp").toFile().exists()
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.test.unit
+
+import java.nio.file.Path
+import java.util.zip.ZipFile
+
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import dev.aoqia.leaf.loom.decompilers.JarShards
+import dev.aoqia.leaf.loom.test.util.ZipTestUtils
+import dev.aoqia.leaf.loom.util.ZipUtils
+
+class JarShardsTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "split keeps inner classes with their outer class"() {
+		given:
+		def jar = ZipTestUtils.createZipFromBytes([
+			"a/A.class": newClass("a/A", ["a/A\$Inner"] as String[]),
+			"a/A\$Inner.class": newInnerClass("a/A\$Inner", "a/A", "Inner"),
+			"a/B.class": newClass("a/B"),
+			"b/C.class": newClass("b/C"),
+			"b/D.class": newClass("b/D"),
+			"data.txt": "Hello".bytes
+		])
+
+		when:
+		def shards = JarShards.split(jar, 4, tempDir, true)
+		def entries = shards.collect { shard -> getFiles(shard) }
+
+		then:
+		shards.size() > 1
+		shards.size() <= 4
+		entries.flatten().sort() == ["a/A\$Inner.class", "a/A.class", "a/B.class", "b/C.class", "b/D.class", "data.txt"]
+		entries.find { it.contains("a/A.class") }.contains("a/A\$Inner.class")
+		entries[0].contains("data.txt")
+	}
+
+	def "split into a single shard"() {
+		given:
+		def jar = ZipTestUtils.createZipFromBytes([
+			"a/A.class": newClass("a/A"),
+			"a/B.class": newClass("a/B"),
+		])
+
+		when:
+		def shards = JarShards.split(jar, 1, tempDir, true)
+
+		then:
+		shards.size() == 1
+		getFiles(shards[0]) == ["a/A.class", "a/B.class"] as Set
+	}
+
+	def "merge shards"() {
+		given:
+		def first = ZipTestUtils.createZip(["a/A.java": "A", "META-INF/MANIFEST.MF": "First"])
+		def second = ZipTestUtils.createZip(["b/B.java": "B", "META-INF/MANIFEST.MF": "Second"])
+		def output = tempDir.resolve("merged.jar")
+
+		when:
+		JarShards.merge([first, second], output)
+
+		then:
+		ZipUtils.unpack(output, "a/A.java") == "A".bytes
+		ZipUtils.unpack(output, "b/B.java") == "B".bytes
+		ZipUtils.unpack(output, "META-INF/MANIFEST.MF") == "First".bytes
+	}
+
+	private static Set<String> getFiles(Path jar) {
+		return new ZipFile(jar.toFile()).withCloseable { zip ->
+			zip.entries().collect { it.name }.findAll { !it.endsWith("/") } as Set
+		}
+	}
+
+	private static byte[] newClass(String name, String[] innerNames = null) {
+		def writer = new ClassWriter(0)
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null)
+		if (innerNames != null) {
+			for (String innerName : innerNames) {
+				writer.visitInnerClass(innerName, null, null, 0)
+			}
+		}
+		return writer.toByteArray()
+	}
+
+	private static byte[] newInnerClass(String name, String outerClass, String innerName) {
+		def writer = new ClassWriter(0)
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null)
+		writer.visitInnerClass(name, outerClass, innerName, 0)
+		return writer.toByteArray()
+	}
+}
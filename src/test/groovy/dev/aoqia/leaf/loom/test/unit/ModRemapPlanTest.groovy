@@ -0,0 +1,113 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import dev.aoqia.leaf.loom.configuration.mods.ModRemapPlan
+import dev.aoqia.leaf.loom.configuration.mods.dependency.ModDependencyOptions
+import dev.aoqia.leaf.loom.configuration.mods.dependency.SimpleModDependency
+import dev.aoqia.leaf.loom.test.util.GradleTestUtil
+import dev.aoqia.leaf.loom.util.CacheKey
+
+import static org.mockito.Mockito.mock
+import static org.mockito.Mockito.when
+
+class ModRemapPlanTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "same artifact from several configurations is remapped once"() {
+		given:
+		def jar = createJar("mod.jar", "mod")
+		def options = createOptions(false)
+		def plan = new ModRemapPlan("named")
+		def first = createDependency(jar, options, "cache/mod.jar")
+		def second = createDependency(jar, options, "cache/mod.jar")
+		def copy = createDependency(createJar("copy.jar", "mod"), options, "cache/copy.jar")
+
+		when:
+		plan.add(first)
+		plan.add(second)
+		plan.add(copy)
+		def runs = plan.getRuns()
+
+		then:
+		plan.getGroups().size() == 1
+		runs.size() == 1
+		runs[0].groups()[0].input() == first
+		// The second dependency writes to the same cache file as the first
+		runs[0].groups()[0].targets() == [first, copy]
+		runs[0].inputFiles() == [jar, copy.getInputFile()] as Set
+	}
+
+	def "artifact used with several options is remapped in separate runs"() {
+		given:
+		def jar = createJar("mod.jar", "mod")
+		def other = createJar("other.jar", "other")
+		def plan = new ModRemapPlan("named")
+		def plain = createDependency(jar, createOptions(false), "cache/mod-plain.jar")
+		def inlined = createDependency(jar, createOptions(true), "cache/mod-inlined.jar")
+		def otherDependency = createDependency(other, createOptions(false), "cache/other.jar")
+
+		when:
+		plan.add(plain)
+		plan.add(inlined)
+		plan.add(otherDependency)
+		def runs = plan.getRuns()
+
+		then:
+		plan.getGroups().size() == 3
+		runs.size() == 2
+		runs[0].groups()*.input() == [plain, otherDependency]
+		runs[0].inputFiles() == [jar, other] as Set
+		runs[1].groups()*.input() == [inlined]
+		// The other mod is read onto the classpath of the second run
+		runs[1].inputFiles() == [jar] as Set
+	}
+
+	private Path createJar(String name, String content) {
+		return Files.writeString(tempDir.resolve(name), content)
+	}
+
+	private static ModDependencyOptions createOptions(boolean inlineRefmap) {
+		return CacheKey.create(GradleTestUtil.mockProject(), ModDependencyOptions) {
+			it.getMappings().set("testMappings")
+			it.getInlineRefmap().set(inlineRefmap)
+		}
+	}
+
+	private SimpleModDependency createDependency(Path inputFile, ModDependencyOptions options, String cacheFile) {
+		def dependency = mock(SimpleModDependency.class)
+		when(dependency.getInputFile()).thenReturn(inputFile)
+		when(dependency.getOptions()).thenReturn(options)
+		when(dependency.getCacheFiles(null)).thenReturn([tempDir.resolve(cacheFile)])
+		return dependency
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.test.unit
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.util.jar.Manifest
+
+import com.google.gson.JsonObject
+import spock.lang.Specification
+
+import dev.aoqia.leaf.loom.configuration.mods.ModResourceProcessor
+import dev.aoqia.leaf.loom.test.util.ZipTestUtils
+import dev.aoqia.leaf.loom.util.Constants
+import dev.aoqia.leaf.loom.util.Pair
+import dev.aoqia.leaf.loom.util.ZipUtils
+import net.fabricmc.tinyremapper.OutputConsumerPath
+import net.fabricmc.tinyremapper.TinyRemapper
+
+class ModResourceProcessorTest extends Specification {
+	def "process mod resources while writing the remapped jar"() {
+		given:
+		def input = ZipTestUtils.createZip([
+			"META-INF/MANIFEST.MF": ZipTestUtils.manifest("Test", "value"),
+			"leaf.mod.json": '{"id": "test", "jars": [{"file": "nested.jar"}]}',
+			"test.accesswidener": "original",
+			"other.txt": "other"
+		], ".jar")
+		def output = Files.createTempDirectory("loom-test").resolve("output.jar")
+		def remapper = TinyRemapper.newRemapper().build()
+
+		when:
+		try {
+			new OutputConsumerPath.Builder(output).build().withCloseable {
+				it.addNonClassFiles(input, remapper, ModResourceProcessor.create("named", new Pair<>("remapped".getBytes(StandardCharsets.UTF_8), "test.accesswidener")))
+			}
+		} finally {
+			remapper.finish()
+		}
+
+		def manifest = new Manifest(new ByteArrayInputStream(ZipUtils.unpack(output, Constants.Manifest.PATH)))
+		def modJson = ZipUtils.unpackJson(output, "leaf.mod.json", JsonObject.class)
+
+		then:
+		manifest.mainAttributes.getValue(Constants.Manifest.MAPPING_NAMESPACE) == "named"
+		manifest.mainAttributes.getValue("Test") == "value"
+		modJson.get("id").asString == "test"
+		!modJson.has("jars")
+		new String(ZipUtils.unpack(output, "test.accesswidener"), StandardCharsets.UTF_8) == "remapped"
+		new String(ZipUtils.unpack(output, "other.txt"), StandardCharsets.UTF_8) == "other"
+	}
+}
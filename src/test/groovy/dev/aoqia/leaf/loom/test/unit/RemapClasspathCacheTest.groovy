@@ -0,0 +1,93 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import java.time.Duration
+import java.time.Instant
+
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.tree.ClassNode
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import dev.aoqia.leaf.loom.util.RemapClasspathCache
+import dev.aoqia.leaf.loom.util.ZipUtils
+
+class RemapClasspathCacheTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "cache stripped classpath jar"() {
+		given:
+		def jar = tempDir.resolve("input.jar")
+		def cacheDir = tempDir.resolve("cache")
+		def classBytes = RemapClasspathCacheTest.getResourceAsStream("RemapClasspathCacheTest.class").bytes
+		ZipUtils.add(jar, "test/Example.class", classBytes)
+		ZipUtils.add(jar, "test/example.txt", "Hello world")
+
+		when:
+		def cachedJar = RemapClasspathCache.get(cacheDir, jar)
+		def cachedAgain = RemapClasspathCache.get(cacheDir, jar)
+		def node = new ClassNode()
+		new ClassReader(ZipUtils.unpack(cachedJar, "test/Example.class")).accept(node, 0)
+
+		then:
+		cachedJar.startsWith(cacheDir)
+		cachedAgain == cachedJar
+		!ZipUtils.contains(cachedJar, "test/example.txt")
+		node.name == RemapClasspathCacheTest.name.replace('.', '/')
+		!node.methods.isEmpty()
+		node.methods.every { it.instructions.size() == 0 }
+	}
+
+	def "directories are not cached"() {
+		when:
+		def result = RemapClasspathCache.get(tempDir.resolve("cache"), tempDir)
+
+		then:
+		result == tempDir
+	}
+
+	def "prune jars that have not been used"() {
+		given:
+		def jar = tempDir.resolve("input.jar")
+		def cacheDir = tempDir.resolve("cache")
+		ZipUtils.add(jar, "test/Example.class", RemapClasspathCacheTest.getResourceAsStream("RemapClasspathCacheTest.class").bytes)
+		def cachedJar = RemapClasspathCache.get(cacheDir, jar)
+		def unusedJar = cachedJar.resolveSibling("unused.jar")
+		Files.copy(cachedJar, unusedJar)
+		Files.setLastModifiedTime(unusedJar, FileTime.from(Instant.now() - Duration.ofDays(40)))
+
+		when:
+		RemapClasspathCache.prune(cacheDir, Duration.ofDays(30))
+
+		then:
+		Files.exists(cachedJar)
+		Files.notExists(unusedJar)
+	}
+}
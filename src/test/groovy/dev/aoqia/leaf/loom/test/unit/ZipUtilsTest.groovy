@@ -27,6 +27,9 @@ package dev.aoqia.leaf.loom.test.unit
 import java.nio.charset.StandardCharsets
 import java.nio.file.Files
 import java.time.ZoneId
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+import java.util.zip.ZipOutputStream
 
 import com.google.gson.JsonObject
 import org.gradle.api.tasks.bundling.ZipEntryCompression
@@ -35,6 +38,7 @@ import spock.lang.Specification
 import dev.aoqia.leaf.loom.util.Checksum
 import dev.aoqia.leaf.loom.util.FileSystemUtil
 import dev.aoqia.leaf.loom.util.Pair
+import dev.aoqia.leaf.loom.util.RawZipFile
 import dev.aoqia.leaf.loom.util.ZipReprocessorUtil
 import dev.aoqia.leaf.loom.util.ZipUtils
 
@@ -180,7 +184,7 @@ class ZipUtilsTest extends Specification {
 		then:
 		ZipUtils.unpack(zip, "text.txt") == "hello world".bytes
 		ZipUtils.unpack(zip, "fabric.mod.json") == "Some text".bytes
-		Checksum.of(zip).sha1().hex() == "1b06cc0aaa65ab2b0d423fe33431ff5bd14bf9c8"
+		Checksum.of(zip).sha1().hex() == "64a0a05c7c202dbac01655fb7cb166403ba0de1f"
 
 		where:
 		timezone 			| _
@@ -256,7 +260,77 @@ class ZipUtilsTest extends Specification {
 
 		then:
 		ZipUtils.unpack(zip, "text.txt") == "hello world".bytes
-		Checksum.of(zip).sha1().hex() == "e699fa52a520553241aac798f72255ac0a912b05"
+		Checksum.of(zip).sha1().hex() == "2775ed1437a208a70d047f775c1bd7f820599c6a"
+	}
+
+	def "reprocess copies compressed entries"() {
+		given:
+		def dir = Files.createTempDirectory("loom-zip-test")
+		def zip = Files.createTempFile("loom-zip-test", ".zip")
+		Files.writeString(dir.resolve("a.txt"), "hello world " * 100)
+		Files.writeString(dir.resolve("b.txt"), "goodbye world " * 100)
+		ZipUtils.pack(dir, zip)
+
+		def compressedSizes = { path ->
+			def zipFile = RawZipFile.open(path)
+			def sizes = zipFile.entries().collectEntries { [it.name(), it.compressedSize()] }
+			zipFile.close()
+			sizes
+		}
+		def before = compressedSizes(zip)
+
+		when:
+		ZipReprocessorUtil.reprocessZip(zip, true, false)
+		ZipReprocessorUtil.transformZipEntry(zip, "b.txt") { "transformed".bytes }
+
+		then:
+		def after = compressedSizes(zip)
+		after["a.txt"] == before["a.txt"]
+		after["b.txt"] != before["b.txt"]
+		ZipUtils.unpack(zip, "a.txt") == ("hello world " * 100).bytes
+		ZipUtils.unpack(zip, "b.txt") == "transformed".bytes
+	}
+
+	def "reprocess zip64"() {
+		given:
+		// More entries than fit in the classic end of central directory record
+		def zip = Files.createTempFile("loom-zip-test", ".zip")
+		def entryCount = 70000
+		new ZipOutputStream(Files.newOutputStream(zip)).withCloseable { out ->
+			(0..<entryCount).each {
+				out.putNextEntry(new ZipEntry("entry${it}.txt"))
+				out.write("value${it}".bytes)
+				out.closeEntry()
+			}
+		}
+
+		when:
+		ZipReprocessorUtil.reprocessZip(zip, true, false)
+
+		then:
+		new ZipFile(zip.toFile()).withCloseable { it.size() } == entryCount
+		ZipUtils.unpack(zip, "entry69999.txt") == "value69999".bytes
+		RawZipFile.open(zip).withCloseable { it.entries().size() } == entryCount
+	}
+
+	def "reprocess failure removes temp file"() {
+		given:
+		def dir = Files.createTempDirectory("loom-zip-test")
+		def zip = Files.createTempFile("loom-zip-test", ".zip")
+		Files.writeString(dir.resolve("a.txt"), "hello world")
+		ZipUtils.pack(dir, zip)
+
+		// Corrupt the local header of the first entry, the central directory is still readable
+		def bytes = Files.readAllBytes(zip)
+		bytes[0] = 0
+		Files.write(zip, bytes)
+
+		when:
+		ZipReprocessorUtil.reprocessZip(zip, true, false)
+
+		then:
+		thrown(IOException)
+		Files.notExists(zip.resolveSibling(zip.fileName.toString() + ".tmp"))
 	}
 
 	def "transform async"() {
@@ -24,6 +24,7 @@
 
 package dev.aoqia.leaf.loom.test.unit.cache
 
+import java.nio.ByteBuffer
 import java.nio.channels.FileChannel
 import java.nio.file.Files
 import java.nio.file.Path
@@ -34,6 +35,7 @@ import spock.lang.TempDir
 
 import dev.aoqia.leaf.loom.decompilers.ClassLineNumbers
 import dev.aoqia.leaf.loom.decompilers.cache.CachedData
+import dev.aoqia.leaf.loom.decompilers.cache.RiffChunk
 
 class CachedDataTest extends Specification {
 	@TempDir
@@ -59,4 +61,64 @@ class CachedDataTest extends Specification {
 		then:
 		cachedData == readCachedData
 	}
+
+	def "Read compressed CachedData from a stream"() {
+		given:
+		def sources = "public class TestClass {\n" + ("   public void method() {\n      return;\n   }\n" * 100) + "}\n"
+		def cachedData = new CachedData("net/test/TestClass", sources, null)
+		def path = testPath.resolve("cachedData.bin")
+		when:
+		FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE).withCloseable {
+			cachedData.write(it)
+		}
+
+		// Trailing data after the entry must not be read
+		def bytes = Files.readAllBytes(path) + "trailing".bytes
+		def readCachedData = CachedData.read(new ByteArrayInputStream(bytes))
+
+		then:
+		Files.size(path) < sources.length() / 4
+		cachedData == readCachedData
+	}
+
+	def "Detect corrupt CachedData"() {
+		given:
+		def cachedData = new CachedData("net/test/TestClass", "Example sources", null)
+		def path = testPath.resolve("cachedData.bin")
+		FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE).withCloseable {
+			cachedData.write(it)
+		}
+		def bytes = Files.readAllBytes(path)
+		bytes[bytes.length - 1] ^= 1
+
+		when:
+		CachedData.read(new ByteArrayInputStream(bytes))
+
+		then:
+		def e = thrown(IOException)
+		e.message == "Checksum mismatch in chunk SRC "
+	}
+
+	def "Read version 1 CachedData"() {
+		given:
+		def path = testPath.resolve("cachedData.bin")
+		FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE).withCloseable { channel ->
+			new RiffChunk("LOOM", channel).withCloseable {
+				new RiffChunk("NAME", channel).withCloseable {
+					channel.write(ByteBuffer.wrap("net/test/TestClass".bytes))
+				}
+				new RiffChunk("SRC ", channel).withCloseable {
+					channel.write(ByteBuffer.wrap("Example sources".bytes))
+				}
+			}
+		}
+
+		when:
+		def readCachedData = Files.newInputStream(path).withCloseable {
+			return CachedData.read(it)
+		}
+
+		then:
+		readCachedData == new CachedData("net/test/TestClass", "Example sources", null)
+	}
 }
@@ -71,15 +71,15 @@ class CachedJarProcessorTest extends Specification {
 		def processor = new CachedJarProcessor(cache, "abc123")
 
 		when:
-		def workRequest = processor.prepareJob(jar)
+		def workRequest = processor.prepareJob(jar, false)
 		def workJob = workRequest.job() as CachedJarProcessor.FullWorkJob
 
 		then:
 		workRequest.lineNumbers() == null
 		workJob.outputNameMap().size() == 3
 
-		// Expect 3 calls looking for the existing entry in the cache
-		3 * cache.getEntry(_) >> null
+		// Expect a single lookup of the 3 entries in the cache
+		1 * cache.getEntries({ it.size() == 3 }) >> [:]
 
 		0 * _ // Strict mock
 	}
@@ -91,7 +91,7 @@ class CachedJarProcessorTest extends Specification {
 		def processor = new CachedJarProcessor(cache, "abc123")
 
 		when:
-		def workRequest = processor.prepareJob(jar)
+		def workRequest = processor.prepareJob(jar, false)
 		def workJob = workRequest.job() as CachedJarProcessor.PartialWorkJob
 		def lineMap = workRequest.lineNumbers().lineMap()
 
@@ -103,10 +103,8 @@ class CachedJarProcessorTest extends Specification {
 		ZipUtils.unpackNullable(workJob.existingSources(), "net/fabricmc/Example.java") == "Example sources".bytes
 		ZipUtils.unpackNullable(workJob.existingClasses(), "net/fabricmc/Example.class") == newClass("net/fabricmc/Example")
 
-		// Provide one cached entry
-		// And then 2 calls not finding the entry in the cache
-		1 * cache.getEntry(ExampleHash) >> ExampleCachedData
-		2 * cache.getEntry(_) >> null
+		// Provide one cached entry, the other 2 are not found in the cache
+		1 * cache.getEntries({ it.size() == 3 && it.contains(ExampleHash) }) >> [(ExampleHash): ExampleCachedData]
 
 		0 * _ // Strict mock
 	}
@@ -118,7 +116,7 @@ class CachedJarProcessorTest extends Specification {
 		def processor = new CachedJarProcessor(cache, "abc123")
 
 		when:
-		def workRequest = processor.prepareJob(jar)
+		def workRequest = processor.prepareJob(jar, false)
 		def workJob = workRequest.job() as CachedJarProcessor.CompletedWorkJob
 		def lineMap = workRequest.lineNumbers().lineMap()
 
@@ -133,11 +131,51 @@ class CachedJarProcessorTest extends Specification {
 		ZipUtils.unpackNullable(workJob.completed(), "net/fabricmc/other/Test.java") == "Test sources".bytes
 		ZipUtils.unpackNullable(workJob.completed(), "net/fabricmc/other/Test\$Dangling.java") == "Test\$Dangling sources".bytes
 
-		// Provide one cached entry
-		// And then 3 calls not finding the entry in the cache
-		1 * cache.getEntry(ExampleHash) >> ExampleCachedData
-		1 * cache.getEntry(TestHash) >> TestCachedData
-		1 * cache.getEntry(TestDanglingHash) >> TestDanglingCachedData
+		// Provide all the cached entries
+		1 * cache.getEntries({ it as Set == [ExampleHash, TestHash, TestDanglingHash] as Set }) >> [
+			(ExampleHash): ExampleCachedData,
+			(TestHash): TestCachedData,
+			(TestDanglingHash): TestDanglingCachedData
+		]
+
+		0 * _ // Strict mock
+	}
+
+	def "reuse class hashes of an unchanged jar"() {
+		given:
+		def jar = ZipTestUtils.createZipFromBytes(jarEntries)
+		def manifests = testPath.resolve("class-hashes")
+		def cache = Mock(CachedFileStore)
+		def processor = new CachedJarProcessor(cache, "abc123", manifests)
+
+		when:
+		processor.prepareJob(jar, false)
+		def written = Files.list(manifests).withCloseable { it.filter { it.toString().endsWith(".bin") }.count() }
+		processor.prepareJob(jar, false)
+
+		then:
+		written == 1
+		2 * cache.getEntries({ it as Set == [ExampleHash, TestHash, TestDanglingHash] as Set }) >> [:]
+
+		0 * _ // Strict mock
+	}
+
+	def "keep a class hash manifest per jar"() {
+		given:
+		def jar = ZipTestUtils.createZipFromBytes(jarEntries)
+		def otherJar = ZipTestUtils.createZipFromBytes(jarEntries)
+		def manifests = testPath.resolve("class-hashes-per-jar")
+		def cache = Mock(CachedFileStore)
+		def processor = new CachedJarProcessor(cache, "abc123", manifests)
+
+		when:
+		processor.prepareJob(jar, false)
+		processor.prepareJob(otherJar, false)
+		def written = Files.list(manifests).withCloseable { it.filter { it.toString().endsWith(".bin") }.count() }
+
+		then:
+		written == 2
+		2 * cache.getEntries({ it as Set == [ExampleHash, TestHash, TestDanglingHash] as Set }) >> [:]
 
 		0 * _ // Strict mock
 	}
@@ -149,7 +187,7 @@ class CachedJarProcessorTest extends Specification {
 		def processor = new CachedJarProcessor(cache, "abc123")
 
 		when:
-		def workRequest = processor.prepareJob(jar)
+		def workRequest = processor.prepareJob(jar, false)
 		def workJob = workRequest.job() as CachedJarProcessor.FullWorkJob
 
 		// Do the work, such as decompiling.
@@ -175,9 +213,7 @@ class CachedJarProcessorTest extends Specification {
 		ZipUtils.unpackNullable(outputJar, "net/fabricmc/other/Test\$Dangling.java") == "Test\$Dangling sources".bytes
 
 		// Expect 3 calls looking for the existingSources entry in the cache
-		1 * cache.getEntry(ExampleHash) >> null
-		1 * cache.getEntry(TestHash) >> null
-		1 * cache.getEntry(TestDanglingHash) >> null
+		1 * cache.getEntries({ it as Set == [ExampleHash, TestHash, TestDanglingHash] as Set }) >> [:]
 
 		// Expect the new work to be put into the cache
 		1 * cache.putEntry(ExampleHash, ExampleCachedData)
@@ -194,7 +230,7 @@ class CachedJarProcessorTest extends Specification {
 		def processor = new CachedJarProcessor(cache, "abc123")
 
 		when:
-		def workRequest = processor.prepareJob(jar)
+		def workRequest = processor.prepareJob(jar, false)
 		def workJob = workRequest.job() as CachedJarProcessor.PartialWorkJob
 
 		// Do the work
@@ -218,9 +254,10 @@ class CachedJarProcessorTest extends Specification {
 		ZipUtils.unpackNullable(outputJar, "net/fabricmc/other/Test\$Dangling.java") == "Test\$Dangling sources".bytes
 
 		// The cache already contains sources for example, but not for test
-		1 * cache.getEntry(ExampleHash) >> ExampleCachedData
-		1 * cache.getEntry(TestHash) >> null
-		1 * cache.getEntry(TestDanglingHash) >> TestDanglingCachedData
+		1 * cache.getEntries({ it as Set == [ExampleHash, TestHash, TestDanglingHash] as Set }) >> [
+			(ExampleHash): ExampleCachedData,
+			(TestDanglingHash): TestDanglingCachedData
+		]
 
 		// Expect the new work to be put into the cache
 		1 * cache.putEntry(TestHash, TestCachedData)
@@ -235,7 +272,7 @@ class CachedJarProcessorTest extends Specification {
 		def processor = new CachedJarProcessor(cache, "abc123")
 
 		when:
-		def workRequest = processor.prepareJob(jar)
+		def workRequest = processor.prepareJob(jar, false)
 		def workJob = workRequest.job() as CachedJarProcessor.CompletedWorkJob
 
 		def outputJar = Files.createTempFile("loom-test-output", ".jar")
@@ -254,9 +291,11 @@ class CachedJarProcessorTest extends Specification {
 		ZipUtils.unpackNullable(outputJar, "net/fabricmc/other/Test\$Dangling.java") == "Test\$Dangling sources".bytes
 
 		// The cache already contains sources for example, but not for test
-		1 * cache.getEntry(ExampleHash) >> ExampleCachedData
-		1 * cache.getEntry(TestHash) >> TestCachedData
-		1 * cache.getEntry(TestDanglingHash) >> TestDanglingCachedData
+		1 * cache.getEntries({ it as Set == [ExampleHash, TestHash, TestDanglingHash] as Set }) >> [
+			(ExampleHash): ExampleCachedData,
+			(TestHash): TestCachedData,
+			(TestDanglingHash): TestDanglingCachedData
+		]
 
 		0 * _ // Strict mock
 	}
@@ -291,7 +330,7 @@ class CachedJarProcessorTest extends Specification {
 		def processor = new CachedJarProcessor(cache, "abc123")
 
 		when:
-		def workRequest = processor.prepareJob(jar1)
+		def workRequest = processor.prepareJob(jar1, false)
 		def workJob = workRequest.job() as CachedJarProcessor.FullWorkJob
 		def outputSourcesJar = workJob.output()
 
@@ -309,7 +348,7 @@ class CachedJarProcessorTest extends Specification {
 		])
 		processor.completeJob(outputJar, workJob, lineNumbers)
 
-		workRequest = processor.prepareJob(jar2)
+		workRequest = processor.prepareJob(jar2, false)
 		def newWorkJob = workRequest.job()
 
 		then:
@@ -174,6 +174,43 @@ class JarWalkerTest extends Specification {
 		]
 	}
 
+	def "package filter"() {
+		given:
+		def jarEntries = [
+			"zombie/Example.class": newClass("zombie/Example", [] as String[], [
+				"zombie/Example\$Inner"
+			] as String[]),
+			"zombie/Example\$Inner.class": newInnerClass("zombie/Example\$Inner", "zombie/Example", "Inner"),
+			"com/library/Library.class": newClass("com/library/Library"),
+		]
+		def jar = ZipTestUtils.createZipFromBytes(jarEntries)
+
+		when:
+		def classes = JarWalker.findClasses(jar, decompileEverything)
+
+		then:
+		classes*.name() == expected
+		classes.find { it.name() == "zombie/Example.class" }.innerClasses() == ["zombie/Example\$Inner.class"]
+
+		where:
+		decompileEverything | expected
+		false               | ["zombie/Example.class"]
+		true                | ["com/library/Library.class", "zombie/Example.class"]
+	}
+
+	def "find every class when none are in the default packages"() {
+		given:
+		def jar = ZipTestUtils.createZipFromBytes([
+			"com/library/Library.class": newClass("com/library/Library"),
+		])
+
+		when:
+		def classes = JarWalker.findClasses(jar, false)
+
+		then:
+		classes*.name() == ["com/library/Library.class"]
+	}
+
 	private static byte[] newClass(String name, String[] interfaces = null, String[] innerNames = null, String superName = "java/lang/Object") {
 		def writer = new ClassWriter(0)
 		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, superName, interfaces)
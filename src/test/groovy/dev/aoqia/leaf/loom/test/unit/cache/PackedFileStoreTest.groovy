@@ -0,0 +1,207 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.test.unit.cache
+
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Clock
+import java.time.Duration
+import java.time.Instant
+import java.time.ZoneId
+import java.time.ZoneOffset
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import dev.aoqia.leaf.loom.decompilers.cache.CachedFileStore
+import dev.aoqia.leaf.loom.decompilers.cache.CachedFileStoreImpl
+import dev.aoqia.leaf.loom.decompilers.cache.PackedFileStore
+
+class PackedFileStoreTest extends Specification {
+	@TempDir
+	Path root
+
+	MutableClock clock = new MutableClock()
+
+	def "getEntry"() {
+		given:
+		def store = open(100, Duration.ofDays(7))
+		when:
+		store.putEntry("abc", "Hello world".bytes)
+		def entry = store.getEntry("abc")
+		def unknownEntry = store.getEntry("123")
+		store.close()
+		then:
+		entry == "Hello world".bytes
+		unknownEntry == null
+	}
+
+	def "getEntries"() {
+		given:
+		def store = open(100, Duration.ofDays(7))
+		when:
+		store.putEntry("abc", "Hello world".bytes)
+		store.putEntry("def", "Goodbye world".bytes)
+		def entries = store.getEntries(["def", "123", "abc"])
+		store.close()
+		then:
+		entries.size() == 2
+		entries["abc"] == "Hello world".bytes
+		entries["def"] == "Goodbye world".bytes
+	}
+
+	def "replace entry"() {
+		given:
+		def store = open(100, Duration.ofDays(7))
+		when:
+		store.putEntry("abc", "Hello world".bytes)
+		store.putEntry("abc", "Goodbye world".bytes)
+		def entry = store.getEntry("abc")
+		def size = store.size()
+		store.close()
+		then:
+		entry == "Goodbye world".bytes
+		size == 1
+	}
+
+	def "reopen"() {
+		given:
+		def store = open(100, Duration.ofDays(7))
+		when:
+		store.putEntry("abc", "Hello world".bytes)
+		store.close()
+
+		def reopened = open(100, Duration.ofDays(7))
+		def entry = reopened.getEntry("abc")
+		reopened.close()
+		then:
+		entry == "Hello world".bytes
+	}
+
+	def "pruneManyFiles"() {
+		given:
+		def store = open(250, Duration.ofDays(7))
+		when:
+		for (i in 0..<500) {
+			store.putEntry("test_" + i, "Hello world".bytes)
+			clock.millis += 1000
+		}
+
+		// Using an entry makes it the most recently used
+		store.getEntry("test_0")
+		store.prune()
+		then:
+		store.size() == 250
+		store.getEntry("test_0") != null
+		store.getEntry("test_100") == null
+		store.getEntry("test_300") != null
+		cleanup:
+		store.close()
+	}
+
+	def "pruneOldFiles"() {
+		given:
+		def store = open(1000, Duration.ofSeconds(250))
+		when:
+		for (i in 0..<500) {
+			store.putEntry("test_" + i, "Hello world".bytes)
+			clock.millis += 1000
+		}
+
+		store.prune()
+		then:
+		store.getEntry("test_100") == null
+		store.getEntry("test_300") != null
+		store.getEntry("test_499") != null
+		cleanup:
+		store.close()
+	}
+
+	def "compact"() {
+		given:
+		def store = open(50, Duration.ofDays(7))
+		when:
+		for (i in 0..<500) {
+			store.putEntry("test_" + i, ("Hello world " + i).bytes)
+			clock.millis += 1000
+		}
+
+		def packsBefore = countPacks()
+		store.prune()
+		store.awaitCompaction()
+		def packsAfter = countPacks()
+		def entry = store.getEntry("test_499")
+		store.close()
+
+		def reopened = open(50, Duration.ofDays(7))
+		def reopenedEntry = reopened.getEntry("test_450")
+		reopened.close()
+		then:
+		packsAfter < packsBefore
+		entry == "Hello world 499".bytes
+		reopenedEntry == "Hello world 450".bytes
+	}
+
+	private PackedFileStore<byte[]> open(int maxFiles, Duration maxAge) {
+		return PackedFileStore.open(root, BYTE_ARRAY_SERIALIZER, new CachedFileStoreImpl.CacheRules(maxFiles, maxAge), clock, 1024)
+	}
+
+	private long countPacks() {
+		return Files.list(root).withCloseable { it.filter { it.fileName.toString().startsWith("pack-") }.count() }
+	}
+
+	private static CachedFileStore.ChannelSerializer<byte[]> BYTE_ARRAY_SERIALIZER = new CachedFileStore.ChannelSerializer<byte[]>() {
+		@Override
+		byte[] read(InputStream inputStream) throws IOException {
+			return inputStream.readAllBytes()
+		}
+
+		@Override
+		void write(byte[] entry, FileChannel fileChannel) throws IOException {
+			fileChannel.write(ByteBuffer.wrap(entry))
+		}
+	}
+
+	static class MutableClock extends Clock {
+		long millis = 1_000_000
+
+		@Override
+		ZoneId getZone() {
+			return ZoneOffset.UTC
+		}
+
+		@Override
+		Clock withZone(ZoneId zone) {
+			return this
+		}
+
+		@Override
+		Instant instant() {
+			return Instant.ofEpochMilli(millis)
+		}
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.test.unit.download
+
+import java.nio.file.Files
+
+import io.javalin.http.Context
+import io.javalin.http.HttpStatus
+
+import dev.aoqia.leaf.loom.util.Checksum
+import dev.aoqia.leaf.loom.util.download.Download
+import dev.aoqia.leaf.loom.util.download.DownloadException
+
+class DownloadRangeTest extends DownloadTest {
+	// Large enough to be split into multiple chunks
+	static final byte[] DATA = new byte[10_500_000].tap { new Random(42).nextBytes(it) }
+	static final String SHA1 = Checksum.of(DATA).sha1().hex()
+
+	def "Range: Chunked"() {
+		setup:
+		def ranges = Collections.synchronizedList([])
+
+		server.get("/chunked") {
+			ranges << it.header("Range")
+			sendRange(it, DATA)
+		}
+
+		def output = new File(File.createTempDir(), "chunked.bin").toPath()
+
+		when:
+		def result = Download.create("$PATH/chunked")
+				.sha1(SHA1)
+				.downloadPath(output)
+
+		then:
+		result.didDownload()
+		Files.readAllBytes(output) == DATA
+		ranges.size() == 3
+		ranges.contains("bytes=0-4194303")
+		Files.notExists(output.resolveSibling("chunked.bin.part"))
+	}
+
+	def "Range: Resume part file"() {
+		setup:
+		def ranges = Collections.synchronizedList([])
+
+		server.get("/resume") {
+			ranges << it.header("Range")
+			sendRange(it, DATA)
+		}
+
+		def output = new File(File.createTempDir(), "resume.bin").toPath()
+		Files.write(output.resolveSibling("resume.bin.part"), Arrays.copyOf(DATA, 8_000_000))
+
+		when:
+		Download.create("$PATH/resume")
+				.sha1(SHA1)
+				.downloadPath(output)
+
+		then:
+		Files.readAllBytes(output) == DATA
+		ranges == ["bytes=8000000-12194303"]
+	}
+
+	def "Range: Retry failed chunk"() {
+		setup:
+		int failures = 2
+
+		server.get("/retry") {
+			def range = it.header("Range")
+
+			if (!range.startsWith("bytes=0-") && failures-- > 0) {
+				it.status(HttpStatus.INTERNAL_SERVER_ERROR)
+				return
+			}
+
+			sendRange(it, DATA)
+		}
+
+		def output = new File(File.createTempDir(), "retry.bin").toPath()
+
+		when:
+		Download.create("$PATH/retry")
+				.sha1(SHA1)
+				.maxRetries(1)
+				.downloadPath(output)
+
+		then:
+		Files.readAllBytes(output) == DATA
+	}
+
+	def "Range: Keep completed part after failure"() {
+		setup:
+		server.get("/failed") {
+			def range = it.header("Range")
+
+			if (!range.startsWith("bytes=0-")) {
+				it.status(HttpStatus.INTERNAL_SERVER_ERROR)
+				return
+			}
+
+			sendRange(it, DATA)
+		}
+
+		def output = new File(File.createTempDir(), "failed.bin").toPath()
+		def partFile = output.resolveSibling("failed.bin.part")
+
+		when:
+		Download.create("$PATH/failed")
+				.sha1(SHA1)
+				.maxRetries(1)
+				.downloadPath(output)
+
+		then:
+		thrown DownloadException
+		Files.notExists(output)
+		Files.size(partFile) == 4194304
+	}
+
+	def "Range: Not supported by server"() {
+		setup:
+		server.get("/noRange") {
+			it.result(DATA)
+		}
+
+		def output = new File(File.createTempDir(), "noRange.bin").toPath()
+		Files.write(output.resolveSibling("noRange.bin.part"), Arrays.copyOf(DATA, 1000))
+
+		when:
+		Download.create("$PATH/noRange")
+				.sha1(SHA1)
+				.downloadPath(output)
+
+		then:
+		Files.readAllBytes(output) == DATA
+	}
+
+	def "Range: Invalid hash"() {
+		setup:
+		server.get("/invalidHash") {
+			sendRange(it, DATA)
+		}
+
+		def output = new File(File.createTempDir(), "invalidHash.bin").toPath()
+
+		when:
+		Download.create("$PATH/invalidHash")
+				.sha1("d139cccf047a749691416ce385d3f168c1e28309")
+				.maxRetries(1)
+				.downloadPath(output)
+
+		then:
+		thrown DownloadException
+		Files.notExists(output)
+	}
+
+	private static void sendRange(Context context, byte[] data) {
+		def matcher = context.header("Range") =~ /bytes=(\d+)-(\d+)/
+
+		if (!matcher.matches()) {
+			context.result(data)
+			return
+		}
+
+		int start = matcher.group(1) as int
+		int end = Math.min(matcher.group(2) as int, data.length - 1)
+
+		if (start >= data.length) {
+			context.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+			return
+		}
+
+		context.status(HttpStatus.PARTIAL_CONTENT)
+		context.header("Content-Range", "bytes $start-$end/${data.length}")
+		context.result(Arrays.copyOfRange(data, start, end + 1))
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.test.unit.layeredmappings
+
+import java.nio.charset.StandardCharsets
+
+import spock.lang.Specification
+
+import dev.aoqia.leaf.loom.configuration.providers.mappings.LayeredMappingsProcessor
+import dev.aoqia.leaf.loom.configuration.providers.mappings.extras.unpick.UnpickLayer
+import dev.aoqia.leaf.loom.configuration.providers.mappings.unpick.UnpickMetadata
+
+class UnpickMergeTest extends Specification {
+	def "merge unpick definitions in order"() {
+		when:
+		def merged = LayeredMappingsProcessor.mergeUnpickData([
+			data(new UnpickMetadata.V2("named", null), "unpick v3\n\ngroup int A\n"),
+			data(new UnpickMetadata.V2("named", "com.example:constants:1.0"), "unpick v3\ngroup int B")
+		])
+
+		then:
+		merged.metadata() == new UnpickMetadata.V2("named", "com.example:constants:1.0")
+		new String(merged.definitions(), StandardCharsets.UTF_8) == "unpick v3\n\ngroup int A\ngroup int B\n"
+	}
+
+	def "reject incompatible unpick data"() {
+		when:
+		LayeredMappingsProcessor.mergeUnpickData([
+			data(first, "unpick v3\n"),
+			data(second, secondDefinitions)
+		])
+
+		then:
+		thrown(UnsupportedOperationException)
+
+		where:
+		first                                  | second                                 | secondDefinitions
+		new UnpickMetadata.V2("named", null)   | new UnpickMetadata.V2("official", null) | "unpick v3\n"
+		new UnpickMetadata.V2("named", "a:b:1") | new UnpickMetadata.V2("named", "a:b:2") | "unpick v3\n"
+		new UnpickMetadata.V2("named", null)   | new UnpickMetadata.V2("named", null)   | "v2\n"
+	}
+
+	private static UnpickLayer.UnpickData data(UnpickMetadata metadata, String definitions) {
+		return new UnpickLayer.UnpickData(metadata, definitions.getBytes(StandardCharsets.UTF_8))
+	}
+}
@@ -24,13 +24,27 @@
 
 package dev.aoqia.leaf.loom.test.unit.processor
 
+import java.nio.file.Path
+
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassVisitor
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
 import spock.lang.Specification
+import spock.lang.TempDir
 
+import dev.aoqia.leaf.loom.api.processor.ProcessorContext
 import dev.aoqia.leaf.loom.api.processor.SpecContext
+import dev.aoqia.leaf.loom.api.processor.ZomboidJarProcessor
 import dev.aoqia.leaf.loom.configuration.processors.ZomboidJarProcessorManager
 import dev.aoqia.leaf.loom.test.util.processor.TestMinecraftJarProcessor
+import dev.aoqia.leaf.loom.util.Constants
+import dev.aoqia.leaf.loom.util.ZipUtils
 
 class MinecraftJarProcessorManagerTest extends Specification {
+	@TempDir
+	Path tempDir
+
 	def "Cache value matches"() {
 		when:
 		def specContext = Mock(SpecContext)
@@ -59,4 +73,94 @@ class MinecraftJarProcessorManagerTest extends Specification {
 		manager1.jarHash == "a714eb2de6"
 		manager2.jarHash == "eb6faafa72"
 	}
+
+	def "Class processors are applied in order around other processors"() {
+		given:
+		def jar = tempDir.resolve("test.jar")
+		ZipUtils.add(jar, "Test.class", newClass("Test"))
+		ZipUtils.add(jar, "Other.class", newClass("Other"))
+
+		def legacy = new RecordingProcessor()
+		def processors = [
+			new InterfaceProcessor(name: "first", iface: "a/First", classNames: ["Test"] as Set),
+			new InterfaceProcessor(name: "second", iface: "a/Second", classNames: null),
+			legacy,
+			new InterfaceProcessor(name: "third", iface: "a/Third", classNames: ["Test"] as Set)
+		]
+		def manager = ZomboidJarProcessorManager.create(processors, Mock(SpecContext))
+
+		when:
+		manager.processJar(jar, Mock(ProcessorContext))
+
+		then:
+		legacy.interfaces == ["a/First", "a/Second"]
+		getInterfaces(jar, "Test") == ["a/First", "a/Second", "a/Third"]
+		getInterfaces(jar, "Other") == ["a/Second"]
+	}
+
+	private static byte[] newClass(String name) {
+		def writer = new ClassWriter(0)
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null)
+		return writer.toByteArray()
+	}
+
+	private static List<String> getInterfaces(Path jar, String className) {
+		return new ClassReader(ZipUtils.unpack(jar, className + ".class")).interfaces.toList()
+	}
+
+	static class TestSpec implements ZomboidJarProcessor.Spec {
+	}
+
+	static class InterfaceProcessor implements ZomboidJarProcessor<TestSpec> {
+		String name
+		String iface
+		Set<String> classNames
+
+		@Override
+		TestSpec buildSpec(SpecContext context) {
+			return new TestSpec()
+		}
+
+		@Override
+		void processJar(Path jar, TestSpec spec, ProcessorContext context) throws IOException {
+			throw new UnsupportedOperationException()
+		}
+
+		@Override
+		ZomboidJarProcessor.ClassProcessor<TestSpec> processClasses() {
+			return { spec, context ->
+				new ZomboidJarProcessor.ClassTransformer() {
+					@Override
+					Set<String> getTargets() {
+						return classNames
+					}
+
+					@Override
+					ClassVisitor createClassVisitor(String className, ClassVisitor next) {
+						return new ClassVisitor(Constants.ASM_VERSION, next) {
+							@Override
+							void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+								super.visit(version, access, name, signature, superName, ((interfaces ?: []) + iface) as String[])
+							}
+						}
+					}
+				}
+			} as ZomboidJarProcessor.ClassProcessor<TestSpec>
+		}
+	}
+
+	static class RecordingProcessor implements ZomboidJarProcessor<TestSpec> {
+		final String name = "legacy"
+		List<String> interfaces
+
+		@Override
+		TestSpec buildSpec(SpecContext context) {
+			return new TestSpec()
+		}
+
+		@Override
+		void processJar(Path jar, TestSpec spec, ProcessorContext context) throws IOException {
+			interfaces = getInterfaces(jar, "Test")
+		}
+	}
 }
@@ -0,0 +1,118 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.test.unit.providers
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import dev.aoqia.leaf.loom.configuration.providers.zomboid.assets.AssetIndex
+import dev.aoqia.leaf.loom.configuration.providers.zomboid.assets.GameFileValidator
+import dev.aoqia.leaf.loom.util.Checksum
+
+class GameFileValidatorTest extends Specification {
+	@TempDir
+	Path gameDir
+
+	@TempDir
+	Path cacheDir
+
+	def "valid game files"() {
+		given:
+		def index = createIndex(["media/a.txt": "Hello", "media/lua/b.lua": "World"])
+		def ledger = cacheDir.resolve("game_files.ledger")
+
+		when:
+		GameFileValidator.create(ledger).validate(gameDir, index.objects)
+
+		then:
+		noExceptionThrown()
+		Files.exists(ledger)
+	}
+
+	def "changed game file"() {
+		given:
+		def index = createIndex(["media/a.txt": "Hello"])
+		def ledger = cacheDir.resolve("game_files.ledger")
+		GameFileValidator.create(ledger).validate(gameDir, index.objects)
+
+		when:
+		def file = gameDir.resolve("media/a.txt")
+		def lastModified = Files.getLastModifiedTime(file)
+		Files.writeString(file, "Hallo")
+		Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified.toMillis() + 1000))
+		GameFileValidator.create(ledger).validate(gameDir, index.objects)
+
+		then:
+		def e = thrown IOException
+		e.message.contains("1 game files do not match")
+	}
+
+	def "missing game file"() {
+		given:
+		def index = createIndex(["media/a.txt": "Hello"])
+		Files.delete(gameDir.resolve("media/a.txt"))
+
+		when:
+		GameFileValidator.create(cacheDir.resolve("game_files.ledger")).validate(gameDir, index.objects)
+
+		then:
+		thrown FileNotFoundException
+	}
+
+	def "unchanged files use the ledger"() {
+		given:
+		def index = createIndex(["media/a.txt": "Hello"])
+		def ledger = cacheDir.resolve("game_files.ledger")
+		GameFileValidator.create(ledger).validate(gameDir, index.objects)
+
+		when:
+		// Same size and modification time as the validated file, so it is not hashed again
+		def file = gameDir.resolve("media/a.txt")
+		def lastModified = Files.getLastModifiedTime(file)
+		Files.writeString(file, "Hallo")
+		Files.setLastModifiedTime(file, lastModified)
+		GameFileValidator.create(ledger).validate(gameDir, index.objects)
+
+		then:
+		noExceptionThrown()
+	}
+
+	private AssetIndex createIndex(Map<String, String> files) {
+		def objects = new LinkedHashMap<String, AssetIndex.Entry>()
+
+		files.each { path, content ->
+			def file = gameDir.resolve(path)
+			Files.createDirectories(file.parent)
+			Files.writeString(file, content)
+			objects[path] = new AssetIndex.Entry(Checksum.of(content).sha1().hex(), content.length())
+		}
+
+		return new AssetIndex(objects, false, false)
+	}
+}
@@ -26,13 +26,21 @@ package dev.aoqia.leaf.loom.test.unit.providers
 
 import java.nio.file.Files
 import java.nio.file.Path
+import java.security.KeyPair
+import java.security.cert.CertificateFactory
+import java.security.cert.X509Certificate
+import java.util.zip.ZipFile
 
+import jdk.security.jarsigner.JarSigner
 import spock.lang.Specification
 
-import dev.aoqia.leaf.loom.configuration.providers.minecraft.verify.CertificateChain
-import dev.aoqia.leaf.loom.configuration.providers.minecraft.verify.JarVerifier
-import dev.aoqia.leaf.loom.configuration.providers.minecraft.verify.SignatureVerificationFailure
+import dev.aoqia.leaf.loom.configuration.providers.zomboid.verify.CertificateChain
+import dev.aoqia.leaf.loom.configuration.providers.zomboid.verify.JarVerifier
+import dev.aoqia.leaf.loom.configuration.providers.zomboid.verify.SignatureVerificationFailure
+import dev.aoqia.leaf.loom.configuration.providers.zomboid.verify.VerificationStamp
 import dev.aoqia.leaf.loom.test.LoomTestConstants
+import dev.aoqia.leaf.loom.test.util.CertificateUtils
+import dev.aoqia.leaf.loom.test.util.ZipTestUtils
 import dev.aoqia.leaf.loom.util.ZipUtils
 import dev.aoqia.leaf.loom.util.download.Download
 
@@ -112,6 +120,86 @@ class JarVerifierTest extends Specification {
 		e.message == "Certificate mismatch: CN=Fabric,OU=CI,O=Fabric,L=Unknown,ST=Unknown,C=Unknown != OU=Class 3 Public Primary Certification Authority,O=VeriSign\\, Inc.,C=US"
 	}
 
+	def "verify signed jar"() {
+		setup:
+		def keyPair = CertificateUtils.generateKeyPair()
+		def root = CertificateUtils.createCert(keyPair, "CN=Test Root Certificate")
+		def leaf = CertificateUtils.createCert(keyPair, "CN=Test Leaf Certificate", root)
+		def jar = createSignedJar(keyPair, [leaf, root])
+		when:
+		JarVerifier.verify(jar, CertificateChain.getRoot([root, leaf]))
+		then:
+		noExceptionThrown()
+	}
+
+	def "invalid signed jar, modified entry"() {
+		setup:
+		def keyPair = CertificateUtils.generateKeyPair()
+		def root = CertificateUtils.createCert(keyPair, "CN=Test Root Certificate")
+		def leaf = CertificateUtils.createCert(keyPair, "CN=Test Leaf Certificate", root)
+		def jar = createSignedJar(keyPair, [leaf, root])
+
+		ZipUtils.replace(jar, "a/b.txt", "Modified".bytes)
+		when:
+		JarVerifier.verify(jar, CertificateChain.getRoot([root, leaf]))
+		then:
+		def e = thrown SignatureVerificationFailure
+		e.message == "Jar entry a/b.txt failed signature verification"
+	}
+
+	def "invalid signed jar, unsigned entry"() {
+		setup:
+		def keyPair = CertificateUtils.generateKeyPair()
+		def root = CertificateUtils.createCert(keyPair, "CN=Test Root Certificate")
+		def leaf = CertificateUtils.createCert(keyPair, "CN=Test Leaf Certificate", root)
+		def jar = createSignedJar(keyPair, [leaf, root])
+
+		ZipUtils.add(jar, "extra.txt", "Hello World".bytes)
+		when:
+		JarVerifier.verify(jar, CertificateChain.getRoot([root, leaf]))
+		then:
+		def e = thrown SignatureVerificationFailure
+		e.message == "Jar entry extra.txt does not have a signature"
+	}
+
+	def "verification is recorded in the ledger"() {
+		setup:
+		def keyPair = CertificateUtils.generateKeyPair()
+		def root = CertificateUtils.createCert(keyPair, "CN=Test Root Certificate")
+		def leaf = CertificateUtils.createCert(keyPair, "CN=Test Leaf Certificate", root)
+		def jar = createSignedJar(keyPair, [leaf, root])
+		def ledger = Files.createTempDirectory("test").resolve("verified_jars.ledger")
+		def chain = CertificateChain.getRoot([root, leaf])
+
+		when:
+		JarVerifier.verify(jar, chain, VerificationStamp.create(ledger))
+		// A changed jar must be verified again, even though the ledger holds an entry for its path
+		ZipUtils.add(jar, "extra.txt", "Hello World".bytes)
+		JarVerifier.verify(jar, chain, VerificationStamp.create(ledger))
+
+		then:
+		def e = thrown SignatureVerificationFailure
+		e.message == "Jar entry extra.txt does not have a signature"
+		Files.exists(ledger)
+		// Nothing is written next to the verified jar
+		Files.list(jar.parent).withCloseable { it.toList() } == [jar]
+	}
+
+	static Path createSignedJar(KeyPair keyPair, List<X509Certificate> certificates) {
+		def unsignedJar = ZipTestUtils.createZip(["a/b.txt": "Hello", "c.txt": "World"], ".jar")
+		def signedJar = Files.createTempDirectory("test").resolve("signed.jar")
+		def certPath = CertificateFactory.getInstance("X.509").generateCertPath(certificates)
+		def signer = new JarSigner.Builder(keyPair.private, certPath).build()
+
+		new ZipFile(unsignedJar.toFile()).withCloseable { zip ->
+			Files.newOutputStream(signedJar).withCloseable { out ->
+				signer.sign(zip, out)
+			}
+		}
+
+		return signedJar
+	}
+
 	static Path downloadJarIfNotExists(String url, String name) {
 		File dst = new File(mcJarDir, name)
 
@@ -0,0 +1,109 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.test.unit.providers
+
+import java.nio.file.Path
+import java.util.zip.ZipFile
+
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import dev.aoqia.leaf.loom.configuration.providers.zomboid.mapped.AbstractMappedZomboidProvider
+import dev.aoqia.leaf.loom.test.util.ZipTestUtils
+import net.fabricmc.tinyremapper.IMappingProvider
+import net.fabricmc.tinyremapper.OutputConsumerPath
+import net.fabricmc.tinyremapper.TinyRemapper
+
+class MappedZomboidRemapTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "remap output is byte identical to a sequential remap"() {
+		given:
+		def library = ZipTestUtils.createZipFromBytes([
+			"lib/Base.class": createClass("lib/Base", "java/lang/Object")
+		], ".jar")
+		def input = ZipTestUtils.createZipFromBytes([
+			"a/A.class": createClass("a/A", "lib/Base"),
+			"a/B.class": createClass("a/B", "a/A"),
+			"assets/data.txt": "Hello World".bytes
+		], ".jar")
+
+		def expected = tempDir.resolve("expected.jar")
+		def actual = tempDir.resolve("actual.jar")
+
+		when:
+		remapSequential(createRemapper(), input, [library], expected)
+		AbstractMappedZomboidProvider.remap(createRemapper(), input, [library], actual)
+
+		then:
+		readEntries(actual).keySet() == ["assets/data.txt", "named/Foo.class", "named/Bar.class"] as Set
+		readEntries(actual) == readEntries(expected)
+	}
+
+	private static TinyRemapper createRemapper() {
+		IMappingProvider mappings = { acceptor ->
+			acceptor.acceptClass("a/A", "named/Foo")
+			acceptor.acceptClass("a/B", "named/Bar")
+		} as IMappingProvider
+
+		return TinyRemapper.newRemapper()
+				.withMappings(mappings)
+				.build()
+	}
+
+	// The reads the provider used to do before reading the classpath and inputs concurrently
+	private static void remapSequential(TinyRemapper remapper, Path input, List<Path> classpath, Path output) {
+		try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(output).build()) {
+			outputConsumer.addNonClassFiles(input)
+
+			for (Path path : classpath) {
+				remapper.readClassPath(path)
+			}
+
+			remapper.readInputs(input)
+			remapper.apply(outputConsumer)
+		} finally {
+			remapper.finish()
+		}
+	}
+
+	private static byte[] createClass(String name, String superName) {
+		def writer = new ClassWriter(0)
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, superName, null)
+		writer.visitEnd()
+		return writer.toByteArray()
+	}
+
+	private static Map<String, List<Byte>> readEntries(Path jar) {
+		new ZipFile(jar.toFile()).withCloseable { zip ->
+			return zip.entries().toList()
+					.findAll { !it.directory }
+					.collectEntries { [it.name, zip.getInputStream(it).bytes.toList()] }
+		}
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.test.unit.providers
+
+import java.nio.file.Path
+import java.util.zip.ZipFile
+
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.MethodVisitor
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.tree.ClassNode
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import dev.aoqia.leaf.loom.configuration.providers.zomboid.ZomboidJarMerger
+import dev.aoqia.leaf.loom.test.util.ZipTestUtils
+import dev.aoqia.leaf.loom.util.Constants
+import dev.aoqia.leaf.loom.util.ZipUtils
+
+class ZomboidJarMergerTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "merge client and server"() {
+		setup:
+		def client = ZipTestUtils.createZipFromBytes([
+			"META-INF/MANIFEST.MF": "Manifest-Version: 1.0\n".bytes,
+			"META-INF/SIGNER.SF": "signature".bytes,
+			"zombie/Common.class": createClass("zombie/Common", "a"),
+			"zombie/Merged.class": createClass("zombie/Merged", "a", "client"),
+			"zombie/ClientOnly.class": createClass("zombie/ClientOnly"),
+			"data.txt": "client".bytes
+		])
+		def server = ZipTestUtils.createZipFromBytes([
+			"zombie/Common.class": createClass("zombie/Common", "a"),
+			"zombie/Merged.class": createClass("zombie/Merged", "a", "server"),
+			"ServerOnly.class": createClass("ServerOnly"),
+			"org/library/Library.class": createClass("org/library/Library"),
+			"data.txt": "server".bytes
+		])
+		def out = tempDir.resolve("merged.jar")
+
+		when:
+		new ZomboidJarMerger(client.toFile(), server.toFile(), out.toFile()).withCloseable {
+			it.merge()
+		}
+
+		then:
+		entryNames(out) == [
+			"META-INF/MANIFEST.MF",
+			"ServerOnly.class",
+			"data.txt",
+			"zombie/ClientOnly.class",
+			"zombie/Common.class",
+			"zombie/Merged.class"
+		]
+		new String(ZipUtils.unpack(out, "data.txt")) == "client"
+		ZipUtils.unpack(out, "zombie/Common.class") == createClass("zombie/Common", "a")
+		getClassNode(out, "zombie/Merged").methods*.name as Set == ["a", "client", "server"] as Set
+		side(out, "zombie/ClientOnly") == "CLIENT"
+		side(out, "ServerOnly") == "SERVER"
+	}
+
+	static byte[] createClass(String name, String... methods) {
+		ClassWriter writer = new ClassWriter(0)
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null)
+
+		for (String method : methods) {
+			MethodVisitor visitor = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, method, "()V", null, null)
+			visitor.visitCode()
+			visitor.visitInsn(Opcodes.RETURN)
+			visitor.visitMaxs(0, 0)
+			visitor.visitEnd()
+		}
+
+		writer.visitEnd()
+		return writer.toByteArray()
+	}
+
+	static List<String> entryNames(Path jar) {
+		new ZipFile(jar.toFile()).withCloseable { zip ->
+			return zip.entries().collect { it.name }
+		}
+	}
+
+	static String side(Path jar, String owner) {
+		def annotation = getClassNode(jar, owner).visibleAnnotations?.find { it.desc == "Ldev/aoqia/leaf/loader/api/Environment;" }
+		return annotation?.values?.get(1)?.get(1)
+	}
+
+	static ClassNode getClassNode(Path jar, String owner) {
+		byte[] data = ZipUtils.unpack(jar, "${owner}.class")
+		ClassReader reader = new ClassReader(data)
+		ClassNode node = new ClassNode(Constants.ASM_VERSION)
+		reader.accept(node, 0)
+		return node
+	}
+}
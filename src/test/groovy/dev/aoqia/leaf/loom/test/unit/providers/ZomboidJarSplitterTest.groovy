@@ -0,0 +1,88 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.aoqia.leaf.loom.test.unit.providers
+
+import java.nio.file.Path
+import java.util.zip.ZipFile
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import dev.aoqia.leaf.loom.configuration.providers.zomboid.ZomboidJarSplitter
+import dev.aoqia.leaf.loom.test.util.ZipTestUtils
+import dev.aoqia.leaf.loom.util.Constants
+import dev.aoqia.leaf.loom.util.ZipUtils
+
+class ZomboidJarSplitterTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "split client and common"() {
+		setup:
+		def client = ZipTestUtils.createZip([
+			"META-INF/MANIFEST.MF": "Manifest-Version: 1.0\n",
+			"zombie/Common.class": "common",
+			"zombie/Client.class": "client",
+			"shared.txt": "client shared",
+			"forced.txt": "client forced"
+		])
+		def server = ZipTestUtils.createZip([
+			"zombie/Common.class": "common",
+			"shared.txt": "server shared",
+			"forced.txt": "server forced"
+		])
+		def clientOnly = tempDir.resolve("client.jar")
+		def common = tempDir.resolve("common.jar")
+
+		when:
+		new ZomboidJarSplitter(client, server).withCloseable {
+			it.sharedEntry("shared.txt")
+			it.forcedClientEntry("forced.txt")
+			it.split(clientOnly, common)
+		}
+
+		then:
+		entryNames(clientOnly) == [
+			"META-INF/MANIFEST.MF",
+			"forced.txt",
+			"shared.txt",
+			"zombie/Client.class"
+		]
+		entryNames(common) == [
+			"META-INF/MANIFEST.MF",
+			"shared.txt",
+			"zombie/Common.class"
+		]
+		new String(ZipUtils.unpack(clientOnly, "shared.txt")) == "client shared"
+		new String(ZipUtils.unpack(common, "shared.txt")) == "server shared"
+		new String(ZipUtils.unpack(common, Constants.Manifest.PATH)).contains("${Constants.Manifest.SPLIT_ENV_NAME}: common")
+	}
+
+	static List<String> entryNames(Path jar) {
+		new ZipFile(jar.toFile()).withCloseable { zip ->
+			return zip.entries().collect { it.name }
+		}
+	}
+}